@@ -45,6 +45,7 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 import examples.behavior.fitness.ClassicFitnessFunction;
 import examples.behavior.fitness.EvaluationEnvironment;
+import examples.behavior.functions.RandomChoiceFunction;
 import examples.behavior.terminals.EnvironmentDependendTerminal;
 import examples.behavior.world.Field;
 import examples.behavior.world.Orientation;
@@ -52,6 +53,7 @@ import examples.behavior.world.WorldMap;
 import gep.model.Chromosome;
 import gep.model.ExpressionTreeNode;
 import gep.model.Gene;
+import gep.model.GeneFunction;
 import gep.model.GeneTerminal;
 import gep.model.Individual;
 
@@ -187,10 +189,10 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 				} else {
 					if (simulationEnd) {
 						// reset
-						currentMap.initMap();
+						getCurrentMap().initMap();
 						resetTotalFitnessScore();
-						setAgentPos(currentMap.getStartPositionX(), currentMap.getStartPositionY());
-						setAgentOrientation(currentMap.getStartOrientation());
+						setAgentPos(getCurrentMap().getStartPositionX(), getCurrentMap().getStartPositionY());
+						setAgentOrientation(getCurrentMap().getStartOrientation());
 						updateGUI();
 						simulationEnd = false;
 						playBtn.setText("Execute");
@@ -226,12 +228,12 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 	}
 
 	private Container createMapContainer() {
-		GridLayout gridLayout = new GridLayout(currentMap.getDimensionY(), currentMap.getDimensionX());
+		GridLayout gridLayout = new GridLayout(getCurrentMap().getDimensionY(), getCurrentMap().getDimensionX());
 		Container mapContainer = new Container();
 		mapContainer.setLayout(gridLayout);
 
-		for (int y = currentMap.getDimensionY() - 1; y >= 0; y--) {
-			for (int x = 0; x < currentMap.getDimensionX(); x++) {
+		for (int y = getCurrentMap().getDimensionY() - 1; y >= 0; y--) {
+			for (int x = 0; x < getCurrentMap().getDimensionX(); x++) {
 				world[x][y] = new ImagePanel();
 				mapContainer.add(world[x][y]);
 			}
@@ -278,7 +280,7 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 		// thats definitely not the fastest method to achieve that
 		for (int x = 0; x < world.length; x++) {
 			for (int y = 0; y < world[0].length; y++) {
-				Field field = currentMap.getField(x, y);
+				Field field = getCurrentMap().getField(x, y);
 				world[x][y].removeAgentFromField();
 				world[x][y].setMarkerOnField(field.isMarker());
 				if (field.isWall()) {
@@ -298,7 +300,7 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 	}
 
 	private void executeOnce() {
-		if (getFoodConsumed() < currentMap.getFoodAmount()) {
+		if (getFoodConsumed() < getCurrentMap().getFoodAmount()) {
 			currentProgram.execute();
 			updateGUI();
 		} else {
@@ -363,6 +365,11 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 						envTerm.setEvaluationEnvironment(this);
 					}
 				}
+				for (GeneFunction<Boolean> func : g.architecture.potentialFunctions) {
+					if (func instanceof RandomChoiceFunction) {
+						((RandomChoiceFunction) func).setEvaluationEnvironment(this);
+					}
+				}
 			}
 		}
 
@@ -371,7 +378,7 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 
 	public void setWorldMap(WorldMap world) {
 		this.maps[0] = world;
-		super.currentMap = maps[0];
+		super.setCurrentMap(maps[0]);
 		this.world = new ImagePanel[world.getDimensionX()][world.getDimensionY()];
 		super.setAgentPos(world.getStartPositionX(), world.getStartPositionY());
 		super.setAgentOrientation(world.getStartOrientation());
@@ -393,6 +400,11 @@ public class BehaviorVisualizer extends EvaluationEnvironment {
 
 	}
 
+	@Override
+	protected double evaluateFitness(Individual<Boolean> individual, int generation, int individualIdx) {
+		throw new UnsupportedOperationException("This operation is not supported by the visualizer!");
+	}
+
 	public static class ImagePanel extends JPanel {
 
 		/**
@@ -36,6 +36,7 @@ import examples.behavior.terminals.TurnLeftTerminal;
 import examples.behavior.terminals.TurnRightTerminal;
 import examples.behavior.terminals.WallInFrontCheckTerminal;
 import examples.behavior.world.WorldMap;
+import gep.ConsoleGenerationListener;
 import gep.GeneExpressionProgramming;
 import gep.GepResult;
 import gep.ReproductionEnvironment;
@@ -209,7 +210,8 @@ public class EvolveBehavior {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	/**
@@ -266,7 +268,8 @@ public class EvolveBehavior {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	/**
@@ -337,7 +340,8 @@ public class EvolveBehavior {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	private static GepResult<Boolean> startWithSolution() {
@@ -410,7 +414,8 @@ public class EvolveBehavior {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, MAX_FITNESS_VALUE,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	private static ArrayList<WorldMap> createMaps() {
@@ -39,6 +39,7 @@ import examples.behavior.terminals.TurnLeftTerminal;
 import examples.behavior.terminals.TurnRightTerminal;
 import examples.behavior.terminals.WallInFrontCheckTerminal;
 import examples.behavior.world.WorldMap;
+import gep.ConsoleGenerationListener;
 import gep.GeneExpressionProgramming;
 import gep.GepResult;
 import gep.ReproductionEnvironment;
@@ -185,7 +186,8 @@ public class EvolveBehaviorExtended {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	private static GepResult<Boolean> startGeneConfiguration2() {
@@ -238,7 +240,8 @@ public class EvolveBehaviorExtended {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	private static GepResult<Boolean> startGeneConfiguration3() {
@@ -292,7 +295,8 @@ public class EvolveBehaviorExtended {
 
 		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
 
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD,
+				new ConsoleGenerationListener<Boolean>());
 	}
 
 	private static ArrayList<WorldMap> createMaps() {
@@ -20,6 +20,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import examples.behavior.fitness.AlternativeFitnessFunction;
 import examples.behavior.fitness.BehaviorFitnessFunction;
@@ -40,6 +41,7 @@ import examples.behavior.terminals.TurnLeftTerminal;
 import examples.behavior.terminals.TurnRightTerminal;
 import examples.behavior.terminals.WallInFrontCheckTerminal;
 import examples.behavior.world.WorldMap;
+import gep.CachingFitnessEnvironment;
 import gep.GeneExpressionProgramming;
 import gep.GepResult;
 import gep.ReproductionEnvironment;
@@ -55,7 +57,7 @@ import gep.operators.Inversion;
 import gep.operators.Mutation;
 import gep.operators.OnePointRecombination;
 import gep.operators.TwoPointRecombination;
-import gep.random.DefaultRandomEngine;
+import gep.random.SplittableRandomEngine;
 import gep.selection.RouletteWheelSelectionWithElitePreservation;
 import gep.selection.SelectionMethod;
 
@@ -87,6 +89,15 @@ public class EvolveBehaviorGeneralized {
 
 	public static final int NUM_FOOD = 183;// 135;
 
+	// the seed of the master random engine (all other random engines are split
+	// from it, so a run is reproducible with the same seed)
+	public static final long RANDOM_SEED = System.nanoTime();
+
+	private static final SplittableRandomEngine MASTER_RANDOM = new SplittableRandomEngine(RANDOM_SEED);
+
+	// the maximum number of phenotypes whose fitness is cached
+	public static final int FITNESS_CACHE_SIZE = 100000;
+
 	public static final String SUB_DIR = "all_maps";
 
 	public static final BehaviorFitnessFunction FITNESSFUNCTION_PER_MAP = USE_CLASSIC_FITNESS_FUNCTION
@@ -96,6 +107,8 @@ public class EvolveBehaviorGeneralized {
 
 		double bestFitness = -1.0;
 
+		System.out.println("random seed: " + RANDOM_SEED);
+
 		for (int startConfig : START_CONFIGURATIONS) {
 
 			for (chromosomeHeadLength = MIN_CHROMOSOME_HEAD_LENGTH; chromosomeHeadLength <= MAX_CHROMOSOME_HEAD_LENGTH; chromosomeHeadLength++) {
@@ -156,7 +169,12 @@ public class EvolveBehaviorGeneralized {
 
 		ArrayList<WorldMap> maps = createMaps();
 		System.out.println("done (" + maps.size() + " map(s) created)");
-		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP);
+		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP, RANDOM_SEED);
+		// the simulation is deterministic => unmodified individuals keep their
+		// fitness and known phenotypes are not simulated again
+		CachingFitnessEnvironment<Boolean> fitnessEnv = new CachingFitnessEnvironment<>(env, FITNESS_CACHE_SIZE);
+		fitnessEnv.enableParallelEvaluation(Runtime.getRuntime().availableProcessors());
+		fitnessEnv.setSkipUnmodifiedIndividuals(true);
 
 		ArrayList<GeneFunction<Boolean>> supportedBehaviorTreeNodes = new ArrayList<GeneFunction<Boolean>>(3);
 		supportedBehaviorTreeNodes.add(new SelectorFunction());
@@ -178,24 +196,32 @@ public class EvolveBehaviorGeneralized {
 		chromosomeFactory.setChromosomeRootToGene(basicGeneId);
 
 		Individual<Boolean>[] population = IndividualArchitecture.createSingleChromosomalArchitecture(chromosomeFactory)
-				.createRandomPopulation(NUM_INDIVIDUALS, new DefaultRandomEngine());
+				.createRandomFlatPopulation(NUM_INDIVIDUALS, MASTER_RANDOM.split());
 
 		ReproductionEnvironment re = new ReproductionEnvironment();
-		re.addGeneticOperator(new Mutation(0.3)); // 0.2
-		re.addGeneticOperator(new Inversion(0.2)); // 0.1
-		re.addGeneticOperator(new GeneRecombination(0.3));
-		re.addGeneticOperator(new OnePointRecombination(0.5)); // 0.8
-		re.addGeneticOperator(new TwoPointRecombination(0.5));
-
-		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
-
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		re.setFusedPipeline(true);
+		re.enableParallelReproduction(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(),
+				MASTER_RANDOM.split());
+		re.addGeneticOperator(new Mutation(0.3, MASTER_RANDOM.split(), true)); // 0.2
+		re.addGeneticOperator(new Inversion(0.2, MASTER_RANDOM.split())); // 0.1
+		re.addGeneticOperator(new GeneRecombination(0.3, MASTER_RANDOM.split()));
+		re.addGeneticOperator(new OnePointRecombination(0.5, MASTER_RANDOM.split())); // 0.8
+		re.addGeneticOperator(new TwoPointRecombination(0.5, MASTER_RANDOM.split()));
+
+		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(MASTER_RANDOM.split(), 0.05, true);
+
+		return GeneExpressionProgramming.run(population, fitnessEnv, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
 	}
 
 	private static GepResult<Boolean> startGeneConfiguration2() {
 
 		ArrayList<WorldMap> maps = createMaps();
-		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP);
+		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP, RANDOM_SEED);
+		// the simulation is deterministic => unmodified individuals keep their
+		// fitness and known phenotypes are not simulated again
+		CachingFitnessEnvironment<Boolean> fitnessEnv = new CachingFitnessEnvironment<>(env, FITNESS_CACHE_SIZE);
+		fitnessEnv.enableParallelEvaluation(Runtime.getRuntime().availableProcessors());
+		fitnessEnv.setSkipUnmodifiedIndividuals(true);
 
 		ArrayList<GeneFunction<Boolean>> supportedBehaviorTreeNodes = new ArrayList<GeneFunction<Boolean>>(3);
 		supportedBehaviorTreeNodes.add(new SelectorFunction());
@@ -237,24 +263,32 @@ public class EvolveBehaviorGeneralized {
 
 		// create population
 		Individual<Boolean>[] population = IndividualArchitecture.createSingleChromosomalArchitecture(chromosomeFactory)
-				.createRandomPopulation(NUM_INDIVIDUALS, new DefaultRandomEngine());
+				.createRandomFlatPopulation(NUM_INDIVIDUALS, MASTER_RANDOM.split());
 
 		ReproductionEnvironment re = new ReproductionEnvironment();
-		re.addGeneticOperator(new Mutation(0.32));
-		re.addGeneticOperator(new Inversion(0.1));
-		re.addGeneticOperator(new GeneRecombination(0.3));
-		re.addGeneticOperator(new OnePointRecombination(0.5)); // 0.8
-		re.addGeneticOperator(new TwoPointRecombination(0.5));
-
-		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
-
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		re.setFusedPipeline(true);
+		re.enableParallelReproduction(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(),
+				MASTER_RANDOM.split());
+		re.addGeneticOperator(new Mutation(0.32, MASTER_RANDOM.split(), true));
+		re.addGeneticOperator(new Inversion(0.1, MASTER_RANDOM.split()));
+		re.addGeneticOperator(new GeneRecombination(0.3, MASTER_RANDOM.split()));
+		re.addGeneticOperator(new OnePointRecombination(0.5, MASTER_RANDOM.split())); // 0.8
+		re.addGeneticOperator(new TwoPointRecombination(0.5, MASTER_RANDOM.split()));
+
+		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(MASTER_RANDOM.split(), 0.05, true);
+
+		return GeneExpressionProgramming.run(population, fitnessEnv, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
 	}
 
 	private static GepResult<Boolean> startGeneConfiguration3() {
 
 		ArrayList<WorldMap> maps = createMaps();
-		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP);
+		EvaluationEnvironment env = new EvaluationEnvironment(maps, FITNESSFUNCTION_PER_MAP, RANDOM_SEED);
+		// the simulation is deterministic => unmodified individuals keep their
+		// fitness and known phenotypes are not simulated again
+		CachingFitnessEnvironment<Boolean> fitnessEnv = new CachingFitnessEnvironment<>(env, FITNESS_CACHE_SIZE);
+		fitnessEnv.enableParallelEvaluation(Runtime.getRuntime().availableProcessors());
+		fitnessEnv.setSkipUnmodifiedIndividuals(true);
 
 		ArrayList<GeneFunction<Boolean>> supportedBehaviorTreeNodes = new ArrayList<GeneFunction<Boolean>>(3);
 		supportedBehaviorTreeNodes.add(new SelectorFunction());
@@ -293,18 +327,21 @@ public class EvolveBehaviorGeneralized {
 
 		// create population
 		Individual<Boolean>[] population = IndividualArchitecture.createSingleChromosomalArchitecture(chromosomeFactory)
-				.createRandomPopulation(NUM_INDIVIDUALS, new DefaultRandomEngine());
+				.createRandomFlatPopulation(NUM_INDIVIDUALS, MASTER_RANDOM.split());
 
 		ReproductionEnvironment re = new ReproductionEnvironment();
-		re.addGeneticOperator(new Mutation(0.2));
-		re.addGeneticOperator(new Inversion(0.1));
-		re.addGeneticOperator(new GeneRecombination(0.3));
-		re.addGeneticOperator(new OnePointRecombination(0.5)); // 0.8
-		re.addGeneticOperator(new TwoPointRecombination(0.5));
-
-		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(0.05);
-
-		return GeneExpressionProgramming.run(population, env, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
+		re.setFusedPipeline(true);
+		re.enableParallelReproduction(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(),
+				MASTER_RANDOM.split());
+		re.addGeneticOperator(new Mutation(0.2, MASTER_RANDOM.split(), true));
+		re.addGeneticOperator(new Inversion(0.1, MASTER_RANDOM.split()));
+		re.addGeneticOperator(new GeneRecombination(0.3, MASTER_RANDOM.split()));
+		re.addGeneticOperator(new OnePointRecombination(0.5, MASTER_RANDOM.split())); // 0.8
+		re.addGeneticOperator(new TwoPointRecombination(0.5, MASTER_RANDOM.split()));
+
+		SelectionMethod sm = new RouletteWheelSelectionWithElitePreservation(MASTER_RANDOM.split(), 0.05, true);
+
+		return GeneExpressionProgramming.run(population, fitnessEnv, sm, re, MAX_NUM_GENERATIONS, NUM_FOOD);
 	}
 
 	private static ArrayList<WorldMap> createMaps() {
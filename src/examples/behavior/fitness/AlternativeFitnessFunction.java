@@ -55,4 +55,9 @@ public class AlternativeFitnessFunction extends BehaviorFitnessFunction {
 		currentFitnessScore += 1.0;
 	}
 
+	@Override
+	public AlternativeFitnessFunction copy() {
+		return new AlternativeFitnessFunction();
+	}
+
 }
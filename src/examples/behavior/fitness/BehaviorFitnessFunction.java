@@ -66,6 +66,15 @@ public abstract class BehaviorFitnessFunction {
 	 */
 	abstract public void resetFitnessScorePerMap();
 
+	/**
+	 * Creates a new instance of this fitness function with a reset score. Used
+	 * to give every concurrently evaluating environment its own fitness
+	 * function.
+	 * 
+	 * @return A new, independent instance of this fitness function
+	 */
+	abstract public BehaviorFitnessFunction copy();
+
 	/**
 	 * Returns the current value of the fitness function (of the current
 	 * individual). Note: Remember to reset the current score by calling
@@ -51,4 +51,9 @@ public class ClassicFitnessFunction extends BehaviorFitnessFunction {
 		// do nothing
 	}
 
+	@Override
+	public ClassicFitnessFunction copy() {
+		return new ClassicFitnessFunction();
+	}
+
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package examples.behavior.fitness;
+
+import examples.behavior.world.Field;
+import examples.behavior.world.Orientation;
+import examples.behavior.world.WorldMap;
+import gep.random.PhiloxRandomEngine;
+
+/**
+ * This class holds the complete state of the simulation of one agent (position,
+ * orientation, memory, the current map and the fitness counters). A context is
+ * confined to a single thread. Every {@link EvaluationEnvironment} owns one
+ * context and binds it to the thread that evaluates an individual, so that the
+ * terminals can be shared by concurrently simulated agents.
+ *
+ * @author Johannes Wortmann
+ *
+ * @see EvaluationEnvironment#getContext()
+ */
+public class EvaluationContext {
+
+	/**
+	 * The maps (fitness cases) simulated by this context. These maps are
+	 * exclusively used by this context.
+	 */
+	private final WorldMap[] maps;
+
+	/**
+	 * controls the current fitness score for the current fitness case (map)
+	 */
+	private final BehaviorFitnessFunction fitnessFunction;
+
+	/**
+	 * The map that is currently simulated.
+	 */
+	private WorldMap currentMap;
+
+	private int posAgentX;
+	private int posAgentY;
+	private Orientation agentOrientation;
+
+	// a one bit memory for the agent
+	private boolean agentMemory;
+
+	private int foodConsumed = 0;
+	private int movedDistance = 0;
+
+	/**
+	 * Keeps the accumulated fitness score over all maps.
+	 */
+	private double totalFitnessScore;
+
+	/**
+	 * The random source of the simulation. Positioned by the environment at
+	 * the stream of the current (generation, individual, map, tick).
+	 */
+	private final PhiloxRandomEngine random;
+
+	/**
+	 * Creates a new context simulating the given maps and using the given
+	 * fitness function. Both are used directly (not copied).
+	 *
+	 * @param maps
+	 *            The maps (fitness cases) of the simulation
+	 * @param fitnessFunction
+	 *            The fitness function used per map
+	 * @param randomSeed
+	 *            The seed of the random source of the simulation
+	 */
+	EvaluationContext(WorldMap[] maps, BehaviorFitnessFunction fitnessFunction, long randomSeed) {
+		this.maps = maps;
+		this.fitnessFunction = fitnessFunction;
+		this.random = new PhiloxRandomEngine(randomSeed);
+		resetTotalFitnessScore();
+	}
+
+	/**
+	 * Returns the maps (fitness cases) simulated by this context.
+	 *
+	 * @return the maps of this context
+	 */
+	public WorldMap[] getMaps() {
+		return maps;
+	}
+
+	/**
+	 * Returns the map that is currently simulated.
+	 *
+	 * @return the current map
+	 */
+	public WorldMap getCurrentMap() {
+		return currentMap;
+	}
+
+	/**
+	 * Sets the map that is currently simulated. The state of the map and the
+	 * agent are not changed by this method.
+	 *
+	 * @param map
+	 *            the new current map
+	 */
+	public void setCurrentMap(WorldMap map) {
+		this.currentMap = map;
+	}
+
+	/**
+	 * Prepares the simulation of the given map. This resets the map, places
+	 * the agent at its start position and resets all per map counters.
+	 *
+	 * @param map
+	 *            The map to be simulated next
+	 */
+	public void startSimulation(WorldMap map) {
+		fitnessFunction.resetFitnessScorePerMap();
+		foodConsumed = 0;
+		movedDistance = 0;
+
+		currentMap = map;
+		currentMap.initMap();
+
+		posAgentX = map.getStartPositionX();
+		posAgentY = map.getStartPositionY();
+		setAgentOrientation(map.getStartOrientation());
+		agentMemory = false;
+	}
+
+	/**
+	 * Finishes the simulation of the current map and adds its score to the
+	 * total fitness score.
+	 */
+	public void finishSimulation() {
+		if (movedDistance == 0) {
+			// if no movement during the whole simulation high penalty to
+			// eliminate this behavior
+			fitnessFunction.applyNoMovementPenalty();
+		}
+
+		totalFitnessScore += fitnessFunction.getCurrentScore();
+	}
+
+	/**
+	 * Moves the agent to the given position if possible.
+	 *
+	 * As the field is surrounded by walls and step size is always one it is
+	 * sufficient to check if the target field is not a wall. If these
+	 * preconditions are not guaranteed by the caller. This function may not
+	 * work as intended.
+	 *
+	 * @param x
+	 *            The new x position of the agent
+	 * @param y
+	 *            The new y position of the agent
+	 * @return true, if the move was successful, false otherwise.
+	 */
+	public boolean moveTo(int x, int y) {
+		final Field goalField = currentMap.getField(x, y);
+		if (goalField.isWall()) {
+			// give penalty for actually try to move on a field with a wall.
+			fitnessFunction.applyWalkIntoWallPenalty();
+			return false;
+		}
+		// every valid step gives a plus point (makes the agent move)
+		fitnessFunction.applyValidMovementBonus();
+
+		posAgentX = x;
+		posAgentY = y;
+		if (goalField.isFood()) {
+			goalField.removeFood();
+			foodConsumed++;
+			fitnessFunction.applyFoodConsumedBonus();
+		}
+
+		movedDistance++;
+
+		if (EvaluationEnvironment.PRINT_STEPS) {
+			currentMap.printCurrentMapState(posAgentX, posAgentY, agentOrientation);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the marker flag of the field where the agent stays to the provided
+	 * boolean value.
+	 *
+	 * @param marked
+	 *            true if marker should be set, false if it should be removed.
+	 */
+	public void setMarkerOnCurrentPosition(boolean marked) {
+		currentMap.setMarkerOnCurrentPosition(posAgentX, posAgentY, marked);
+	}
+
+	/**
+	 * Returns the x position of the agent
+	 *
+	 * @return the x position of the agent
+	 */
+	public int getPosAgentX() {
+		return posAgentX;
+	}
+
+	/**
+	 * Returns the y position of the agent
+	 *
+	 * @return the y position of the agent
+	 */
+	public int getPosAgentY() {
+		return posAgentY;
+	}
+
+	void setAgentPos(int x, int y) {
+		this.posAgentX = x;
+		this.posAgentY = y;
+	}
+
+	public Orientation getAgentOrientation() {
+		return agentOrientation;
+	}
+
+	public void setAgentOrientation(Orientation agentOrientation) {
+		if (this.agentOrientation != agentOrientation && EvaluationEnvironment.PRINT_STEPS) {
+			currentMap.printCurrentMapState(posAgentX, posAgentY, agentOrientation);
+		}
+		this.agentOrientation = agentOrientation;
+	}
+
+	/**
+	 * Returns the field in front of the agent. Assumes that the field is
+	 * surrounded by walls and that the agent is never located there.
+	 *
+	 * @return the field in front of the agent
+	 */
+	public Field getFieldInFront() {
+		switch (agentOrientation) {
+		case NORTH:
+			return currentMap.getField(posAgentX, posAgentY + 1);
+		case EAST:
+			return currentMap.getField(posAgentX + 1, posAgentY);
+		case SOUTH:
+			return currentMap.getField(posAgentX, posAgentY - 1);
+		case WEST:
+			return currentMap.getField(posAgentX - 1, posAgentY);
+		}
+
+		return null; // never be reached
+	}
+
+	/**
+	 * Returns the random source to be used by stochastic nodes of the
+	 * simulated program. Its numbers only depend on the seed, the generation,
+	 * the index of the individual, the map and the tick, so they do not
+	 * change if individuals are evaluated in parallel.
+	 *
+	 * @return the random source of the simulation
+	 */
+	public PhiloxRandomEngine getRandom() {
+		return random;
+	}
+
+	/**
+	 * Positions the random source at the stream of the given tick.
+	 *
+	 * @param generation
+	 *            The generation of the simulated individual
+	 * @param individualIdx
+	 *            The index of the simulated individual in its population
+	 * @param mapIdx
+	 *            The index of the current map
+	 * @param tick
+	 *            The current simulation tick
+	 */
+	void setRandomStream(int generation, int individualIdx, int mapIdx, int tick) {
+		random.setStream(generation, individualIdx, mapIdx, tick);
+	}
+
+	public boolean getAgentMemory() {
+		return agentMemory;
+	}
+
+	public void setAgentMemory(boolean agentMemory) {
+		this.agentMemory = agentMemory;
+	}
+
+	int getFoodConsumed() {
+		return foodConsumed;
+	}
+
+	double getTotalFitnessScore() {
+		return totalFitnessScore;
+	}
+
+	void resetTotalFitnessScore() {
+		this.totalFitnessScore = 0;
+		this.foodConsumed = 0;
+		this.movedDistance = 0;
+		this.agentMemory = false;
+	}
+
+}
@@ -21,44 +21,68 @@ import examples.behavior.world.Field;
 import examples.behavior.world.Orientation;
 import examples.behavior.world.WorldMap;
 import gep.FitnessEnvironment;
-import gep.model.ExpressionTreeNode;
 import gep.model.Individual;
-
+import gep.model.PhenotypeKey;
+import gep.model.Program;
+import gep.model.ProgramGenerator;
+
+/**
+ * The fitness environment of the behavior examples. Individuals are assessed
+ * by simulating an agent on every map (fitness case) for a fixed number of
+ * ticks.
+ * <p>
+ * The state of the simulation is kept in an {@link EvaluationContext}. The
+ * terminals only hold a reference to the environment they were created with
+ * and access the simulation state via {@link EvaluationEnvironment#getContext()}.
+ * While evaluating an individual an environment binds its own context to the
+ * current thread. As copies of an environment (see
+ * {@link EvaluationEnvironment#copy()}) share this binding with the original,
+ * the same terminal set can be used by multiple environments which simulate
+ * agents concurrently on private copies of the maps.
+ * <p>
+ * Stochastic nodes draw their random numbers from
+ * {@link EvaluationContext#getRandom()}. The environment positions this
+ * counter-based random source at a separate stream for every generation,
+ * individual, map and tick, so the fitness values are identical for a
+ * sequential and a parallel evaluation. Individuals evaluated without a
+ * position use streams derived from their phenotype.
+ * 
+ * @author Johannes Wortmann
+ *
+ */
 public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 
 	final protected static int MAX_NUMBER_OF_SIMULATION_TICKS = 400;
 
 	public static boolean PRINT_STEPS = false;
 
-	private int posAgentX;
-	private int posAgentY;
-	private Orientation agentOrientation;
-	
-	// a one bit memory for the agent
-	private boolean agentMemory;
-
-	private int foodConsumed = 0;
-	private int movedDistance = 0;
-
 	/**
 	 * controls the current fitness score for the current fitness case (map)
 	 */
 	transient protected BehaviorFitnessFunction fitnessFunction;
 
+	// the different maps (fitness cases) for generalization
+	protected final WorldMap[] maps;
+
 	/**
-	 * Keeps the accumulated fitness score over all maps.
+	 * The simulation state owned by this environment.
 	 */
-	private double totalFitnessScore;
+	private final EvaluationContext context;
 
-	// the different maps (fitness cases) for generalization
-	protected final WorldMap[] maps;
+	/**
+	 * The context bound to the current thread. Shared by this environment and
+	 * all of its copies.
+	 */
+	private final ThreadLocal<EvaluationContext> boundContext;
 
-	protected WorldMap currentMap;
+	/**
+	 * Generates classes for frequently evaluated programs (null if the
+	 * programs are always interpreted). Shared with all copies.
+	 */
+	transient private ProgramGenerator<Boolean> programGenerator = null;
 
 	public EvaluationEnvironment(WorldMap[] maps, BehaviorFitnessFunction fitnessFunctionPerMap) {
-		this.maps = maps;
-		this.fitnessFunction = fitnessFunctionPerMap;
-		resetTotalFitnessScore();
+		this(maps, fitnessFunctionPerMap, 0L);
 	}
 
 	public EvaluationEnvironment(ArrayList<WorldMap> maps, BehaviorFitnessFunction fitnessFunctionPerMap) {
@@ -66,43 +90,94 @@ public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 	}
 
 	/**
-	 * Moves the agent to the given position if possible.
+	 * Creates an environment whose stochastic nodes use the given seed.
+	 * 
+	 * @param maps
+	 *            The maps (fitness cases)
+	 * @param fitnessFunctionPerMap
+	 *            The fitness function used per map
+	 * @param randomSeed
+	 *            The seed of the random source of the simulation
+	 */
+	public EvaluationEnvironment(WorldMap[] maps, BehaviorFitnessFunction fitnessFunctionPerMap, long randomSeed) {
+		this(maps, fitnessFunctionPerMap, randomSeed, new ThreadLocal<EvaluationContext>());
+	}
+
+	public EvaluationEnvironment(ArrayList<WorldMap> maps, BehaviorFitnessFunction fitnessFunctionPerMap,
+			long randomSeed) {
+		this(maps.toArray(new WorldMap[maps.size()]), fitnessFunctionPerMap, randomSeed);
+	}
+
+	private EvaluationEnvironment(WorldMap[] maps, BehaviorFitnessFunction fitnessFunctionPerMap, long randomSeed,
+			ThreadLocal<EvaluationContext> boundContext) {
+		this.maps = maps;
+		this.fitnessFunction = fitnessFunctionPerMap;
+		this.context = new EvaluationContext(maps, fitnessFunctionPerMap, randomSeed);
+		this.boundContext = boundContext;
+	}
+
+	/**
+	 * Creates a copy of this environment that uses private copies of all maps
+	 * and of the fitness function. The copy shares the thread binding of the
+	 * contexts with this environment, so terminals created with this
+	 * environment operate on the context of the copy while the copy evaluates
+	 * an individual.
+	 * 
+	 * @return A copy of this environment that can evaluate individuals
+	 *         concurrently to this environment
+	 */
+	@Override
+	public EvaluationEnvironment copy() {
+		WorldMap[] mapCopies = new WorldMap[maps.length];
+		for (int i = 0; i < maps.length; i++) {
+			mapCopies[i] = new WorldMap(maps[i]);
+		}
+		EvaluationEnvironment copy = new EvaluationEnvironment(mapCopies, fitnessFunction.copy(),
+				context.getRandom().getSeed(), boundContext);
+		copy.programGenerator = programGenerator;
+		return copy;
+	}
+
+	/**
+	 * Enables the generation of JVM classes for programs that are evaluated
+	 * frequently (see {@link ProgramGenerator}). Has to be called before the
+	 * parallel evaluation is enabled, as copies only take over the generator
+	 * at their creation.
 	 * 
-	 * As the field is surrounded by walls and step size is always one it is
-	 * sufficient to check if the target field is not a wall. If these
-	 * preconditions are not guaranteed by the caller. This function may not
-	 * work as intended.
+	 * @param hotThreshold
+	 *            The number of evaluations of a program after which a class is
+	 *            generated for it
+	 */
+	public void enableProgramGeneration(int hotThreshold) {
+		this.programGenerator = new ProgramGenerator<Boolean>(Boolean.class, hotThreshold);
+	}
+
+	/**
+	 * Returns the simulation context for the current thread. This is the
+	 * context of the environment (this one or a copy) that currently evaluates
+	 * an individual on this thread or the context of this environment if no
+	 * evaluation is in progress.
+	 * 
+	 * @return The simulation context of the current thread
+	 */
+	public EvaluationContext getContext() {
+		final EvaluationContext bound = boundContext.get();
+		return bound != null ? bound : context;
+	}
+
+	/**
+	 * Moves the agent to the given position if possible.
 	 * 
 	 * @param x
 	 *            The new x position of the agent
 	 * @param y
 	 *            The new y position of the agent
 	 * @return true, if the move was successful, false otherwise.
+	 * 
+	 * @see EvaluationContext#moveTo(int, int)
 	 */
 	public boolean moveTo(int x, int y) {
-		final Field goalField = currentMap.getField(x, y);
-		if (goalField.isWall()) {
-			// give penalty for actually try to move on a field with a wall.
-			fitnessFunction.applyWalkIntoWallPenalty();
-			return false;
-		}
-		// every valid step gives a plus point (makes the agent move)
-		fitnessFunction.applyValidMovementBonus();
-
-		posAgentX = x;
-		posAgentY = y;
-		if (goalField.isFood()) {
-			goalField.removeFood();
-			foodConsumed++;
-			fitnessFunction.applyFoodConsumedBonus();
-		}
-
-		movedDistance++;
-
-		if (PRINT_STEPS) {
-			currentMap.printCurrentMapState(posAgentX, posAgentY, agentOrientation);
-		}
-		return true;
+		return getContext().moveTo(x, y);
 	}
 
 	/**
@@ -113,7 +188,7 @@ public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 	 *            true if marker should be set, false if it should be removed.
 	 */
 	public void setMarkerOnCurrentPosition(boolean marked) {
-		currentMap.setMarkerOnCurrentPosition(posAgentX, posAgentY, marked);
+		getContext().setMarkerOnCurrentPosition(marked);
 	}
 
 	/**
@@ -122,7 +197,7 @@ public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 	 * @return the x position of the agent
 	 */
 	public int getPosAgentX() {
-		return posAgentX;
+		return getContext().getPosAgentX();
 	}
 
 	/**
@@ -131,23 +206,19 @@ public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 	 * @return the y position of the agent
 	 */
 	public int getPosAgentY() {
-		return posAgentY;
+		return getContext().getPosAgentY();
 	}
 
 	protected void setAgentPos(int x, int y) {
-		this.posAgentX = x;
-		this.posAgentY = y;
+		getContext().setAgentPos(x, y);
 	}
 
 	public Orientation getAgentOrientation() {
-		return agentOrientation;
+		return getContext().getAgentOrientation();
 	}
 
 	public void setAgentOrientation(Orientation agentOrientation) {
-		if (this.agentOrientation != agentOrientation && PRINT_STEPS) {
-			currentMap.printCurrentMapState(posAgentX, posAgentY, agentOrientation);
-		}
-		this.agentOrientation = agentOrientation;
+		getContext().setAgentOrientation(agentOrientation);
 	}
 
 	/**
@@ -157,84 +228,79 @@ public class EvaluationEnvironment extends FitnessEnvironment<Boolean> {
 	 * @return the field in front of the agent
 	 */
 	public Field getFieldInFront() {
-		switch (getAgentOrientation()) {
-		case NORTH:
-			return currentMap.getField(posAgentX, posAgentY + 1);
-		case EAST:
-			return currentMap.getField(posAgentX + 1, posAgentY);
-		case SOUTH:
-			return currentMap.getField(posAgentX, posAgentY - 1);
-		case WEST:
-			return currentMap.getField(posAgentX - 1, posAgentY);
-		}
+		return getContext().getFieldInFront();
+	}
 
-		return null; // never be reached
+	protected WorldMap getCurrentMap() {
+		return getContext().getCurrentMap();
 	}
 
+	protected void setCurrentMap(WorldMap map) {
+		getContext().setCurrentMap(map);
+	}
+
+	/**
+	 * Evaluates the given individual without a known position in a
+	 * population. The random streams are derived from the phenotype of the
+	 * individual instead (using the otherwise unused generation -1), so equal
+	 * phenotypes are always assessed identically while other individuals use
+	 * separate streams.
+	 */
 	@Override
 	protected double evaluateFitness(Individual<Boolean> individual) {
+		return evaluateFitness(individual, -1, PhenotypeKey.of(individual).hashCode());
+	}
 
-		resetTotalFitnessScore();
+	@Override
+	protected double evaluateFitness(Individual<Boolean> individual, int generation, int individualIdx) {
 
-		for (WorldMap map : maps) {
+		final EvaluationContext previous = boundContext.get();
+		boundContext.set(context);
+		try {
+			context.resetTotalFitnessScore();
 
-			// TODO move to init function
-			fitnessFunction.resetFitnessScorePerMap();
-			foodConsumed = 0;
-			movedDistance = 0;
+			// single chromosome individuals (only one program)
+			Program<Boolean> currentProgram = programGenerator != null
+					? programGenerator.getProgram(individual.chromosomes[0])
+					: individual.getCompiledPrograms().get(0);
 
-			currentMap = map;
-			currentMap.initMap();
-			
-			posAgentX = map.getStartPositionX();
-			posAgentY = map.getStartPositionY();
-			setAgentOrientation(map.getStartOrientation());
-			agentMemory = false;
+			for (int mapIdx = 0; mapIdx < maps.length; mapIdx++) {
 
-			// single chromosome individuals (only one program)
-			ExpressionTreeNode<Boolean> currentProgram = individual.getExpressionTrees().get(0);
-
-			int numberOfTicks = 0;
-			while (numberOfTicks < MAX_NUMBER_OF_SIMULATION_TICKS) { // TODO and
-																		// food
-																		// is
-																		// left
-				currentProgram.execute();
-				numberOfTicks++; // TODO maybe also couple to number of steps
-			}
+				context.startSimulation(maps[mapIdx]);
+
+				int numberOfTicks = 0;
+				while (numberOfTicks < MAX_NUMBER_OF_SIMULATION_TICKS) { // TODO and
+																			// food
+																			// is
+																			// left
+					context.setRandomStream(generation, individualIdx, mapIdx, numberOfTicks);
+					currentProgram.execute();
+					numberOfTicks++; // TODO maybe also couple to number of steps
+				}
 
-			if (movedDistance == 0) {
-				// if no movement during the whole simulation high penalty to
-				// eliminate this behavior
-				fitnessFunction.applyNoMovementPenalty();
+				context.finishSimulation();
 			}
 
-			totalFitnessScore += fitnessFunction.getCurrentScore();
+			return context.getTotalFitnessScore();
+		} finally {
+			boundContext.set(previous);
 		}
-
-		return this.totalFitnessScore;
-
-		// TODO check if that makes sense... especially wrt. parallelization
-		// etc.
 	}
 
 	protected void resetTotalFitnessScore() {
-		this.totalFitnessScore = 0;
-		this.foodConsumed = 0;
-		this.movedDistance = 0;
-		this.agentMemory = false;
+		getContext().resetTotalFitnessScore();
 	}
 
 	protected int getFoodConsumed() {
-		return foodConsumed;
+		return getContext().getFoodConsumed();
 	}
 
 	public boolean getAgentMemory() {
-		return agentMemory;
+		return getContext().getAgentMemory();
 	}
 
 	public void setAgentMemory(boolean agentMemory) {
-		this.agentMemory = agentMemory;
+		getContext().setAgentMemory(agentMemory);
 	}
 
 }
@@ -17,8 +17,11 @@ package examples.behavior.functions;
 
 import java.util.List;
 
+import gep.model.ControlFlowFunction;
 import gep.model.ExpressionTreeNode;
+import gep.model.FlatProgram;
 import gep.model.GeneFunction;
+import gep.model.InlinableFunction;
 
 /**
  * This class represents a inversion node of a behavior tree. It executes its
@@ -27,7 +30,8 @@ import gep.model.GeneFunction;
  * @author Johannes Wortmann
  *
  */
-public class InversionFunction extends GeneFunction<Boolean> {
+public class InversionFunction extends GeneFunction<Boolean>
+		implements InlinableFunction, ControlFlowFunction<Boolean> {
 
 	/**
 	 * The version id used for serialization.
@@ -48,4 +52,24 @@ public class InversionFunction extends GeneFunction<Boolean> {
 
 	}
 
+	@Override
+	public Boolean apply(FlatProgram<Boolean> program, int node) {
+		return !program.executeChild(node, 0);
+	}
+
+	@Override
+	public int nextChild(int executedChild, Boolean childResult) {
+		return executedChild < 0 ? 0 : -1;
+	}
+
+	@Override
+	public Boolean getResult(int executedChild, Boolean childResult) {
+		return !childResult;
+	}
+
+	@Override
+	public String toJavaExpression(String[] arguments) {
+		return "!" + arguments[0];
+	}
+
 }
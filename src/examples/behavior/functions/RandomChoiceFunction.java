@@ -17,7 +17,10 @@ package examples.behavior.functions;
 
 import java.util.List;
 
+import examples.behavior.fitness.EvaluationEnvironment;
+import gep.model.ControlFlowFunction;
 import gep.model.ExpressionTreeNode;
+import gep.model.FlatProgram;
 import gep.model.GeneFunction;
 import gep.random.DefaultRandomEngine;
 import gep.random.RandomEngine;
@@ -25,11 +28,17 @@ import gep.random.RandomEngine;
 /**
  * This class represents a random choice node of a behavior tree. It randomly
  * selects one of its children, executes it and returns its return value.
+ * <p>
+ * If the node is created with an {@link EvaluationEnvironment} the choice is
+ * drawn from the random source of the current simulation context. Then the
+ * choices only depend on the generation, the individual, the map and the tick,
+ * so the fitness is the same for a sequential and a parallel evaluation.
+ * Otherwise the node uses its own random engine.
  * 
  * @author Johannes Wortmann
  *
  */
-public class RandomChoiceFunction extends GeneFunction<Boolean> {
+public class RandomChoiceFunction extends GeneFunction<Boolean> implements ControlFlowFunction<Boolean> {
 
 	/**
 	 * The version id used for serialization.
@@ -37,10 +46,17 @@ public class RandomChoiceFunction extends GeneFunction<Boolean> {
 	private static final long serialVersionUID = 1131663166244611831L;
 
 	/**
-	 * The used random engine.
+	 * The used random engine (null if the random source of the environment is
+	 * used).
 	 */
 	private RandomEngine random;
 
+	/**
+	 * The environment providing the random source (null if the own random
+	 * engine is used).
+	 */
+	transient private EvaluationEnvironment env;
+
 	/**
 	 * Creates a new instance of a random choice node in a behavior tree
 	 * handling a random choice between two subtrees.
@@ -49,6 +65,33 @@ public class RandomChoiceFunction extends GeneFunction<Boolean> {
 		this(2);
 	}
 
+	/**
+	 * Creates a new instance of a random choice node in a behavior tree
+	 * handling a random choice between two subtrees. The choices are drawn
+	 * from the random source of the given environment.
+	 * 
+	 * @param env
+	 *            The environment providing the random source
+	 */
+	public RandomChoiceFunction(EvaluationEnvironment env) {
+		this(env, 2);
+	}
+
+	/**
+	 * Creates a new instance of a random choice node in a behavior tree
+	 * handling a random choice between the given number of subtrees. The
+	 * choices are drawn from the random source of the given environment.
+	 * 
+	 * @param env
+	 *            The environment providing the random source
+	 * @param numberOfArguments
+	 *            The number of subtrees this operator should choose from.
+	 */
+	public RandomChoiceFunction(EvaluationEnvironment env, int numberOfArguments) {
+		super("random choice node", "R", numberOfArguments);
+		this.env = env;
+	}
+
 	/**
 	 * Creates a new instance of a random choice node in a behavior tree
 	 * handling a random choice between the given number of subtrees.
@@ -64,9 +107,49 @@ public class RandomChoiceFunction extends GeneFunction<Boolean> {
 	@Override
 	public Boolean apply(List<ExpressionTreeNode<Boolean>> expTreeChilds) {
 
-		int idx = random.getInt(0, expTreeChilds.size());
+		int idx = getRandom().getInt(0, expTreeChilds.size());
 
 		return expTreeChilds.get(idx).execute();
 	}
 
+	@Override
+	public Boolean apply(FlatProgram<Boolean> program, int node) {
+
+		int idx = getRandom().getInt(0, getArity());
+
+		return program.executeChild(node, idx);
+	}
+
+	@Override
+	public int nextChild(int executedChild, Boolean childResult) {
+		return executedChild < 0 ? getRandom().getInt(0, getArity()) : -1;
+	}
+
+	@Override
+	public Boolean getResult(int executedChild, Boolean childResult) {
+		return childResult;
+	}
+
+	/**
+	 * Sets the environment providing the random source (e.g. after
+	 * deserialization).
+	 * 
+	 * @param env
+	 *            The environment providing the random source
+	 */
+	public void setEvaluationEnvironment(EvaluationEnvironment env) {
+		this.env = env;
+	}
+
+	private RandomEngine getRandom() {
+		if (env != null) {
+			return env.getContext().getRandom();
+		}
+		if (random == null) {
+			// created with an environment but deserialized without one
+			random = new DefaultRandomEngine();
+		}
+		return random;
+	}
+
 }
@@ -17,8 +17,11 @@ package examples.behavior.functions;
 
 import java.util.List;
 
+import gep.model.ControlFlowFunction;
 import gep.model.ExpressionTreeNode;
+import gep.model.FlatProgram;
 import gep.model.GeneFunction;
+import gep.model.InlinableFunction;
 
 /**
  * This class represents a selector node of a behavior tree. It will execute its
@@ -28,7 +31,8 @@ import gep.model.GeneFunction;
  * @author Johannes Wortmann
  *
  */
-public class SelectorFunction extends GeneFunction<Boolean> {
+public class SelectorFunction extends GeneFunction<Boolean>
+		implements InlinableFunction, ControlFlowFunction<Boolean> {
 
 	/**
 	 * The version id used for serialization.
@@ -66,4 +70,35 @@ public class SelectorFunction extends GeneFunction<Boolean> {
 		return false;
 	}
 
+	@Override
+	public Boolean apply(FlatProgram<Boolean> program, int node) {
+		for (int i = 0; i < getArity(); i++) {
+
+			// execute every child as long as one child returns success
+			if (program.executeChild(node, i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int nextChild(int executedChild, Boolean childResult) {
+		if (executedChild >= 0 && childResult) {
+			// success => skip the remaining children
+			return -1;
+		}
+		return executedChild + 1 < getArity() ? executedChild + 1 : -1;
+	}
+
+	@Override
+	public Boolean getResult(int executedChild, Boolean childResult) {
+		return executedChild >= 0 && childResult;
+	}
+
+	@Override
+	public String toJavaExpression(String[] arguments) {
+		return String.join(" || ", arguments);
+	}
+
 }
@@ -15,6 +15,7 @@
  */
 package examples.behavior.terminals;
 
+import examples.behavior.fitness.EvaluationContext;
 import examples.behavior.fitness.EvaluationEnvironment;
 import examples.behavior.world.Orientation;
 
@@ -39,17 +40,18 @@ public class StepTerminal extends EnvironmentDependendTerminal<Boolean> {
 
 	@Override
 	public Boolean apply() {
-		final Orientation oldAgentOrientation = env.getAgentOrientation();
+		final EvaluationContext ctx = env.getContext();
+		final Orientation oldAgentOrientation = ctx.getAgentOrientation();
 		switch (oldAgentOrientation) { // TODO replace switch-case to modulo
 										// add/subtract mechanism
 		case NORTH:
-			return env.moveTo(env.getPosAgentX(), env.getPosAgentY() + 1);
+			return ctx.moveTo(ctx.getPosAgentX(), ctx.getPosAgentY() + 1);
 		case EAST:
-			return env.moveTo(env.getPosAgentX() + 1, env.getPosAgentY());
+			return ctx.moveTo(ctx.getPosAgentX() + 1, ctx.getPosAgentY());
 		case SOUTH:
-			return env.moveTo(env.getPosAgentX(), env.getPosAgentY() - 1);
+			return ctx.moveTo(ctx.getPosAgentX(), ctx.getPosAgentY() - 1);
 		case WEST:
-			return env.moveTo(env.getPosAgentX() - 1, env.getPosAgentY());
+			return ctx.moveTo(ctx.getPosAgentX() - 1, ctx.getPosAgentY());
 		}
 		return false;
 	}
@@ -15,6 +15,7 @@
  */
 package examples.behavior.terminals;
 
+import examples.behavior.fitness.EvaluationContext;
 import examples.behavior.fitness.EvaluationEnvironment;
 import examples.behavior.world.Orientation;
 
@@ -39,20 +40,21 @@ public class TurnLeftTerminal extends EnvironmentDependendTerminal<Boolean> {
 
 	@Override
 	public Boolean apply() {
-		final Orientation oldAgentOrientation = env.getAgentOrientation();
+		final EvaluationContext ctx = env.getContext();
+		final Orientation oldAgentOrientation = ctx.getAgentOrientation();
 		switch (oldAgentOrientation) { // TODO replace switch-case to modulo
 										// add/subtract mechanism
 		case NORTH:
-			env.setAgentOrientation(Orientation.WEST);
+			ctx.setAgentOrientation(Orientation.WEST);
 			break;
 		case EAST:
-			env.setAgentOrientation(Orientation.NORTH);
+			ctx.setAgentOrientation(Orientation.NORTH);
 			break;
 		case SOUTH:
-			env.setAgentOrientation(Orientation.EAST);
+			ctx.setAgentOrientation(Orientation.EAST);
 			break;
 		case WEST:
-			env.setAgentOrientation(Orientation.SOUTH);
+			ctx.setAgentOrientation(Orientation.SOUTH);
 			break;
 		}
 		return true;
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 
 public class WorldMap {
 
@@ -46,6 +47,42 @@ public class WorldMap {
 		//printCurrentMapState();
 	}
 
+	/**
+	 * Creates a deep copy of the given map. The copy has its own fields, so
+	 * that both maps can be simulated independently.
+	 * 
+	 * @param other
+	 *            The map to be copied
+	 */
+	public WorldMap(WorldMap other) {
+		final IdentityHashMap<Field, Field> fieldCopies = new IdentityHashMap<Field, Field>();
+
+		grid = new Field[other.grid.length][];
+		for (int x = 0; x < grid.length; x++) {
+			grid[x] = new Field[other.grid[x].length];
+			for (int y = 0; y < grid[x].length; y++) {
+				final Field f = other.grid[x][y];
+				if (f != null) {
+					grid[x][y] = new Field(f.getProperties());
+					fieldCopies.put(f, grid[x][y]);
+				}
+			}
+		}
+
+		foodFields = new ArrayList<Field>(other.foodFields.size());
+		for (Field f : other.foodFields) {
+			foodFields.add(fieldCopies.get(f));
+		}
+		markedFields = new HashSet<Field>();
+		for (Field f : other.markedFields) {
+			markedFields.add(fieldCopies.get(f));
+		}
+
+		startX = other.startX;
+		startY = other.startY;
+		startOrientation = other.startOrientation;
+	}
+
 	public WorldMap(final int dimX, final int dimY) {
 
 		grid = new Field[dimX][dimY];
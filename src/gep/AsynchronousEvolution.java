@@ -0,0 +1,536 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import gep.model.Individual;
+import gep.selection.SelectionMethod;
+import gep.termination.TerminationCriterion;
+
+/**
+ * <p>
+ * This class implements a variant of the generational GEP workflow whose
+ * reproduction and evaluation phases overlap. The offspring of a generation
+ * (called batch) are created like in
+ * {@link GeneExpressionProgramming#run(Individual[], FitnessEnvironment, SelectionMethod, ReproductionEnvironment, int, double, double, TerminationCriterion, GenerationListener)}
+ * but are streamed to a pool of evaluators through a bounded queue. If the
+ * queue is full, the reproduction waits for the evaluators (backpressure).
+ * </p>
+ * 
+ * <p>
+ * Every evaluated offspring immediately replaces the individual at its
+ * position in the population. As soon as a given fraction of the offspring of
+ * the current batch was evaluated (see
+ * {@link #setBreedingThreshold(double)}) the next batch is selected and bred
+ * from the population, whose remaining positions still hold the individuals
+ * of the previous batch. Thus the evaluators don't have to wait for the
+ * slowest evaluation of a generation. To bound the overlap a batch is only
+ * bred if all batches except the current one are completely evaluated. A
+ * late offspring is dropped if its position already holds an individual of a
+ * newer batch.
+ * </p>
+ * 
+ * <p>
+ * Every evaluator uses its own copy of the fitness environment (see
+ * {@link FitnessEnvironment#copy()}). Selection, reproduction, the listener
+ * and the termination criteria are executed by the thread calling
+ * {@link #run(Individual[], int, double, double, TerminationCriterion, GenerationListener)}.
+ * A generation is finished when all its offspring were evaluated, hence the
+ * next generation may start before the previous one is finished. The result
+ * of a run depends on the order in which the evaluations finish.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals
+ */
+public class AsynchronousEvolution<T> {
+
+	/**
+	 * The environment used to assess the fitness of individuals.
+	 */
+	private final FitnessEnvironment<T> fe;
+
+	/**
+	 * The selection method used to create the parents of a batch.
+	 */
+	private final SelectionMethod sm;
+
+	/**
+	 * The environment used to create the offspring of a batch.
+	 */
+	private final ReproductionEnvironment re;
+
+	/**
+	 * The number of evaluators.
+	 */
+	private final int numEvaluators;
+
+	/**
+	 * The executor running the evaluators (null if a thread pool is created
+	 * per run).
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * The capacity of the queue of offspring waiting for their evaluation.
+	 */
+	private int queueCapacity;
+
+	/**
+	 * The fraction of evaluated offspring of the current batch required to
+	 * breed the next batch.
+	 */
+	private double breedingThreshold = 0.5;
+
+	/**
+	 * Creates a new asynchronous engine with the given number of evaluators.
+	 * The capacity of the evaluation queue is twice the number of evaluators.
+	 * 
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals (must support {@link FitnessEnvironment#copy()})
+	 * @param sm
+	 *            The selection method to select the parents of a batch
+	 * @param re
+	 *            The reproduction environment used to genetically modify
+	 *            individuals
+	 * @param numEvaluators
+	 *            The number of evaluators (>= 1)
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if the fitness environment can't be copied
+	 */
+	public AsynchronousEvolution(FitnessEnvironment<T> fe, SelectionMethod sm, ReproductionEnvironment re,
+			int numEvaluators) {
+		if (numEvaluators < 1) {
+			throw new IllegalArgumentException("The number of evaluators has to be greater than 0.");
+		}
+		// fail early if the environment can't be copied
+		fe.copy();
+		this.fe = fe;
+		this.sm = sm;
+		this.re = re;
+		this.numEvaluators = numEvaluators;
+		this.queueCapacity = 2 * numEvaluators;
+	}
+
+	/**
+	 * Sets the executor that runs the evaluators. It has to be able to run
+	 * all evaluators at the same time and is not shut down by this class. By
+	 * default a thread pool is created for every run.
+	 * 
+	 * @param executor
+	 *            The executor running the evaluators (null to create a thread
+	 *            pool per run)
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the capacity of the queue holding the offspring that wait for
+	 * their evaluation. Smaller queues limit the number of offspring that are
+	 * bred from an outdated population.
+	 * 
+	 * @param queueCapacity
+	 *            The capacity of the evaluation queue (>= 1)
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("The queue capacity has to be greater than 0.");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Sets the fraction of offspring of the current batch that have to be
+	 * evaluated before the next batch is bred. A threshold of 1.0 breeds the
+	 * next batch only after the current one was evaluated completely (the
+	 * evaluations of a batch still overlap its reproduction). The default is
+	 * 0.5.
+	 * 
+	 * @param breedingThreshold
+	 *            The fraction (0.0, 1.0] of evaluated offspring
+	 */
+	public void setBreedingThreshold(double breedingThreshold) {
+		if (breedingThreshold <= 0.0 || breedingThreshold > 1.0) {
+			throw new IllegalArgumentException("The breeding threshold has to be in the interval (0.0, 1.0].");
+		}
+		this.breedingThreshold = breedingThreshold;
+	}
+
+	/**
+	 * Runs the asynchronous GEP to find a solution to the problem defined by
+	 * the environments of this engine. </br>
+	 * This function will modify the given population array.
+	 * 
+	 * @param population
+	 *            The initial population
+	 * @param maxNumGenerations
+	 *            The maximum number of generations (batches)
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param fitnessEpsilon
+	 *            The error allowed when comparing the floating point
+	 *            targetFitness with the current best fitness
+	 * @param criterion
+	 *            An additional criterion checked after every generation
+	 * @param listener
+	 *            The listener notified about the progress of the run
+	 * @return The result of the GEP execution.
+	 */
+	public GepResult<T> run(Individual<T>[] population, int maxNumGenerations, double targetFitness,
+			double fitnessEpsilon, TerminationCriterion criterion, GenerationListener<T> listener) {
+		final ExecutorService evaluatorExecutor = executor != null ? executor
+				: Executors.newFixedThreadPool(numEvaluators);
+		try {
+			return new Run(population, maxNumGenerations, targetFitness, fitnessEpsilon, criterion, listener)
+					.execute(evaluatorExecutor);
+		} finally {
+			if (executor == null) {
+				evaluatorExecutor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Runs the asynchronous GEP with an allowed error of zero and without an
+	 * additional termination criterion.
+	 * 
+	 * @param population
+	 *            The initial population
+	 * @param maxNumGenerations
+	 *            The maximum number of generations (batches)
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param listener
+	 *            The listener notified about the progress of the run
+	 * @return The result of the GEP execution.
+	 * 
+	 * @see AsynchronousEvolution#run(Individual[], int, double, double,
+	 *      TerminationCriterion, GenerationListener)
+	 */
+	public GepResult<T> run(Individual<T>[] population, int maxNumGenerations, double targetFitness,
+			GenerationListener<T> listener) {
+		return run(population, maxNumGenerations, targetFitness, 0.0, TerminationCriterion.never(), listener);
+	}
+
+	/**
+	 * An offspring passed to and from the evaluators.
+	 */
+	private static final class Task<T> {
+
+		/**
+		 * Tells an evaluator to stop.
+		 */
+		static final Task<?> POISON = new Task<>(null, -1, -1);
+
+		final Individual<T> individual;
+		final int batch;
+		final int position;
+
+		/**
+		 * The failure of the evaluation (null if successful).
+		 */
+		Throwable failure;
+
+		Task(Individual<T> individual, int batch, int position) {
+			this.individual = individual;
+			this.batch = batch;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * The state of a single run. Everything except the queues is confined to
+	 * the thread executing the run.
+	 */
+	private class Run {
+
+		private final Individual<T>[] population;
+		private final int maxNumGenerations;
+		private final double targetFitness;
+		private final double fitnessEpsilon;
+		private final TerminationCriterion criterion;
+		private final GenerationListener<T> listener;
+		private final RunState<T> state;
+
+		/**
+		 * The offspring waiting for their evaluation.
+		 */
+		private final BlockingQueue<Task<T>> evaluationQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+		/**
+		 * The evaluated offspring. The number of its elements is bounded by
+		 * the number of offspring of two batches.
+		 */
+		private final BlockingQueue<Task<T>> resultQueue = new LinkedBlockingQueue<>();
+
+		/**
+		 * The batch of the individual at every position of the population.
+		 */
+		private final int[] batchOfPosition;
+
+		/**
+		 * The number of evaluated offspring of the current and the previous
+		 * batch (indexed by the parity of the batch).
+		 */
+		private final int[] numEvaluated = new int[2];
+
+		/**
+		 * The newest bred batch (the current one) and the last finished one.
+		 */
+		private int currentBatch = 0;
+		private int finishedGeneration = 0;
+
+		private int bestIndividualIdx;
+		private double bestFitnessOfRun;
+		private boolean stopped = false;
+
+		Run(Individual<T>[] population, int maxNumGenerations, double targetFitness, double fitnessEpsilon,
+				TerminationCriterion criterion, GenerationListener<T> listener) {
+			this.population = population;
+			this.maxNumGenerations = maxNumGenerations;
+			this.targetFitness = targetFitness;
+			this.fitnessEpsilon = fitnessEpsilon;
+			this.criterion = criterion;
+			this.listener = listener;
+			this.batchOfPosition = new int[population.length];
+			this.state = new RunState<>(population, fe.getNumberOfEvaluations());
+		}
+
+		GepResult<T> execute(ExecutorService evaluatorExecutor) {
+			listener.runStarted(maxNumGenerations, targetFitness);
+			listener.generationStarted(0);
+			bestIndividualIdx = fe.evaluateFitness(population);
+			bestFitnessOfRun = population[bestIndividualIdx].getFitness();
+			listener.evaluationFinished(0, population, bestIndividualIdx);
+			listener.newBestIndividual(0, population[bestIndividualIdx]);
+			finishGeneration(0);
+
+			if (!stopped) {
+				final List<Future<?>> evaluators = startEvaluators(evaluatorExecutor);
+				try {
+					breedBatch();
+					while (!stopped) {
+						processResult(takeResult());
+						if (!stopped && currentBatch < maxNumGenerations && finishedGeneration >= currentBatch - 1
+								&& numEvaluated[currentBatch & 1] >= breedingThreshold * population.length) {
+							breedBatch();
+						}
+					}
+				} finally {
+					stopEvaluators(evaluators);
+				}
+			}
+
+			GepResult<T> result = new GepResult<>(finishedGeneration, maxNumGenerations,
+					population[bestIndividualIdx], targetFitness);
+			listener.runFinished(result);
+			return result;
+		}
+
+		/**
+		 * Selects the parents of the next batch from the population, breeds
+		 * the offspring and passes them to the evaluators.
+		 */
+		private void breedBatch() {
+			currentBatch++;
+			numEvaluated[currentBatch & 1] = 0;
+			listener.generationStarted(currentBatch);
+
+			// the individuals of the population are never modified, the
+			// offspring are bred from copies
+			@SuppressWarnings("unchecked")
+			final Individual<T>[] offspring = (Individual<T>[]) new Individual<?>[population.length];
+			for (int i = 0; i < offspring.length; i++) {
+				offspring[i] = new Individual<T>(population[i]);
+			}
+			re.reproduce(offspring, sm.select(offspring));
+
+			for (int i = 0; i < offspring.length; i++) {
+				final Task<T> task = new Task<>(offspring[i], currentBatch, i);
+				while (!evaluationQueue.offer(task)) {
+					// queue is full => process results while waiting
+					processResult(takeResult());
+					if (stopped) {
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Inserts the given evaluated offspring into the population and
+		 * finishes the previous generation if all of its offspring are
+		 * evaluated.
+		 */
+		private void processResult(Task<T> result) {
+			if (stopped) {
+				return;
+			}
+			if (result.failure != null) {
+				throw new IllegalStateException("Asynchronous evaluation failed", result.failure);
+			}
+
+			if (result.batch >= batchOfPosition[result.position]) {
+				batchOfPosition[result.position] = result.batch;
+				insert(result.individual, result.position, result.batch);
+			}
+
+			// generations are finished in order, even if the offspring of the
+			// current batch are evaluated before the ones of the previous
+			numEvaluated[result.batch & 1]++;
+			while (!stopped && finishedGeneration < currentBatch
+					&& numEvaluated[(finishedGeneration + 1) & 1] == population.length) {
+				final int generation = finishedGeneration + 1;
+				listener.evaluationFinished(generation, population, bestIndividualIdx);
+				finishGeneration(generation);
+			}
+			if (!stopped && isTargetReached()) {
+				stopped = true;
+			}
+		}
+
+		private void insert(Individual<T> individual, int position, int batch) {
+			population[position] = individual;
+			if (individual.getFitness() > population[bestIndividualIdx].getFitness()) {
+				bestIndividualIdx = position;
+			} else if (position == bestIndividualIdx) {
+				bestIndividualIdx = findBestIndividual();
+			}
+			if (individual.getFitness() > bestFitnessOfRun) {
+				bestFitnessOfRun = individual.getFitness();
+				listener.newBestIndividual(batch, individual);
+			}
+		}
+
+		/**
+		 * Finishes the given generation and checks the termination criteria.
+		 */
+		private void finishGeneration(int generation) {
+			finishedGeneration = generation;
+			state.update(generation, bestIndividualIdx, bestFitnessOfRun, fe.getNumberOfEvaluations());
+			listener.generationFinished(generation, population, bestIndividualIdx);
+			if (isTargetReached() || generation >= maxNumGenerations || criterion.shouldTerminate(state)) {
+				stopped = true;
+			}
+		}
+
+		private int findBestIndividual() {
+			int bestIdx = 0;
+			for (int i = 1; i < population.length; i++) {
+				if (population[i].getFitness() > population[bestIdx].getFitness()) {
+					bestIdx = i;
+				}
+			}
+			return bestIdx;
+		}
+
+		private boolean isTargetReached() {
+			return Math.abs(targetFitness - population[bestIndividualIdx].getFitness()) <= fitnessEpsilon;
+		}
+
+		private Task<T> takeResult() {
+			try {
+				return resultQueue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted during asynchronous evolution", e);
+			}
+		}
+
+		/**
+		 * Starts the evaluators. Every evaluator evaluates the offspring of
+		 * the evaluation queue by its own copy of the fitness environment
+		 * until it takes the poison task.
+		 */
+		private List<Future<?>> startEvaluators(ExecutorService evaluatorExecutor) {
+			final List<Future<?>> evaluators = new ArrayList<Future<?>>(numEvaluators);
+			for (int w = 0; w < numEvaluators; w++) {
+				final FitnessEnvironment<T> evaluator = fe.copy();
+				evaluators.add(evaluatorExecutor.submit(() -> {
+					try {
+						Task<T> task;
+						while ((task = evaluationQueue.take()) != Task.POISON) {
+							try {
+								fe.evaluateIndividual(evaluator, task.individual, task.batch, task.position);
+							} catch (RuntimeException | Error e) {
+								task.failure = e;
+							}
+							resultQueue.add(task);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}));
+			}
+			return evaluators;
+		}
+
+		/**
+		 * Discards the waiting offspring and waits until all evaluators
+		 * stopped. An interrupt of this thread does not end the waiting, so
+		 * no evaluator is left running after the run returned.
+		 */
+		@SuppressWarnings("unchecked")
+		private void stopEvaluators(List<Future<?>> evaluators) {
+			boolean interrupted = false;
+			evaluationQueue.clear();
+			for (int w = 0; w < evaluators.size(); w++) {
+				while (true) {
+					try {
+						evaluationQueue.put((Task<T>) Task.POISON);
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			for (Future<?> evaluator : evaluators) {
+				while (true) {
+					try {
+						evaluator.get();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						// failures of evaluations are reported by their results
+						break;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+}
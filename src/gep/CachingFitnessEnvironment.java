@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gep.model.Individual;
+import gep.model.PhenotypeKey;
+
+/**
+ * This class adds a fitness cache to another fitness environment. The fitness
+ * of an individual is cached under the key of its phenotype (see
+ * {@link PhenotypeKey}). Individuals whose phenotype was already assessed
+ * (e.g. duplicates created by the selection or different genotypes with the
+ * same coding regions) are not evaluated again by the wrapped environment.
+ * <p>
+ * The cache holds a bounded number of phenotypes and evicts the least recently
+ * used ones. It is shared by all copies of this environment, so it also works
+ * for parallel evaluation. If the same phenotype is evaluated by multiple
+ * workers at the same time, only one of them evaluates it while the others
+ * wait for the result.
+ * <p>
+ * The cache is only valid if the fitness solely depends on the phenotype and
+ * all assessed individuals share the same architecture. In particular, it must
+ * not wrap stochastic fitness environments (e.g. environments drawing random
+ * numbers from the stream selected by the generation and the index of the
+ * individual, see
+ * {@link FitnessEnvironment#evaluateFitness(Individual, int, int)}): the first
+ * sample assessed for a phenotype would be returned for all its later
+ * evaluations.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of individuals (= return type of expression
+ *            tree nodes) in the population to be assessed.
+ */
+public class CachingFitnessEnvironment<T> extends FitnessEnvironment<T> {
+
+	/**
+	 * The environment that assesses the fitness on a cache miss.
+	 */
+	private final FitnessEnvironment<T> delegate;
+
+	/**
+	 * The cache (shared by all copies).
+	 */
+	private final Cache cache;
+
+	/**
+	 * Whether the last fitness value returned by this environment was a cache
+	 * miss (i.e. assessed by the wrapped environment).
+	 */
+	private boolean lastFitnessAssessed = false;
+
+	/**
+	 * Creates a new fitness environment that caches the fitness values
+	 * assessed by the given environment.
+	 * 
+	 * @param delegate
+	 *            The environment assessing the fitness of unknown phenotypes
+	 * @param maxCacheSize
+	 *            The maximum number of cached phenotypes (>= 1)
+	 */
+	public CachingFitnessEnvironment(FitnessEnvironment<T> delegate, int maxCacheSize) {
+		this(delegate, new Cache(maxCacheSize));
+	}
+
+	private CachingFitnessEnvironment(FitnessEnvironment<T> delegate, Cache cache) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("The wrapped fitness environment must not be null.");
+		}
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+	/**
+	 * Creates a copy of this environment using a copy of the wrapped
+	 * environment. The copy shares the cache with this environment.
+	 * 
+	 * @return A copy of this environment
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if the wrapped environment can't be copied
+	 */
+	@Override
+	public CachingFitnessEnvironment<T> copy() {
+		return new CachingFitnessEnvironment<T>(delegate.copy(), cache);
+	}
+
+	@Override
+	protected double evaluateFitness(Individual<T> individual) {
+		return evaluateFitness(individual, -1, -1, false);
+	}
+
+	@Override
+	protected double evaluateFitness(Individual<T> individual, int generation, int individualIdx) {
+		return evaluateFitness(individual, generation, individualIdx, true);
+	}
+
+	/**
+	 * Returns the cached fitness of the individual's phenotype or evaluates it
+	 * by the wrapped environment (passing the position of the individual if
+	 * it is known).
+	 */
+	private double evaluateFitness(Individual<T> individual, int generation, int individualIdx,
+			boolean positionKnown) {
+		final PhenotypeKey key = PhenotypeKey.of(individual);
+
+		CompletableFuture<Double> fitness;
+		boolean evaluate = false;
+		synchronized (cache) {
+			fitness = cache.get(key);
+			if (fitness == null) {
+				fitness = new CompletableFuture<Double>();
+				cache.put(key, fitness);
+				evaluate = true;
+			}
+		}
+
+		lastFitnessAssessed = evaluate;
+		if (!evaluate) {
+			cache.hits.incrementAndGet();
+			return fitness.join();
+		}
+
+		cache.misses.incrementAndGet();
+		try {
+			final double value = positionKnown ? delegate.evaluateFitness(individual, generation, individualIdx)
+					: delegate.evaluateFitness(individual);
+			fitness.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			synchronized (cache) {
+				cache.remove(key, fitness);
+			}
+			fitness.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Cache hits are not counted as evaluations (see
+	 * {@link FitnessEnvironment#getNumberOfEvaluations()}), so evaluation
+	 * budgets only count the assessments of the wrapped environment.
+	 */
+	@Override
+	boolean isLastFitnessAssessed() {
+		return lastFitnessAssessed;
+	}
+
+	/**
+	 * Returns the number of evaluations that were answered by the cache.
+	 * 
+	 * @return The number of cache hits
+	 */
+	public long getCacheHits() {
+		return cache.hits.get();
+	}
+
+	/**
+	 * Returns the number of evaluations that had to be done by the wrapped
+	 * environment.
+	 * 
+	 * @return The number of cache misses
+	 */
+	public long getCacheMisses() {
+		return cache.misses.get();
+	}
+
+	/**
+	 * Returns the number of currently cached phenotypes.
+	 * 
+	 * @return The size of the cache
+	 */
+	public int getCacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Removes all cached fitness values and resets the counters. Has to be
+	 * called if the fitness of a phenotype changes (e.g. the fitness cases
+	 * were changed).
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+		cache.hits.set(0);
+		cache.misses.set(0);
+	}
+
+	/**
+	 * The LRU map of the cached fitness values and the hit/miss counters.
+	 */
+	private static class Cache extends LinkedHashMap<PhenotypeKey, CompletableFuture<Double>> {
+
+		private static final long serialVersionUID = 2316471207236016127L;
+
+		private final int maxSize;
+
+		final AtomicLong hits = new AtomicLong();
+		final AtomicLong misses = new AtomicLong();
+
+		Cache(int maxSize) {
+			super(16, 0.75f, true);
+			if (maxSize < 1) {
+				throw new IllegalArgumentException("The cache has to hold at least one phenotype.");
+			}
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<PhenotypeKey, CompletableFuture<Double>> eldest) {
+			return size() > maxSize;
+		}
+	}
+
+}
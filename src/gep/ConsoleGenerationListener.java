@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import gep.model.Individual;
+
+/**
+ * A generation listener that prints the progress of a GEP run (the best
+ * fitness of every generation and a summary) to the standard output.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals of the run
+ */
+public class ConsoleGenerationListener<T> implements GenerationListener<T> {
+
+	@Override
+	public void runStarted(int maxNumGenerations, double targetFitness) {
+		System.out.println("Start GEP evolution...");
+	}
+
+	@Override
+	public void generationFinished(int generation, Individual<T>[] population, int bestIndividualIdx) {
+		final double fitnessOfBestIndividual = population[bestIndividualIdx].getFitness();
+		if (generation == 0) {
+			System.out.println(" Initial generation " + generation + " (Best fitness: " + fitnessOfBestIndividual + ")");
+		} else {
+			System.out.println("Finished generation " + generation + " (Best fitness: " + fitnessOfBestIndividual + ")");
+		}
+	}
+
+	@Override
+	public void runFinished(GepResult<T> result) {
+		System.out.println("GEP done: ");
+		System.out.println("           Generations:  " + result.numGenerations + " (max=" + result.maxGenrations + ")");
+		System.out.println("           Best fitness: " + result.getFitnessOfBestIndivudal() + " (max="
+				+ result.targetFitness + ")");
+	}
+
+}
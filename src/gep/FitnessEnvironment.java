@@ -15,14 +15,31 @@
  */
 package gep;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import gep.model.Individual;
 
 /**
  * This class is the abstract class that has to be inherited from to implement
  * the fitness environment used to assess the fitness of individuals in the
  * formulation of a GEP problem.
- * 
- * TODO parallelize
+ * <p>
+ * By default the individuals of a population are evaluated sequentially. If
+ * the implementing class supports {@link FitnessEnvironment#copy()} the
+ * evaluation can be distributed over multiple workers by calling
+ * {@link FitnessEnvironment#enableParallelEvaluation(ExecutorService, int)}.
+ * <p>
+ * If the fitness only depends on the phenotype of an individual, the
+ * evaluation of individuals whose phenotype was not modified since their last
+ * evaluation can be skipped (see
+ * {@link FitnessEnvironment#setSkipUnmodifiedIndividuals(boolean)}).
  * 
  * @author Johannes Wortmann
  *
@@ -32,27 +49,75 @@ import gep.model.Individual;
  */
 public abstract class FitnessEnvironment<T> {
 
+	/**
+	 * The number of consecutive individuals a worker claims at once during
+	 * parallel evaluation. Small enough to balance individuals with very
+	 * different evaluation costs, large enough to keep the contention on the
+	 * shared counter low.
+	 */
+	private static final int PARALLEL_EVALUATION_CHUNK_SIZE = 4;
+
+	/**
+	 * The executor used to run the workers during parallel evaluation (null if
+	 * the population is evaluated sequentially).
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * The independent copies of this environment used by the workers (one per
+	 * worker, null if the population is evaluated sequentially).
+	 */
+	private List<FitnessEnvironment<T>> workerEnvironments = null;
+
+	/**
+	 * Whether individuals with an unmodified phenotype keep their fitness
+	 * instead of being evaluated again.
+	 */
+	private boolean skipUnmodifiedIndividuals = false;
+
+	/**
+	 * The number of populations evaluated by this environment so far (= the
+	 * index of the generation that is evaluated next).
+	 */
+	private int generation = 0;
+
+	/**
+	 * The number of individuals evaluated by this environment so far
+	 * (individuals skipped as unmodified and fitness values answered without
+	 * an assessment are not counted).
+	 */
+	private final AtomicLong numEvaluations = new AtomicLong(0);
+
 	/**
 	 * Evaluates the fitness for every individual of the given population and
 	 * returns the index of the best individual.
+	 * <p>
+	 * If parallel evaluation is enabled the individuals are distributed over
+	 * the workers. The returned index is the same as for the sequential
+	 * evaluation (the first individual with the highest fitness).
 	 * 
 	 * @param population
 	 *            The population to be assessed by this method.
 	 * @return The index in the population array with the best fitness value.
 	 */
 	public int evaluateFitness(Individual<T>[] population) {
-		double maxFitness = Double.MIN_VALUE;
-		int maxFitnessIdx = 0;
-		for (int i = 0; i < population.length; i++) {
-			// TODO parallelize (by adding abstract clone method to this class)
-			final Individual<T> individual = population[i];
-			individual.setFitness(evaluateFitness(individual));
-			if (maxFitness < individual.getFitness()) {
-				maxFitness = individual.getFitness();
-				maxFitnessIdx = i;
+		final int currentGeneration = generation++;
+		if (executor != null) {
+			evaluateFitnessInParallel(population, currentGeneration);
+		} else {
+			long evaluated = 0;
+			for (int i = 0; i < population.length; i++) {
+				final Individual<T> individual = population[i];
+				if (needsEvaluation(individual)) {
+					individual.setFitness(evaluateFitness(individual, currentGeneration, i));
+					if (isLastFitnessAssessed()) {
+						evaluated++;
+					}
+				}
 			}
+			numEvaluations.addAndGet(evaluated);
 		}
-		return maxFitnessIdx;
+		return findBestIndividual(population);
 	}
 
 	/**
@@ -64,4 +129,273 @@ public abstract class FitnessEnvironment<T> {
 	 */
 	abstract protected double evaluateFitness(Individual<T> individual);
 
+	/**
+	 * Evaluates the fitness of the given individual which is located at the
+	 * given index of the population of the given generation. Both values do
+	 * not depend on whether the population is evaluated sequentially or in
+	 * parallel, so environments with stochastic evaluations can use them to
+	 * select their random streams (see {@link gep.random.PhiloxRandomEngine}).
+	 * <p>
+	 * The default implementation ignores the position and calls
+	 * {@link FitnessEnvironment#evaluateFitness(Individual)}.
+	 * 
+	 * @param individual
+	 *            The individual to be evaluated.
+	 * @param generation
+	 *            The number of populations evaluated before by this
+	 *            environment
+	 * @param individualIdx
+	 *            The index of the individual in its population
+	 * @return The fitness value of the individual
+	 */
+	protected double evaluateFitness(Individual<T> individual, int generation, int individualIdx) {
+		return evaluateFitness(individual);
+	}
+
+	/**
+	 * Returns the number of populations evaluated by this environment so far.
+	 * 
+	 * @return The index of the generation that is evaluated next
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Returns the number of individuals evaluated by this environment so far.
+	 * Individuals whose evaluation was skipped because their phenotype was not
+	 * modified (see
+	 * {@link FitnessEnvironment#setSkipUnmodifiedIndividuals(boolean)}) and
+	 * fitness values answered without an assessment (e.g. cache hits of a
+	 * {@link CachingFitnessEnvironment}) are not counted.
+	 * 
+	 * @return The number of fitness evaluations
+	 */
+	public long getNumberOfEvaluations() {
+		return numEvaluations.get();
+	}
+
+	/**
+	 * Creates a copy of this fitness environment that can evaluate individuals
+	 * concurrently to this instance. The copy must not share any mutable state
+	 * with this environment or with other copies.
+	 * <p>
+	 * This method is required for parallel evaluation. The default
+	 * implementation throws an {@link UnsupportedOperationException}.
+	 * 
+	 * @return An independent copy of this fitness environment
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if this environment can't be copied
+	 */
+	public FitnessEnvironment<T> copy() {
+		throw new UnsupportedOperationException(
+				getClass().getSimpleName() + " does not support copies and thus no parallel evaluation");
+	}
+
+	/**
+	 * Enables the parallel evaluation of populations. The individuals are
+	 * evaluated by the given number of workers which are executed by the given
+	 * executor. Every worker uses its own copy of this environment (see
+	 * {@link FitnessEnvironment#copy()}). The copies are created once by this
+	 * method and reused for all following evaluations.
+	 * <p>
+	 * The executor is not shut down by this class.
+	 * 
+	 * @param executor
+	 *            The executor that runs the workers
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if this environment can't be copied
+	 */
+	public void enableParallelEvaluation(ExecutorService executor, int numWorkers) {
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("The number of workers has to be greater than 0.");
+		}
+		List<FitnessEnvironment<T>> copies = new ArrayList<FitnessEnvironment<T>>(numWorkers);
+		for (int i = 0; i < numWorkers; i++) {
+			copies.add(copy());
+		}
+		this.workerEnvironments = copies;
+		this.executor = executor;
+	}
+
+	/**
+	 * Enables the parallel evaluation of populations using the given number of
+	 * workers which are executed by the common fork-join pool.
+	 * 
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * 
+	 * @see FitnessEnvironment#enableParallelEvaluation(ExecutorService, int)
+	 */
+	public void enableParallelEvaluation(int numWorkers) {
+		enableParallelEvaluation(ForkJoinPool.commonPool(), numWorkers);
+	}
+
+	/**
+	 * Disables the parallel evaluation. All following populations are
+	 * evaluated sequentially by this environment.
+	 */
+	public void disableParallelEvaluation() {
+		this.executor = null;
+		this.workerEnvironments = null;
+	}
+
+	/**
+	 * Sets whether individuals whose phenotype was not modified since their
+	 * fitness was assessed (see {@link Individual#isPhenotypeModified()}) keep
+	 * their fitness instead of being evaluated again. This is only valid if
+	 * the fitness of an individual solely depends on its phenotype (e.g. not
+	 * on random decisions during the evaluation). Disabled by default.
+	 * 
+	 * @param skip
+	 *            True, if unmodified individuals should not be evaluated
+	 *            again. False, otherwise.
+	 */
+	public void setSkipUnmodifiedIndividuals(boolean skip) {
+		this.skipUnmodifiedIndividuals = skip;
+	}
+
+	/**
+	 * Evaluates the given single individual by the given evaluator (this
+	 * environment or one of its copies, see {@link FitnessEnvironment#copy()})
+	 * unless its evaluation can be skipped. This is used by engines that
+	 * evaluate individuals one by one instead of whole populations. The
+	 * evaluation is counted by this environment.
+	 * 
+	 * @param evaluator
+	 *            The environment evaluating the individual
+	 * @param individual
+	 *            The individual to be evaluated
+	 * @param generation
+	 *            The generation passed to
+	 *            {@link FitnessEnvironment#evaluateFitness(Individual, int, int)}
+	 * @param individualIdx
+	 *            The index passed to
+	 *            {@link FitnessEnvironment#evaluateFitness(Individual, int, int)}
+	 * @return True, if the individual was evaluated. False, if it was skipped.
+	 */
+	boolean evaluateIndividual(FitnessEnvironment<T> evaluator, Individual<T> individual, int generation,
+			int individualIdx) {
+		if (!needsEvaluation(individual)) {
+			return false;
+		}
+		individual.setFitness(evaluator.evaluateFitness(individual, generation, individualIdx));
+		if (evaluator.isLastFitnessAssessed()) {
+			numEvaluations.incrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the fitness value last returned by this environment was
+	 * actually assessed and has to be counted as an evaluation (see
+	 * {@link FitnessEnvironment#getNumberOfEvaluations()}). This is only
+	 * called by the thread that evaluated the individual right after the
+	 * evaluation (every worker uses its own copy).
+	 * 
+	 * @return True, if the last fitness value was assessed. False, if it was
+	 *         answered without an evaluation.
+	 */
+	boolean isLastFitnessAssessed() {
+		return true;
+	}
+
+	/**
+	 * Returns true if the given individual has to be evaluated.
+	 */
+	private boolean needsEvaluation(Individual<T> individual) {
+		return !skipUnmodifiedIndividuals || individual.isPhenotypeModified();
+	}
+
+	/**
+	 * Evaluates the given population by distributing its individuals over the
+	 * workers. Every worker repeatedly claims the next chunk of not yet
+	 * evaluated individuals until the whole population is processed.
+	 * 
+	 * @param population
+	 *            The population to be assessed
+	 * @param currentGeneration
+	 *            The index of the evaluated generation
+	 */
+	private void evaluateFitnessInParallel(final Individual<T>[] population, final int currentGeneration) {
+		final AtomicInteger nextIdx = new AtomicInteger(0);
+
+		List<Future<?>> results = new ArrayList<Future<?>>(workerEnvironments.size());
+		for (final FitnessEnvironment<T> worker : workerEnvironments) {
+			results.add(executor.submit(() -> {
+				int startIdx;
+				long evaluated = 0;
+				while ((startIdx = nextIdx.getAndAdd(PARALLEL_EVALUATION_CHUNK_SIZE)) < population.length) {
+					final int endIdx = Math.min(startIdx + PARALLEL_EVALUATION_CHUNK_SIZE, population.length);
+					for (int i = startIdx; i < endIdx; i++) {
+						final Individual<T> individual = population[i];
+						if (needsEvaluation(individual)) {
+							individual.setFitness(worker.evaluateFitness(individual, currentGeneration, i));
+							if (worker.isLastFitnessAssessed()) {
+								evaluated++;
+							}
+						}
+					}
+				}
+				numEvaluations.addAndGet(evaluated);
+			}));
+		}
+
+		// wait for all workers (even if one fails or this thread is
+		// interrupted) before reporting an error, so no worker modifies the
+		// population after this method returned
+		RuntimeException failure = null;
+		boolean interrupted = false;
+		for (Future<?> result : results) {
+			while (true) {
+				try {
+					result.get();
+					break;
+				} catch (InterruptedException e) {
+					if (!interrupted) {
+						interrupted = true;
+						// the workers stop claiming individuals
+						nextIdx.set(population.length);
+						failure = new IllegalStateException("Interrupted during parallel fitness evaluation", e);
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new IllegalStateException("Parallel fitness evaluation failed", e.getCause());
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Returns the index of the first individual with the highest fitness in
+	 * the given (evaluated) population.
+	 * 
+	 * @param population
+	 *            The evaluated population
+	 * @return The index in the population array with the best fitness value.
+	 */
+	private int findBestIndividual(Individual<T>[] population) {
+		double maxFitness = Double.MIN_VALUE;
+		int maxFitnessIdx = 0;
+		for (int i = 0; i < population.length; i++) {
+			if (maxFitness < population[i].getFitness()) {
+				maxFitness = population[i].getFitness();
+				maxFitnessIdx = i;
+			}
+		}
+		return maxFitnessIdx;
+	}
+
 }
@@ -17,6 +17,7 @@ package gep;
 
 import gep.model.Individual;
 import gep.selection.SelectionMethod;
+import gep.termination.TerminationCriterion;
 
 /**
  * This class contains the GEP control. It contains the static method that
@@ -31,7 +32,7 @@ public class GeneExpressionProgramming {
 	 * Runs Gene Expression Programming to find a solution to the problem
 	 * defined by the given parameters. </br>
 	 * This function will modify and update the given population array per
-	 * generation.
+	 * generation. The progress of the run is reported to the given listener.
 	 * 
 	 * @param population
 	 *            The initial population
@@ -52,39 +53,144 @@ public class GeneExpressionProgramming {
 	 * @param fitnessEpsilon
 	 *            The error allowed when comparing the floating point
 	 *            targetFitness with the current best fitness
+	 * @param criterion
+	 *            An additional criterion checked between two generations that
+	 *            stops the run before the maximum number of generations is
+	 *            reached (e.g. a {@link gep.termination.WallClockBudget})
+	 * @param listener
+	 *            The listener notified about the progress of the run (e.g. a
+	 *            {@link ConsoleGenerationListener})
 	 * @return The result of the GEP execution.
 	 */
 	public static <T> GepResult<T> run(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
 			ReproductionEnvironment re, final int maxNumGenerations, final double targetFitness,
-			final double fitnessEpsilon) {
+			final double fitnessEpsilon, TerminationCriterion criterion, GenerationListener<T> listener) {
+		return run(population, fe, sm, re, maxNumGenerations, targetFitness, fitnessEpsilon, criterion, listener,
+				(generation, evaluatedPopulation, bestIdx) -> bestIdx);
+	}
+
+	/**
+	 * Runs Gene Expression Programming like
+	 * {@link GeneExpressionProgramming#run(Individual[], FitnessEnvironment, SelectionMethod, ReproductionEnvironment, int, double, double, TerminationCriterion, GenerationListener)}
+	 * and passes every evaluated generation (except the initial one) to the
+	 * given exchange before the best individual is determined and the
+	 * termination is checked.
+	 */
+	static <T> GepResult<T> run(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re, final int maxNumGenerations, final double targetFitness,
+			final double fitnessEpsilon, TerminationCriterion criterion, GenerationListener<T> listener,
+			PopulationExchange<T> exchange) {
 
 		int bestIndividualIdx;
 		double fitnessOfBestIndividual;
 		int currentGeneration = 0;
 
-		System.out.println("Start GEP evolution...");
+		final RunState<T> state = new RunState<>(population, fe.getNumberOfEvaluations());
+
+		listener.runStarted(maxNumGenerations, targetFitness);
+		listener.generationStarted(currentGeneration);
 		bestIndividualIdx = fe.evaluateFitness(population);
 		fitnessOfBestIndividual = population[bestIndividualIdx].getFitness();
-		System.out.println(
-				" Initial generation " + currentGeneration + " (Best fitness: " + fitnessOfBestIndividual + ")");
+		double bestFitnessOfRun = fitnessOfBestIndividual;
+		state.update(currentGeneration, bestIndividualIdx, bestFitnessOfRun, fe.getNumberOfEvaluations());
+		listener.evaluationFinished(currentGeneration, population, bestIndividualIdx);
+		listener.newBestIndividual(currentGeneration, population[bestIndividualIdx]);
+		listener.generationFinished(currentGeneration, population, bestIndividualIdx);
 
 		do {
+			currentGeneration++;
+			listener.generationStarted(currentGeneration);
 			int modStartIdx = sm.select(population);
 			re.reproduce(population, modStartIdx);
-			bestIndividualIdx = fe.evaluateFitness(population);
+			bestIndividualIdx = exchange.exchange(currentGeneration, population, fe.evaluateFitness(population));
 			fitnessOfBestIndividual = population[bestIndividualIdx].getFitness();
-			currentGeneration++;
-			System.out.println(
-					"Finished generation " + currentGeneration + " (Best fitness: " + fitnessOfBestIndividual + ")");
+			listener.evaluationFinished(currentGeneration, population, bestIndividualIdx);
+			if (fitnessOfBestIndividual > bestFitnessOfRun) {
+				bestFitnessOfRun = fitnessOfBestIndividual;
+				listener.newBestIndividual(currentGeneration, population[bestIndividualIdx]);
+			}
+			state.update(currentGeneration, bestIndividualIdx, bestFitnessOfRun, fe.getNumberOfEvaluations());
+			listener.generationFinished(currentGeneration, population, bestIndividualIdx);
 
 		} while (Math.abs(targetFitness - fitnessOfBestIndividual) > fitnessEpsilon
-				&& currentGeneration < maxNumGenerations);
+				&& currentGeneration < maxNumGenerations && !criterion.shouldTerminate(state));
 
-		System.out.println("GEP done: ");
-		System.out.println("           Generations:  " + currentGeneration + " (max=" + maxNumGenerations + ")");
-		System.out.println("           Best fitness: " + fitnessOfBestIndividual + " (max=" + targetFitness + ")");
+		GepResult<T> result = new GepResult<>(currentGeneration, maxNumGenerations, population[bestIndividualIdx],
+				targetFitness);
+		listener.runFinished(result);
+		return result;
+	}
+
+	/**
+	 * Runs Gene Expression Programming to find a solution to the problem
+	 * defined by the given parameters. </br>
+	 * This function will modify and update the given population array per
+	 * generation. The progress of the run is reported to the given listener.
+	 * 
+	 * @param population
+	 *            The initial population
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals
+	 * @param sm
+	 *            The selection method to select individuals from the current
+	 *            generation to be part of the next one
+	 * @param re
+	 *            The reproduction environment used to genetically modify
+	 *            individuals
+	 * @param maxNumGenerations
+	 *            The maximum number of generations
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param fitnessEpsilon
+	 *            The error allowed when comparing the floating point
+	 *            targetFitness with the current best fitness
+	 * @param listener
+	 *            The listener notified about the progress of the run (e.g. a
+	 *            {@link ConsoleGenerationListener})
+	 * @return The result of the GEP execution.
+	 */
+	public static <T> GepResult<T> run(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re, final int maxNumGenerations, final double targetFitness,
+			final double fitnessEpsilon, GenerationListener<T> listener) {
+		return run(population, fe, sm, re, maxNumGenerations, targetFitness, fitnessEpsilon,
+				TerminationCriterion.never(), listener);
+	}
 
-		return new GepResult<>(currentGeneration, maxNumGenerations, population[bestIndividualIdx], targetFitness);
+	/**
+	 * Runs Gene Expression Programming to find a solution to the problem
+	 * defined by the given parameters without reporting its progress. </br>
+	 * This function will modify and update the given population array per
+	 * generation.
+	 * 
+	 * @param population
+	 *            The initial population
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals
+	 * @param sm
+	 *            The selection method to select individuals from the current
+	 *            generation to be part of the next one
+	 * @param re
+	 *            The reproduction environment used to genetically modify
+	 *            individuals
+	 * @param maxNumGenerations
+	 *            The maximum number of generations
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param fitnessEpsilon
+	 *            The error allowed when comparing the floating point
+	 *            targetFitness with the current best fitness
+	 * @return The result of the GEP execution.
+	 */
+	public static <T> GepResult<T> run(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re, final int maxNumGenerations, final double targetFitness,
+			final double fitnessEpsilon) {
+		return run(population, fe, sm, re, maxNumGenerations, targetFitness, fitnessEpsilon,
+				new GenerationListener<T>() {
+				});
 	}
 
 	/**
@@ -94,6 +200,41 @@ public class GeneExpressionProgramming {
 	 * generation. </br>
 	 * This function sets the allowed error to zero. It is therefore only
 	 * recommended for integer fitness functions. In case of possible floating
+	 * point values use the overloaded functions that takes an epsilon.
+	 * 
+	 * @param population
+	 *            The initial population
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals
+	 * @param sm
+	 *            The selection method to select individuals from the current
+	 *            generation to be part of the next one
+	 * @param re
+	 *            The reproduction environment used to genetically modify
+	 *            individuals
+	 * @param maxNumGenerations
+	 *            The maximum number of generations
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param listener
+	 *            The listener notified about the progress of the run
+	 * @return The result of the GEP execution.
+	 */
+	public static <T> GepResult<T> run(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re, final int maxNumGenerations, final double targetFitness,
+			GenerationListener<T> listener) {
+		return run(population, fe, sm, re, maxNumGenerations, targetFitness, 0.0, listener);
+	}
+
+	/**
+	 * Runs Gene Expression Programming to find a solution to the problem
+	 * defined by the given parameters without reporting its progress. </br>
+	 * This function will modify and update the given population array per
+	 * generation. </br>
+	 * This function sets the allowed error to zero. It is therefore only
+	 * recommended for integer fitness functions. In case of possible floating
 	 * point values use the overloaded functions that takes an epsilon as last
 	 * parameter.
 	 * 
@@ -120,4 +261,24 @@ public class GeneExpressionProgramming {
 		return run(population, fe, sm, re, maxNumGenerations, targetFitness, 0.0);
 	}
 
+	/**
+	 * Exchanges individuals of an evaluated population with other
+	 * populations (e.g. the migration of the {@link IslandModel}).
+	 */
+	interface PopulationExchange<T> {
+
+		/**
+		 * Exchanges individuals of the given evaluated population.
+		 * 
+		 * @param generation
+		 *            The number of the generation
+		 * @param population
+		 *            The evaluated population
+		 * @param bestIndividualIdx
+		 *            The index of the best individual of the population
+		 * @return The index of the best individual after the exchange
+		 */
+		int exchange(int generation, Individual<T>[] population, int bestIndividualIdx);
+	}
+
 }
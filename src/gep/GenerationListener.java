@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import gep.model.Individual;
+
+/**
+ * A listener that is notified about the progress of a GEP run (see
+ * {@link GeneExpressionProgramming#run(Individual[], FitnessEnvironment, gep.selection.SelectionMethod, ReproductionEnvironment, int, double, double, GenerationListener)}).
+ * All methods do nothing by default, so implementations only have to
+ * override the events they are interested in.
+ * <p>
+ * The listener is called by the thread executing the run. The population
+ * passed to the listener is modified by the following generations, so
+ * individuals that should be kept have to be copied.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals of the run
+ * 
+ * @see ConsoleGenerationListener
+ */
+public interface GenerationListener<T> {
+
+	/**
+	 * Called before the initial population is evaluated.
+	 * 
+	 * @param maxNumGenerations
+	 *            The maximum number of generations of the run
+	 * @param targetFitness
+	 *            The target fitness of the run
+	 */
+	default void runStarted(int maxNumGenerations, double targetFitness) {
+	}
+
+	/**
+	 * Called when a generation starts. Generation 0 is the initial population,
+	 * which is evaluated without selection and reproduction.
+	 * 
+	 * @param generation
+	 *            The number of the generation
+	 */
+	default void generationStarted(int generation) {
+	}
+
+	/**
+	 * Called after the population of a generation was evaluated.
+	 * 
+	 * @param generation
+	 *            The number of the generation
+	 * @param population
+	 *            The evaluated population
+	 * @param bestIndividualIdx
+	 *            The index of the best individual of the population
+	 */
+	default void evaluationFinished(int generation, Individual<T>[] population, int bestIndividualIdx) {
+	}
+
+	/**
+	 * Called if a generation contains an individual whose fitness exceeds
+	 * the fitness of all individuals of the previous generations.
+	 * 
+	 * @param generation
+	 *            The number of the generation
+	 * @param bestIndividual
+	 *            The new best individual
+	 */
+	default void newBestIndividual(int generation, Individual<T> bestIndividual) {
+	}
+
+	/**
+	 * Called when a generation is finished.
+	 * 
+	 * @param generation
+	 *            The number of the generation
+	 * @param population
+	 *            The evaluated population
+	 * @param bestIndividualIdx
+	 *            The index of the best individual of the population
+	 */
+	default void generationFinished(int generation, Individual<T>[] population, int bestIndividualIdx) {
+	}
+
+	/**
+	 * Called after the last generation.
+	 * 
+	 * @param result
+	 *            The result of the run
+	 */
+	default void runFinished(GepResult<T> result) {
+	}
+
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import gep.model.Individual;
+import gep.selection.SelectionMethod;
+import gep.selection.TopKSelector;
+import gep.termination.CancellationToken;
+import gep.termination.TerminationCriterion;
+
+/**
+ * <p>
+ * This class implements the island model of GEP. Several sub-populations
+ * (islands) evolve independently, each by the generational workflow of
+ * {@link GeneExpressionProgramming} on its own thread with its own
+ * environments and selection method. Every given number of generations an
+ * island sends copies of its best individuals to the islands defined by the
+ * {@link MigrationTopology}. The migration gives the islands access to the
+ * building blocks found by the others while the separation keeps the
+ * diversity of the whole population.
+ * </p>
+ * 
+ * <p>
+ * Migrants are passed through lock-free mailboxes, so islands never wait for
+ * each other. When an island migrates it takes all migrants from its mailbox,
+ * each of which replaces the worst individual of the island if it is better.
+ * An island migrates right after the evaluation of a generation, so the
+ * immigrants count for the best individual and the termination of that
+ * generation.
+ * As the islands progress at different speeds, the result of a run depends
+ * on the scheduling of the threads.
+ * </p>
+ * 
+ * <p>
+ * The run of all islands stops as soon as one island reaches the target
+ * fitness. The other termination conditions are checked by every island
+ * separately.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals
+ */
+public class IslandModel<T> {
+
+	/**
+	 * The topology defining the destinations of the migrants.
+	 */
+	private final MigrationTopology topology;
+
+	/**
+	 * The number of generations between two migrations.
+	 */
+	private final int migrationInterval;
+
+	/**
+	 * The number of best individuals an island sends to every destination.
+	 */
+	private final int numMigrants;
+
+	/**
+	 * The islands of this model.
+	 */
+	private final List<Island> islands = new ArrayList<Island>();
+
+	/**
+	 * The executor running the islands (null if a thread pool is created per
+	 * run).
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * Creates a new island model without islands.
+	 * 
+	 * @param topology
+	 *            The topology defining the destinations of the migrants
+	 * @param migrationInterval
+	 *            The number of generations between two migrations (> 0)
+	 * @param numMigrants
+	 *            The number of best individuals an island sends to every
+	 *            destination (>= 0)
+	 */
+	public IslandModel(MigrationTopology topology, int migrationInterval, int numMigrants) {
+		if (migrationInterval <= 0) {
+			throw new IllegalArgumentException("The migration interval has to be greater than 0.");
+		}
+		if (numMigrants < 0) {
+			throw new IllegalArgumentException("The number of migrants must not be negative.");
+		}
+		this.topology = topology;
+		this.migrationInterval = migrationInterval;
+		this.numMigrants = numMigrants;
+	}
+
+	/**
+	 * Adds an island to this model. The environments and the selection method
+	 * are used by the thread of the island only, so they must not be shared
+	 * with other islands. All islands have to use individuals of the same
+	 * architecture.
+	 * 
+	 * @param population
+	 *            The initial population of the island (more individuals than
+	 *            migrants)
+	 * @param fe
+	 *            The fitness environment of the island
+	 * @param sm
+	 *            The selection method of the island
+	 * @param re
+	 *            The reproduction environment of the island
+	 * @return The index of the island
+	 */
+	public int addIsland(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re) {
+		return addIsland(population, fe, sm, re, new GenerationListener<T>() {
+		});
+	}
+
+	/**
+	 * Adds an island to this model whose progress is reported to the given
+	 * listener (which is called by the thread of the island).
+	 * 
+	 * @param population
+	 *            The initial population of the island (more individuals than
+	 *            migrants)
+	 * @param fe
+	 *            The fitness environment of the island
+	 * @param sm
+	 *            The selection method of the island
+	 * @param re
+	 *            The reproduction environment of the island
+	 * @param listener
+	 *            The listener notified about the progress of the island
+	 * @return The index of the island
+	 * 
+	 * @see IslandModel#addIsland(Individual[], FitnessEnvironment,
+	 *      SelectionMethod, ReproductionEnvironment)
+	 */
+	public int addIsland(Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+			ReproductionEnvironment re, GenerationListener<T> listener) {
+		if (population.length <= numMigrants) {
+			throw new IllegalArgumentException("The population has to contain more individuals than migrants.");
+		}
+		for (Island island : islands) {
+			if (island.population == population || island.fe == fe || island.sm == sm || island.re == re) {
+				throw new IllegalArgumentException("Islands must not share their population or environments.");
+			}
+		}
+		islands.add(new Island(islands.size(), population, fe, sm, re, listener));
+		return islands.size() - 1;
+	}
+
+	/**
+	 * Returns the number of islands of this model.
+	 * 
+	 * @return The number of islands
+	 */
+	public int getNumberOfIslands() {
+		return islands.size();
+	}
+
+	/**
+	 * Sets the executor that runs the islands. It has to be able to run all
+	 * islands at the same time and is not shut down by this class. By default
+	 * a thread pool is created for every run.
+	 * 
+	 * @param executor
+	 *            The executor running the islands (null to create a thread
+	 *            pool per run)
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Runs all islands until one reaches the target fitness or all islands
+	 * stopped. </br>
+	 * This function will modify the populations of the islands.
+	 * 
+	 * @param maxNumGenerations
+	 *            The maximum number of generations of every island
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param fitnessEpsilon
+	 *            The error allowed when comparing the floating point
+	 *            targetFitness with the current best fitness
+	 * @param criterion
+	 *            An additional criterion checked by every island after every
+	 *            generation (concurrently by the threads of the islands)
+	 * @return The result of the island with the best individual
+	 */
+	public GepResult<T> run(int maxNumGenerations, double targetFitness, double fitnessEpsilon,
+			TerminationCriterion criterion) {
+		if (islands.isEmpty()) {
+			throw new IllegalStateException("The island model has no islands.");
+		}
+		final CancellationToken targetReached = new CancellationToken();
+		final TerminationCriterion islandCriterion = criterion.or(targetReached);
+		for (Island island : islands) {
+			island.mailbox.clear();
+		}
+
+		final ExecutorService islandExecutor = executor != null ? executor
+				: Executors.newFixedThreadPool(islands.size());
+		final List<Future<GepResult<T>>> results = new ArrayList<Future<GepResult<T>>>(islands.size());
+		try {
+			for (final Island island : islands) {
+				results.add(islandExecutor.submit(() -> {
+					try {
+						final GepResult<T> result = GeneExpressionProgramming.run(island.population, island.fe,
+								island.sm, island.re, maxNumGenerations, targetFitness, fitnessEpsilon,
+								islandCriterion, island, island);
+						if (result.isOptimalSolution(fitnessEpsilon)) {
+							targetReached.cancel();
+						}
+						return result;
+					} catch (RuntimeException | Error e) {
+						// don't let the other islands continue on failures
+						targetReached.cancel();
+						throw e;
+					}
+				}));
+			}
+			return awaitIslands(results, targetReached);
+		} finally {
+			if (executor == null) {
+				islandExecutor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Runs all islands with an allowed error of zero and without an
+	 * additional termination criterion.
+	 * 
+	 * @param maxNumGenerations
+	 *            The maximum number of generations of every island
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @return The result of the island with the best individual
+	 * 
+	 * @see IslandModel#run(int, double, double, TerminationCriterion)
+	 */
+	public GepResult<T> run(int maxNumGenerations, double targetFitness) {
+		return run(maxNumGenerations, targetFitness, 0.0, TerminationCriterion.never());
+	}
+
+	/**
+	 * Waits until all islands finished and returns the result with the best
+	 * individual (the first island on ties). Reports the first failure. If
+	 * this thread is interrupted the islands are stopped by the given token
+	 * but still awaited, so no island modifies its population after the run
+	 * returned.
+	 */
+	private GepResult<T> awaitIslands(List<Future<GepResult<T>>> results, CancellationToken stop) {
+		GepResult<T> best = null;
+		RuntimeException failure = null;
+		boolean interrupted = false;
+		for (Future<GepResult<T>> future : results) {
+			while (true) {
+				try {
+					final GepResult<T> result = future.get();
+					if (best == null || result.getFitnessOfBestIndivudal() > best.getFitnessOfBestIndivudal()) {
+						best = result;
+					}
+					break;
+				} catch (InterruptedException e) {
+					if (!interrupted) {
+						interrupted = true;
+						stop.cancel();
+						failure = new IllegalStateException("Interrupted during island model run", e);
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new IllegalStateException("Island model run failed", e.getCause());
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return best;
+	}
+
+	/**
+	 * A single island. It forwards the progress of its run to the listener of
+	 * the island and migrates after the evaluation of every migration
+	 * interval, so the immigrants are taken into account by the best
+	 * individual and the termination check of the generation.
+	 */
+	private class Island implements GenerationListener<T>, GeneExpressionProgramming.PopulationExchange<T> {
+
+		final int index;
+		final Individual<T>[] population;
+		final FitnessEnvironment<T> fe;
+		final SelectionMethod sm;
+		final ReproductionEnvironment re;
+		final GenerationListener<T> listener;
+
+		/**
+		 * The migrants sent to this island by others.
+		 */
+		final ConcurrentLinkedQueue<Individual<T>> mailbox = new ConcurrentLinkedQueue<Individual<T>>();
+
+		/**
+		 * Determines the emigrants (only used by the thread of the island).
+		 */
+		private final TopKSelector migrantSelector = new TopKSelector();
+		private final int[] migrantIdx;
+
+		Island(int index, Individual<T>[] population, FitnessEnvironment<T> fe, SelectionMethod sm,
+				ReproductionEnvironment re, GenerationListener<T> listener) {
+			this.index = index;
+			this.population = population;
+			this.fe = fe;
+			this.sm = sm;
+			this.re = re;
+			this.listener = listener;
+			this.migrantIdx = new int[numMigrants];
+		}
+
+		@Override
+		public void runStarted(int maxNumGenerations, double targetFitness) {
+			listener.runStarted(maxNumGenerations, targetFitness);
+		}
+
+		@Override
+		public void generationStarted(int generation) {
+			listener.generationStarted(generation);
+		}
+
+		@Override
+		public void evaluationFinished(int generation, Individual<T>[] population, int bestIndividualIdx) {
+			listener.evaluationFinished(generation, population, bestIndividualIdx);
+		}
+
+		@Override
+		public void newBestIndividual(int generation, Individual<T> bestIndividual) {
+			listener.newBestIndividual(generation, bestIndividual);
+		}
+
+		@Override
+		public void generationFinished(int generation, Individual<T>[] population, int bestIndividualIdx) {
+			listener.generationFinished(generation, population, bestIndividualIdx);
+		}
+
+		@Override
+		public int exchange(int generation, Individual<T>[] population, int bestIndividualIdx) {
+			if (generation % migrationInterval != 0) {
+				return bestIndividualIdx;
+			}
+			emigrate();
+			return immigrate(bestIndividualIdx);
+		}
+
+		@Override
+		public void runFinished(GepResult<T> result) {
+			listener.runFinished(result);
+		}
+
+		/**
+		 * Sends copies of the best individuals to the destination islands.
+		 */
+		private void emigrate() {
+			migrantSelector.selectTop(population, numMigrants, migrantIdx);
+			for (int destination : topology.getDestinations(index, islands.size())) {
+				final ConcurrentLinkedQueue<Individual<T>> destinationMailbox = islands.get(destination).mailbox;
+				for (int i = 0; i < numMigrants; i++) {
+					// every island gets its own copies
+					destinationMailbox.add(new Individual<T>(population[migrantIdx[i]]));
+				}
+			}
+		}
+
+		/**
+		 * Replaces the worst individuals by better migrants of the mailbox and
+		 * returns the index of the best individual afterwards.
+		 */
+		private int immigrate(int bestIndividualIdx) {
+			Individual<T> immigrant;
+			while ((immigrant = mailbox.poll()) != null) {
+				int worstIdx = 0;
+				for (int i = 1; i < population.length; i++) {
+					if (population[i].getFitness() < population[worstIdx].getFitness()) {
+						worstIdx = i;
+					}
+				}
+				if (immigrant.getFitness() > population[worstIdx].getFitness()) {
+					population[worstIdx].copyFrom(immigrant);
+					if (immigrant.getFitness() > population[bestIndividualIdx].getFitness()) {
+						bestIndividualIdx = worstIdx;
+					}
+				}
+			}
+			return bestIndividualIdx;
+		}
+
+	}
+
+}
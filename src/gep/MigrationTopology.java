@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+/**
+ * The topologies of an {@link IslandModel}, i.e. the islands to which an
+ * island sends its migrants.
+ * 
+ * @author Johannes Wortmann
+ */
+public enum MigrationTopology {
+
+	/**
+	 * Every island sends its migrants to the next island (the last one to the
+	 * first one).
+	 */
+	RING {
+		@Override
+		public int[] getDestinations(int island, int numIslands) {
+			if (numIslands < 2) {
+				return new int[0];
+			}
+			return new int[] { (island + 1) % numIslands };
+		}
+	},
+
+	/**
+	 * Every island sends its migrants to all other islands.
+	 */
+	FULLY_CONNECTED {
+		@Override
+		public int[] getDestinations(int island, int numIslands) {
+			final int[] destinations = new int[Math.max(0, numIslands - 1)];
+			for (int i = 0, d = 0; i < numIslands; i++) {
+				if (i != island) {
+					destinations[d++] = i;
+				}
+			}
+			return destinations;
+		}
+	};
+
+	/**
+	 * Returns the indices of the islands to which the given island sends its
+	 * migrants.
+	 * 
+	 * @param island
+	 *            The index of the sending island
+	 * @param numIslands
+	 *            The number of islands
+	 * @return The indices of the destination islands
+	 */
+	public abstract int[] getDestinations(int island, int numIslands);
+
+}
@@ -17,9 +17,17 @@ package gep;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import gep.model.Individual;
 import gep.operators.GeneticOperator;
+import gep.operators.RecombinationOperator;
+import gep.random.RandomEngine;
+import gep.random.SplittableRandomEngine;
 
 /**
  * This class represents the reproduction environment of the GEP algorithm. It
@@ -27,17 +35,64 @@ import gep.operators.GeneticOperator;
  * application is well defined by the order of adds to this environment. This
  * also means that operators can be added multiple times to allow their
  * application at different times (and after other operators).
+ * <p>
+ * By default every operator is applied to the whole population before the
+ * next operator is applied. In the fused pipeline mode (see
+ * {@link #setFusedPipeline(boolean)}) all consecutive operators that work on
+ * single individuals are applied to one individual before the next individual
+ * is processed. Operators working on the level of populations (see
+ * {@link GeneticOperator#isPopulationLevel()}) act as barriers: they are still
+ * applied to the whole population at once.
+ * <p>
+ * If parallel reproduction is enabled (see
+ * {@link #enableParallelReproduction(ExecutorService, int, RandomEngine)}) the
+ * modifiable part of the population is split into blocks of a fixed size which
+ * are processed by multiple workers. Every block is modified by its own copies
+ * of the operators (see {@link GeneticOperator#copy(RandomEngine)}) whose
+ * random engines are split from a master engine. Recombinations are applied
+ * to disjoint mating pairs which are computed in advance, so no individual is
+ * modified by two workers. Other population level operators are applied
+ * sequentially.
  * 
  * @author Johannes Wortmann
  *
  */
 public class ReproductionEnvironment {
 
+	/**
+	 * The number of individuals per block during parallel reproduction. The
+	 * blocks don't depend on the number of workers, which makes the result
+	 * independent of it.
+	 */
+	private static final int PARALLEL_REPRODUCTION_BLOCK_SIZE = 64;
+
 	/**
 	 * The list of genetic operators to be used in the reproduction phase.
 	 */
 	private ArrayList<GeneticOperator> operators;
 
+	/**
+	 * Whether the operators are applied in the fused pipeline mode.
+	 */
+	private boolean fusedPipeline = false;
+
+	/**
+	 * The executor running the workers during parallel reproduction (null if
+	 * the operators are applied sequentially).
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * The number of workers during parallel reproduction.
+	 */
+	private int numWorkers;
+
+	/**
+	 * The engine from which the random engines of the operator copies are
+	 * split and that creates the mating pairs during parallel reproduction.
+	 */
+	private RandomEngine masterRandom = null;
+
 	/**
 	 * Creates a new instance of a reproduction environment with an empty list
 	 * of operators.
@@ -56,7 +111,7 @@ public class ReproductionEnvironment {
 	 *            environments list of used operators.
 	 */
 	public ReproductionEnvironment(List<GeneticOperator> operators) {
-		operators = new ArrayList<GeneticOperator>(operators);
+		this.operators = new ArrayList<GeneticOperator>(operators);
 	}
 
 	/**
@@ -73,6 +128,113 @@ public class ReproductionEnvironment {
 		operators.add(op);
 	}
 
+	/**
+	 * Enables the parallel reproduction. The modifiable part of the population
+	 * is split into blocks of a fixed size that are processed by the given
+	 * number of workers which are executed by the given executor. For every
+	 * block and operator a copy of the operator is created whose random engine
+	 * is split from the given master engine. As neither the blocks nor the
+	 * order of the splits depend on the number of workers or the scheduling,
+	 * the reproduction only depends on the state of the master engine.
+	 * <p>
+	 * In contrast to the sequential application recombinations are applied to
+	 * disjoint mating pairs (see
+	 * {@link RecombinationOperator#recombine(Individual, Individual)}). The
+	 * executor is not shut down by this class.
+	 * 
+	 * @param executor
+	 *            The executor that runs the workers
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * @param masterRandom
+	 *            The engine the random engines of the operator copies are
+	 *            split from (exclusively used by this environment)
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if one of the operators can't be copied
+	 */
+	public void enableParallelReproduction(ExecutorService executor, int numWorkers, RandomEngine masterRandom) {
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("The number of workers has to be greater than 0.");
+		}
+		for (GeneticOperator op : operators) {
+			// fail early if an operator can't be copied
+			op.copy(masterRandom);
+		}
+		this.numWorkers = numWorkers;
+		this.masterRandom = masterRandom;
+		this.executor = executor;
+	}
+
+	/**
+	 * Enables the parallel reproduction using the given number of workers
+	 * which are executed by the common fork-join pool. The random engines of
+	 * the operator copies are split from a {@link SplittableRandomEngine}
+	 * with the given seed.
+	 * 
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * @param seed
+	 *            The seed of the master random engine
+	 * 
+	 * @see ReproductionEnvironment#enableParallelReproduction(ExecutorService,
+	 *      int, RandomEngine)
+	 */
+	public void enableParallelReproduction(int numWorkers, long seed) {
+		enableParallelReproduction(ForkJoinPool.commonPool(), numWorkers, new SplittableRandomEngine(seed));
+	}
+
+	/**
+	 * Disables the parallel reproduction. The operators are applied
+	 * sequentially afterwards.
+	 */
+	public void disableParallelReproduction() {
+		this.executor = null;
+		this.masterRandom = null;
+	}
+
+	/**
+	 * Sets whether the operators are applied in the fused pipeline mode. In
+	 * this mode the population is traversed once per sequence of consecutive
+	 * individual level operators instead of once per operator. The result
+	 * is the same as long as the operators don't share a random engine
+	 * (operators carrying state from one individual to the next, like the
+	 * skip sampling of {@link gep.operators.Mutation}, keep it across the
+	 * individuals in both modes).
+	 * 
+	 * @param fused
+	 *            True, if the fused pipeline mode should be used. False,
+	 *            otherwise.
+	 */
+	public void setFusedPipeline(boolean fused) {
+		this.fusedPipeline = fused;
+	}
+
+	/**
+	 * Creates a copy of this environment whose operators are copies of the
+	 * operators of this environment (see
+	 * {@link GeneticOperator#copy(RandomEngine)}) using random engines split
+	 * from the given engine. The copy uses the same pipeline mode but applies
+	 * its operators sequentially. Copies allow to reproduce individuals
+	 * concurrently to this environment.
+	 * 
+	 * @param random
+	 *            The engine the random engines of the operator copies are
+	 *            split from
+	 * @return A copy of this environment
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if one of the operators can't be copied
+	 */
+	public ReproductionEnvironment copy(RandomEngine random) {
+		final ReproductionEnvironment copy = new ReproductionEnvironment();
+		for (GeneticOperator op : operators) {
+			copy.addGeneticOperator(op.copy(random.split()));
+		}
+		copy.setFusedPipeline(fusedPipeline);
+		return copy;
+	}
+
 	/**
 	 * This method applies all genetic operators to the population defined by
 	 * the given array of individuals. The order of the operators is defined by
@@ -89,8 +251,208 @@ public class ReproductionEnvironment {
 	 */
 	public <T> void reproduce(Individual<T>[] individuals, int fromIdx) {
 		for (GeneticOperator geneticOperator : operators) {
-			geneticOperator.apply(individuals, fromIdx);
+			geneticOperator.startPopulation();
+		}
+		if (executor != null) {
+			reproduceInParallel(individuals, fromIdx);
+			return;
 		}
+		if (!fusedPipeline) {
+			for (GeneticOperator geneticOperator : operators) {
+				geneticOperator.apply(individuals, fromIdx);
+			}
+			return;
+		}
+
+		int opIdx = 0;
+		while (opIdx < operators.size()) {
+			if (operators.get(opIdx).isPopulationLevel()) {
+				// barrier
+				operators.get(opIdx).apply(individuals, fromIdx);
+				opIdx++;
+				continue;
+			}
+
+			// apply all consecutive individual level operators in one pass
+			int endIdx = opIdx + 1;
+			while (endIdx < operators.size() && !operators.get(endIdx).isPopulationLevel()) {
+				endIdx++;
+			}
+			for (int i = fromIdx; i < individuals.length; i++) {
+				for (int j = opIdx; j < endIdx; j++) {
+					operators.get(j).apply(individuals[i]);
+				}
+			}
+			opIdx = endIdx;
+		}
+	}
+
+	/**
+	 * Applies the operators to the given population by the workers. Runs of
+	 * consecutive individual level operators are applied in one pass (like in
+	 * the fused pipeline mode).
+	 */
+	private <T> void reproduceInParallel(final Individual<T>[] individuals, final int fromIdx) {
+		final int numModifiable = individuals.length - fromIdx;
+
+		int opIdx = 0;
+		while (opIdx < operators.size()) {
+			final GeneticOperator op = operators.get(opIdx);
+			if (op.isPopulationLevel()) {
+				if (op instanceof RecombinationOperator) {
+					recombineInParallel(individuals, fromIdx, (RecombinationOperator) op);
+				} else {
+					// can't be partitioned => barrier
+					op.apply(individuals, fromIdx);
+				}
+				opIdx++;
+				continue;
+			}
+
+			int endIdx = opIdx + 1;
+			while (endIdx < operators.size() && !operators.get(endIdx).isPopulationLevel()) {
+				endIdx++;
+			}
+
+			final GeneticOperator[][] blockOperators = copyOperators(numBlocks(numModifiable), opIdx, endIdx);
+			runBlocks(blockOperators.length, block -> {
+				final GeneticOperator[] ops = blockOperators[block];
+				final int start = fromIdx + block * PARALLEL_REPRODUCTION_BLOCK_SIZE;
+				final int end = Math.min(start + PARALLEL_REPRODUCTION_BLOCK_SIZE, individuals.length);
+				for (int i = start; i < end; i++) {
+					for (GeneticOperator blockOp : ops) {
+						blockOp.apply(individuals[i]);
+					}
+				}
+			});
+			opIdx = endIdx;
+		}
+	}
+
+	/**
+	 * Applies the given recombination to disjoint random mating pairs of the
+	 * modifiable individuals. The pairs are processed in blocks by the
+	 * workers.
+	 */
+	private <T> void recombineInParallel(final Individual<T>[] individuals, final int fromIdx,
+			RecombinationOperator recombination) {
+		final int numModifiable = individuals.length - fromIdx;
+		if (numModifiable < 2) {
+			// recombinations require at least two modifiable individuals
+			throw new IllegalArgumentException("The " + recombination.getName()
+					+ " operator requires at least two modifiable individuals in the population.");
+		}
+
+		// random permutation of the modifiable individuals, consecutive
+		// individuals form a mating pair
+		final int[] mates = new int[numModifiable];
+		for (int i = 0; i < numModifiable; i++) {
+			mates[i] = fromIdx + i;
+		}
+		for (int i = numModifiable - 1; i > 0; i--) {
+			final int j = masterRandom.getInt(0, i + 1);
+			final int tmp = mates[i];
+			mates[i] = mates[j];
+			mates[j] = tmp;
+		}
+
+		// a block of pairs contains as many individuals as a block of
+		// individuals
+		final int pairsPerBlock = PARALLEL_REPRODUCTION_BLOCK_SIZE / 2;
+		final int numPairs = numModifiable / 2;
+		final int numBlocks = (numPairs + pairsPerBlock - 1) / pairsPerBlock;
+		final RecombinationOperator[] blockRecombinations = new RecombinationOperator[numBlocks];
+		for (int b = 0; b < numBlocks; b++) {
+			blockRecombinations[b] = (RecombinationOperator) recombination.copy(masterRandom.split());
+		}
+
+		runBlocks(numBlocks, block -> {
+			final int start = block * pairsPerBlock;
+			final int end = Math.min(start + pairsPerBlock, numPairs);
+			for (int p = start; p < end; p++) {
+				blockRecombinations[block].recombine(individuals[mates[2 * p]], individuals[mates[2 * p + 1]]);
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of blocks of the given number of individuals.
+	 */
+	private static int numBlocks(int numIndividuals) {
+		return (numIndividuals + PARALLEL_REPRODUCTION_BLOCK_SIZE - 1) / PARALLEL_REPRODUCTION_BLOCK_SIZE;
+	}
+
+	/**
+	 * Creates the copies of the operators [firstOp, endOp) for every block
+	 * (each with a random engine split from the master engine).
+	 */
+	private GeneticOperator[][] copyOperators(int numBlocks, int firstOp, int endOp) {
+		final GeneticOperator[][] copies = new GeneticOperator[numBlocks][endOp - firstOp];
+		for (int b = 0; b < numBlocks; b++) {
+			for (int j = firstOp; j < endOp; j++) {
+				copies[b][j - firstOp] = operators.get(j).copy(masterRandom.split());
+			}
+		}
+		return copies;
+	}
+
+	/**
+	 * Processes the given number of blocks by the workers and waits until all
+	 * blocks are processed. Every worker repeatedly claims the next
+	 * unprocessed block.
+	 */
+	private void runBlocks(final int numBlocks, final BlockTask task) {
+		final AtomicInteger nextBlock = new AtomicInteger(0);
+
+		final int numTasks = Math.min(numWorkers, numBlocks);
+		List<Future<?>> results = new ArrayList<Future<?>>(numTasks);
+		for (int w = 0; w < numTasks; w++) {
+			results.add(executor.submit(() -> {
+				int block;
+				while ((block = nextBlock.getAndIncrement()) < numBlocks) {
+					task.process(block);
+				}
+			}));
+		}
+
+		// wait for all workers (even if one fails or this thread is
+		// interrupted) before reporting an error, so no worker modifies the
+		// population after this method returned
+		RuntimeException failure = null;
+		boolean interrupted = false;
+		for (Future<?> result : results) {
+			while (true) {
+				try {
+					result.get();
+					break;
+				} catch (InterruptedException e) {
+					if (!interrupted) {
+						interrupted = true;
+						// the workers stop claiming blocks
+						nextBlock.set(numBlocks);
+						failure = new IllegalStateException("Interrupted during parallel reproduction", e);
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new IllegalStateException("Parallel reproduction failed", e.getCause());
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * The processing of a single block during parallel reproduction.
+	 */
+	private interface BlockTask {
+		void process(int block);
 	}
 
 	@Override
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import gep.model.Individual;
+import gep.termination.EvolutionState;
+
+/**
+ * The state of a run as seen by the termination criteria (see
+ * {@link gep.termination.TerminationCriterion}). The engines update it after
+ * every generation.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals of the run
+ */
+class RunState<T> implements EvolutionState<T> {
+
+	private final Individual<T>[] population;
+	private final long startNanos = System.nanoTime();
+	private final long evaluationsAtStart;
+
+	private int generation;
+	private int bestIndividualIdx;
+	private double bestFitnessOfRun = Double.NEGATIVE_INFINITY;
+	private int generationOfLastImprovement;
+	private long evaluations;
+
+	/**
+	 * Creates the state of a run that starts now.
+	 * 
+	 * @param population
+	 *            The population of the run
+	 * @param evaluationsAtStart
+	 *            The number of evaluations of the fitness environment when the
+	 *            run started
+	 */
+	RunState(Individual<T>[] population, long evaluationsAtStart) {
+		this.population = population;
+		this.evaluationsAtStart = evaluationsAtStart;
+	}
+
+	/**
+	 * Updates the state after the given generation.
+	 * 
+	 * @param generation
+	 *            The finished generation
+	 * @param bestIndividualIdx
+	 *            The index of the best individual of the population
+	 * @param bestFitnessOfRun
+	 *            The best fitness of the run so far
+	 * @param totalEvaluations
+	 *            The current number of evaluations of the fitness
+	 *            environment
+	 */
+	void update(int generation, int bestIndividualIdx, double bestFitnessOfRun, long totalEvaluations) {
+		this.generation = generation;
+		this.bestIndividualIdx = bestIndividualIdx;
+		if (bestFitnessOfRun > this.bestFitnessOfRun) {
+			this.bestFitnessOfRun = bestFitnessOfRun;
+			this.generationOfLastImprovement = generation;
+		}
+		this.evaluations = totalEvaluations - evaluationsAtStart;
+	}
+
+	@Override
+	public int getGeneration() {
+		return generation;
+	}
+
+	@Override
+	public Individual<T>[] getPopulation() {
+		return population;
+	}
+
+	@Override
+	public int getBestIndividualIdx() {
+		return bestIndividualIdx;
+	}
+
+	@Override
+	public double getBestFitnessOfRun() {
+		return bestFitnessOfRun;
+	}
+
+	@Override
+	public int getGenerationsWithoutImprovement() {
+		return generation - generationOfLastImprovement;
+	}
+
+	@Override
+	public long getNumberOfEvaluations() {
+		return evaluations;
+	}
+
+	@Override
+	public long getElapsedNanos() {
+		return System.nanoTime() - startNanos;
+	}
+
+}
@@ -0,0 +1,490 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gep.model.Individual;
+import gep.random.RandomEngine;
+import gep.termination.TerminationCriterion;
+
+/**
+ * <p>
+ * This class implements a steady-state variant of the GEP workflow. Instead
+ * of replacing the whole population per generation, two parents are picked by
+ * a tournament, their copies are modified by the genetic operators of a
+ * {@link ReproductionEnvironment}, evaluated by a {@link FitnessEnvironment}
+ * and inserted into the population where each offspring replaces the worst
+ * individual. Hence the best individual is never lost.
+ * </p>
+ * 
+ * <p>
+ * If parallelism is enabled (see
+ * {@link #enableParallelism(ExecutorService, int)}) multiple workers breed
+ * and evaluate offspring concurrently. There is no generation barrier: a
+ * worker inserts its offspring as soon as they are evaluated and immediately
+ * starts breeding the next ones. Every worker uses its own copies of the
+ * environments (see {@link ReproductionEnvironment#copy(RandomEngine)} and
+ * {@link FitnessEnvironment#copy()}). Only picking the parents and inserting
+ * the offspring are synchronized. In contrast to the sequential mode the
+ * result of a parallel run depends on the scheduling of the workers.
+ * </p>
+ * 
+ * <p>
+ * To reuse the generation based parts of the framework (listeners,
+ * termination criteria and results) the run is divided into generations of as
+ * many offspring as there are individuals in the population. Population slots
+ * are replaced by new individual objects, the individuals themselves are
+ * never modified after they were inserted.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals
+ */
+public class SteadyStateEvolution<T> {
+
+	/**
+	 * The environment used to assess the fitness of the offspring.
+	 */
+	private final FitnessEnvironment<T> fe;
+
+	/**
+	 * The environment used to modify the offspring.
+	 */
+	private final ReproductionEnvironment re;
+
+	/**
+	 * The random engine used to pick the parents (and the engine the random
+	 * engines of the workers are split from).
+	 */
+	private final RandomEngine random;
+
+	/**
+	 * The number of individuals competing for being a parent.
+	 */
+	private final int tournamentSize;
+
+	/**
+	 * The executor running the workers (null if the run is sequential).
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 * The number of workers of a parallel run.
+	 */
+	private int numWorkers = 1;
+
+	/**
+	 * Creates a new steady-state engine that picks the parents by binary
+	 * tournaments.
+	 * 
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals
+	 * @param re
+	 *            The reproduction environment used to genetically modify the
+	 *            offspring
+	 * @param random
+	 *            The random engine used to pick the parents
+	 */
+	public SteadyStateEvolution(FitnessEnvironment<T> fe, ReproductionEnvironment re, RandomEngine random) {
+		this(fe, re, random, 2);
+	}
+
+	/**
+	 * Creates a new steady-state engine that picks the parents by tournaments
+	 * of the given size.
+	 * 
+	 * @param fe
+	 *            The fitness environment used to assess the fitness of
+	 *            individuals
+	 * @param re
+	 *            The reproduction environment used to genetically modify the
+	 *            offspring
+	 * @param random
+	 *            The random engine used to pick the parents
+	 * @param tournamentSize
+	 *            The number of individuals competing for being a parent (>= 1)
+	 */
+	public SteadyStateEvolution(FitnessEnvironment<T> fe, ReproductionEnvironment re, RandomEngine random,
+			int tournamentSize) {
+		if (tournamentSize < 1) {
+			throw new IllegalArgumentException("The tournament size has to be greater than 0.");
+		}
+		this.fe = fe;
+		this.re = re;
+		this.random = random;
+		this.tournamentSize = tournamentSize;
+	}
+
+	/**
+	 * Enables the parallel breeding and evaluation of offspring by the given
+	 * number of workers which are executed by the given executor. The
+	 * executor is not shut down by this class.
+	 * 
+	 * @param executor
+	 *            The executor that runs the workers
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if the fitness environment or one of the genetic operators
+	 *             can't be copied
+	 */
+	public void enableParallelism(ExecutorService executor, int numWorkers) {
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("The number of workers has to be greater than 0.");
+		}
+		// fail early if the environments can't be copied
+		fe.copy();
+		re.copy(random.split());
+		this.executor = executor;
+		this.numWorkers = numWorkers;
+	}
+
+	/**
+	 * Enables the parallel breeding and evaluation of offspring by the given
+	 * number of workers which are executed by the common fork-join pool.
+	 * 
+	 * @param numWorkers
+	 *            The number of workers (>= 1)
+	 * 
+	 * @see SteadyStateEvolution#enableParallelism(ExecutorService, int)
+	 */
+	public void enableParallelism(int numWorkers) {
+		enableParallelism(ForkJoinPool.commonPool(), numWorkers);
+	}
+
+	/**
+	 * Disables the parallelism. The offspring are bred and evaluated
+	 * sequentially by the calling thread afterwards.
+	 */
+	public void disableParallelism() {
+		this.executor = null;
+		this.numWorkers = 1;
+	}
+
+	/**
+	 * Runs the steady-state GEP to find a solution to the problem defined by
+	 * the environments of this engine. </br>
+	 * This function will modify the given population array.
+	 * 
+	 * @param population
+	 *            The initial population (at least two individuals)
+	 * @param maxNumGenerations
+	 *            The maximum number of generations, i.e. the run stops after
+	 *            maxNumGenerations * population.length offspring
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param fitnessEpsilon
+	 *            The error allowed when comparing the floating point
+	 *            targetFitness with the current best fitness
+	 * @param criterion
+	 *            An additional criterion checked after every generation
+	 * @param listener
+	 *            The listener notified about the progress of the run
+	 * @return The result of the GEP execution.
+	 */
+	public GepResult<T> run(Individual<T>[] population, int maxNumGenerations, double targetFitness,
+			double fitnessEpsilon, TerminationCriterion criterion, GenerationListener<T> listener) {
+		if (population.length < 2) {
+			throw new IllegalArgumentException("The population has to contain at least two individuals.");
+		}
+		final Run run = new Run(population, maxNumGenerations, targetFitness, fitnessEpsilon, criterion, listener);
+		run.start();
+
+		if (executor == null) {
+			run.work(fe, re, random);
+		} else {
+			List<Future<?>> results = new ArrayList<Future<?>>(numWorkers);
+			for (int w = 0; w < numWorkers; w++) {
+				final FitnessEnvironment<T> workerFe = fe.copy();
+				final ReproductionEnvironment workerRe = re.copy(random.split());
+				final RandomEngine workerRandom = random.split();
+				results.add(executor.submit(() -> {
+					try {
+						run.work(workerFe, workerRe, workerRandom);
+					} catch (RuntimeException | Error e) {
+						// don't let the other workers continue on failures
+						run.stop();
+						throw e;
+					}
+				}));
+			}
+			awaitWorkers(results, run);
+		}
+
+		return run.finish();
+	}
+
+	/**
+	 * Runs the steady-state GEP with an allowed error of zero and without an
+	 * additional termination criterion.
+	 * 
+	 * @param population
+	 *            The initial population (at least two individuals)
+	 * @param maxNumGenerations
+	 *            The maximum number of generations, i.e. the run stops after
+	 *            maxNumGenerations * population.length offspring
+	 * @param targetFitness
+	 *            The optimal value of the fitness function (set to positive
+	 *            infinity if not known)
+	 * @param listener
+	 *            The listener notified about the progress of the run
+	 * @return The result of the GEP execution.
+	 * 
+	 * @see SteadyStateEvolution#run(Individual[], int, double, double,
+	 *      TerminationCriterion, GenerationListener)
+	 */
+	public GepResult<T> run(Individual<T>[] population, int maxNumGenerations, double targetFitness,
+			GenerationListener<T> listener) {
+		return run(population, maxNumGenerations, targetFitness, 0.0, TerminationCriterion.never(), listener);
+	}
+
+	/**
+	 * Waits until all workers finished and reports the first failure. The
+	 * workers are stopped but still awaited if this thread is interrupted, so
+	 * no worker modifies the population after the run returned.
+	 */
+	private void awaitWorkers(List<Future<?>> results, Run run) {
+		RuntimeException failure = null;
+		boolean interrupted = false;
+		for (Future<?> result : results) {
+			while (true) {
+				try {
+					result.get();
+					break;
+				} catch (InterruptedException e) {
+					if (!interrupted) {
+						interrupted = true;
+						run.stop();
+						failure = new IllegalStateException("Interrupted during steady-state evolution", e);
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = new IllegalStateException("Steady-state evolution failed", e.getCause());
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * The state of a single run shared by its workers. All accesses to the
+	 * population are guarded by the monitor of this object.
+	 */
+	private class Run {
+
+		private final Individual<T>[] population;
+		private final double targetFitness;
+		private final double fitnessEpsilon;
+		private final TerminationCriterion criterion;
+		private final GenerationListener<T> listener;
+		private final int maxNumGenerations;
+
+		/**
+		 * The number of offspring of the whole run.
+		 */
+		private final long maxNumOffspring;
+
+		/**
+		 * The number of the next offspring to be bred. The number determines
+		 * the position of the offspring passed to the fitness environment.
+		 */
+		private final AtomicLong nextOffspring = new AtomicLong(0);
+
+		private final RunState<T> state;
+
+		private volatile boolean stopped = false;
+
+		private long numInserted = 0;
+		private int currentGeneration = 0;
+		private int bestIndividualIdx;
+		private double bestFitnessOfRun;
+
+		Run(Individual<T>[] population, int maxNumGenerations, double targetFitness, double fitnessEpsilon,
+				TerminationCriterion criterion, GenerationListener<T> listener) {
+			this.population = population;
+			this.maxNumGenerations = maxNumGenerations;
+			this.maxNumOffspring = (long) maxNumGenerations * population.length;
+			this.targetFitness = targetFitness;
+			this.fitnessEpsilon = fitnessEpsilon;
+			this.criterion = criterion;
+			this.listener = listener;
+			this.state = new RunState<>(population, fe.getNumberOfEvaluations());
+		}
+
+		/**
+		 * Evaluates the initial population (generation 0).
+		 */
+		void start() {
+			listener.runStarted(maxNumGenerations, targetFitness);
+			listener.generationStarted(0);
+			bestIndividualIdx = fe.evaluateFitness(population);
+			bestFitnessOfRun = population[bestIndividualIdx].getFitness();
+			state.update(0, bestIndividualIdx, bestFitnessOfRun, fe.getNumberOfEvaluations());
+			listener.evaluationFinished(0, population, bestIndividualIdx);
+			listener.newBestIndividual(0, population[bestIndividualIdx]);
+			listener.generationFinished(0, population, bestIndividualIdx);
+
+			if (isTargetReached() || maxNumGenerations <= 0 || criterion.shouldTerminate(state)) {
+				stopped = true;
+			} else {
+				listener.generationStarted(1);
+			}
+		}
+
+		/**
+		 * Breeds, evaluates and inserts offspring until the run stops.
+		 */
+		void work(FitnessEnvironment<T> workerFe, ReproductionEnvironment workerRe, RandomEngine workerRandom) {
+			@SuppressWarnings("unchecked")
+			final Individual<T>[] offspring = (Individual<T>[]) new Individual<?>[2];
+			while (!stopped) {
+				final long offspringNo = nextOffspring.getAndAdd(offspring.length);
+				if (offspringNo >= maxNumOffspring) {
+					return;
+				}
+
+				synchronized (this) {
+					for (int i = 0; i < offspring.length; i++) {
+						offspring[i] = new Individual<T>(population[pickParent(workerRandom)]);
+					}
+				}
+
+				workerRe.reproduce(offspring, 0);
+				for (int i = 0; i < offspring.length; i++) {
+					final long no = offspringNo + i;
+					// the offspring take the position they would have in a
+					// generational run
+					fe.evaluateIndividual(workerFe, offspring[i], 1 + (int) (no / population.length),
+							(int) (no % population.length));
+				}
+
+				synchronized (this) {
+					for (int i = 0; i < offspring.length && !stopped; i++) {
+						insert(offspring[i]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the index of the winner of a tournament.
+		 */
+		private int pickParent(RandomEngine workerRandom) {
+			int winner = workerRandom.getInt(0, population.length);
+			for (int i = 1; i < tournamentSize; i++) {
+				final int competitor = workerRandom.getInt(0, population.length);
+				if (population[competitor].getFitness() > population[winner].getFitness()) {
+					winner = competitor;
+				}
+			}
+			return winner;
+		}
+
+		/**
+		 * Replaces the worst individual by the given offspring. Finishes the
+		 * current generation if it is complete.
+		 */
+		private void insert(Individual<T> child) {
+			int worstIdx = 0;
+			for (int i = 1; i < population.length; i++) {
+				if (population[i].getFitness() < population[worstIdx].getFitness()) {
+					worstIdx = i;
+				}
+			}
+			population[worstIdx] = child;
+
+			if (child.getFitness() > population[bestIndividualIdx].getFitness()) {
+				bestIndividualIdx = worstIdx;
+			} else if (worstIdx == bestIndividualIdx) {
+				// all individuals had the same fitness
+				bestIndividualIdx = findBestIndividual();
+			}
+			if (child.getFitness() > bestFitnessOfRun) {
+				bestFitnessOfRun = child.getFitness();
+				listener.newBestIndividual(currentGeneration + 1, child);
+			}
+
+			numInserted++;
+			if (numInserted % population.length == 0) {
+				finishGeneration();
+			} else if (isTargetReached()) {
+				stopped = true;
+			}
+		}
+
+		private void finishGeneration() {
+			currentGeneration++;
+			state.update(currentGeneration, bestIndividualIdx, bestFitnessOfRun, fe.getNumberOfEvaluations());
+			listener.evaluationFinished(currentGeneration, population, bestIndividualIdx);
+			listener.generationFinished(currentGeneration, population, bestIndividualIdx);
+
+			if (isTargetReached() || currentGeneration >= maxNumGenerations || criterion.shouldTerminate(state)) {
+				stopped = true;
+			} else {
+				listener.generationStarted(currentGeneration + 1);
+			}
+		}
+
+		private int findBestIndividual() {
+			int bestIdx = 0;
+			for (int i = 1; i < population.length; i++) {
+				if (population[i].getFitness() > population[bestIdx].getFitness()) {
+					bestIdx = i;
+				}
+			}
+			return bestIdx;
+		}
+
+		private boolean isTargetReached() {
+			return Math.abs(targetFitness - population[bestIndividualIdx].getFitness()) <= fitnessEpsilon;
+		}
+
+		void stop() {
+			stopped = true;
+		}
+
+		/**
+		 * Creates the result after all workers finished.
+		 */
+		synchronized GepResult<T> finish() {
+			GepResult<T> result = new GepResult<>(currentGeneration, maxNumGenerations, population[bestIndividualIdx],
+					targetFitness);
+			listener.runFinished(result);
+			return result;
+		}
+
+	}
+
+}
@@ -15,9 +15,11 @@
  */
 package gep.model;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -240,12 +242,12 @@ public class ChromosomalArchitecture<T> {
 	 * architectures genes. The order of the genes will be preserved only the
 	 * genes itself are randomly created.
 	 * 
-	 * Convienient method which uses the default random engine.
+	 * Convienient method which uses an engine split from the {@link MasterRandomEngine}.
 	 * 
 	 * @return A randomly created Chromosome
 	 */
 	public Chromosome<T> create() {
-		return create(GeneArchitecture.DEFAULT_RANDOM_ENGINE);
+		return create(MasterRandomEngine.split());
 	}
 
 	/**
@@ -258,6 +260,42 @@ public class ChromosomalArchitecture<T> {
 	 * @return A randomly created Chromosome
 	 */
 	public Chromosome<T> create(RandomEngine r) {
+		return create(r, (geneArch, sequenceOffset) -> geneArch.createRandomGene(r));
+	}
+
+	/**
+	 * Creates a random Chromosome like {@link #create(RandomEngine)} whose
+	 * modifiable genes store their sequences consecutively in the given buffer
+	 * starting at the given offset.
+	 * 
+	 * @param r
+	 *            The random engine to be used for creation.
+	 * @param storage
+	 *            The buffer the sequences of the modifiable genes are stored
+	 *            in
+	 * @param offset
+	 *            The position of the first symbol in the storage buffer
+	 * @return A randomly created Chromosome
+	 * 
+	 * @see #getModifiableSequenceLength()
+	 */
+	Chromosome<T> create(RandomEngine r, IntBuffer storage, int offset) {
+		return create(r,
+				(geneArch, sequenceOffset) -> geneArch.createRandomGene(r, storage, offset + sequenceOffset));
+	}
+
+	/**
+	 * Creates a random Chromosome whose modifiable genes are created by the
+	 * given factory. The root gene is created first, followed by the
+	 * modifiable genes in their order.
+	 * 
+	 * @param r
+	 *            The random engine used to create the root gene
+	 * @param factory
+	 *            Creates the random modifiable genes
+	 * @return A randomly created Chromosome
+	 */
+	private Chromosome<T> create(RandomEngine r, GeneFactory<T> factory) {
 
 		if (genes.isEmpty()) {
 			throw new IllegalStateException("Cannot create chromosomes without one modifiable gene");
@@ -269,17 +307,29 @@ public class ChromosomalArchitecture<T> {
 
 		Gene<T> generatedRoot = rootGene.architecture.createRandomGene(r);
 
-		@SuppressWarnings("unchecked")
-		Gene<T>[] generatedGenes = new Gene[genes.size()];
+		Gene<T>[] generatedGenes = newGeneArray(genes.size());
+		int sequenceOffset = 0;
 		for (int i = 0; i < genes.size(); i++) {
-			generatedGenes[i] = genes.get(i).architecture.createRandomGene(r);
+			final GeneArchitecture<T> geneArch = genes.get(i).architecture;
+			generatedGenes[i] = factory.create(geneArch, sequenceOffset);
+			sequenceOffset += geneArch.getGeneLength();
 		}
-		@SuppressWarnings("unchecked")
-		Gene<T>[] immutableGenes = new Gene[this.immutableGenes.size()];
-		this.immutableGenes.toArray(immutableGenes);
 
-		return new Chromosome<T>(generatedGenes, immutableGenes, generatedRoot);
+		return new Chromosome<T>(generatedGenes, createImmutableGeneArray(), generatedRoot);
+	}
 
+	/**
+	 * Returns the total length of the sequences of all modifiable genes of
+	 * chromosomes created by this architecture.
+	 * 
+	 * @return The number of symbols of all modifiable genes
+	 */
+	int getModifiableSequenceLength() {
+		int length = 0;
+		for (Gene<T> g : genes) {
+			length += g.architecture.getGeneLength();
+		}
+		return length;
 	}
 
 	/**
@@ -305,16 +355,12 @@ public class ChromosomalArchitecture<T> {
 
 		Gene<T> generatedRoot = new Gene<T>(rootGene);
 
-		@SuppressWarnings("unchecked")
-		Gene<T>[] generatedGenes = new Gene[genes.size()];
+		Gene<T>[] generatedGenes = newGeneArray(genes.size());
 		for (int i = 0; i < genes.size(); i++) {
 			generatedGenes[i] = new Gene<T>(genes.get(i));
 		}
-		@SuppressWarnings("unchecked")
-		Gene<T>[] immutableGenes = new Gene[this.immutableGenes.size()];
-		this.immutableGenes.toArray(immutableGenes);
 
-		return new Chromosome<T>(generatedGenes, immutableGenes, generatedRoot);
+		return new Chromosome<T>(generatedGenes, createImmutableGeneArray(), generatedRoot);
 
 	}
 
@@ -326,7 +372,6 @@ public class ChromosomalArchitecture<T> {
 	 * @param gene
 	 *            The contained modifiable gene.
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T> Chromosome<T> createSingleGenicChromosome(Gene<T> gene) {
 		if (!gene.architecture.isModifiable) {
 			throw new IllegalArgumentException("The given gene has to be set to modifiable");
@@ -341,7 +386,38 @@ public class ChromosomalArchitecture<T> {
 		GeneArchitecture<T> rootAarch = new GeneArchitecture<T>(1, new ArrayList<>(), link);
 		Gene<T> generatedRoot = rootAarch.createRandomGene();
 
-		return new Chromosome<T>(new Gene[] { new Gene<T>(gene) }, new Gene[] {}, generatedRoot);
+		Gene<T>[] generatedGenes = newGeneArray(1);
+		generatedGenes[0] = new Gene<T>(gene);
+		return new Chromosome<T>(generatedGenes, ChromosomalArchitecture.<T> newGeneArray(0), generatedRoot);
+	}
+
+	/**
+	 * Returns a new array of the immutable genes of this architecture.
+	 */
+	private Gene<T>[] createImmutableGeneArray() {
+		Gene<T>[] immutableGenes = newGeneArray(this.immutableGenes.size());
+		return this.immutableGenes.toArray(immutableGenes);
+	}
+
+	/**
+	 * Creates a new gene array of the given length.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Gene<T>[] newGeneArray(int length) {
+		return (Gene<T>[]) new Gene<?>[length];
+	}
+
+	/**
+	 * Creates the modifiable genes of a chromosome.
+	 */
+	private interface GeneFactory<T> {
+
+		/**
+		 * Creates a random gene of the given architecture that is the gene
+		 * starting at the given position of the sequences of all modifiable
+		 * genes of a chromosome.
+		 */
+		Gene<T> create(GeneArchitecture<T> architecture, int sequenceOffset);
 	}
 
 }
@@ -20,6 +20,10 @@ import java.io.Serializable;
 /**
  * This class implements a Chromosome, which is basically a collection of
  * modifiable and unmodifiable genes linked by a linking function.
+ * <p>
+ * Copies of a chromosome share the immutable genes and the linking function
+ * with the original. The modifiable genes are copied on write (see
+ * {@link Gene#Gene(Gene)}).
  * 
  * @author Johannes Wortmann
  * 
@@ -31,7 +35,7 @@ import java.io.Serializable;
  *            UntypedChromosome as a subclass or the need to provide conversion
  *            functions).
  */
-public class Chromosome<T> implements Serializable {
+public class Chromosome<T> implements Serializable, Program<T> {
 
 	/**
 	 * The version UID used for serialization.
@@ -45,14 +49,30 @@ public class Chromosome<T> implements Serializable {
 
 	/**
 	 * The immutable genes of the chromosome (e.g. immutable sub linking
-	 * constructs)
+	 * constructs). Shared with all copies of this chromosome.
 	 */
 	private final Gene<T>[] immutableGenes;
 
 	/**
-	 * The top level linking function of the chromosome (immutable)
+	 * The top level linking function of the chromosome (immutable). Shared
+	 * with all copies of this chromosome.
 	 */
-	private final Gene<T> staticLinkingFunction;
+	private Gene<T> staticLinkingFunction;
+
+	/**
+	 * Cache for the compiled program of this chromosome
+	 */
+	transient private CompiledProgram<T> compiledProgram = null;
+
+	/**
+	 * The programs and expression trees of the shared genes (the linking
+	 * function at index 0 and the immutable gene with id -i at index i) bound
+	 * to this chromosome. Shared genes are referenced by many chromosomes
+	 * (which may be executed concurrently), so unlike modifiable genes they
+	 * can't cache these objects themselves.
+	 */
+	transient private GeneProgram<T>[] sharedGenePrograms = null;
+	transient private ExpressionTreeNode<T>[] sharedGeneTrees = null;
 
 	/**
 	 * Creates a new Chromosome with the given collections of genes, immutable
@@ -75,8 +95,10 @@ public class Chromosome<T> implements Serializable {
 	}
 
 	/**
-	 * Creates a new Chromosome with the copied genes and linking function from
-	 * the provided other Chromosome.
+	 * Creates a new Chromosome with the copied genes from the provided other
+	 * Chromosome. The modifiable genes share their sequences with the other
+	 * chromosome until they are modified. The immutable genes and the linking
+	 * function are shared.
 	 * 
 	 * @param other
 	 *            The Chromosome to be copied.
@@ -87,13 +109,58 @@ public class Chromosome<T> implements Serializable {
 		for (int i = 0; i < genes.length; i++) {
 			this.genes[i] = new Gene<T>(other.genes[i]);
 		}
-		this.immutableGenes = new Gene[other.immutableGenes.length];
-		for (int i = 0; i < immutableGenes.length; i++) {
-			// TODO maybe no hard copy needed here as immutable (share objects)
-			this.immutableGenes[i] = new Gene<T>(other.immutableGenes[i]);
+		this.immutableGenes = other.immutableGenes;
+		this.staticLinkingFunction = other.staticLinkingFunction;
+	}
+
+	/**
+	 * Copies the sequences of all modifiable genes from the given chromosome
+	 * into this one and takes over its linking function. This requires that
+	 * both chromosomes were created by the same architecture. The immutable
+	 * genes are not copied as they are identical anyway.
+	 * 
+	 * @param other
+	 *            The chromosome from which the sequences should be copied
+	 */
+	public void copyFrom(Chromosome<T> other) {
+		if (genes.length != other.genes.length) {
+			throw new IllegalArgumentException("The chromosomes have to share the same architecture!");
+		}
+		for (int i = 0; i < genes.length; i++) {
+			genes[i].copyFrom(other.genes[i]);
+		}
+		shareLinkingFunctionOf(other);
+	}
+
+	/**
+	 * Completes the copy of the given chromosome into this one after the
+	 * sequences of the modifiable genes were copied by the population store.
+	 * 
+	 * @param other
+	 *            The chromosome from which the sequences were copied
+	 */
+	void completeStoreCopyFrom(Chromosome<T> other) {
+		for (int i = 0; i < genes.length; i++) {
+			genes[i].invalidateExpressionTreeCache();
+		}
+		shareLinkingFunctionOf(other);
+	}
+
+	/**
+	 * Replaces the linking function of this chromosome by the (immutable)
+	 * linking function of the given chromosome.
+	 */
+	private void shareLinkingFunctionOf(Chromosome<T> other) {
+		if (staticLinkingFunction != other.staticLinkingFunction) {
+			staticLinkingFunction = other.staticLinkingFunction;
+			// the compiled program and the cached linking function program
+			// refer to the replaced gene
+			compiledProgram = null;
+			if (sharedGenePrograms != null) {
+				sharedGenePrograms[0] = null;
+				sharedGeneTrees[0] = null;
+			}
 		}
-		// TODO no hard copy needed here as immutable
-		this.staticLinkingFunction = new Gene<T>(other.staticLinkingFunction);
 	}
 
 	/**
@@ -104,8 +171,105 @@ public class Chromosome<T> implements Serializable {
 	 * @return The Chromosomes ExpressionTree
 	 */
 	public ExpressionTreeNode<T> express() {
-		ExpressionTreeNode<T> rootEtn = staticLinkingFunction.express(this);
-		return rootEtn;
+		return expressGene(0);
+	}
+
+	/**
+	 * Executes the program encoded by this Chromosome directly from the
+	 * sequences of its genes (starting at the linking function) and returns
+	 * the result. In contrast to executing the expression tree (see
+	 * {@link #express()}) this does not create any objects, which makes it
+	 * suitable for chromosomes that are executed only a few times after being
+	 * modified.
+	 * 
+	 * @return The result of the program
+	 */
+	@Override
+	public T execute() {
+		return getGeneProgram(0).execute();
+	}
+
+	/**
+	 * Returns the expression tree of the gene with the given id as part of
+	 * this chromosome (see {@link Gene#express(Chromosome)}). The trees of the
+	 * shared genes are cached by this chromosome.
+	 * 
+	 * @param geneId
+	 *            The gene's id (see {@link #getGene(int)})
+	 * @return The expression tree of the gene
+	 */
+	ExpressionTreeNode<T> expressGene(int geneId) {
+		if (geneId > 0) {
+			return genes[geneId - 1].express(this);
+		}
+		initSharedGeneCaches();
+		ExpressionTreeNode<T> tree = sharedGeneTrees[-geneId];
+		if (tree == null) {
+			tree = getGene(geneId).createExpressionTree(this);
+			sharedGeneTrees[-geneId] = tree;
+		}
+		return tree;
+	}
+
+	/**
+	 * Returns the program executing the gene with the given id as part of
+	 * this chromosome (see {@link Gene#getProgram(Chromosome)}). The programs
+	 * of the shared genes are cached by this chromosome, so executing a
+	 * chromosome doesn't allocate any objects.
+	 * 
+	 * @param geneId
+	 *            The gene's id (see {@link #getGene(int)})
+	 * @return The program executing the gene
+	 */
+	GeneProgram<T> getGeneProgram(int geneId) {
+		if (geneId > 0) {
+			return genes[geneId - 1].getProgram(this);
+		}
+		initSharedGeneCaches();
+		GeneProgram<T> program = sharedGenePrograms[-geneId];
+		if (program == null) {
+			program = new GeneProgram<T>(getGene(geneId), this);
+			sharedGenePrograms[-geneId] = program;
+		}
+		return program;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void initSharedGeneCaches() {
+		if (sharedGenePrograms == null) {
+			sharedGenePrograms = (GeneProgram<T>[]) new GeneProgram<?>[1 + immutableGenes.length];
+			sharedGeneTrees = (ExpressionTreeNode<T>[]) new ExpressionTreeNode<?>[1 + immutableGenes.length];
+		}
+	}
+
+	/**
+	 * Compiles this Chromosome into a flat program that encodes the same
+	 * program as the chromosome's expression tree. The compiled program is
+	 * cached and only recompiled if one of the genes it was compiled from has
+	 * been modified since.
+	 * 
+	 * @return The Chromosomes compiled program
+	 */
+	public CompiledProgram<T> compile() {
+		if (compiledProgram == null || !compiledProgram.isUpToDate()) {
+			compiledProgram = CompiledProgram.compile(this);
+		}
+		return compiledProgram;
+	}
+
+	/**
+	 * Returns the version of the phenotype encoded by this chromosome. The
+	 * version increases whenever the coding region of one of the modifiable
+	 * genes or of the linking function is modified.
+	 * 
+	 * @return The current version of the phenotype
+	 */
+	long getPhenotypeVersion() {
+		long version = staticLinkingFunction.getVersion();
+		for (int i = 0; i < genes.length; i++) {
+			version += genes[i].getVersion();
+		}
+		return version;
 	}
 
 	/**
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class represents the program encoded by a chromosome compiled into flat
+ * arrays. The nodes are laid out in prefix order, i.e. the first child of a
+ * node directly follows the node, and every node stores the index behind its
+ * subtree (its skip offset) which is the index of its next sibling. Homeotic
+ * genes are inlined, i.e. a {@link HomoeoticGeneElement} is replaced by the
+ * program of the gene it links to. Executing the program therefore does not
+ * create any objects and does not need to resolve links between genes.
+ * <p>
+ * The program is executed by an interpreter loop with an explicit stack.
+ * Terminals are executed directly and functions implementing
+ * {@link ControlFlowFunction} only tell the loop which child is executed next,
+ * so functions like selectors still short-circuit the execution of their
+ * children. Other functions execute their children themselves (see
+ * {@link GeneElement#apply(FlatProgram, int)}), which nests the loop.
+ * <p>
+ * The stack is part of the program, so a program must not be executed by
+ * multiple threads at the same time.
+ * <p>
+ * A compiled program is only valid as long as the genes it was compiled from
+ * are not modified. Use {@link Chromosome#compile()} to obtain an up to date
+ * program of a chromosome.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the nodes of the program
+ */
+public final class CompiledProgram<T> implements FlatProgram<T> {
+
+	/**
+	 * The chromosome this program was compiled from.
+	 */
+	private final Chromosome<T> chromosome;
+
+	/**
+	 * The element of every node.
+	 */
+	private final GeneElement<T>[] elements;
+
+	/**
+	 * The index behind the subtree of every node (the index of the node's
+	 * next sibling).
+	 */
+	private final int[] skip;
+
+	/**
+	 * The element of every node if it is a terminal (null otherwise).
+	 */
+	private final GeneTerminal<T>[] terminals;
+
+	/**
+	 * The element of every node if it is executed by the interpreter loop
+	 * (null otherwise).
+	 */
+	private final ControlFlowFunction<T>[] controlFlowFunctions;
+
+	/**
+	 * The stack of the interpreter loop: the node of every unfinished control
+	 * flow function and the index of its child that is currently executed.
+	 */
+	private final int[] stackNode;
+	private final int[] stackChild;
+
+	/**
+	 * The first unused position of the stack (used by nested executions).
+	 */
+	private int stackTop = 0;
+
+	/**
+	 * The genes this program was compiled from and their versions at compile
+	 * time.
+	 */
+	private final Gene<T>[] sourceGenes;
+	private final int[] sourceVersions;
+
+	/**
+	 * The children of the nodes as expression tree nodes (created on demand
+	 * for elements that don't support flat programs).
+	 */
+	private List<ExpressionTreeNode<T>>[] childNodes = null;
+
+	/**
+	 * The program generated from this program and the generator that created
+	 * it (see {@link ProgramGenerator}).
+	 */
+	private Program<T> generatedProgram = null;
+	private ProgramGenerator<T> generator = null;
+
+	@SuppressWarnings("unchecked")
+	private CompiledProgram(Chromosome<T> chromosome, GeneElement<T>[] elements, int[] skip,
+			Gene<T>[] sourceGenes) {
+		this.chromosome = chromosome;
+		this.elements = elements;
+		this.skip = skip;
+		this.terminals = (GeneTerminal<T>[]) new GeneTerminal<?>[elements.length];
+		this.controlFlowFunctions = (ControlFlowFunction<T>[]) new ControlFlowFunction<?>[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] instanceof GeneTerminal) {
+				terminals[i] = (GeneTerminal<T>) elements[i];
+			} else if (elements[i] instanceof ControlFlowFunction) {
+				controlFlowFunctions[i] = (ControlFlowFunction<T>) elements[i];
+			}
+		}
+		// the depth of the program is bounded by its size
+		this.stackNode = new int[elements.length];
+		this.stackChild = new int[elements.length];
+		this.sourceGenes = sourceGenes;
+		this.sourceVersions = new int[sourceGenes.length];
+		for (int i = 0; i < sourceGenes.length; i++) {
+			sourceVersions[i] = sourceGenes[i].getVersion();
+		}
+	}
+
+	/**
+	 * Compiles the program encoded by the given chromosome. The program starts
+	 * at the root of the chromosome's linking function.
+	 * <p>
+	 * A homeotic gene element is inlined unless the linked gene is already
+	 * being inlined on the path from the root (a recursive link). Such an
+	 * element stays a terminal and is executed like in an expression tree.
+	 * 
+	 * @param chromosome
+	 *            The chromosome to be compiled
+	 * @return The compiled program
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CompiledProgram<T> compile(Chromosome<T> chromosome) {
+		final Compiler<T> c = new Compiler<T>(chromosome);
+		c.compile();
+		final GeneElement<T>[] elements = (GeneElement<T>[]) new GeneElement<?>[c.numNodes];
+		final int[] skip = new int[c.numNodes];
+		c.toPrefixOrder(elements, skip);
+		return new CompiledProgram<T>(chromosome, elements, skip,
+				(Gene<T>[]) c.childStarts.keySet().toArray(new Gene<?>[c.childStarts.size()]));
+	}
+
+	/**
+	 * Returns true if none of the genes this program was compiled from was
+	 * modified since the compilation.
+	 * 
+	 * @return True, if the program is up to date. False, otherwise.
+	 */
+	public boolean isUpToDate() {
+		for (int i = 0; i < sourceGenes.length; i++) {
+			if (sourceGenes[i].getVersion() != sourceVersions[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of nodes of this program.
+	 * 
+	 * @return The number of nodes
+	 */
+	public int size() {
+		return elements.length;
+	}
+
+	/**
+	 * Returns the index of the given child of the given node. The first child
+	 * directly follows the node, the following children are found via the skip
+	 * offsets of their preceding siblings.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @param childIdx
+	 *            The index of the child (0 <= childIdx < arity of the node)
+	 * @return The index of the child node
+	 */
+	public int getChild(int node, int childIdx) {
+		int child = node + 1;
+		for (int i = 0; i < childIdx; i++) {
+			child = skip[child];
+		}
+		return child;
+	}
+
+	/**
+	 * Returns the index behind the subtree of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The index behind the last node of the subtree
+	 */
+	public int getSkip(int node) {
+		return skip[node];
+	}
+
+	Program<T> getGeneratedProgram(ProgramGenerator<T> generator) {
+		return this.generator == generator ? generatedProgram : null;
+	}
+
+	void setGeneratedProgram(ProgramGenerator<T> generator, Program<T> generatedProgram) {
+		this.generator = generator;
+		this.generatedProgram = generatedProgram;
+	}
+
+	@Override
+	public Chromosome<T> getChromosome() {
+		return chromosome;
+	}
+
+	@Override
+	public GeneElement<T> getElement(int node) {
+		return elements[node];
+	}
+
+	@Override
+	public T execute() {
+		return execute(0);
+	}
+
+	@Override
+	public T execute(int node) {
+		// nested executions (by functions executing their children) use the
+		// stack above the frames of the enclosing execution
+		final int base = stackTop;
+		int sp = base;
+		try {
+			descend: while (true) {
+				T result;
+				final ControlFlowFunction<T> function = controlFlowFunctions[node];
+				if (function != null) {
+					final int child = function.nextChild(-1, null);
+					if (child >= 0) {
+						stackNode[sp] = node;
+						stackChild[sp] = child;
+						sp++;
+						node = getChild(node, child);
+						continue;
+					}
+					result = function.getResult(-1, null);
+				} else if (terminals[node] != null) {
+					result = terminals[node].apply(chromosome);
+				} else {
+					stackTop = sp;
+					result = elements[node].apply(this, node);
+				}
+
+				// pass the result to the parents until one executes another
+				// child
+				while (sp > base) {
+					final int parent = stackNode[sp - 1];
+					final int executedChild = stackChild[sp - 1];
+					final ControlFlowFunction<T> parentFunction = controlFlowFunctions[parent];
+					final int nextChild = parentFunction.nextChild(executedChild, result);
+					if (nextChild >= 0) {
+						stackChild[sp - 1] = nextChild;
+						node = getChild(parent, nextChild);
+						continue descend;
+					}
+					result = parentFunction.getResult(executedChild, result);
+					sp--;
+				}
+				return result;
+			}
+		} finally {
+			stackTop = base;
+		}
+	}
+
+	@Override
+	public T executeChild(int node, int childIdx) {
+		return execute(getChild(node, childIdx));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<ExpressionTreeNode<T>> getChildNodes(int node) {
+		if (childNodes == null) {
+			childNodes = (List<ExpressionTreeNode<T>>[]) new List<?>[elements.length];
+		}
+		List<ExpressionTreeNode<T>> children = childNodes[node];
+		if (children == null) {
+			final int arity = elements[node].getArity();
+			ArrayList<ExpressionTreeNode<T>> nodes = new ArrayList<ExpressionTreeNode<T>>(arity);
+			for (int i = 0, child = node + 1; i < arity; i++, child = skip[child]) {
+				nodes.add(new FlatProgramNode<T>(this, child));
+			}
+			children = Collections.unmodifiableList(nodes);
+			childNodes[node] = children;
+		}
+		return children;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < elements.length; i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append(elements[i]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Performs the compilation of one chromosome (breadth-first traversal of
+	 * the expression tree including the inlined linked genes, which is
+	 * reordered into prefix order afterwards).
+	 */
+	private static class Compiler<T> {
+
+		private final Chromosome<T> chromosome;
+
+		private final ArrayList<GeneElement<T>> elements = new ArrayList<>();
+
+		private int[] firstChild = new int[16];
+
+		private int numNodes = 0;
+
+		// the origin (gene, position in the gene and inlining frame) of every
+		// node
+		private final ArrayList<Gene<T>> nodeGene = new ArrayList<>();
+		private int[] nodePos = new int[16];
+		private int[] nodeFrame = new int[16];
+
+		// inlining frames: the inlined gene and the parent frame
+		private final ArrayList<Gene<T>> frameGene = new ArrayList<>();
+		private int[] frameParent = new int[4];
+
+		// the start index of the children of every position of the compiled
+		// genes in their K-expression (its keys are the source genes of the
+		// program, their order is irrelevant)
+		private final IdentityHashMap<Gene<T>, int[]> childStarts = new IdentityHashMap<>();
+
+		Compiler(Chromosome<T> chromosome) {
+			this.chromosome = chromosome;
+		}
+
+		void compile() {
+			final Gene<T> root = chromosome.getGene(0);
+			addNode(root, 0, addFrame(root, -1));
+
+			// the queue of unprocessed nodes is the range [idx, numNodes)
+			for (int idx = 0; idx < numNodes; idx++) {
+				final int arity = elements.get(idx).getArity();
+				firstChild[idx] = numNodes;
+				if (arity > 0) {
+					final Gene<T> gene = nodeGene.get(idx);
+					final int childStart = getChildStarts(gene)[nodePos[idx]];
+					for (int i = 0; i < arity; i++) {
+						addNode(gene, childStart + i, nodeFrame[idx]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Stores the compiled nodes in prefix order in the given arrays
+		 * together with their skip offsets.
+		 */
+		void toPrefixOrder(GeneElement<T>[] prefixElements, int[] skip) {
+			// the children of a node have higher breadth-first indices than
+			// the node, so the subtree sizes can be summed up backwards
+			final int[] subtreeSize = new int[numNodes];
+			for (int idx = numNodes - 1; idx >= 0; idx--) {
+				subtreeSize[idx] += 1;
+				final int arity = elements.get(idx).getArity();
+				for (int i = 0; i < arity; i++) {
+					subtreeSize[idx] += subtreeSize[firstChild[idx] + i];
+				}
+			}
+
+			// depth first traversal, the children are pushed in reverse
+			// order
+			final int[] stack = new int[numNodes];
+			int sp = 0;
+			stack[sp++] = 0;
+			int prefixIdx = 0;
+			while (sp > 0) {
+				final int idx = stack[--sp];
+				prefixElements[prefixIdx] = elements.get(idx);
+				skip[prefixIdx] = prefixIdx + subtreeSize[idx];
+				prefixIdx++;
+				for (int i = elements.get(idx).getArity() - 1; i >= 0; i--) {
+					stack[sp++] = firstChild[idx] + i;
+				}
+			}
+		}
+
+		private void addNode(Gene<T> gene, int pos, int frame) {
+			getChildStarts(gene);
+			GeneElement<T> element = gene.sequenceAt(pos);
+			while (element instanceof HomoeoticGeneElement) {
+				final Gene<T> linkedGene = chromosome.getGene(((HomoeoticGeneElement<T>) element).linkedGeneId);
+				if (isInlined(linkedGene, frame)) {
+					// recursive link => keep the homeotic element as terminal
+					break;
+				}
+				frame = addFrame(linkedGene, frame);
+				gene = linkedGene;
+				pos = 0;
+				getChildStarts(gene);
+				element = gene.sequenceAt(pos);
+			}
+
+			if (numNodes == firstChild.length) {
+				firstChild = Arrays.copyOf(firstChild, 2 * numNodes);
+				nodePos = Arrays.copyOf(nodePos, 2 * numNodes);
+				nodeFrame = Arrays.copyOf(nodeFrame, 2 * numNodes);
+			}
+			elements.add(element);
+			nodeGene.add(gene);
+			nodePos[numNodes] = pos;
+			nodeFrame[numNodes] = frame;
+			numNodes++;
+		}
+
+		private int addFrame(Gene<T> gene, int parent) {
+			final int frame = frameGene.size();
+			if (frame == frameParent.length) {
+				frameParent = Arrays.copyOf(frameParent, 2 * frame);
+			}
+			frameGene.add(gene);
+			frameParent[frame] = parent;
+			return frame;
+		}
+
+		private boolean isInlined(Gene<T> gene, int frame) {
+			for (int f = frame; f >= 0; f = frameParent[f]) {
+				if (frameGene.get(f) == gene) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int[] getChildStarts(Gene<T> gene) {
+			int[] starts = childStarts.get(gene);
+			if (starts == null) {
+				starts = gene.getChildOffsets();
+				childStarts.put(gene, starts);
+			}
+			return starts;
+		}
+	}
+
+}
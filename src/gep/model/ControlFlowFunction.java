@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+/**
+ * This interface is implemented by gene functions that can be executed by the
+ * interpreter loop of a {@link CompiledProgram}. Instead of executing their
+ * children themselves (see {@link GeneElement#apply(FlatProgram, int)}) such
+ * functions only decide which child is executed next, which keeps the
+ * short-circuiting of functions like selectors or sequences without a
+ * recursive call per node.
+ * <p>
+ * The interpreter passes the complete state of the execution to the methods,
+ * so implementations must not keep any state between the calls (a function
+ * object is shared by all programs).
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the function
+ * 
+ * @see CompiledProgram
+ */
+public interface ControlFlowFunction<T> {
+
+	/**
+	 * Returns the index of the child that is executed next. This is called
+	 * once when the function starts (with executedChild = -1) and after every
+	 * executed child.
+	 * 
+	 * @param executedChild
+	 *            The index of the child executed last (-1 if no child was
+	 *            executed yet)
+	 * @param childResult
+	 *            The result of the child executed last (undefined if no child
+	 *            was executed yet)
+	 * @return The index of the next child (0 <= index < arity) or -1 if the
+	 *         function is finished
+	 */
+	public int nextChild(int executedChild, T childResult);
+
+	/**
+	 * Returns the result of the function after
+	 * {@link #nextChild(int, Object)} returned -1.
+	 * 
+	 * @param executedChild
+	 *            The index of the child executed last (-1 if no child was
+	 *            executed)
+	 * @param childResult
+	 *            The result of the child executed last (undefined if no child
+	 *            was executed)
+	 * @return The result of the function
+	 */
+	public T getResult(int executedChild, T childResult);
+
+}
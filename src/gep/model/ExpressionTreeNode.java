@@ -89,6 +89,16 @@ public class ExpressionTreeNode<T> implements Serializable {
 		this.relatedChromosome = relatedChromosome;
 	}
 
+	/**
+	 * Returns the chromosome that contains the gene encoding this expression
+	 * tree.
+	 * 
+	 * @return The related chromosome
+	 */
+	Chromosome<T> getRelatedChromosome() {
+		return relatedChromosome;
+	}
+
 	/**
 	 * Returns the children of this node in the expression tree. The children
 	 * are the arguments of the function encoded in this expression tree node.
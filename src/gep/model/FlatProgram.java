@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.util.List;
+
+/**
+ * This interface represents an executable program encoded by a chromosome
+ * whose nodes are stored in flat arrays instead of a graph of
+ * {@link ExpressionTreeNode} objects. Nodes are addressed by their index. The
+ * root of the program is node 0.
+ * <p>
+ * A node is executed by calling
+ * {@link GeneElement#apply(FlatProgram, int)} of its element. Functions decide
+ * themselves which of their children are executed (e.g. to short-circuit) by
+ * calling {@link FlatProgram#executeChild(int, int)}.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the nodes of the program
+ * 
+ * @see CompiledProgram
+ */
+public interface FlatProgram<T> extends Program<T> {
+
+	/**
+	 * Returns the chromosome this program was created from.
+	 * 
+	 * @return The chromosome encoding this program
+	 */
+	public Chromosome<T> getChromosome();
+
+	/**
+	 * Returns the element executed at the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The element of the node
+	 */
+	public GeneElement<T> getElement(int node);
+
+	/**
+	 * Executes the subtree rooted at the given node and returns its result.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The result of the subtree
+	 */
+	public T execute(int node);
+
+	/**
+	 * Executes the subtree rooted at the given child of the given node and
+	 * returns its result.
+	 * 
+	 * @param node
+	 *            The index of the parent node
+	 * @param childIdx
+	 *            The index of the child (0 <= childIdx < arity of the node)
+	 * @return The result of the subtree rooted at the child
+	 */
+	public T executeChild(int node, int childIdx);
+
+	/**
+	 * Returns the children of the given node as expression tree nodes. This is
+	 * used to execute elements which do not support flat programs directly
+	 * (see {@link GeneElement#apply(FlatProgram, int)}). Executing the
+	 * returned nodes executes the corresponding nodes of this program.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The children of the node as expression tree nodes
+	 */
+	public List<ExpressionTreeNode<T>> getChildNodes(int node);
+
+}
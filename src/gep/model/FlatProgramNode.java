@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.util.List;
+
+/**
+ * An expression tree node that represents a node of a {@link FlatProgram}.
+ * Executing it executes the node of the program. The children are created on
+ * demand.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the node
+ */
+final class FlatProgramNode<T> extends ExpressionTreeNode<T> {
+
+	/**
+	 * The version UID used for serialization.
+	 */
+	private static final long serialVersionUID = 6021962127151869925L;
+
+	transient private final FlatProgram<T> program;
+
+	private final int node;
+
+	private boolean childrenCreated = false;
+
+	FlatProgramNode(FlatProgram<T> program, int node) {
+		super(program.getElement(node), program.getChromosome());
+		this.program = program;
+		this.node = node;
+	}
+
+	@Override
+	public List<ExpressionTreeNode<T>> getChildren() {
+		final List<ExpressionTreeNode<T>> children = super.getChildren();
+		if (!childrenCreated) {
+			children.addAll(program.getChildNodes(node));
+			childrenCreated = true;
+		}
+		return children;
+	}
+
+	@Override
+	public T execute() {
+		return program.execute(node);
+	}
+
+}
@@ -15,12 +15,32 @@
  */
 package gep.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.IntBuffer;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
 /**
  * This class represents a gene in gene expression programming.
+ * <p>
+ * The sequence of a gene is stored as an array of int symbols, which are
+ * indices into the symbol table of the gene's architecture (see
+ * {@link GeneArchitecture#getSymbol(GeneElement)}). Copying and recombining
+ * sequences therefore only moves primitive values. The element based accessors
+ * resolve the symbols through the architecture.
+ * <p>
+ * A gene either owns its sequence or is a view on a range of a larger buffer
+ * shared by many genes (see {@link PopulationStore}). Sequences on the Java
+ * heap are accessed as int arrays, only views on a store located outside of
+ * the Java heap read and write through the store's buffer.
+ * <p>
+ * Genes that own their sequence are copied on write: a copy (see
+ * {@link #Gene(Gene)} and {@link #copyFrom(Gene)}) shares the sequence of the
+ * original until one of them is modified, which then replaces the shared
+ * sequence by a private copy.
  * 
  * @author Johannes Wortmann
  *
@@ -36,11 +56,50 @@ public class Gene<T> implements Serializable {
 	private static final long serialVersionUID = -532910009254525337L;
 
 	/**
-	 * The sequence of this gene.
+	 * The array holding the sequence of this gene as symbols of the gene
+	 * architecture (starting at offset). The array may be shared with other
+	 * genes. Null if the gene is a view on a store outside of the Java heap.
 	 */
-	final private GeneElement<T>[] sequence; // TODO maybe optimize by using
-												// arrays
-												// of int (index structure)
+	transient private int[] symbols;
+
+	/**
+	 * The direct buffer holding the sequence of this gene (starting at offset)
+	 * if the gene is a view on a store outside of the Java heap, null
+	 * otherwise. Only absolute get and put operations are used on it.
+	 */
+	transient private IntBuffer directSymbols;
+
+	/**
+	 * The position of the first symbol of this gene in the symbols array (or
+	 * the direct buffer).
+	 */
+	transient private int offset;
+
+	/**
+	 * The length of the sequence of this gene.
+	 */
+	transient private int length;
+
+	/**
+	 * True if the symbols buffer may also be referenced by other genes. A
+	 * shared buffer is replaced by a private copy before the first
+	 * modification.
+	 */
+	transient private boolean shared = false;
+
+	/**
+	 * True if this gene is a view on a range of a population store. The
+	 * sequence of such a gene is never shared.
+	 */
+	transient private boolean storeBacked;
+
+	/**
+	 * The sequence of this gene as elements. This field is only used for the
+	 * serialized form of the gene (null otherwise), which keeps the stream
+	 * format compatible with genes stored by earlier versions.
+	 */
+	private GeneElement<T>[] sequence;
+
 	/**
 	 * Reference to the meta information of this gene (architecture of the gene)
 	 */
@@ -48,9 +107,36 @@ public class Gene<T> implements Serializable {
 
 	/**
 	 * Stores the last generated expression tree as long as the sequence is not
-	 * modified.
+	 * modified (bound to the chromosome that expressed the gene most
+	 * recently, see {@link #express(Chromosome)}).
+	 */
+	transient private ExpressionTreeNode<T> expressionTreeCache = null;
+
+	/**
+	 * Incremented on every modification of the coding region of the sequence.
+	 * Used to detect outdated programs compiled from this gene.
 	 */
-	private ExpressionTreeNode<T> expressionTreeCache = null;
+	transient private int version = 0;
+
+	/**
+	 * The length of the coding region of the current sequence (0 if it has to
+	 * be recomputed).
+	 */
+	transient private int codingLength = 0;
+
+	/**
+	 * The index of the first child of every position of the K-expression and
+	 * the version of the sequence they were computed for (see
+	 * {@link #getFirstChild(int)}).
+	 */
+	transient private volatile int[] childOffsets = null;
+	transient private int childOffsetsVersion;
+
+	/**
+	 * The program executing this gene directly from its sequence (bound to the
+	 * chromosome that requested it most recently).
+	 */
+	transient private GeneProgram<T> program = null;
 
 	/**
 	 * Creates a new Gene linked to the given architecture. To make sure the
@@ -61,30 +147,70 @@ public class Gene<T> implements Serializable {
 	 * @param arch
 	 *            the genes architecture reference.
 	 */
-	@SuppressWarnings("unchecked")
 	Gene(GeneArchitecture<T> arch) {
 		this.architecture = arch;
-		this.sequence = (GeneElement<T>[]) new GeneElement<?>[arch.getGeneLength()];
+		this.length = arch.getGeneLength();
+		this.symbols = new int[length];
+		this.offset = 0;
+		this.storeBacked = false;
+	}
+
+	/**
+	 * Creates a new Gene linked to the given architecture which stores its
+	 * sequence in the given buffer starting at the given offset. The sequence
+	 * is not initialized by this constructor.
+	 * 
+	 * @param arch
+	 *            the genes architecture reference.
+	 * @param storage
+	 *            The buffer the sequence is stored in
+	 * @param offset
+	 *            The position of the first symbol in the storage buffer
+	 */
+	Gene(GeneArchitecture<T> arch, IntBuffer storage, int offset) {
+		if (offset < 0 || offset + arch.getGeneLength() > storage.capacity()) {
+			throw new IndexOutOfBoundsException("The gene does not fit into the storage at offset " + offset);
+		}
+		this.architecture = arch;
+		this.length = arch.getGeneLength();
+		if (storage.hasArray()) {
+			this.symbols = storage.array();
+			this.offset = storage.arrayOffset() + offset;
+		} else {
+			this.directSymbols = storage;
+			this.offset = offset;
+		}
+		this.storeBacked = true;
 	}
 
 	/**
-	 * Creates a new Gene with the copied (shallow) sequence and the same
-	 * architecture as the provided gene.
+	 * Creates a new Gene with the copied sequence and the same architecture as
+	 * the provided gene. The sequence is shared with the provided gene until
+	 * one of both is modified (unless the provided gene is backed by a
+	 * population store).
 	 * 
 	 * @param other
 	 *            The gene to be copied.
 	 */
-	@SuppressWarnings("unchecked")
 	public Gene(Gene<T> other) {
 		this.architecture = other.architecture;
-		this.sequence = (GeneElement<T>[]) new GeneElement<?>[other.sequence.length];
-		System.arraycopy(other.sequence, 0, sequence, 0, sequence.length);
+		this.length = other.length;
+		this.storeBacked = false;
+		if (other.storeBacked) {
+			this.symbols = new int[length];
+			other.readSymbols(0, symbols, 0, length);
+		} else {
+			shareSymbolsOf(other);
+		}
 		this.invalidateExpressionTreeCache();
+		this.codingLength = other.codingLength;
 	}
 
 	/**
 	 * Copies the sequence from the given other Gene into this one. This
-	 * requires that both Genes share the exact same architecture.
+	 * requires that both Genes share the exact same architecture. If neither
+	 * gene is backed by a population store, the sequence is shared until one
+	 * of both is modified.
 	 * 
 	 * @param other
 	 *            The Gene from which the sequence should be copied.
@@ -93,8 +219,61 @@ public class Gene<T> implements Serializable {
 		if (this.architecture != other.architecture) {
 			throw new IllegalArgumentException("The gene architecture has to be identical!");
 		}
-		System.arraycopy(other.sequence, 0, sequence, 0, sequence.length);
+		if (symbols == other.symbols && directSymbols == other.directSymbols && offset == other.offset) {
+			// the sequences are identical already (same or shared buffer)
+			return;
+		}
+		if (!storeBacked && !other.storeBacked) {
+			shareSymbolsOf(other);
+		} else {
+			ensureExclusiveSymbols();
+			if (other.symbols != null) {
+				writeSymbols(0, other.symbols, other.offset, length);
+			} else if (symbols != null) {
+				other.readSymbols(0, symbols, offset, length);
+			} else {
+				for (int i = 0; i < length; i++) {
+					write(i, other.read(i));
+				}
+			}
+		}
 		this.invalidateExpressionTreeCache();
+		this.codingLength = other.codingLength;
+	}
+
+	/**
+	 * Lets this gene use the sequence array of the given gene (which must not
+	 * be backed by a store). Both genes copy the array before their next
+	 * modification.
+	 */
+	private void shareSymbolsOf(Gene<T> other) {
+		this.symbols = other.symbols;
+		this.offset = other.offset;
+		this.shared = true;
+		other.shared = true;
+	}
+
+	/**
+	 * Replaces a shared sequence array by a private copy.
+	 */
+	private void ensureExclusiveSymbols() {
+		if (shared) {
+			final int[] exclusive = new int[length];
+			System.arraycopy(symbols, offset, exclusive, 0, length);
+			symbols = exclusive;
+			offset = 0;
+			shared = false;
+		}
+	}
+
+	/**
+	 * Returns true if the sequence of this gene is (possibly) shared with
+	 * other genes.
+	 * 
+	 * @return True, if the sequence is shared. False, otherwise.
+	 */
+	boolean isSequenceShared() {
+		return shared;
 	}
 
 	/**
@@ -114,6 +293,11 @@ public class Gene<T> implements Serializable {
 	 * Creates the ExpressionTree which is encoded by the current configuration
 	 * of this gene. The ExpressionTree will only contain those gene elements
 	 * which are in the coding region of the Gene.
+	 * <p>
+	 * The tree is cached for the chromosome that expressed the gene most
+	 * recently. Genes shared by many chromosomes (the linking function and
+	 * immutable genes) are expressed through their chromosome instead (see
+	 * {@link Chromosome#express()}), which caches their trees per chromosome.
 	 * 
 	 * @param chromosome
 	 *            The chromosome that contains the gene that is expressed by
@@ -123,30 +307,125 @@ public class Gene<T> implements Serializable {
 	 *         configuration.
 	 */
 	public ExpressionTreeNode<T> express(Chromosome<T> chromosome) {
-
-		if (expressionTreeCache != null) {
-			return expressionTreeCache;
+		final ExpressionTreeNode<T> cached = expressionTreeCache;
+		if (cached != null && cached.getRelatedChromosome() == chromosome) {
+			return cached;
 		}
+		final ExpressionTreeNode<T> etnRoot = createExpressionTree(chromosome);
+		expressionTreeCache = etnRoot;
+		return etnRoot;
+	}
 
+	/**
+	 * Creates the expression tree encoded by the current configuration of
+	 * this gene without caching it.
+	 * 
+	 * @param chromosome
+	 *            The chromosome that contains the gene
+	 * @return The expression tree encoded by this gene
+	 */
+	ExpressionTreeNode<T> createExpressionTree(Chromosome<T> chromosome) {
 		Deque<ExpressionTreeNode<T>> elementQueue = new ArrayDeque<ExpressionTreeNode<T>>();
-		ExpressionTreeNode<T> etnRoot = new ExpressionTreeNode<T>(sequence[0], chromosome);
+		ExpressionTreeNode<T> etnRoot = new ExpressionTreeNode<T>(architecture.getElement(read(0)), chromosome);
 		elementQueue.push(etnRoot);
 		int idx = 1;
 
 		while (!elementQueue.isEmpty()) {
 			ExpressionTreeNode<T> currParent = elementQueue.removeFirst();
 			for (int i = 0; i < currParent.getNodeElement().getArity(); i++) {
-				ExpressionTreeNode<T> currChild = new ExpressionTreeNode<>(sequence[idx], chromosome);
+				ExpressionTreeNode<T> currChild = new ExpressionTreeNode<>(architecture.getElement(read(idx)),
+						chromosome);
 				currParent.getChildren().add(currChild);
 				elementQueue.addLast(currChild);
 				idx++;
 			}
 		}
-
-		expressionTreeCache = etnRoot;
 		return etnRoot;
 	}
 
+	/**
+	 * Returns a program that executes this gene directly from its sequence
+	 * without creating an expression tree. The program stays valid if the
+	 * sequence is modified. Like the expression tree (see
+	 * {@link #express(Chromosome)}) it is cached for the chromosome that
+	 * requested it most recently, the programs of shared genes are cached by
+	 * the chromosomes.
+	 * 
+	 * @param chromosome
+	 *            The chromosome that contains (and executes) the gene.
+	 * 
+	 * @return The program executing this gene
+	 */
+	public GeneProgram<T> getProgram(Chromosome<T> chromosome) {
+		GeneProgram<T> p = program;
+		if (p == null || p.getChromosome() != chromosome) {
+			p = new GeneProgram<T>(this, chromosome);
+			program = p;
+		}
+		return p;
+	}
+
+	/**
+	 * Executes the program encoded by the current configuration of this gene
+	 * directly from the sequence and returns its result.
+	 * 
+	 * @param chromosome
+	 *            The chromosome that contains (and executes) the gene.
+	 * 
+	 * @return The result of the execution
+	 * 
+	 * @see #getProgram(Chromosome)
+	 */
+	public T execute(Chromosome<T> chromosome) {
+		return getProgram(chromosome).execute();
+	}
+
+	/**
+	 * Returns the index of the first child of the element at the given index
+	 * in the K-expression of this gene. The children of an element are stored
+	 * consecutively. The result is undefined for indices outside of the coding
+	 * region.
+	 * 
+	 * @param idx
+	 *            The index of the element
+	 * @return The index of the element's first child
+	 */
+	public int getFirstChild(int idx) {
+		return getChildOffsets()[idx];
+	}
+
+	/**
+	 * Returns the index of the first child of every position of the
+	 * K-expression. The offsets are only recomputed if the sequence was
+	 * modified since the last call. The returned array must not be modified.
+	 * <p>
+	 * The first computation publishes a completely filled array, so the
+	 * offsets of unmodified genes (e.g. immutable genes shared by chromosomes
+	 * evaluated concurrently) can be read by multiple threads.
+	 * 
+	 * @return The child offsets of the current sequence
+	 */
+	int[] getChildOffsets() {
+		int[] offsets = childOffsets;
+		if (offsets == null || childOffsetsVersion != version) {
+			if (offsets == null) {
+				offsets = new int[length];
+			}
+			// the children of the element at position p start at
+			// 1 + (sum of the arities of all elements before p)
+			int next = 1;
+			for (int p = 0; p < length; p++) {
+				offsets[p] = next;
+				if (next < length) {
+					next += architecture.getArity(read(p));
+				}
+			}
+			childOffsetsVersion = version;
+			childOffsets = offsets;
+		}
+		return offsets;
+	}
+
 	/**
 	 * Returns the element in the sequence at the given index
 	 * 
@@ -155,7 +434,18 @@ public class Gene<T> implements Serializable {
 	 * @return The element at the given index
 	 */
 	public GeneElement<T> sequenceAt(int idx) {
-		return sequence[idx];
+		return architecture.getElement(read(idx));
+	}
+
+	/**
+	 * Returns the symbol in the sequence at the given index
+	 * 
+	 * @param idx
+	 *            The symbols index
+	 * @return The symbol at the given index
+	 */
+	public int symbolAt(int idx) {
+		return read(idx);
 	}
 
 	/**
@@ -171,18 +461,37 @@ public class Gene<T> implements Serializable {
 	 *             - if copying would cause access of data outside array bounds.
 	 */
 	public GeneElement<T>[] getSubsequence(int startIdx, int length) {
+		checkInterval(startIdx, length);
 		@SuppressWarnings("unchecked")
 		GeneElement<T>[] res = (GeneElement<T>[]) new GeneElement<?>[length];
-		System.arraycopy(sequence, startIdx, res, 0, length);
+		for (int i = 0; i < length; i++) {
+			res[i] = architecture.getElement(read(startIdx + i));
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the symbols of the subsequence specified by the parameters as a
+	 * copy
+	 * 
+	 * @param startIdx
+	 *            The start index of the subsequence
+	 * @param length
+	 *            The length of the subsequence
+	 * @return The symbols of the subsequence
+	 * 
+	 * @throws IndexOutOfBoundsException
+	 *             - if copying would cause access of data outside array bounds.
+	 */
+	public int[] getSymbols(int startIdx, int length) {
+		checkInterval(startIdx, length);
+		int[] res = new int[length];
+		readSymbols(startIdx, res, 0, length);
 		return res;
 	}
 
 	/**
 	 * Sets the element in the sequence at the given index to the given element.
-	 * <p>
-	 * The given new element has to be part of the the possible elements in the
-	 * genes architecture. Because of performance reasons it is not checked at
-	 * runtime.
 	 * 
 	 * @param idx
 	 *            The elements index
@@ -190,20 +499,35 @@ public class Gene<T> implements Serializable {
 	 * @param newElement
 	 *            The element that should be set a the specified index (has to
 	 *            be part of the architectures possible elements!)
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the element is not part of the gene's architecture
 	 */
 	public void setSequenceAt(int idx, GeneElement<T> newElement) {
-		sequence[idx] = newElement;
-		// TODO maybe change newElement to idx in architecture
-		this.invalidateExpressionTreeCache();
+		final int symbol = architecture.getSymbol(newElement);
+		beforeModification(idx);
+		write(idx, symbol);
+	}
+
+	/**
+	 * Sets the symbol in the sequence at the given index to the given symbol.
+	 * <p>
+	 * The given symbol has to be a valid symbol of the genes architecture.
+	 * Because of performance reasons it is not checked at runtime.
+	 * 
+	 * @param idx
+	 *            The symbols index
+	 * @param symbol
+	 *            The symbol that should be set at the specified index
+	 */
+	public void setSymbolAt(int idx, int symbol) {
+		beforeModification(idx);
+		write(idx, symbol);
 	}
 
 	/**
 	 * Sets the sequence of this gene from pos to pos+length to the values given
 	 * in the src array from srcPos to srcPos+length.
-	 * <p>
-	 * The given new elements have to be part of the the possible elements in
-	 * the genes architecture. Because of performance reasons it is not checked
-	 * at runtime.
 	 * 
 	 * @param pos
 	 *            The start position in the sequence
@@ -213,10 +537,110 @@ public class Gene<T> implements Serializable {
 	 *            The start position in the source array
 	 * @param length
 	 *            The number of elements to be copied by the method
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if an element is not part of the gene's architecture
 	 */
 	public void setSequenceIntervall(int pos, GeneElement<T> src[], int srcPos, int length) {
-		System.arraycopy(src, srcPos, sequence, pos, length);
-		this.invalidateExpressionTreeCache();
+		checkInterval(pos, length);
+		if (srcPos < 0 || srcPos + length > src.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		final int[] newSymbols = new int[length];
+		for (int i = 0; i < length; i++) {
+			newSymbols[i] = architecture.getSymbol(src[srcPos + i]);
+		}
+		beforeModification(pos);
+		writeSymbols(pos, newSymbols, 0, length);
+	}
+
+	/**
+	 * Sets the symbols of this gene from pos to pos+length to the values given
+	 * in the src array from srcPos to srcPos+length.
+	 * <p>
+	 * The given symbols have to be valid symbols of the genes architecture.
+	 * Because of performance reasons it is not checked at runtime.
+	 * 
+	 * @param pos
+	 *            The start position in the sequence
+	 * @param src
+	 *            The array from which the symbols should be copied
+	 * @param srcPos
+	 *            The start position in the source array
+	 * @param length
+	 *            The number of symbols to be copied by the method
+	 */
+	public void setSymbols(int pos, int[] src, int srcPos, int length) {
+		checkInterval(pos, length);
+		if (srcPos < 0 || srcPos + length > src.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		beforeModification(pos);
+		writeSymbols(pos, src, srcPos, length);
+	}
+
+	/**
+	 * Copies the symbols of this gene from srcPos to srcPos+length to the
+	 * positions destPos to destPos+length of this gene. The ranges may overlap.
+	 * 
+	 * @param srcPos
+	 *            The start position of the symbols to be copied
+	 * @param destPos
+	 *            The start position the symbols are copied to
+	 * @param length
+	 *            The number of symbols to be copied
+	 */
+	public void copySymbols(int srcPos, int destPos, int length) {
+		checkInterval(srcPos, length);
+		checkInterval(destPos, length);
+		beforeModification(destPos);
+		if (symbols != null) {
+			System.arraycopy(symbols, offset + srcPos, symbols, offset + destPos, length);
+		} else if (srcPos < destPos) {
+			for (int i = length - 1; i >= 0; i--) {
+				write(destPos + i, read(srcPos + i));
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				write(destPos + i, read(srcPos + i));
+			}
+		}
+	}
+
+	/**
+	 * Swaps the symbols from pos to pos+length of this gene with the symbols at
+	 * the same positions of the given gene. This requires that both genes share
+	 * the exact same architecture.
+	 * 
+	 * @param other
+	 *            The gene to swap the symbols with
+	 * @param pos
+	 *            The start position of the swapped interval
+	 * @param length
+	 *            The number of symbols to be swapped
+	 */
+	public void swapSymbols(Gene<T> other, int pos, int length) {
+		if (this.architecture != other.architecture) {
+			throw new IllegalArgumentException("The gene architecture has to be identical!");
+		}
+		checkInterval(pos, length);
+		this.beforeModification(pos);
+		other.beforeModification(pos);
+		if (symbols != null && other.symbols != null) {
+			final int[] otherSymbols = other.symbols;
+			final int delta = other.offset - this.offset;
+			for (int i = offset + pos; i < offset + pos + length; i++) {
+				final int tmp = symbols[i];
+				symbols[i] = otherSymbols[i + delta];
+				otherSymbols[i + delta] = tmp;
+			}
+		} else {
+			for (int i = pos; i < pos + length; i++) {
+				final int tmp = read(i);
+				write(i, other.read(i));
+				other.write(i, tmp);
+			}
+		}
 	}
 
 	/**
@@ -228,7 +652,21 @@ public class Gene<T> implements Serializable {
 	 * @return The length of the genes sequence.
 	 */
 	public int getSequenceLength() {
-		return sequence.length;
+		return length;
+	}
+
+	/**
+	 * Checks if the interval [pos, pos+length) lies within the sequence of
+	 * this gene.
+	 * 
+	 * @throws IndexOutOfBoundsException
+	 *             if the interval exceeds the sequence
+	 */
+	private void checkInterval(int pos, int length) {
+		if (pos < 0 || length < 0 || pos + length > this.length) {
+			throw new IndexOutOfBoundsException(
+					"Interval [" + pos + ", " + (pos + length) + ") exceeds the gene length " + this.length);
+		}
 	}
 
 	/**
@@ -240,6 +678,126 @@ public class Gene<T> implements Serializable {
 	 */
 	public void invalidateExpressionTreeCache() {
 		expressionTreeCache = null;
+		codingLength = 0;
+		version++;
+	}
+
+	/**
+	 * Has to be called before the sequence is modified starting at the given
+	 * position. Replaces a shared sequence by a private copy and invalidates
+	 * the caches if the modification might change the coding region.
+	 * Modifications behind the coding region can't change the expressed tree
+	 * (nor the length of the coding region).
+	 * 
+	 * @param pos
+	 *            The first modified position
+	 */
+	private void beforeModification(int pos) {
+		ensureExclusiveSymbols();
+		if (pos < getCodingLength()) {
+			invalidateExpressionTreeCache();
+		}
+	}
+
+	/**
+	 * Returns the length of the coding region (open reading frame) of the
+	 * current sequence, i.e. the length of the prefix of the K-expression that
+	 * is part of the expression tree. Modifications behind the coding region
+	 * don't change the phenotype.
+	 * 
+	 * @return The length of the coding region
+	 */
+	public int getCodingLength() {
+		if (codingLength == 0) {
+			// the coding region ends as soon as all required children were
+			// read (bounded by the length for not yet initialized sequences)
+			int required = 1;
+			int p = 0;
+			while (p < required && p < length) {
+				required += architecture.getArity(read(p));
+				p++;
+			}
+			codingLength = Math.min(required, length);
+		}
+		return codingLength;
+	}
+
+	/**
+	 * Returns the version of the coding region of this gene. The version
+	 * changes whenever the coding region (and therefore possibly the
+	 * expressed tree) is modified.
+	 * 
+	 * @return The current version of the coding region
+	 */
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the symbol at the given position of the sequence.
+	 */
+	private int read(int idx) {
+		final int[] s = symbols;
+		return s != null ? s[offset + idx] : directSymbols.get(offset + idx);
+	}
+
+	/**
+	 * Sets the symbol at the given position of the sequence (without any
+	 * checks or invalidations).
+	 */
+	private void write(int idx, int symbol) {
+		final int[] s = symbols;
+		if (s != null) {
+			s[offset + idx] = symbol;
+		} else {
+			directSymbols.put(offset + idx, symbol);
+		}
+	}
+
+	/**
+	 * Copies length symbols of the sequence starting at pos into the given
+	 * array.
+	 */
+	private void readSymbols(int pos, int[] dest, int destPos, int length) {
+		if (symbols != null) {
+			System.arraycopy(symbols, offset + pos, dest, destPos, length);
+		} else {
+			for (int i = 0; i < length; i++) {
+				dest[destPos + i] = directSymbols.get(offset + pos + i);
+			}
+		}
+	}
+
+	/**
+	 * Copies length symbols of the given array into the sequence starting at
+	 * pos (without any checks or invalidations).
+	 */
+	private void writeSymbols(int pos, int[] src, int srcPos, int length) {
+		if (symbols != null) {
+			System.arraycopy(src, srcPos, symbols, offset + pos, length);
+		} else {
+			for (int i = 0; i < length; i++) {
+				directSymbols.put(offset + pos + i, src[srcPos + i]);
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("architecture", architecture);
+		fields.put("sequence", getSubsequence(0, length));
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		length = sequence.length;
+		offset = 0;
+		symbols = new int[length];
+		for (int i = 0; i < length; i++) {
+			symbols[i] = architecture.getSymbol(sequence[i]);
+		}
+		sequence = null;
 	}
 
 }
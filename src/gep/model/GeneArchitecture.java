@@ -15,14 +15,19 @@
  */
 package gep.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
 import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -32,6 +37,13 @@ import gep.random.RandomEngine;
  * 
  * An instance of this class includes meta information shared by all genes
  * created by this factory.
+ * <p>
+ * The architecture also defines the symbol table used to encode the sequence
+ * of its genes. Every potential function and terminal is identified by an int
+ * symbol. The functions are numbered first (in the order of
+ * {@link GeneArchitecture#potentialFunctions}), followed by the terminals. The
+ * lists of potential elements must therefore not be modified after the
+ * architecture has been created.
  * 
  * @author Johannes Wortmann
  *
@@ -47,7 +59,11 @@ public class GeneArchitecture<T> implements Serializable {
 
 	/**
 	 * A reference to the default random engine.
+	 * 
+	 * @deprecated This engine is unseeded and shared by all users. Use an
+	 *             engine split from the {@link MasterRandomEngine} instead.
 	 */
+	@Deprecated
 	transient public static final RandomEngine DEFAULT_RANDOM_ENGINE = new DefaultRandomEngine();
 
 	/**
@@ -80,6 +96,22 @@ public class GeneArchitecture<T> implements Serializable {
 	 */
 	public final boolean isModifiable;
 
+	/**
+	 * The symbol table (potential functions followed by the potential
+	 * terminals). The symbol of an element is its index in this table.
+	 */
+	private transient GeneElement<T>[] symbolTable;
+
+	/**
+	 * The arity of the elements in the symbol table.
+	 */
+	private transient int[] symbolArities;
+
+	/**
+	 * Maps every element of the symbol table to its symbol.
+	 */
+	private transient HashMap<GeneElement<T>, Integer> symbolIndex;
+
 	/**
 	 * Creates a new factory for modifiable genes with respect to the given
 	 * factory parameters.
@@ -130,6 +162,112 @@ public class GeneArchitecture<T> implements Serializable {
 		}
 		this.maxArity = maxArity;
 		this.isModifiable = isModifiable;
+		buildSymbolTable();
+	}
+
+	/**
+	 * Builds the symbol table from the lists of potential functions and
+	 * terminals.
+	 */
+	@SuppressWarnings("unchecked")
+	private void buildSymbolTable() {
+		final int numSymbols = potentialFunctions.size() + potentialTerminals.size();
+		symbolTable = (GeneElement<T>[]) new GeneElement<?>[numSymbols];
+		symbolArities = new int[numSymbols];
+		symbolIndex = new HashMap<GeneElement<T>, Integer>(2 * numSymbols);
+
+		int symbol = 0;
+		for (GeneElement<T> element : potentialFunctions) {
+			symbolTable[symbol] = element;
+			symbolArities[symbol] = element.getArity();
+			symbolIndex.putIfAbsent(element, symbol);
+			symbol++;
+		}
+		for (GeneElement<T> element : potentialTerminals) {
+			symbolTable[symbol] = element;
+			symbolArities[symbol] = element.getArity();
+			symbolIndex.putIfAbsent(element, symbol);
+			symbol++;
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		buildSymbolTable();
+	}
+
+	/**
+	 * Returns the number of potential functions. The symbols in [0,
+	 * numberOfFunctions) represent functions.
+	 * 
+	 * @return the number of potential functions
+	 */
+	public int getNumberOfFunctions() {
+		return potentialFunctions.size();
+	}
+
+	/**
+	 * Returns the number of potential terminals. The symbols in
+	 * [numberOfFunctions, numberOfFunctions + numberOfTerminals) represent
+	 * terminals.
+	 * 
+	 * @return the number of potential terminals
+	 */
+	public int getNumberOfTerminals() {
+		return potentialTerminals.size();
+	}
+
+	/**
+	 * Returns true if the given symbol represents a function.
+	 * 
+	 * @param symbol
+	 *            A valid symbol of this architecture
+	 * @return True, if the symbol represents a function. False, otherwise.
+	 */
+	public boolean isFunctionSymbol(int symbol) {
+		return symbol < potentialFunctions.size();
+	}
+
+	/**
+	 * Returns the element represented by the given symbol.
+	 * 
+	 * @param symbol
+	 *            A valid symbol of this architecture
+	 * @return The element represented by the symbol
+	 */
+	public GeneElement<T> getElement(int symbol) {
+		return symbolTable[symbol];
+	}
+
+	/**
+	 * Returns the arity of the element represented by the given symbol.
+	 * 
+	 * @param symbol
+	 *            A valid symbol of this architecture
+	 * @return The arity of the element represented by the symbol
+	 */
+	public int getArity(int symbol) {
+		return symbolArities[symbol];
+	}
+
+	/**
+	 * Returns the symbol of the given element.
+	 * 
+	 * @param element
+	 *            An element that is part of the potential functions or
+	 *            terminals of this architecture
+	 * @return The symbol representing the given element
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the element is not part of this architecture
+	 */
+	public int getSymbol(GeneElement<T> element) {
+		final Integer symbol = symbolIndex.get(element);
+		if (symbol == null) {
+			throw new IllegalArgumentException(
+					"The element " + element + " is not part of the potential elements of this architecture.");
+		}
+		return symbol;
 	}
 
 	/**
@@ -149,12 +287,12 @@ public class GeneArchitecture<T> implements Serializable {
 	/**
 	 * Creates a random instance of a gene using this architecture.
 	 * 
-	 * This function uses the default random engine.
+	 * This function uses an engine split from the {@link MasterRandomEngine}.
 	 * 
 	 * @return A random instance of a gene using this architecture.
 	 */
 	public Gene<T> createRandomGene() {
-		return createRandomGene(DEFAULT_RANDOM_ENGINE);
+		return createRandomGene(MasterRandomEngine.split());
 	}
 
 	/**
@@ -166,8 +304,37 @@ public class GeneArchitecture<T> implements Serializable {
 	 * @return A random instance of a gene using this architecture.
 	 */
 	public Gene<T> createRandomGene(RandomEngine r) {
+		return randomize(new Gene<T>(this), r);
+	}
+
+	/**
+	 * Creates a random instance of a gene using this architecture which
+	 * stores its sequence in the given buffer starting at the given offset.
+	 * 
+	 * @param r
+	 *            The random engine that should be used.
+	 * @param storage
+	 *            The buffer the sequence of the gene is stored in
+	 * @param offset
+	 *            The position of the first symbol of the gene in the buffer
+	 * 
+	 * @return A random instance of a gene using this architecture.
+	 */
+	Gene<T> createRandomGene(RandomEngine r, IntBuffer storage, int offset) {
+		return randomize(new Gene<T>(this, storage, offset), r);
+	}
 
-		Gene<T> generatedGene = new Gene<T>(this);
+	/**
+	 * Sets the sequence of the given gene to random elements of this
+	 * architecture.
+	 * 
+	 * @param generatedGene
+	 *            The gene to be randomized
+	 * @param r
+	 *            The random engine that should be used.
+	 * @return The given gene
+	 */
+	private Gene<T> randomize(Gene<T> generatedGene, RandomEngine r) {
 
 		// generate head
 		for (int i = 0; i < this.headLength; i++) {
@@ -190,22 +357,20 @@ public class GeneArchitecture<T> implements Serializable {
 	 * Convenient function to create multiple random instances of genes using
 	 * this architecture.
 	 * 
-	 * This function uses the default random engine.
+	 * This function uses an engine split from the {@link MasterRandomEngine}.
 	 * 
 	 * @param numberOfInstances
 	 *            The number of random genes that should be created.
 	 * @return A list of randomly created genes that use this architecture
 	 */
 	public List<Gene<T>> createRandomGenes(int numberOfInstances) {
-		return createRandomGenes(DEFAULT_RANDOM_ENGINE, numberOfInstances);
+		return createRandomGenes(MasterRandomEngine.split(), numberOfInstances);
 	}
 
 	/**
 	 * Convenient function to create multiple random instances of genes using
 	 * this architecture.
 	 * 
-	 * This function uses the default random engine.
-	 * 
 	 * @param r
 	 *            The random engine that should be used.
 	 * 
@@ -328,7 +493,7 @@ public class GeneArchitecture<T> implements Serializable {
 		// if the sequence does not contain enough elements in the tail pad it
 		// with random terminals
 		if (idx < generatedGene.getSequenceLength()) {
-			RandomEngine random = new DefaultRandomEngine();
+			RandomEngine random = MasterRandomEngine.split();
 			for (; idx < generatedGene.getSequenceLength(); idx++) {
 				generatedGene.setSequenceAt(idx, random.pickElement(arch.potentialTerminals));
 			}
@@ -81,6 +81,27 @@ public abstract class GeneElement<T> implements Serializable {
 	 */
 	public abstract T apply(List<ExpressionTreeNode<T>> expTreeChilds, Chromosome<T> executingChromosome);
 
+	/**
+	 * Executes this gene element as the given node of a flat program and
+	 * returns its result. The children of the node are executed on demand by
+	 * calling {@link FlatProgram#executeChild(int, int)}.
+	 * <p>
+	 * The default implementation passes the children as expression tree nodes
+	 * to {@link #apply(List, Chromosome)}. Subclasses should override this
+	 * method to execute the program without the detour via expression tree
+	 * nodes.
+	 * 
+	 * @param program
+	 *            The program that executes this element
+	 * @param node
+	 *            The node of the program this element is executed as
+	 * 
+	 * @return The result of the execution of this element
+	 */
+	public T apply(FlatProgram<T> program, int node) {
+		return apply(program.getChildNodes(node), program.getChromosome());
+	}
+
 	@Override
 	public String toString() {
 		return this.shortDescription;
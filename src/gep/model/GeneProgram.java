@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class executes the K-expression of a single gene directly from the
+ * gene's sequence. The nodes of the program are the positions of the sequence.
+ * The children of a node are located via the child offsets of the gene (see
+ * {@link Gene#getFirstChild(int)}), which are only recomputed if the sequence
+ * was modified. Executing a gene therefore doesn't allocate any expression
+ * tree nodes. Elements that don't support flat programs get their children as
+ * expression tree nodes (see {@link #getChildNodes(int)}), which are created
+ * once per node and reused until the coding region of the gene is modified.
+ * <p>
+ * Homeotic gene elements are executed like any other terminal, i.e. they
+ * execute the linked gene of the executing chromosome.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the nodes of the program
+ * 
+ * @see Gene#getProgram(Chromosome)
+ */
+public final class GeneProgram<T> implements FlatProgram<T> {
+
+	/**
+	 * The executed gene.
+	 */
+	private final Gene<T> gene;
+
+	/**
+	 * The chromosome executing the gene.
+	 */
+	private final Chromosome<T> chromosome;
+
+	/**
+	 * The children of the nodes as expression tree nodes (created on demand
+	 * for elements that don't support flat programs) and the version of the
+	 * gene they were created for.
+	 */
+	private List<ExpressionTreeNode<T>>[] childNodes = null;
+	private int childNodesVersion;
+
+	/**
+	 * Creates a new program executing the given gene as part of the given
+	 * chromosome.
+	 * 
+	 * @param gene
+	 *            The gene to be executed
+	 * @param chromosome
+	 *            The chromosome that contains the gene
+	 */
+	GeneProgram(Gene<T> gene, Chromosome<T> chromosome) {
+		this.gene = gene;
+		this.chromosome = chromosome;
+	}
+
+	/**
+	 * Returns the gene executed by this program.
+	 * 
+	 * @return The executed gene
+	 */
+	public Gene<T> getGene() {
+		return gene;
+	}
+
+	@Override
+	public Chromosome<T> getChromosome() {
+		return chromosome;
+	}
+
+	@Override
+	public GeneElement<T> getElement(int node) {
+		return gene.sequenceAt(node);
+	}
+
+	@Override
+	public T execute() {
+		return execute(0);
+	}
+
+	@Override
+	public T execute(int node) {
+		return gene.sequenceAt(node).apply(this, node);
+	}
+
+	@Override
+	public T executeChild(int node, int childIdx) {
+		final int child = gene.getFirstChild(node) + childIdx;
+		return gene.sequenceAt(child).apply(this, child);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<ExpressionTreeNode<T>> getChildNodes(int node) {
+		final int version = gene.getVersion();
+		if (childNodes == null) {
+			childNodes = (List<ExpressionTreeNode<T>>[]) new List<?>[gene.getSequenceLength()];
+			childNodesVersion = version;
+		} else if (childNodesVersion != version) {
+			// the coding region was modified since the nodes were created
+			Arrays.fill(childNodes, null);
+			childNodesVersion = version;
+		}
+		List<ExpressionTreeNode<T>> children = childNodes[node];
+		if (children == null) {
+			final int arity = gene.sequenceAt(node).getArity();
+			final int firstChild = gene.getFirstChild(node);
+			ArrayList<ExpressionTreeNode<T>> nodes = new ArrayList<ExpressionTreeNode<T>>(arity);
+			for (int i = 0; i < arity; i++) {
+				nodes.add(new FlatProgramNode<T>(this, firstChild + i));
+			}
+			children = Collections.unmodifiableList(nodes);
+			childNodes[node] = children;
+		}
+		return children;
+	}
+
+}
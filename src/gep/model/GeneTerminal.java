@@ -56,6 +56,11 @@ public abstract class GeneTerminal<T> extends GeneElement<T> {
 		return apply(executingChromosome);
 	}
 
+	@Override
+	public final T apply(FlatProgram<T> program, int node) {
+		return apply(program.getChromosome());
+	}
+
 	/**
 	 * Executes this terminal and returns its result.
 	 * 
@@ -71,13 +71,9 @@ public class HomoeoticGeneElement<T> extends GeneTerminal<T> {
 
 	@Override
 	public T apply(Chromosome<T> executingChromosome) {
-		Gene<T> linkedGene = executingChromosome.getGene(linkedGeneId);
-
-		// use the fact that expression trees are cached so no overhead is
-		// created by that call.
-		ExpressionTreeNode<T> etn = linkedGene.express(executingChromosome);
-
-		return linkedGene.sequenceAt(0).apply(etn.getChildren(), executingChromosome);
+		// execute the linked gene directly from its sequence (no expression
+		// tree has to be created)
+		return executingChromosome.getGeneProgram(linkedGeneId).execute();
 	}
 
 }
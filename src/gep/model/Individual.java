@@ -17,6 +17,7 @@ package gep.model;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.file.Path;
@@ -50,10 +51,27 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 	public final Chromosome<T>[] chromosomes;
 
 	/**
-	 * The individuals fitness
+	 * The individuals fitness (if the individual is not backed by a store)
 	 */
 	private double fitness;
 
+	/**
+	 * The flat store holding the gene sequences and the fitness of this
+	 * individual (null if the individual owns its data).
+	 */
+	transient private PopulationStore<T> store = null;
+
+	/**
+	 * The index of this individual in the store.
+	 */
+	transient private int storeIdx;
+
+	/**
+	 * The phenotype version of the chromosomes the fitness was assessed for
+	 * (-1 if unknown).
+	 */
+	transient private long evaluatedPhenotypeVersion = -1;
+
 	/**
 	 * Creates a new Individual with space for the given amount of chromosomes.
 	 * This function should not be called directly. Instead use the factory
@@ -67,6 +85,25 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 		this.chromosomes = (Chromosome<T>[]) new Chromosome<?>[numChromosomes];
 	}
 
+	/**
+	 * Creates a new Individual with space for the given amount of chromosomes
+	 * that is backed by the given population store. This function should not
+	 * be called directly. Instead use the factory methods provided by
+	 * {@link IndividualArchitecture}
+	 * 
+	 * @param numChromosomes
+	 *            The number of chromosomes
+	 * @param store
+	 *            The store holding the data of this individual
+	 * @param storeIdx
+	 *            The index of this individual in the store
+	 */
+	Individual(int numChromosomes, PopulationStore<T> store, int storeIdx) {
+		this(numChromosomes);
+		this.store = store;
+		this.storeIdx = storeIdx;
+	}
+
 	/**
 	 * Copy constructor. Creates a new Individual with the same set of
 	 * chromosomes. This method will recursively call the copy constructor of
@@ -82,7 +119,40 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 		for (int i = 0; i < chromosomes.length; i++) {
 			this.chromosomes[i] = new Chromosome<T>(other.chromosomes[i]);
 		}
-		this.fitness = other.fitness;
+		this.fitness = other.getFitness();
+		this.evaluatedPhenotypeVersion = other.isPhenotypeModified() ? -1 : getPhenotypeVersion();
+	}
+
+	/**
+	 * Copies the gene sequences and the fitness of the given individual into
+	 * this one. This requires that both individuals were created by the same
+	 * architecture. Unlike the copy constructor no new objects are created. If
+	 * both individuals are backed by the same population store the copy is a
+	 * single range copy.
+	 * 
+	 * @param other
+	 *            The individual from which the genetic information should be
+	 *            copied
+	 */
+	public void copyFrom(Individual<T> other) {
+		if (this == other) {
+			return;
+		}
+		if (chromosomes.length != other.chromosomes.length) {
+			throw new IllegalArgumentException("The individuals have to share the same architecture!");
+		}
+		if (store != null && store == other.store) {
+			store.copyIndividual(other.storeIdx, storeIdx);
+			for (int i = 0; i < chromosomes.length; i++) {
+				chromosomes[i].completeStoreCopyFrom(other.chromosomes[i]);
+			}
+		} else {
+			for (int i = 0; i < chromosomes.length; i++) {
+				chromosomes[i].copyFrom(other.chromosomes[i]);
+			}
+			setFitnessUnchecked(other.getFitness());
+		}
+		this.evaluatedPhenotypeVersion = other.isPhenotypeModified() ? -1 : getPhenotypeVersion();
 	}
 
 	/**
@@ -95,11 +165,13 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 	 * @return the individuals fitness
 	 */
 	public double getFitness() {
-		return this.fitness;
+		return store != null ? store.fitness.get(storeIdx) : this.fitness;
 	}
 
 	/**
-	 * Sets the fitness of this individual to the given non negative value.
+	 * Sets the fitness of this individual to the given non negative value. The
+	 * fitness is considered to be the fitness of the current phenotype (see
+	 * {@link #isPhenotypeModified()}).
 	 * 
 	 * @param fitness
 	 *            The individuals new fitness
@@ -109,7 +181,38 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 			throw new IllegalArgumentException(
 					"The fitness of an individual has to be >= 0 (value was " + fitness + ")");
 		}
-		this.fitness = fitness;
+		setFitnessUnchecked(fitness);
+		this.evaluatedPhenotypeVersion = getPhenotypeVersion();
+	}
+
+	/**
+	 * Returns true if the phenotype (the expression trees) of this individual
+	 * might have changed since its fitness was set. Modifications of the
+	 * non-coding regions of the genes don't change the phenotype. If this
+	 * method returns false, the fitness of this individual is still valid
+	 * (provided the fitness only depends on the phenotype).
+	 * 
+	 * @return True, if the phenotype might have been modified since the
+	 *         fitness was set. False, otherwise.
+	 */
+	public boolean isPhenotypeModified() {
+		return evaluatedPhenotypeVersion != getPhenotypeVersion();
+	}
+
+	private long getPhenotypeVersion() {
+		long version = 0;
+		for (int i = 0; i < chromosomes.length; i++) {
+			version += chromosomes[i].getPhenotypeVersion();
+		}
+		return version;
+	}
+
+	private void setFitnessUnchecked(double fitness) {
+		if (store != null) {
+			store.fitness.put(storeIdx, fitness);
+		} else {
+			this.fitness = fitness;
+		}
 	}
 
 	/**
@@ -129,6 +232,25 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 		return ets;
 	}
 
+	/**
+	 * Returns the compiled programs encoded by all of this individuals
+	 * chromosomes. The method guarantees that the order of the programs
+	 * matches the order of the chromosomes.
+	 * 
+	 * @return The compiled programs encoded by this individual
+	 * 
+	 * @see Chromosome#compile()
+	 */
+	public List<CompiledProgram<T>> getCompiledPrograms() {
+		ArrayList<CompiledProgram<T>> programs = new ArrayList<CompiledProgram<T>>(chromosomes.length);
+
+		for (int i = 0; i < chromosomes.length; i++) {
+			programs.add(chromosomes[i].compile());
+		}
+
+		return programs;
+	}
+
 	/**
 	 * Compares two individuals based on their fitness values.
 	 * 
@@ -141,7 +263,7 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 	 */
 	@Override
 	public int compareTo(Individual<T> o) {
-		return Double.compare(fitness, o.fitness);
+		return Double.compare(getFitness(), o.getFitness());
 	}
 
 	/**
@@ -158,4 +280,18 @@ public class Individual<T> implements Comparable<Individual<T>>, Serializable {
 		}
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		// individuals backed by a store are written as self-contained ones
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("chromosomes", chromosomes);
+		fields.put("fitness", getFitness());
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// the fitness has to be reassessed before it can be reused
+		evaluatedPhenotypeVersion = -1;
+	}
+
 }
@@ -17,7 +17,7 @@ package gep.model;
 
 import java.util.ArrayList;
 
-import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -71,7 +71,7 @@ public class IndividualArchitecture<T> {
 	 * Creates a random population of the given size and with the current
 	 * configuration of chromosomes of this factory.
 	 * 
-	 * This convenient method uses the default random generator
+	 * This convenient method uses an engine split from the {@link MasterRandomEngine}.
 	 * 
 	 * @param numIndividuals
 	 *            The size of the population.
@@ -79,7 +79,7 @@ public class IndividualArchitecture<T> {
 	 * @return An array of individuals representing a population.
 	 */
 	public Individual<T>[] createRandomPopulation(int numIndividuals) {
-		return createRandomPopulation(numIndividuals, new DefaultRandomEngine());
+		return createRandomPopulation(numIndividuals, MasterRandomEngine.split());
 	}
 
 	/**
@@ -106,6 +106,86 @@ public class IndividualArchitecture<T> {
 		return result;
 	}
 
+	/**
+	 * Creates a random population of the given size whose individuals are
+	 * backed by one flat {@link PopulationStore}. All modifiable genes of all
+	 * individuals are stored in one contiguous array. The individuals behave
+	 * like the ones created by {@link #createRandomPopulation(int, RandomEngine)}
+	 * (using the same random engine leads to the same population), but copying
+	 * individuals of the population is a single range copy.
+	 * 
+	 * @param numIndividuals
+	 *            The size of the population
+	 * @param r
+	 *            The random engine to be used for creation.
+	 * @return A random population backed by a flat store
+	 */
+	public Individual<T>[] createRandomFlatPopulation(int numIndividuals, RandomEngine r) {
+		return createRandomStoredPopulation(numIndividuals, r, false);
+	}
+
+	/**
+	 * Creates a random population of the given size whose individuals are
+	 * backed by one flat {@link PopulationStore} located in direct memory
+	 * outside of the Java heap. Apart from that the population is identical
+	 * to the one created by {@link #createRandomFlatPopulation(int, RandomEngine)}.
+	 * This is intended for very large populations as the gene sequences and
+	 * fitness values do not contribute to the heap footprint. The individual,
+	 * chromosome and gene objects viewing the store remain on the heap (see
+	 * {@link PopulationStore}).
+	 * 
+	 * @param numIndividuals
+	 *            The size of the population
+	 * @param r
+	 *            The random engine to be used for creation.
+	 * @return A random population backed by an off-heap store
+	 */
+	public Individual<T>[] createRandomOffHeapPopulation(int numIndividuals, RandomEngine r) {
+		return createRandomStoredPopulation(numIndividuals, r, true);
+	}
+
+	private Individual<T>[] createRandomStoredPopulation(int numIndividuals, RandomEngine r, boolean offHeap) {
+		if (chromosomeArchitecture.isEmpty()) {
+			throw new IllegalStateException("Cannot create individual without a chromosome");
+		}
+
+		int stride = 0;
+		for (ChromosomalArchitecture<T> chromoArchitecture : chromosomeArchitecture) {
+			stride += chromoArchitecture.getModifiableSequenceLength();
+		}
+		final PopulationStore<T> store = new PopulationStore<T>(numIndividuals, stride, offHeap);
+
+		@SuppressWarnings("unchecked")
+		Individual<T>[] result = (Individual<T>[]) new Individual<?>[numIndividuals];
+		for (int i = 0; i < result.length; i++) {
+			Individual<T> individual = new Individual<T>(chromosomeArchitecture.size(), store, i);
+			int offset = i * stride;
+			int idx = 0;
+			for (ChromosomalArchitecture<T> chromoArchitecture : chromosomeArchitecture) {
+				individual.chromosomes[idx] = chromoArchitecture.create(r, store.symbols, offset);
+				offset += chromoArchitecture.getModifiableSequenceLength();
+				idx++;
+			}
+			result[i] = individual;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Creates a random population of the given size backed by one flat
+	 * {@link PopulationStore} using an engine split from the {@link MasterRandomEngine}.
+	 * 
+	 * @param numIndividuals
+	 *            The size of the population
+	 * @return A random population backed by a flat store
+	 * 
+	 * @see #createRandomFlatPopulation(int, RandomEngine)
+	 */
+	public Individual<T>[] createRandomFlatPopulation(int numIndividuals) {
+		return createRandomFlatPopulation(numIndividuals, MasterRandomEngine.split());
+	}
+
 	/**
 	 * Internal method to create a single random Individual based on the current
 	 * chromosome configuration of this factory.
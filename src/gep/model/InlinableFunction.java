@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+/**
+ * This interface is implemented by gene functions whose semantics can be
+ * expressed as a Java expression. Such functions are inlined into the source
+ * of the programs generated by a {@link ProgramGenerator}. Functions that don't
+ * implement this interface are executed by the interpreter of the
+ * {@link CompiledProgram} instead.
+ * 
+ * @author Johannes Wortmann
+ * 
+ * @see ProgramGenerator
+ */
+public interface InlinableFunction {
+
+	/**
+	 * Returns a Java expression that computes the result of this function from
+	 * the given argument expressions. The expression has to be assignable to
+	 * the result type of the program and must evaluate the arguments in the
+	 * same way (order and short-circuiting) as the function's apply method,
+	 * i.e. every argument expression at most once.
+	 * 
+	 * @param arguments
+	 *            The Java expressions computing the arguments (children) of
+	 *            this function. Their type is the result type of the program.
+	 * @return A Java expression computing the result of this function
+	 */
+	public String toJavaExpression(String[] arguments);
+
+}
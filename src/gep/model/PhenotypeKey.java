@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the phenotype of an individual as a value that can be
+ * used as key in hash based collections. The key consists of the coding
+ * regions (see {@link Gene#getCodingLength()}) of all genes including the
+ * linking functions of all chromosomes. The non-coding regions are ignored, so
+ * individuals that only differ in their non-coding regions (and therefore
+ * express the same programs) have equal keys.
+ * <p>
+ * Keys are only comparable between individuals of the same
+ * {@link IndividualArchitecture}, as the symbols are interpreted by the
+ * architectures of the genes.
+ * 
+ * @author Johannes Wortmann
+ */
+public final class PhenotypeKey {
+
+	/**
+	 * The coding regions of all genes, each preceded by its length.
+	 */
+	private final int[] codingSymbols;
+
+	/**
+	 * The precomputed hash code.
+	 */
+	private final int hash;
+
+	private PhenotypeKey(int[] codingSymbols) {
+		this.codingSymbols = codingSymbols;
+		this.hash = Arrays.hashCode(codingSymbols);
+	}
+
+	/**
+	 * Creates the key of the current phenotype of the given individual.
+	 * 
+	 * @param individual
+	 *            The individual
+	 * @return The key representing the individual's phenotype
+	 */
+	public static PhenotypeKey of(Individual<?> individual) {
+		int size = 0;
+		for (Chromosome<?> c : individual.chromosomes) {
+			size += 1 + c.getGene(0).getCodingLength();
+			for (Gene<?> g : c.genes) {
+				size += 1 + g.getCodingLength();
+			}
+		}
+
+		final int[] codingSymbols = new int[size];
+		int pos = 0;
+		for (Chromosome<?> c : individual.chromosomes) {
+			pos = appendCodingRegion(c.getGene(0), codingSymbols, pos);
+			for (Gene<?> g : c.genes) {
+				pos = appendCodingRegion(g, codingSymbols, pos);
+			}
+		}
+		return new PhenotypeKey(codingSymbols);
+	}
+
+	private static int appendCodingRegion(Gene<?> gene, int[] dest, int pos) {
+		final int codingLength = gene.getCodingLength();
+		dest[pos++] = codingLength;
+		for (int i = 0; i < codingLength; i++) {
+			dest[pos++] = gene.symbolAt(i);
+		}
+		return pos;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PhenotypeKey)) {
+			return false;
+		}
+		final PhenotypeKey other = (PhenotypeKey) obj;
+		return hash == other.hash && Arrays.equals(codingSymbols, other.codingSymbols);
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * This class is a flat storage backend for a population. The sequences of all
+ * modifiable genes of all individuals are stored in one contiguous int buffer,
+ * the fitness values in a parallel double buffer. Every individual occupies a
+ * range of fixed length (the stride) in the symbol buffer, which is derived
+ * from the {@link IndividualArchitecture} of the population.
+ * <p>
+ * The buffers are either backed by arrays on the Java heap or by direct
+ * (off-heap) memory. The latter moves the gene sequences and the fitness
+ * values out of the heap, so they are not visible to the garbage collector.
+ * It does not make the heap footprint of a population constant (see below).
+ * <p>
+ * The individuals, chromosomes and genes of such a population are views on
+ * this store. Thus, copying an individual into another one of the same store
+ * is a single range copy (see {@link Individual#copyFrom(Individual)}).
+ * <p>
+ * Only the sequences of the modifiable genes and the fitness values are kept
+ * in the store. The views themselves remain on the heap: per individual the
+ * {@link Individual} with its chromosome array, per chromosome the
+ * {@link Chromosome} with its gene array and its linking gene (which owns a
+ * small sequence array of its own), and one {@link Gene} object per
+ * modifiable gene. The expression trees and programs cached by the views are
+ * kept on the heap as well. Hence the heap footprint still grows linearly
+ * with the number of individuals, but it no longer depends on the length of
+ * the sequences.
+ * <p>
+ * Populations backed by a store are created by
+ * {@link IndividualArchitecture#createRandomFlatPopulation(int, gep.random.RandomEngine)}
+ * and
+ * {@link IndividualArchitecture#createRandomOffHeapPopulation(int, gep.random.RandomEngine)}.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the elements in the expression trees encoded
+ *            by the individuals
+ */
+public final class PopulationStore<T> {
+
+	/**
+	 * The symbols of all modifiable genes of all individuals.
+	 */
+	final IntBuffer symbols;
+
+	/**
+	 * The fitness values of all individuals.
+	 */
+	final DoubleBuffer fitness;
+
+	/**
+	 * The number of symbols per individual.
+	 */
+	final int stride;
+
+	/**
+	 * Creates a new store for the given number of individuals with the given
+	 * number of symbols per individual.
+	 * 
+	 * @param numIndividuals
+	 *            The number of individuals
+	 * @param stride
+	 *            The number of symbols per individual
+	 * @param offHeap
+	 *            True, if the data should be stored in direct memory outside
+	 *            of the Java heap. False, if arrays should be used.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the population does not fit into a single buffer
+	 */
+	PopulationStore(int numIndividuals, int stride, boolean offHeap) {
+		final long numSymbols = (long) numIndividuals * stride;
+		if (numSymbols > (offHeap ? Integer.MAX_VALUE / Integer.BYTES : Integer.MAX_VALUE)) {
+			throw new IllegalArgumentException(
+					"The population is too large for a single store (" + numSymbols + " symbols)");
+		}
+		if (offHeap) {
+			this.symbols = ByteBuffer.allocateDirect((int) numSymbols * Integer.BYTES).order(ByteOrder.nativeOrder())
+					.asIntBuffer();
+			this.fitness = ByteBuffer.allocateDirect(numIndividuals * Double.BYTES).order(ByteOrder.nativeOrder())
+					.asDoubleBuffer();
+		} else {
+			this.symbols = IntBuffer.wrap(new int[(int) numSymbols]);
+			this.fitness = DoubleBuffer.wrap(new double[numIndividuals]);
+		}
+		this.stride = stride;
+	}
+
+	/**
+	 * Returns the number of individuals in this store.
+	 * 
+	 * @return the number of individuals
+	 */
+	public int getNumberOfIndividuals() {
+		return fitness.capacity();
+	}
+
+	/**
+	 * Returns the number of symbols stored per individual.
+	 * 
+	 * @return the number of symbols per individual
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Returns true if the data of this store is located outside of the Java
+	 * heap.
+	 * 
+	 * @return True, if the store uses direct memory. False, otherwise.
+	 */
+	public boolean isOffHeap() {
+		return symbols.isDirect();
+	}
+
+	/**
+	 * Copies the symbols and the fitness of the individual stored at fromIdx
+	 * to the individual stored at toIdx.
+	 * 
+	 * @param fromIdx
+	 *            The index of the source individual in the store
+	 * @param toIdx
+	 *            The index of the target individual in the store
+	 */
+	void copyIndividual(int fromIdx, int toIdx) {
+		final int from = fromIdx * stride;
+		final int to = toIdx * stride;
+		if (symbols.hasArray()) {
+			System.arraycopy(symbols.array(), from, symbols.array(), to, stride);
+		} else {
+			// the ranges of two individuals never overlap
+			IntBuffer src = symbols.duplicate();
+			src.limit(from + stride).position(from);
+			IntBuffer dest = symbols.duplicate();
+			dest.position(to);
+			dest.put(src);
+		}
+		fitness.put(toIdx, fitness.get(fromIdx));
+	}
+
+}
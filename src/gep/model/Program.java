@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+/**
+ * This interface represents an executable form of the program encoded by a
+ * chromosome (besides its expression tree).
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the program
+ * 
+ * @see Chromosome#execute()
+ * @see CompiledProgram
+ * @see ProgramGenerator
+ */
+public interface Program<T> {
+
+	/**
+	 * Executes the program and returns the result.
+	 * 
+	 * @return The result of the program
+	 */
+	public T execute();
+
+}
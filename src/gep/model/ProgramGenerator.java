@@ -0,0 +1,495 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * This class generates JVM classes for frequently executed programs. The
+ * generated class executes the whole (compiled) program of a chromosome in a
+ * single method. Terminals are called directly (every terminal of the program
+ * gets its own call site) and functions implementing {@link InlinableFunction}
+ * are inlined as Java expressions. Subtrees rooted at other functions are
+ * executed by the interpreter of the {@link CompiledProgram}.
+ * <p>
+ * Generating a class is expensive. Therefore a class is only generated once a
+ * program was requested a given number of times (see
+ * {@link #ProgramGenerator(Class, int)}). Until then the requests are counted
+ * by a structural hash of the program, so no source is generated for programs
+ * that are not hot. The generated classes are cached by the structure of the
+ * program including the classes of its terminals, so recurring programs (e.g.
+ * elites or individuals with the same phenotype) are not compiled again and
+ * every terminal call site of a generated class only sees a single terminal
+ * class (which allows the JIT to inline it). The source is only generated
+ * when a structure is compiled for the first time.
+ * <p>
+ * The classes are compiled with the system Java compiler, so <b>a full JDK is
+ * required at runtime</b>. On a plain JRE
+ * {@link ToolProvider#getSystemJavaCompiler()} returns null, no classes are
+ * generated and the {@link CompiledProgram} (the interpreter) is used instead
+ * (see {@link #isAvailable()}). The same fallback is used if the compilation
+ * of a program fails.
+ * <p>
+ * This class is thread safe. Requests only synchronize on the cache entry of
+ * a structure while its class is compiled. If the number of counted or cached
+ * structures exceeds the maximum, an arbitrary structure is dropped.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The return type of the programs
+ */
+public class ProgramGenerator<T> {
+
+	/**
+	 * The default maximum number of cached program structures.
+	 */
+	public static final int DEFAULT_MAX_CACHED_PROGRAMS = 10000;
+
+	/**
+	 * The package of the generated classes.
+	 */
+	private static final String PACKAGE = "gep.model.generated";
+
+	/**
+	 * Placeholder for the name of the generated class in the cached sources.
+	 */
+	private static final String CLASS_NAME_PLACEHOLDER = "__PROGRAM__";
+
+	/**
+	 * Counter used to create unique class names.
+	 */
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+	/**
+	 * The system java compiler (null if not available).
+	 */
+	private final JavaCompiler compiler;
+
+	/**
+	 * The canonical name of the return type of the programs.
+	 */
+	private final String resultTypeName;
+
+	/**
+	 * The number of times a program has to be requested before a class is
+	 * generated for it.
+	 */
+	private final int hotThreshold;
+
+	/**
+	 * The maximum number of counted and of cached program structures.
+	 */
+	private final int maxCachedPrograms;
+
+	/**
+	 * The number of requests of the program structures (by structural hash),
+	 * saturated at the hot threshold.
+	 */
+	private final ConcurrentHashMap<Long, Integer> counters = new ConcurrentHashMap<Long, Integer>();
+
+	/**
+	 * The cached program structures and their generated classes.
+	 */
+	private final ConcurrentHashMap<Structure, Entry> cache = new ConcurrentHashMap<Structure, Entry>();
+
+	/**
+	 * Creates a new program generator that generates a class for a program
+	 * once it was requested the given number of times.
+	 * 
+	 * @param resultType
+	 *            The return type of the programs
+	 * @param hotThreshold
+	 *            The number of requests of a program (>= 1) after which a
+	 *            class is generated for it
+	 */
+	public ProgramGenerator(Class<T> resultType, int hotThreshold) {
+		this(resultType, hotThreshold, DEFAULT_MAX_CACHED_PROGRAMS);
+	}
+
+	/**
+	 * Creates a new program generator that generates a class for a program
+	 * once it was requested the given number of times.
+	 * 
+	 * @param resultType
+	 *            The return type of the programs
+	 * @param hotThreshold
+	 *            The number of requests of a program (>= 1) after which a
+	 *            class is generated for it
+	 * @param maxCachedPrograms
+	 *            The maximum number of program structures (and their classes)
+	 *            kept in the cache
+	 */
+	public ProgramGenerator(Class<T> resultType, int hotThreshold, int maxCachedPrograms) {
+		if (hotThreshold < 1) {
+			throw new IllegalArgumentException("The hot threshold has to be greater than 0.");
+		}
+		if (maxCachedPrograms < 1) {
+			throw new IllegalArgumentException("The cache has to hold at least one program.");
+		}
+		this.compiler = ToolProvider.getSystemJavaCompiler();
+		this.resultTypeName = resultType.getCanonicalName();
+		this.hotThreshold = hotThreshold;
+		this.maxCachedPrograms = maxCachedPrograms;
+	}
+
+	/**
+	 * Returns true if classes can be generated (i.e. the system Java compiler
+	 * is available).
+	 * 
+	 * @return True, if classes can be generated. False, otherwise.
+	 */
+	public boolean isAvailable() {
+		return compiler != null;
+	}
+
+	/**
+	 * Returns an executable program for the given chromosome. This is an
+	 * instance of a generated class if the program is hot enough, otherwise
+	 * the compiled program of the chromosome (see {@link Chromosome#compile()}).
+	 * 
+	 * @param chromosome
+	 *            The chromosome whose program should be returned
+	 * @return The executable program of the chromosome
+	 */
+	public Program<T> getProgram(Chromosome<T> chromosome) {
+		final CompiledProgram<T> program = chromosome.compile();
+		Program<T> generated = program.getGeneratedProgram(this);
+		if (generated != null) {
+			return generated;
+		}
+		if (compiler == null) {
+			return program;
+		}
+
+		// count the requests by a cheap hash of the structure first (hash
+		// collisions only make a program hot a bit earlier)
+		final long hash = structuralHash(program, 0);
+		final int uses = counters.merge(hash, 1, this::countUse);
+		if (uses == 1 && counters.size() > maxCachedPrograms) {
+			evictOne(counters, hash);
+		}
+		if (uses < hotThreshold) {
+			// not hot enough yet
+			return program;
+		}
+
+		// look up the class by the structure, the source is only needed to
+		// compile it
+		final Structure structure = new Structure(program, hash);
+		Entry entry = cache.get(structure);
+		if (entry == null) {
+			final Entry newEntry = new Entry();
+			entry = cache.putIfAbsent(structure, newEntry);
+			if (entry == null) {
+				entry = newEntry;
+				if (cache.size() > maxCachedPrograms) {
+					evictOne(cache, structure);
+				}
+			}
+		}
+
+		final Constructor<?> constructor;
+		synchronized (entry) {
+			if (entry.constructor == null && !entry.failed) {
+				entry.constructor = compileClass(generateSource(program));
+				entry.failed = entry.constructor == null;
+			}
+			if (entry.failed) {
+				// no need to try again for this program
+				program.setGeneratedProgram(this, program);
+				return program;
+			}
+			constructor = entry.constructor;
+		}
+
+		try {
+			@SuppressWarnings("unchecked")
+			Program<T> instance = (Program<T>) constructor.newInstance(program);
+			generated = instance;
+		} catch (ReflectiveOperationException e) {
+			generated = program;
+		}
+		program.setGeneratedProgram(this, generated);
+		return generated;
+	}
+
+	/**
+	 * Adds a request to the number of requests of a program structure. The
+	 * number saturates at the hot threshold.
+	 */
+	private Integer countUse(Integer uses, Integer request) {
+		return uses < hotThreshold ? uses + request : uses;
+	}
+
+	/**
+	 * Removes an arbitrary key other than the given one from the given map.
+	 */
+	private static <K> void evictOne(ConcurrentHashMap<K, ?> map, K keep) {
+		Iterator<K> keys = map.keySet().iterator();
+		while (keys.hasNext()) {
+			if (!keys.next().equals(keep)) {
+				keys.remove();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Computes a hash of the parts of the given subtree that determine the
+	 * source of the generated class (see
+	 * {@link #generateExpression(CompiledProgram, int, StringBuilder, StringBuilder, String)}).
+	 * 
+	 * @param program
+	 *            The program
+	 * @param node
+	 *            The root of the subtree
+	 * @return The hash of the subtree
+	 */
+	private long structuralHash(CompiledProgram<T> program, int node) {
+		final GeneElement<T> element = program.getElement(node);
+		if (element instanceof GeneTerminal) {
+			return 31L * node + System.identityHashCode(element.getClass());
+		}
+		if (element instanceof InlinableFunction) {
+			long hash = System.identityHashCode(element);
+			for (int i = 0; i < element.getArity(); i++) {
+				hash = 31L * hash + structuralHash(program, program.getChild(node, i));
+			}
+			return hash;
+		}
+		return 17L * node;
+	}
+
+	/**
+	 * Generates the source of the class executing the given program. The name
+	 * of the class is replaced by a placeholder so that the source only
+	 * depends on the structure of the program.
+	 * 
+	 * @param program
+	 *            The program
+	 * @return The source of the class
+	 */
+	private String generateSource(CompiledProgram<T> program) {
+		final String programType = "gep.model.CompiledProgram<" + resultTypeName + ">";
+		final String terminalType = "gep.model.GeneTerminal<" + resultTypeName + ">";
+
+		StringBuilder fields = new StringBuilder();
+		StringBuilder init = new StringBuilder();
+		String expression = generateExpression(program, 0, fields, init, terminalType);
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(PACKAGE).append(";\n\n");
+		sb.append("public final class ").append(CLASS_NAME_PLACEHOLDER).append(" implements gep.model.Program<")
+				.append(resultTypeName).append("> {\n");
+		sb.append("\tprivate final ").append(programType).append(" p;\n");
+		sb.append("\tprivate final gep.model.Chromosome<").append(resultTypeName).append("> c;\n");
+		sb.append(fields);
+		sb.append("\t@SuppressWarnings(\"unchecked\")\n");
+		sb.append("\tpublic ").append(CLASS_NAME_PLACEHOLDER).append("(").append(programType).append(" p) {\n");
+		sb.append("\t\tthis.p = p;\n");
+		sb.append("\t\tthis.c = p.getChromosome();\n");
+		sb.append(init);
+		sb.append("\t}\n");
+		sb.append("\t@Override\n");
+		sb.append("\tpublic ").append(resultTypeName).append(" execute() {\n");
+		sb.append("\t\treturn ").append(expression).append(";\n");
+		sb.append("\t}\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Generates the Java expression executing the given node (and its
+	 * subtree).
+	 */
+	private String generateExpression(CompiledProgram<T> program, int node, StringBuilder fields,
+			StringBuilder init, String terminalType) {
+		final GeneElement<T> element = program.getElement(node);
+
+		if (element instanceof GeneTerminal) {
+			final String field = "e" + node;
+			// the class of the terminal is part of the source, so programs
+			// with other terminal classes get their own generated class
+			fields.append("\tprivate final ").append(terminalType).append(' ').append(field).append("; // ")
+					.append(element.getClass().getName()).append('\n');
+			init.append("\t\tthis.").append(field).append(" = (").append(terminalType).append(") p.getElement(")
+					.append(node).append(");\n");
+			return field + ".apply(c)";
+		}
+
+		if (element instanceof InlinableFunction) {
+			final String[] arguments = new String[element.getArity()];
+			for (int i = 0; i < arguments.length; i++) {
+				arguments[i] = "(" + generateExpression(program, program.getChild(node, i), fields, init,
+						terminalType) + ")";
+			}
+			return "(" + ((InlinableFunction) element).toJavaExpression(arguments) + ")";
+		}
+
+		// not inlinable => execute the subtree by the interpreter
+		return "p.execute(" + node + ")";
+	}
+
+	/**
+	 * Compiles and loads the given source and returns the constructor of the
+	 * generated class.
+	 * 
+	 * @param source
+	 *            The source with the class name placeholder
+	 * @return The constructor of the generated class or null if the
+	 *         compilation failed
+	 */
+	private Constructor<?> compileClass(String source) {
+		final String simpleName = "Program" + classCounter.incrementAndGet();
+		final String className = PACKAGE + "." + simpleName;
+		final String classSource = source.replace(CLASS_NAME_PLACEHOLDER, simpleName);
+
+		try {
+			JavaFileObject sourceFile = new SimpleJavaFileObject(
+					URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE) {
+				@Override
+				public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+					return classSource;
+				}
+			};
+
+			final ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+			StandardJavaFileManager standardManager = compiler.getStandardFileManager(null, null, null);
+			JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardManager) {
+				@Override
+				public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String name,
+						Kind kind, FileObject sibling) {
+					return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension),
+							kind) {
+						@Override
+						public OutputStream openOutputStream() {
+							return bytecode;
+						}
+					};
+				}
+			};
+
+			final boolean success;
+			try {
+				success = compiler.getTask(null, fileManager, new DiagnosticCollector<JavaFileObject>(),
+						Arrays.asList("-classpath", System.getProperty("java.class.path"), "-g:none", "-nowarn"),
+						null, Arrays.asList(sourceFile)).call();
+			} finally {
+				fileManager.close();
+			}
+			if (!success) {
+				return null;
+			}
+
+			final byte[] classBytes = bytecode.toByteArray();
+			// every class gets its own loader, so it can be unloaded once it
+			// was evicted from the cache
+			ClassLoader loader = new ClassLoader(ProgramGenerator.class.getClassLoader()) {
+				@Override
+				protected Class<?> findClass(String name) throws ClassNotFoundException {
+					if (name.equals(className)) {
+						return defineClass(name, classBytes, 0, classBytes.length);
+					}
+					throw new ClassNotFoundException(name);
+				}
+			};
+			return loader.loadClass(className).getConstructor(CompiledProgram.class);
+		} catch (Exception | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The parts of a program that determine the source of its generated class
+	 * (see {@link ProgramGenerator#structuralHash(CompiledProgram, int)}) in
+	 * pre-order: the node and the class of every terminal, every inlinable
+	 * function (by identity) and the (negative) node of every subtree executed
+	 * by the interpreter.
+	 */
+	private static final class Structure {
+
+		private final Object[] parts;
+		private final int hash;
+
+		Structure(CompiledProgram<?> program, long hash) {
+			ArrayList<Object> parts = new ArrayList<Object>();
+			collect(program, 0, parts);
+			this.parts = parts.toArray();
+			this.hash = Long.hashCode(hash);
+		}
+
+		private static <T> void collect(CompiledProgram<T> program, int node, ArrayList<Object> parts) {
+			final GeneElement<T> element = program.getElement(node);
+			if (element instanceof GeneTerminal) {
+				parts.add(node);
+				parts.add(element.getClass());
+			} else if (element instanceof InlinableFunction) {
+				parts.add(element);
+				for (int i = 0; i < element.getArity(); i++) {
+					collect(program, program.getChild(node, i), parts);
+				}
+			} else {
+				parts.add(-node - 1);
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Structure)) {
+				return false;
+			}
+			final Structure other = (Structure) obj;
+			return hash == other.hash && Arrays.equals(parts, other.parts);
+		}
+	}
+
+	/**
+	 * The generated class of a program structure.
+	 */
+	private static class Entry {
+		Constructor<?> constructor = null;
+		boolean failed = false;
+	}
+
+}
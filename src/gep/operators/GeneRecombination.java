@@ -17,10 +17,9 @@ package gep.operators;
 
 import gep.model.Chromosome;
 import gep.model.Gene;
-import gep.model.Individual;
 import gep.random.RandomEngine;
 
-public class GeneRecombination extends GeneticOperator {
+public class GeneRecombination extends RecombinationOperator {
 
 	public GeneRecombination(double applicationRate) {
 		super(applicationRate);
@@ -31,43 +30,17 @@ public class GeneRecombination extends GeneticOperator {
 	}
 
 	@Override
-	public <T> void apply(Individual<T>[] individuals, int fromIdx) {
-		if (individuals.length - fromIdx < 2) {
-			// this operator requires at least two modifiable individuals
-			throw new IllegalArgumentException(
-					"The GeneRecombination operator requires at least two modifiable individuals in the population.");
-		}
+	protected <T> void recombine(Chromosome<T> parent1Chromosome, Chromosome<T> parent2Chromosome) {
+		int pickedGeneId = random.getInt(0, parent1Chromosome.genes.length);
 
-		for (int i = fromIdx; i < individuals.length; i++) {
-			Individual<T> individual = individuals[i];
-			for (int cIdx = 0; cIdx < individual.chromosomes.length; cIdx++) {
-				if (random.decideBinaryDecision(super.applicationRate)) {
-					// chromosome was selected => find another individual to
-					// recombine with
-					int otherIndiIdx = super.random.getInt(fromIdx, individuals.length);
-					if (otherIndiIdx == i) {
-						otherIndiIdx = (otherIndiIdx > fromIdx) ? otherIndiIdx - 1 : otherIndiIdx + 1;
-					}
-
-					Chromosome<T> parent1Chromosome = individual.chromosomes[cIdx];
-					Chromosome<T> parent2Chromosome = individuals[otherIndiIdx].chromosomes[cIdx];
-
-					int pickedGeneId = random.getInt(0, parent1Chromosome.genes.length);
-
-					// swap the gene
-					Gene<T> tmp = new Gene<T>(parent1Chromosome.genes[pickedGeneId]);
-					parent1Chromosome.genes[pickedGeneId] = parent2Chromosome.genes[pickedGeneId];
-					parent2Chromosome.genes[pickedGeneId] = tmp;
-				}
-
-			}
-		}
+		// swap the gene
+		Gene<T> gene1 = parent1Chromosome.genes[pickedGeneId];
+		gene1.swapSymbols(parent2Chromosome.genes[pickedGeneId], 0, gene1.getSequenceLength());
 	}
 
 	@Override
-	protected <T> void apply(Gene<T> gene) {
-		// can't be called => method stub!
-		throw new UnsupportedOperationException("This operator works on population level");
+	public GeneRecombination copy(RandomEngine re) {
+		return new GeneRecombination(applicationRate, re);
 	}
 
 	@Override
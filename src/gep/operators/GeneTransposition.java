@@ -35,11 +35,21 @@ public class GeneTransposition extends GeneticOperator {
 			// apply operator
 			int transposonGeneIdx = random.getInt(1, c.genes.length);
 
-			Gene<T> transposon = c.genes[transposonGeneIdx];
-			for (int i = transposonGeneIdx; i > 0; i--) {
-				c.genes[i] = c.genes[i - 1];
+			// The transposon moves to the first position of a gene with the
+			// same architecture. Only the sequences are moved, so every
+			// position of the chromosome keeps its architecture (otherwise the
+			// genes at the same position of different individuals could not
+			// be recombined).
+			final Gene<T> transposon = c.genes[transposonGeneIdx];
+			final int[] transposonSymbols = transposon.getSymbols(0, transposon.getSequenceLength());
+			Gene<T> target = transposon;
+			for (int i = transposonGeneIdx - 1; i >= 0; i--) {
+				if (c.genes[i].architecture == transposon.architecture) {
+					target.copyFrom(c.genes[i]);
+					target = c.genes[i];
+				}
 			}
-			c.genes[0] = transposon;
+			target.setSymbols(0, transposonSymbols, 0, transposonSymbols.length);
 		}
 
 	}
@@ -50,6 +60,11 @@ public class GeneTransposition extends GeneticOperator {
 		throw new UnsupportedOperationException("This operator works on chromosome level");
 	}
 
+	@Override
+	public GeneTransposition copy(RandomEngine re) {
+		return new GeneTransposition(applicationRate, re);
+	}
+
 	@Override
 	public String getName() {
 		return "Gene Transposition";
@@ -18,7 +18,7 @@ package gep.operators;
 import gep.model.Chromosome;
 import gep.model.Gene;
 import gep.model.Individual;
-import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -40,9 +40,16 @@ public abstract class GeneticOperator {
 
 	protected final RandomEngine random;
 
+	/**
+	 * Creates an operator with the given rate using an engine split from the
+	 * {@link MasterRandomEngine}.
+	 * 
+	 * @param applicationRate
+	 *            The rate the operator is applied with
+	 */
 	protected GeneticOperator(double applicationRate) {
 		this.applicationRate = applicationRate;
-		this.random = new DefaultRandomEngine();
+		this.random = MasterRandomEngine.split();
 	}
 
 	protected GeneticOperator(double applicationRate, RandomEngine re) {
@@ -71,6 +78,54 @@ public abstract class GeneticOperator {
 		}
 	}
 
+	/**
+	 * Creates a copy of this operator with the same configuration that uses
+	 * the given random engine. Copies are used to apply an operator
+	 * concurrently (every worker uses its own copy with an independent random
+	 * engine).
+	 * <p>
+	 * The default implementation throws an
+	 * {@link UnsupportedOperationException}.
+	 * 
+	 * @param re
+	 *            The random engine of the copy
+	 * @return A copy of this operator using the given random engine
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if this operator can't be copied
+	 */
+	public GeneticOperator copy(RandomEngine re) {
+		throw new UnsupportedOperationException(getName() + " does not support copies");
+	}
+
+	/**
+	 * Notifies this operator that it is going to be applied to the
+	 * individuals of a new population. Operators whose application to an
+	 * individual depends on the individuals processed before (e.g. a mutation
+	 * carrying its skip sampling gap over to the next individual) reset this
+	 * state here. The reproduction environment calls this method before every
+	 * reproduction, no matter whether the operator is applied to the whole
+	 * population or individual by individual. The default does nothing.
+	 */
+	public void startPopulation() {
+	}
+
+	/**
+	 * Returns true if this operator works on the level of populations, i.e. it
+	 * has to see the whole population at once (e.g. recombinations that pair
+	 * individuals). Such operators can't be applied individual by individual
+	 * (see {@link #apply(Individual)}).
+	 * 
+	 * Operators overriding {@link #apply(Individual[], int)} because of that
+	 * have to override this method as well. The default returns false.
+	 * 
+	 * @return True, if the operator works on the level of populations. False,
+	 *         otherwise.
+	 */
+	public boolean isPopulationLevel() {
+		return false;
+	}
+
 	/**
 	 * Applies the genetic operator to the given individual.
 	 * 
@@ -80,7 +135,7 @@ public abstract class GeneticOperator {
 	 * @param individual
 	 *            The individual
 	 */
-	protected <T> void apply(Individual<T> individual) {
+	public <T> void apply(Individual<T> individual) {
 		for (Chromosome<T> c : individual.chromosomes) {
 			apply(c);
 		}
@@ -16,7 +16,6 @@
 package gep.operators;
 
 import gep.model.Gene;
-import gep.model.GeneElement;
 import gep.random.RandomEngine;
 
 public class Inversion extends GeneticOperator {
@@ -43,14 +42,19 @@ public class Inversion extends GeneticOperator {
 			}
 
 			for (int i = 0; i < (idx2 - idx1 + 1) / 2; i++) {
-				GeneElement<T> tmp = gene.sequenceAt(idx1 + i);
-				gene.setSequenceAt(idx1 + i, gene.sequenceAt(idx2 - i));
-				gene.setSequenceAt(idx2 - i, tmp);
+				int tmp = gene.symbolAt(idx1 + i);
+				gene.setSymbolAt(idx1 + i, gene.symbolAt(idx2 - i));
+				gene.setSymbolAt(idx2 - i, tmp);
 			}
 		}
 
 	}
 
+	@Override
+	public Inversion copy(RandomEngine re) {
+		return new Inversion(applicationRate, re);
+	}
+
 	@Override
 	public String getName() {
 		return "Inversion";
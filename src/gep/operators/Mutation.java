@@ -15,33 +15,196 @@
  */
 package gep.operators;
 
+import gep.model.Chromosome;
 import gep.model.Gene;
+import gep.model.Individual;
 import gep.random.RandomEngine;
 
+/**
+ * The mutation operator changes every position of the modifiable genes with
+ * the probability given by the application rate to a random element (a
+ * function or terminal for positions in the head, a terminal for positions in
+ * the tail).
+ * <p>
+ * By default a random decision is drawn for every single position. If skip
+ * sampling is enabled, the operator draws the distance to the next mutated
+ * position from a geometric distribution instead. The positions of all genes
+ * of the population are treated as one concatenated sequence. Both modes
+ * mutate every position independently with the same probability, but skip
+ * sampling only draws random numbers for the mutated positions. The gap is
+ * carried over from one individual to the next until a new population is
+ * started (see {@link #startPopulation()}), so applying the operator
+ * individual by individual consumes the same random numbers as applying it
+ * to the whole population.
+ * 
+ * @author Johannes Wortmann
+ */
 public class Mutation extends GeneticOperator {
 
+	/**
+	 * Whether the mutated positions are determined by skip sampling.
+	 */
+	private final boolean skipSampling;
+
+	/**
+	 * The number of positions to be skipped before the next mutation (carried
+	 * over to the next individual). Negative if no gap was drawn yet for the
+	 * current population.
+	 */
+	private long gap = -1;
+
 	public Mutation(double mutationRate) {
-		super(mutationRate);
+		this(mutationRate, false);
 	}
 
 	public Mutation(double mutationRate, RandomEngine re) {
+		this(mutationRate, re, false);
+	}
+
+	/**
+	 * Creates a new mutation operator with the given mutation rate.
+	 * 
+	 * @param mutationRate
+	 *            The probability of every position to be mutated
+	 * @param skipSampling
+	 *            True, if the distance between mutated positions should be
+	 *            drawn from a geometric distribution. False, if a decision
+	 *            should be drawn for every position.
+	 */
+	public Mutation(double mutationRate, boolean skipSampling) {
+		super(mutationRate);
+		this.skipSampling = skipSampling;
+	}
+
+	/**
+	 * Creates a new mutation operator with the given mutation rate and random
+	 * engine.
+	 * 
+	 * @param mutationRate
+	 *            The probability of every position to be mutated
+	 * @param re
+	 *            The random engine used by the operator
+	 * @param skipSampling
+	 *            True, if the distance between mutated positions should be
+	 *            drawn from a geometric distribution. False, if a decision
+	 *            should be drawn for every position.
+	 */
+	public Mutation(double mutationRate, RandomEngine re, boolean skipSampling) {
 		super(mutationRate, re);
+		this.skipSampling = skipSampling;
+	}
+
+	@Override
+	public <T> void apply(Individual<T>[] population, int fromIdx) {
+		startPopulation();
+		super.apply(population, fromIdx);
+	}
+
+	@Override
+	public <T> void apply(Individual<T> individual) {
+		if (!skipSampling) {
+			super.apply(individual);
+			return;
+		}
+		// the gap is carried over to the next individual (the sequences of
+		// the population are one concatenated sequence)
+		if (gap < 0) {
+			gap = nextGap();
+		}
+		gap = mutate(individual, gap);
+	}
+
+	@Override
+	public void startPopulation() {
+		gap = -1;
 	}
 
 	@Override
 	public <T> void apply(Gene<T> g) {
+		final int numFunctions = g.architecture.getNumberOfFunctions();
+		final int numTerminals = g.architecture.getNumberOfTerminals();
 		for (int i = 0; i < g.getSequenceLength(); i++) {
 			if (random.decideBinaryDecision(super.applicationRate)) {
-				if (g.isPartOfHead(i) && random.decideTakeFunction()) {
-					g.setSequenceAt(i, random.pickElement(g.architecture.potentialFunctions));
+				// the function decision is drawn even without functions, so
+				// this mode consumes the same random numbers as before
+				if (g.isPartOfHead(i) && random.decideTakeFunction() && numFunctions > 0) {
+					g.setSymbolAt(i, random.getInt(0, numFunctions));
 				} else {
-					g.setSequenceAt(i, random.pickElement(g.architecture.potentialTerminals));
+					g.setSymbolAt(i, numFunctions + random.getInt(0, numTerminals));
 				}
 			}
 		}
 
 	}
 
+	/**
+	 * Mutates the positions of the given individual determined by skip
+	 * sampling.
+	 * 
+	 * @param individual
+	 *            The individual to be mutated
+	 * @param gap
+	 *            The number of positions to be skipped before the next
+	 *            mutation
+	 * @return The number of positions that still have to be skipped after
+	 *         this individual
+	 */
+	private <T> long mutate(Individual<T> individual, long gap) {
+		for (Chromosome<T> c : individual.chromosomes) {
+			for (Gene<T> g : c.genes) {
+				final int length = g.getSequenceLength();
+				final int numFunctions = g.architecture.getNumberOfFunctions();
+				final int numTerminals = g.architecture.getNumberOfTerminals();
+				int pos = 0;
+				while (gap < length - pos) {
+					pos += (int) gap;
+					mutate(g, pos, numFunctions, numTerminals);
+					pos++;
+					gap = nextGap();
+				}
+				gap -= length - pos;
+			}
+		}
+		return gap;
+	}
+
+	/**
+	 * Mutates the given position determined by skip sampling.
+	 */
+	private <T> void mutate(Gene<T> g, int i, int numFunctions, int numTerminals) {
+		if (g.isPartOfHead(i) && numFunctions > 0 && random.decideTakeFunction()) {
+			g.setSymbolAt(i, random.getInt(0, numFunctions));
+		} else {
+			g.setSymbolAt(i, numFunctions + random.getInt(0, numTerminals));
+		}
+	}
+
+	/**
+	 * Draws the number of positions that are not mutated before the next
+	 * mutated position (geometric distribution with the mutation rate as
+	 * success probability).
+	 * 
+	 * @return The number of positions to be skipped
+	 */
+	private long nextGap() {
+		final double rate = super.applicationRate;
+		if (rate >= 1.0) {
+			return 0;
+		}
+		if (rate <= 0.0) {
+			return Long.MAX_VALUE;
+		}
+		// 1 - getDouble() lies in (0, 1] => the logarithm is finite
+		final double u = 1.0 - random.getDouble();
+		final double gap = Math.floor(Math.log(u) / Math.log1p(-rate));
+		return gap >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) gap;
+	}
+
+	@Override
+	public Mutation copy(RandomEngine re) {
+		return new Mutation(applicationRate, re, skipSampling);
+	}
+
 	@Override
 	public String getName() {
 		return "Mutation";
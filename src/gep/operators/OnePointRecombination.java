@@ -17,11 +17,9 @@ package gep.operators;
 
 import gep.model.Chromosome;
 import gep.model.Gene;
-import gep.model.GeneElement;
-import gep.model.Individual;
 import gep.random.RandomEngine;
 
-public class OnePointRecombination extends GeneticOperator {
+public class OnePointRecombination extends RecombinationOperator {
 
 	public OnePointRecombination(double applicationRate) {
 		super(applicationRate);
@@ -32,52 +30,23 @@ public class OnePointRecombination extends GeneticOperator {
 	}
 
 	@Override
-	public <T> void apply(Individual<T>[] individuals, final int fromIdx) {
-		if (individuals.length - fromIdx < 2) {
-			// this operator requires at least two modifiable individuals
-			throw new IllegalArgumentException(
-					"The GeneRecombination operator requires at least two modifiable individuals in the population.");
-		}
-
-		for (int i = fromIdx; i < individuals.length; i++) {
-			Individual<T> individual = individuals[i];
-			for (int cIdx = 0; cIdx < individual.chromosomes.length; cIdx++) {
-				if (random.decideBinaryDecision(super.applicationRate)) {
-					// chromosome was selected => find another individual to
-					// recombine with
-					int otherIndiIdx = super.random.getInt(fromIdx, individuals.length);
-					if (otherIndiIdx == i) {
-						otherIndiIdx = (otherIndiIdx > fromIdx) ? otherIndiIdx - 1 : otherIndiIdx + 1;
-					}
-
-					Chromosome<T> parent1Chromosome = individual.chromosomes[cIdx];
-					Chromosome<T> parent2Chromosome = individuals[otherIndiIdx].chromosomes[cIdx];
-					
-					int pickedGeneId = random.getInt(0, parent1Chromosome.genes.length);
-					int recombinationPoint = random.getInt(0, parent1Chromosome.genes[pickedGeneId].getSequenceLength());
-
-					int len = parent1Chromosome.genes[pickedGeneId].getSequenceLength() - recombinationPoint;
-					GeneElement<T>[] tmpGenePart = parent1Chromosome.genes[pickedGeneId].getSubsequence(recombinationPoint, len);
-					parent1Chromosome.genes[pickedGeneId].setSequenceIntervall(recombinationPoint, parent2Chromosome.genes[pickedGeneId].getSubsequence(recombinationPoint, len), 0, len);
-					parent2Chromosome.genes[pickedGeneId].setSequenceIntervall(recombinationPoint, tmpGenePart, 0, len);
-					
-					
-					for(int gIdx = pickedGeneId+1; gIdx < parent1Chromosome.genes.length; gIdx++) {
-						// swap the gene
-						Gene<T> tmp = new Gene<T>(parent1Chromosome.genes[gIdx]);
-						parent1Chromosome.genes[gIdx] = parent2Chromosome.genes[gIdx];
-						parent2Chromosome.genes[gIdx] = tmp;
-					}
-				}
-
-			}
+	protected <T> void recombine(Chromosome<T> parent1Chromosome, Chromosome<T> parent2Chromosome) {
+		int pickedGeneId = random.getInt(0, parent1Chromosome.genes.length);
+		int recombinationPoint = random.getInt(0, parent1Chromosome.genes[pickedGeneId].getSequenceLength());
+
+		int len = parent1Chromosome.genes[pickedGeneId].getSequenceLength() - recombinationPoint;
+		parent1Chromosome.genes[pickedGeneId].swapSymbols(parent2Chromosome.genes[pickedGeneId], recombinationPoint, len);
+		
+		for(int gIdx = pickedGeneId+1; gIdx < parent1Chromosome.genes.length; gIdx++) {
+			// swap the gene
+			Gene<T> gene1 = parent1Chromosome.genes[gIdx];
+			gene1.swapSymbols(parent2Chromosome.genes[gIdx], 0, gene1.getSequenceLength());
 		}
 	}
 
 	@Override
-	protected <T> void apply(Gene<T> gene) {
-		// can't be called => method stub!
-		throw new UnsupportedOperationException("This operator works on population level");
+	public OnePointRecombination copy(RandomEngine re) {
+		return new OnePointRecombination(applicationRate, re);
 	}
 
 	@Override
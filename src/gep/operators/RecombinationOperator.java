@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.operators;
+
+import gep.model.Chromosome;
+import gep.model.Gene;
+import gep.model.Individual;
+import gep.random.RandomEngine;
+
+/**
+ * This class describes a recombination operator, i.e. an operator that
+ * exchanges genetic information between the chromosomes of two individuals.
+ * Subclasses only have to implement the recombination of two chromosomes (see
+ * {@link #recombine(Chromosome, Chromosome)}).
+ * <p>
+ * Recombinations work on the level of populations. If applied to a population
+ * every chromosome of the modifiable individuals is picked with the
+ * application rate and recombined with the same chromosome of another random
+ * individual. Alternatively the operator can be applied to predefined mating
+ * pairs (see {@link #recombine(Individual, Individual)}), which allows to
+ * recombine disjoint pairs concurrently.
+ * 
+ * @author Johannes Wortmann
+ */
+public abstract class RecombinationOperator extends GeneticOperator {
+
+	protected RecombinationOperator(double applicationRate) {
+		super(applicationRate);
+	}
+
+	protected RecombinationOperator(double applicationRate, RandomEngine re) {
+		super(applicationRate, re);
+	}
+
+	@Override
+	public boolean isPopulationLevel() {
+		return true;
+	}
+
+	@Override
+	public <T> void apply(Individual<T>[] individuals, int fromIdx) {
+		if (individuals.length - fromIdx < 2) {
+			// this operator requires at least two modifiable individuals
+			throw new IllegalArgumentException(
+					"The " + getName() + " operator requires at least two modifiable individuals in the population.");
+		}
+
+		for (int i = fromIdx; i < individuals.length; i++) {
+			Individual<T> individual = individuals[i];
+			for (int cIdx = 0; cIdx < individual.chromosomes.length; cIdx++) {
+				if (random.decideBinaryDecision(super.applicationRate)) {
+					// chromosome was selected => find another individual to
+					// recombine with
+					int otherIndiIdx = super.random.getInt(fromIdx, individuals.length);
+					if (otherIndiIdx == i) {
+						otherIndiIdx = (otherIndiIdx > fromIdx) ? otherIndiIdx - 1 : otherIndiIdx + 1;
+					}
+
+					recombine(individual.chromosomes[cIdx], individuals[otherIndiIdx].chromosomes[cIdx]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recombines the chromosomes of the given mating pair. Every pair of
+	 * chromosomes is recombined with the doubled application rate (at most 1).
+	 * When applied to a population every individual takes part in a
+	 * recombination either as picked or as randomly chosen partner. Thus, the
+	 * doubled rate results in the same expected number of recombinations per
+	 * individual if the population is split into disjoint mating pairs.
+	 * 
+	 * @param parent1
+	 *            The first individual of the mating pair
+	 * @param parent2
+	 *            The second individual of the mating pair
+	 */
+	public <T> void recombine(Individual<T> parent1, Individual<T> parent2) {
+		final double pairRate = Math.min(1.0, 2 * super.applicationRate);
+		for (int cIdx = 0; cIdx < parent1.chromosomes.length; cIdx++) {
+			if (random.decideBinaryDecision(pairRate)) {
+				recombine(parent1.chromosomes[cIdx], parent2.chromosomes[cIdx]);
+			}
+		}
+	}
+
+	/**
+	 * Recombines the two given chromosomes (which were created by the same
+	 * architecture).
+	 * 
+	 * @param parent1Chromosome
+	 *            The chromosome of the first parent
+	 * @param parent2Chromosome
+	 *            The chromosome of the second parent
+	 */
+	protected abstract <T> void recombine(Chromosome<T> parent1Chromosome, Chromosome<T> parent2Chromosome);
+
+	@Override
+	protected <T> void apply(Gene<T> gene) {
+		// can't be called => method stub!
+		throw new UnsupportedOperationException("This operator works on population level");
+	}
+
+}
@@ -19,7 +19,6 @@ import java.util.ArrayList;
 
 import gep.model.Chromosome;
 import gep.model.Gene;
-import gep.model.GeneElement;
 import gep.random.RandomEngine;
 
 public class RegularTransposition extends GeneticOperator {
@@ -47,7 +46,7 @@ public class RegularTransposition extends GeneticOperator {
 				funcChosenStartIdx = tmp;
 			}
 
-			GeneElement<T>[] isElement = selectedIsGene.getSubsequence(funcChosenStartIdx,
+			int[] isElement = selectedIsGene.getSymbols(funcChosenStartIdx,
 					funcChosenEndIdx - funcChosenStartIdx + 1);
 
 			// select gene in which the IS element should be inserted
@@ -64,12 +63,11 @@ public class RegularTransposition extends GeneticOperator {
 
 			// insert the IS element
 			if (insertionIdx + isElement.length < selectedInsertionTarget.architecture.headLength) {
-				for (int i = selectedInsertionTarget.architecture.headLength - 1; i >= isElement.length; i--) {
-					selectedInsertionTarget.setSequenceAt(i, selectedInsertionTarget.sequenceAt(i - isElement.length));
-				}
-				selectedInsertionTarget.setSequenceIntervall(insertionIdx, isElement, 0, isElement.length);
+				selectedInsertionTarget.copySymbols(0, isElement.length,
+						selectedInsertionTarget.architecture.headLength - isElement.length);
+				selectedInsertionTarget.setSymbols(insertionIdx, isElement, 0, isElement.length);
 			} else {
-				selectedInsertionTarget.setSequenceIntervall(insertionIdx, isElement, 0,
+				selectedInsertionTarget.setSymbols(insertionIdx, isElement, 0,
 						selectedInsertionTarget.architecture.headLength - insertionIdx);
 			}
 		}
@@ -82,6 +80,11 @@ public class RegularTransposition extends GeneticOperator {
 		throw new UnsupportedOperationException("This operator works on chromosome level");
 	}
 
+	@Override
+	public RegularTransposition copy(RandomEngine re) {
+		return new RegularTransposition(applicationRate, re);
+	}
+
 	@Override
 	public String getName() {
 		return "Transposition of IS Elements";
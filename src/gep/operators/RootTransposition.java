@@ -19,8 +19,6 @@ import java.util.ArrayList;
 
 import gep.model.Chromosome;
 import gep.model.Gene;
-import gep.model.GeneElement;
-import gep.model.GeneFunction;
 import gep.random.RandomEngine;
 
 public class RootTransposition extends GeneticOperator {
@@ -41,7 +39,7 @@ public class RootTransposition extends GeneticOperator {
 			final Gene<T> selectedRisGene = c.genes[geneIdx];
 
 			int funcChosenStartIdx = random.getInt(0, selectedRisGene.architecture.headLength);
-			while (!(selectedRisGene.sequenceAt(funcChosenStartIdx) instanceof GeneFunction)) {
+			while (!selectedRisGene.architecture.isFunctionSymbol(selectedRisGene.symbolAt(funcChosenStartIdx))) {
 				funcChosenStartIdx++;
 				if (funcChosenStartIdx == selectedRisGene.architecture.headLength) {
 					// we didn't find a function starting at the randomly chosen
@@ -52,7 +50,7 @@ public class RootTransposition extends GeneticOperator {
 
 			int funcChosenEndIdx = random.getInt(funcChosenStartIdx, selectedRisGene.architecture.headLength);
 
-			GeneElement<T>[] risElement = selectedRisGene.getSubsequence(funcChosenStartIdx,
+			int[] risElement = selectedRisGene.getSymbols(funcChosenStartIdx,
 					funcChosenEndIdx - funcChosenStartIdx + 1);
 
 			// select gene in which the ris element should be inserted
@@ -67,11 +65,9 @@ public class RootTransposition extends GeneticOperator {
 					.get(random.getInt(0, genesWithMatchinArchitecture.size()));
 
 			// insert the ris element
-			for (int i = selectedInsertionTarget.architecture.headLength - 1; i >= risElement.length; i--) {
-				selectedInsertionTarget.setSequenceAt(i, selectedInsertionTarget.sequenceAt(i - risElement.length));
-			}
-
-			selectedInsertionTarget.setSequenceIntervall(0, risElement, 0, risElement.length);
+			selectedInsertionTarget.copySymbols(0, risElement.length,
+					selectedInsertionTarget.architecture.headLength - risElement.length);
+			selectedInsertionTarget.setSymbols(0, risElement, 0, risElement.length);
 		}
 
 	}
@@ -82,6 +78,11 @@ public class RootTransposition extends GeneticOperator {
 		throw new UnsupportedOperationException("This operator works on chromosome level");
 	}
 
+	@Override
+	public RootTransposition copy(RandomEngine re) {
+		return new RootTransposition(applicationRate, re);
+	}
+
 	@Override
 	public String getName() {
 		return "Root Transposition";
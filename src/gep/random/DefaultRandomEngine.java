@@ -23,6 +23,10 @@ import gep.model.GeneElement;
 /**
  * An implementation of the RandomEngine interface by using Java's default
  * random generator.
+ * <p>
+ * As {@link Random} is thread safe, every call updates its seed atomically.
+ * This makes the engine slow if it is shared by multiple threads. Prefer a
+ * {@link SplittableRandomEngine} (one split per thread) in this case.
  * 
  * @author Johannes Wortmann
  */
@@ -95,4 +99,15 @@ public class DefaultRandomEngine extends Random implements RandomEngine {
 		return fromIncl + super.nextInt(toExcl - fromIncl);
 	}
 
+	/**
+	 * Creates a new engine seeded with the next long of this engine. The
+	 * generator of {@link Random} is not designed for splitting, so the
+	 * engines are only approximately independent. Use a
+	 * {@link SplittableRandomEngine} if this matters.
+	 */
+	@Override
+	public DefaultRandomEngine split() {
+		return new DefaultRandomEngine(super.nextLong());
+	}
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.random;
+
+/**
+ * The library wide master random engine. All components that are created
+ * without an explicit random engine (e.g. by
+ * {@link gep.operators.GeneticOperator#GeneticOperator(double)} or
+ * {@link gep.selection.TournamentSelection#TournamentSelection(int)}) use an
+ * engine split from this master engine. Setting the seed of the master engine
+ * before creating these components makes a run reproducible without passing
+ * engines around.
+ * <p>
+ * By default the master engine is a {@link SplittableRandomEngine} with a seed
+ * that is likely to differ between runs. The components split their engines
+ * in the order of their creation, so they have to be created in the same
+ * order to reproduce a run.
+ * 
+ * @author Johannes Wortmann
+ */
+public final class MasterRandomEngine {
+
+	/**
+	 * The current master engine. Guarded by the monitor of this class.
+	 */
+	private static RandomEngine master = new SplittableRandomEngine();
+
+	private MasterRandomEngine() {
+	}
+
+	/**
+	 * Replaces the master engine by a {@link SplittableRandomEngine} with the
+	 * given seed.
+	 * 
+	 * @param seed
+	 *            The seed of the new master engine
+	 */
+	public static synchronized void setSeed(long seed) {
+		master = new SplittableRandomEngine(seed);
+	}
+
+	/**
+	 * Replaces the master engine by the given engine. The engine is
+	 * exclusively used by this class afterwards and has to support
+	 * {@link RandomEngine#split()}.
+	 * 
+	 * @param engine
+	 *            The new master engine
+	 */
+	public static synchronized void setEngine(RandomEngine engine) {
+		if (engine == null) {
+			throw new IllegalArgumentException("The master random engine must not be null.");
+		}
+		master = engine;
+	}
+
+	/**
+	 * Creates a new engine split from the master engine.
+	 * 
+	 * @return A new random engine
+	 */
+	public static synchronized RandomEngine split() {
+		return master.split();
+	}
+
+}
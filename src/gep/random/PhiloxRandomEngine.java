@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.random;
+
+import java.util.ArrayList;
+
+import gep.model.GeneElement;
+
+/**
+ * A counter-based implementation of the RandomEngine interface using the
+ * Philox4x32-10 generator (Salmon et al., "Parallel Random Numbers: As Easy as
+ * 1, 2, 3"). The random numbers are a pure function of a key and a counter, so
+ * any position of the random stream can be addressed directly instead of
+ * depending on how many numbers were drawn before.
+ * <p>
+ * A stream is selected by {@link PhiloxRandomEngine#setStream(long, int, int, int)}
+ * (e.g. by the generation, the index of an individual, the fitness case and
+ * the simulation tick). All numbers drawn afterwards only depend on the seed
+ * of the engine, the stream and the number of draws since the stream was
+ * selected. Hence stochastic evaluations produce identical results regardless
+ * of the number of threads or the order in which individuals are evaluated.
+ * <p>
+ * An engine must not be shared by multiple threads.
+ * 
+ * @author Johannes Wortmann
+ */
+public class PhiloxRandomEngine implements RandomEngine {
+
+	private static final int PHILOX_M0 = 0xD2511F53;
+	private static final int PHILOX_M1 = 0xCD9E8D57;
+	private static final int PHILOX_W0 = 0x9E3779B9;
+	private static final int PHILOX_W1 = 0xBB67AE85;
+
+	private static final int NUM_ROUNDS = 10;
+
+	/**
+	 * The seed of this engine. Combined with the stream id to the key.
+	 */
+	private final long seed;
+
+	/**
+	 * The key of the current stream.
+	 */
+	private int key0;
+	private int key1;
+
+	/**
+	 * The counter of the current stream. The first word counts the generated
+	 * blocks, the others are given by the stream.
+	 */
+	private int counter0;
+	private int counter1;
+	private int counter2;
+	private int counter3;
+
+	/**
+	 * The last generated block and the number of its words already consumed.
+	 */
+	private final int[] block = new int[4];
+	private int blockPos = 4;
+
+	/**
+	 * Creates an engine with the given seed, positioned at the stream
+	 * (0, 0, 0, 0).
+	 * 
+	 * @param seed
+	 *            The seed of the engine
+	 */
+	public PhiloxRandomEngine(long seed) {
+		this.seed = seed;
+		setStream(0, 0, 0, 0);
+	}
+
+	/**
+	 * Returns the seed of this engine.
+	 * 
+	 * @return The seed of this engine
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Positions this engine at the beginning of the given stream. The stream
+	 * id selects the key (different ids yield independent sequences), the
+	 * three further values are the upper words of the counter.
+	 * 
+	 * @param streamId
+	 *            The id of the stream (e.g. the generation)
+	 * @param c1
+	 *            The second counter word (e.g. the index of the individual)
+	 * @param c2
+	 *            The third counter word (e.g. the index of the fitness case)
+	 * @param c3
+	 *            The fourth counter word (e.g. the simulation tick)
+	 */
+	public void setStream(long streamId, int c1, int c2, int c3) {
+		final long key = mix(seed + streamId * 0x9E3779B97F4A7C15L);
+		this.key0 = (int) key;
+		this.key1 = (int) (key >>> 32);
+		this.counter0 = 0;
+		this.counter1 = c1;
+		this.counter2 = c2;
+		this.counter3 = c3;
+		this.blockPos = 4;
+	}
+
+	/**
+	 * Returns the next 32 random bits of the current stream.
+	 * 
+	 * @return 32 random bits
+	 */
+	public int nextInt() {
+		if (blockPos == 4) {
+			generateBlock();
+			blockPos = 0;
+		}
+		return block[blockPos++];
+	}
+
+	/**
+	 * Returns the next 64 random bits of the current stream.
+	 * 
+	 * @return 64 random bits
+	 */
+	public long nextLong() {
+		return ((long) nextInt() << 32) | (nextInt() & 0xFFFFFFFFL);
+	}
+
+	@Override
+	public boolean decideTakeFunction() {
+		return nextInt() < 0;
+	}
+
+	@Override
+	public <T extends GeneElement<?>> T pickElement(ArrayList<T> elements) {
+		return elements.get(getInt(0, elements.size()));
+	}
+
+	@Override
+	public boolean decideBinaryDecision(double probabilityYes) {
+		return getDouble() < probabilityYes;
+	}
+
+	@Override
+	public boolean decideBinaryDecision() {
+		return nextInt() < 0;
+	}
+
+	@Override
+	public double getDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Returns a integer between from (inclusive) and to (exclusive). The
+	 * number is derived from a single 32 bit draw by multiplication, so the
+	 * bias is negligible for small ranges.
+	 */
+	@Override
+	public int getInt(int fromIncl, int toExcl) {
+		if (fromIncl >= toExcl) {
+			throw new IllegalArgumentException("The upper bound has to be greater than the lower bound.");
+		}
+		final long range = (long) toExcl - fromIncl;
+		return (int) (fromIncl + (((nextInt() & 0xFFFFFFFFL) * range) >>> 32));
+	}
+
+	/**
+	 * Creates an engine whose seed is drawn from the current stream of this
+	 * engine.
+	 */
+	@Override
+	public PhiloxRandomEngine split() {
+		return new PhiloxRandomEngine(nextLong());
+	}
+
+	/**
+	 * Applies the ten Philox rounds to the current counter and increments the
+	 * block counter afterwards.
+	 */
+	private void generateBlock() {
+		int c0 = counter0;
+		int c1 = counter1;
+		int c2 = counter2;
+		int c3 = counter3;
+		int k0 = key0;
+		int k1 = key1;
+		for (int round = 0; round < NUM_ROUNDS; round++) {
+			final long p0 = (PHILOX_M0 & 0xFFFFFFFFL) * (c0 & 0xFFFFFFFFL);
+			final long p1 = (PHILOX_M1 & 0xFFFFFFFFL) * (c2 & 0xFFFFFFFFL);
+			final int n0 = (int) (p1 >>> 32) ^ c1 ^ k0;
+			final int n2 = (int) (p0 >>> 32) ^ c3 ^ k1;
+			c1 = (int) p1;
+			c3 = (int) p0;
+			c0 = n0;
+			c2 = n2;
+			k0 += PHILOX_W0;
+			k1 += PHILOX_W1;
+		}
+		block[0] = c0;
+		block[1] = c1;
+		block[2] = c2;
+		block[3] = c3;
+		counter0++;
+	}
+
+	/**
+	 * The finalizer of SplitMix64, used to spread the seed and the stream id
+	 * over all bits of the key.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
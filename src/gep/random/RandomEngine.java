@@ -82,4 +82,28 @@ public interface RandomEngine {
 	 * @return a random integer from the interval [from, to)
 	 */
 	public int getInt(int from, int to);
+
+	/**
+	 * Creates a new random engine whose random numbers are statistically
+	 * independent of this engine's ones. Splitting advances the state of this
+	 * engine, so the sequence of engines split from an engine with a given
+	 * seed is deterministic. This allows to derive the random engines of all
+	 * components (operators, selection, workers) from a single seed.
+	 * <p>
+	 * Splitting is required by the parallel reproduction and the copies of
+	 * the reproduction environment. The default implementation throws an
+	 * {@link UnsupportedOperationException}, so engines implemented before
+	 * this method was added keep working for everything else.
+	 * 
+	 * @return A new independent random engine
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             if this engine can't be split
+	 * 
+	 * @see SplittableRandomEngine
+	 */
+	public default RandomEngine split() {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " does not support splitting. Use a SplittableRandomEngine or a PhiloxRandomEngine instead.");
+	}
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.random;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import gep.model.GeneElement;
+
+/**
+ * An implementation of the RandomEngine interface based on Java's
+ * {@link SplittableRandom} (SplitMix64). In contrast to the
+ * {@link DefaultRandomEngine} it is not synchronized and supports splitting
+ * into statistically independent engines.
+ * <p>
+ * An engine must not be shared by multiple threads. Instead every thread (or
+ * every component) should use its own split of a master engine. Seeding the
+ * master engine makes the whole run reproducible.
+ * 
+ * @author Johannes Wortmann
+ */
+public class SplittableRandomEngine implements RandomEngine {
+
+	/**
+	 * The generator of this engine.
+	 */
+	private final SplittableRandom random;
+
+	/**
+	 * Creates an engine with a seed that is likely to differ between
+	 * instances.
+	 */
+	public SplittableRandomEngine() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Creates an engine with the given seed.
+	 * 
+	 * @param seed
+	 *            The seed of the engine
+	 */
+	public SplittableRandomEngine(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private SplittableRandomEngine(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Decides if a function (true) or a terminal (false) should be generated.
+	 * The probability is uniformly distributed so both functions and terminals
+	 * have a probability of 0.5
+	 * 
+	 * @return true, if function shall be generated, false if instead a terminal
+	 *         should be generated
+	 */
+	@Override
+	public boolean decideTakeFunction() {
+		return random.nextBoolean();
+	}
+
+	/**
+	 * Picks a element from the given set of elements using a uniform
+	 * probability distribution.
+	 * 
+	 * @param elements
+	 *            The gene elements from which an element should be chosen.
+	 * @return The randomly picked element
+	 */
+	@Override
+	public <T extends GeneElement<?>> T pickElement(ArrayList<T> elements) {
+		return elements.get(random.nextInt(elements.size()));
+	}
+
+	@Override
+	public boolean decideBinaryDecision(double probabilityYes) {
+		return random.nextDouble() < probabilityYes;
+	}
+
+	@Override
+	public boolean decideBinaryDecision() {
+		return random.nextBoolean();
+	}
+
+	@Override
+	public double getDouble() {
+		return random.nextDouble();
+	}
+
+	@Override
+	public int getInt(int fromIncl, int toExcl) {
+		return random.nextInt(fromIncl, toExcl);
+	}
+
+	/**
+	 * Returns a random long (e.g. to seed other generators).
+	 * 
+	 * @return A random long
+	 */
+	public long getLong() {
+		return random.nextLong();
+	}
+
+	@Override
+	public SplittableRandomEngine split() {
+		return new SplittableRandomEngine(random.split());
+	}
+
+}
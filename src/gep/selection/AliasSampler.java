@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import gep.model.Individual;
+import gep.random.RandomEngine;
+
+/**
+ * <p>
+ * Samples indices with a probability proportional to given weights using the
+ * alias method (Vose, "A linear algorithm for generating random numbers with
+ * a given distribution"). Building the table takes O(n), afterwards every
+ * sample takes O(1) and a single random number, in contrast to the binary
+ * search over the cumulative weights which takes O(log n).
+ * </p>
+ * 
+ * <p>
+ * A sampler can be rebuilt for every generation. The internal arrays
+ * (including the buffer of the fitness values) are reused as long as the
+ * number of weights does not change. Instances are not thread safe.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ */
+public final class AliasSampler {
+
+	/**
+	 * The probability to keep the column (instead of taking its alias) for
+	 * every column.
+	 */
+	private double[] probability = new double[0];
+
+	/**
+	 * The alias of every column.
+	 */
+	private int[] alias = new int[0];
+
+	/**
+	 * Work lists of the columns with a scaled weight below and above 1.
+	 */
+	private int[] small = new int[0];
+	private int[] large = new int[0];
+
+	/**
+	 * Buffer of the fitness values the table is built from (see
+	 * {@link AliasSampler#build(Individual[])}).
+	 */
+	private double[] fitnessWeights = new double[0];
+
+	/**
+	 * The number of columns of the current table.
+	 */
+	private int size = 0;
+
+	/**
+	 * Creates an empty sampler. {@link AliasSampler#build(double[])} has to be
+	 * called before sampling.
+	 */
+	public AliasSampler() {
+	}
+
+	/**
+	 * Creates a sampler for the given weights.
+	 * 
+	 * @param weights
+	 *            The non-negative weights
+	 * 
+	 * @see AliasSampler#build(double[])
+	 */
+	public AliasSampler(double[] weights) {
+		build(weights);
+	}
+
+	/**
+	 * Builds the table for the fitness values of the given population, so
+	 * that indices are sampled with a probability proportional to the fitness
+	 * of the individual.
+	 * 
+	 * @param population
+	 *            The evaluated population (non-negative fitness values)
+	 */
+	public void build(Individual<?>[] population) {
+		if (fitnessWeights.length != population.length) {
+			fitnessWeights = new double[population.length];
+		}
+		for (int i = 0; i < fitnessWeights.length; i++) {
+			fitnessWeights[i] = population[i].getFitness();
+		}
+		build(fitnessWeights);
+	}
+
+	/**
+	 * Builds the table for the given weights. If all weights are zero every
+	 * index is sampled with the same probability.
+	 * 
+	 * @param weights
+	 *            The non-negative weights (at least one)
+	 */
+	public void build(double[] weights) {
+		final int n = weights.length;
+		if (n == 0) {
+			throw new IllegalArgumentException("At least one weight is required.");
+		}
+		if (probability.length != n) {
+			probability = new double[n];
+			alias = new int[n];
+			small = new int[n];
+			large = new int[n];
+		}
+		size = n;
+
+		double sum = 0.0;
+		for (double w : weights) {
+			if (!(w >= 0.0)) {
+				throw new IllegalArgumentException("Weights must be non-negative: " + w);
+			}
+			sum += w;
+		}
+
+		int numSmall = 0;
+		int numLarge = 0;
+		for (int i = 0; i < n; i++) {
+			// scale such that the mean weight is 1
+			probability[i] = sum > 0.0 ? weights[i] * n / sum : 1.0;
+			if (probability[i] < 1.0) {
+				small[numSmall++] = i;
+			} else {
+				large[numLarge++] = i;
+			}
+		}
+
+		// fill every small column with the excess of a large one
+		while (numSmall > 0 && numLarge > 0) {
+			final int s = small[--numSmall];
+			final int l = large[--numLarge];
+			alias[s] = l;
+			probability[l] = (probability[l] + probability[s]) - 1.0;
+			if (probability[l] < 1.0) {
+				small[numSmall++] = l;
+			} else {
+				large[numLarge++] = l;
+			}
+		}
+
+		// the remaining columns are full (up to rounding errors)
+		while (numLarge > 0) {
+			probability[large[--numLarge]] = 1.0;
+		}
+		while (numSmall > 0) {
+			probability[small[--numSmall]] = 1.0;
+		}
+	}
+
+	/**
+	 * Returns the number of weights of the current table.
+	 * 
+	 * @return The number of indices that can be sampled
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Samples an index in [0, size()) with a probability proportional to its
+	 * weight.
+	 * 
+	 * @param random
+	 *            The random engine to be used
+	 * @return The sampled index
+	 */
+	public int sample(RandomEngine random) {
+		if (size == 0) {
+			throw new IllegalStateException("The sampler has not been built.");
+		}
+		// one random number selects the column and decides between the
+		// column and its alias
+		final double u = random.getDouble() * size;
+		final int column = Math.min((int) u, size - 1);
+		return (u - column) < probability[column] ? column : alias[column];
+	}
+
+}
@@ -18,7 +18,7 @@ package gep.selection;
 import java.util.Arrays;
 
 import gep.model.Individual;
-import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -37,6 +37,12 @@ import gep.random.RandomEngine;
  * provides an alternative fitness-proportionate strategy for selection.
  * </p>
  * 
+ * <p>
+ * By default every individual is drawn by a binary search over the cumulative
+ * fitness values. Optionally an {@link AliasSampler} can be used, which draws
+ * every individual in constant time after a linear setup.
+ * </p>
+ * 
  * Based on:
  * https://github.com/dwdyer/watchmaker/blob/master/framework/src/java/main/org/uncommons/watchmaker/framework/selection/RouletteWheelSelection.java
  * 
@@ -51,11 +57,17 @@ public class RouletteWheelSelection implements SelectionMethod {
 	private RandomEngine random;
 
 	/**
-	 * Creates an instance of the roulette wheel selection algorithm using the
-	 * default random engine.
+	 * The sampler used to draw the individuals (null if the cumulative fitness
+	 * values are searched instead).
+	 */
+	private final AliasSampler aliasSampler;
+
+	/**
+	 * Creates an instance of the roulette wheel selection algorithm using an
+	 * engine split from the {@link MasterRandomEngine}.
 	 */
 	public RouletteWheelSelection() {
-		random = new DefaultRandomEngine();
+		this(MasterRandomEngine.split());
 	}
 
 	/**
@@ -66,7 +78,23 @@ public class RouletteWheelSelection implements SelectionMethod {
 	 *            The random engine to be used by this selection method.
 	 */
 	public RouletteWheelSelection(RandomEngine random) {
+		this(random, false);
+	}
+
+	/**
+	 * Creates an instance of the roulette wheel selection algorithm using the
+	 * provided random engine.
+	 * 
+	 * @param random
+	 *            The random engine to be used by this selection method.
+	 * @param useAliasSampler
+	 *            True, if the individuals should be drawn by an
+	 *            {@link AliasSampler}. False, if the cumulative fitness values
+	 *            should be searched.
+	 */
+	public RouletteWheelSelection(RandomEngine random, boolean useAliasSampler) {
 		this.random = random;
+		this.aliasSampler = useAliasSampler ? new AliasSampler() : null;
 	}
 
 	/**
@@ -133,13 +161,19 @@ public class RouletteWheelSelection implements SelectionMethod {
 	@Override
 	public <T> int select(Individual<T>[] population, RandomEngine random) {
 
-		// To avoid to copy too many objects keep the original objects before
-		// copying
-		// This exploits the fact that boolean arrays are initialized to false.
-		boolean[] isPartOfNewPopulation = new boolean[population.length];
-
 		Individual<T>[] oldPopulation = Arrays.copyOf(population, population.length);
 
+		int[] selectedIdx = new int[population.length];
+
+		if (aliasSampler != null) {
+			aliasSampler.build(population);
+			for (int i = 0; i < population.length; i++) {
+				selectedIdx[i] = aliasSampler.sample(random);
+			}
+			SelectionHelper.fillPopulation(population, oldPopulation, selectedIdx);
+			return 0;
+		}
+
 		double comulativeFitness[] = new double[population.length];
 		comulativeFitness[0] = population[0].getFitness();
 
@@ -151,17 +185,13 @@ public class RouletteWheelSelection implements SelectionMethod {
 			double rndFitness = random.getDouble() * comulativeFitness[comulativeFitness.length - 1];
 			int idx = Arrays.binarySearch(comulativeFitness, rndFitness);
 			// translate negative results of binary search
-			idx = Math.max(idx, -(idx + 1));
-
-			if (isPartOfNewPopulation[idx]) {
-				// just copy if could not reuse old one
-				population[i] = new Individual<T>(oldPopulation[idx]);
-			} else {
-				population[i] = oldPopulation[idx];
-				isPartOfNewPopulation[idx] = true;
-			}
+			selectedIdx[i] = Math.max(idx, -(idx + 1));
 		}
 
+		// To avoid to copy too many objects keep the original objects and
+		// reuse the ones not selected for the copies
+		SelectionHelper.fillPopulation(population, oldPopulation, selectedIdx);
+
 		// no elite preservation
 		return 0;
 	}
@@ -16,11 +16,9 @@
 package gep.selection;
 
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.PriorityQueue;
 
 import gep.model.Individual;
-import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
@@ -38,6 +36,12 @@ import gep.random.RandomEngine;
  * provides an alternative fitness-proportionate strategy for selection.
  * </p>
  * 
+ * <p>
+ * By default every individual is drawn by a binary search over the cumulative
+ * fitness values. Optionally an {@link AliasSampler} can be used, which draws
+ * every individual in constant time after a linear setup.
+ * </p>
+ * 
  * Based on:
  * https://github.com/dwdyer/watchmaker/blob/master/framework/src/java/main/org/uncommons/watchmaker/framework/selection/RouletteWheelSelection.java
  * 
@@ -56,28 +60,39 @@ public class RouletteWheelSelectionWithElitePreservation implements SelectionMet
 	 */
 	private final double preservationPercentage;
 
+	/**
+	 * The sampler used to draw the non-elite individuals (null if the
+	 * cumulative fitness values are searched instead).
+	 */
+	private final AliasSampler aliasSampler;
+
+	/**
+	 * Determines the elite (reuses its buffers for every selection).
+	 */
+	private final TopKSelector eliteSelector = new TopKSelector();
+
 	/**
 	 * Creates an instance of the roulette wheel selection algorithm with elite
-	 * preservation using the default random engine and a preservation
-	 * percentage of 10% (The best 10% of the population are guaranteed to be
-	 * selected).
+	 * preservation using an engine split from the {@link MasterRandomEngine}
+	 * and a preservation percentage of 10% (The best 10% of the population
+	 * are guaranteed to be selected).
 	 */
 	public RouletteWheelSelectionWithElitePreservation() {
-		this(new DefaultRandomEngine(), 0.1);
+		this(MasterRandomEngine.split(), 0.1);
 	}
 
 	/**
 	 * Creates an instance of the roulette wheel selection algorithm with elite
-	 * preservation using the default random engine and the given preservation
-	 * percentage in the interval [0.0, 1.0]. A preservation percentage of 0.1
-	 * means a that the best 10% of the population are guaranteed to be
-	 * selected.
+	 * preservation using an engine split from the {@link MasterRandomEngine}
+	 * and the given preservation percentage in the interval [0.0, 1.0]. A
+	 * preservation percentage of 0.1 means a that the best 10% of the
+	 * population are guaranteed to be selected.
 	 * 
 	 * @param preservationPercentage
 	 *            The preservation percentage in the interval [0.0, 1.0]
 	 */
 	public RouletteWheelSelectionWithElitePreservation(double preservationPercentage) {
-		this(new DefaultRandomEngine(), preservationPercentage);
+		this(MasterRandomEngine.split(), preservationPercentage);
 	}
 
 	/**
@@ -94,8 +109,28 @@ public class RouletteWheelSelectionWithElitePreservation implements SelectionMet
 	 *            The preservation percentage in the interval [0.0, 1.0]
 	 */
 	public RouletteWheelSelectionWithElitePreservation(RandomEngine random, double preservationPercentage) {
+		this(random, preservationPercentage, false);
+	}
+
+	/**
+	 * Creates an instance of the roulette wheel selection algorithm with elite
+	 * preservation using the given random engine and the given preservation
+	 * percentage in the interval [0.0, 1.0].
+	 * 
+	 * @param random
+	 *            The random engine to be used by this selection method
+	 * @param preservationPercentage
+	 *            The preservation percentage in the interval [0.0, 1.0]
+	 * @param useAliasSampler
+	 *            True, if the individuals should be drawn by an
+	 *            {@link AliasSampler}. False, if the cumulative fitness values
+	 *            should be searched.
+	 */
+	public RouletteWheelSelectionWithElitePreservation(RandomEngine random, double preservationPercentage,
+			boolean useAliasSampler) {
 		this.random = random;
 		this.preservationPercentage = preservationPercentage;
+		this.aliasSampler = useAliasSampler ? new AliasSampler() : null;
 	}
 
 	/**
@@ -161,82 +196,41 @@ public class RouletteWheelSelectionWithElitePreservation implements SelectionMet
 	@Override
 	public <T> int select(Individual<T>[] population, RandomEngine random) {
 
-		// To avoid to copy too many objects keep the original objects before
-		// copying
-		// This exploits the fact that boolean arrays are initialized to false.
-		boolean[] isPartOfNewPopulation = new boolean[population.length];
-
 		final Individual<T>[] oldPopulation = Arrays.copyOf(population, population.length);
 
 		final int numElitesPreserved = Math.max(1, (int) (population.length * preservationPercentage));
-		PriorityQueue<Integer> eliteIdx = new PriorityQueue<>(numElitesPreserved,
-				new IndexedIndividualComparator<>(oldPopulation));
-
-		double comulativeFitness[] = new double[population.length];
-		comulativeFitness[0] = population[0].getFitness();
-		eliteIdx.add(0);
-		// TODO might be improved by filling the complete pq here (so one if in
-		// the loop can be deleted)
-
-		for (int i = 1; i < comulativeFitness.length; i++) {
-			comulativeFitness[i] = comulativeFitness[i - 1] + population[i].getFitness();
-			if (eliteIdx.size() == numElitesPreserved) {
-				// priority queue is full
-				if (oldPopulation[eliteIdx.peek()].compareTo(oldPopulation[i]) < 0) {
-					// the worst individual of the elite is worse than the
-					// current individual
-					// => replace it by the current one
-					eliteIdx.poll();
-					eliteIdx.add(i);
-				}
-			} else {
-				eliteIdx.add(i);
-			}
-		}
+
+		int[] selectedIdx = new int[population.length];
 
 		// preserve elite
-		for (int i = numElitesPreserved - 1; i >= 0; i--) {
-			final int idx = eliteIdx.poll();
-			population[i] = oldPopulation[idx];
-			isPartOfNewPopulation[idx] = true;
-		}
+		eliteSelector.selectTop(oldPopulation, numElitesPreserved, selectedIdx);
 
 		// fill remaining population
-		for (int i = numElitesPreserved; i < population.length; i++) {
-			double rndFitness = random.getDouble() * comulativeFitness[comulativeFitness.length - 1];
-			int idx = Arrays.binarySearch(comulativeFitness, rndFitness);
-			// translate negative results of binary search
-			idx = Math.max(idx, -(idx + 1));
-
-			if (isPartOfNewPopulation[idx]) {
-				// just copy if could not reuse old one
-				population[i] = new Individual<T>(oldPopulation[idx]);
-			} else {
-				population[i] = oldPopulation[idx];
-				isPartOfNewPopulation[idx] = true;
+		if (aliasSampler != null) {
+			aliasSampler.build(oldPopulation);
+			for (int i = numElitesPreserved; i < population.length; i++) {
+				selectedIdx[i] = aliasSampler.sample(random);
+			}
+		} else {
+			double comulativeFitness[] = new double[population.length];
+			comulativeFitness[0] = population[0].getFitness();
+			for (int i = 1; i < comulativeFitness.length; i++) {
+				comulativeFitness[i] = comulativeFitness[i - 1] + population[i].getFitness();
 			}
-		}
-
-		return numElitesPreserved;
-	}
-
-	/**
-	 * Used to compare individuals based on their indicies in the oldPopulation
-	 * array and their compareTo methods.
-	 */
-	private class IndexedIndividualComparator<T> implements Comparator<Integer> {
-
-		private final Individual<T>[] oldPopulation;
 
-		public IndexedIndividualComparator(Individual<T>[] oldPopulation) {
-			this.oldPopulation = oldPopulation;
+			for (int i = numElitesPreserved; i < population.length; i++) {
+				double rndFitness = random.getDouble() * comulativeFitness[comulativeFitness.length - 1];
+				int idx = Arrays.binarySearch(comulativeFitness, rndFitness);
+				// translate negative results of binary search
+				selectedIdx[i] = Math.max(idx, -(idx + 1));
+			}
 		}
 
-		@Override
-		public int compare(Integer idx1, Integer idx2) {
-			return oldPopulation[idx1].compareTo(oldPopulation[idx2]);
-		}
+		// To avoid to copy too many objects keep the original objects and
+		// reuse the ones not selected for the copies
+		SelectionHelper.fillPopulation(population, oldPopulation, selectedIdx);
 
+		return numElitesPreserved;
 	}
 
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import gep.model.Individual;
+
+/**
+ * Helper functions shared by the selection methods.
+ * 
+ * @author Johannes Wortmann
+ *
+ */
+final class SelectionHelper {
+
+	private SelectionHelper() {
+		// no instances
+	}
+
+	/**
+	 * Fills the population with the selected individuals of the old
+	 * population. The first occurrence of a selected individual reuses the old
+	 * object. Every further occurrence is copied into one of the individuals
+	 * that were not selected at all (see
+	 * {@link Individual#copyFrom(Individual)}), so no new individuals have to
+	 * be created.
+	 * 
+	 * @param population
+	 *            The population to be filled
+	 * @param oldPopulation
+	 *            The population before the selection (same size)
+	 * @param selectedIdx
+	 *            The index in the old population of the individual selected
+	 *            for each position of the population
+	 */
+	static <T> void fillPopulation(Individual<T>[] population, Individual<T>[] oldPopulation, int[] selectedIdx) {
+		// This exploits the fact that boolean arrays are initialized to false.
+		fillPopulation(population, oldPopulation, selectedIdx, new boolean[oldPopulation.length]);
+	}
+
+	/**
+	 * Fills the population with the selected individuals of the old
+	 * population (see
+	 * {@link SelectionHelper#fillPopulation(Individual[], Individual[], int[])})
+	 * using the given buffer to mark the individuals that are already part of
+	 * the new population.
+	 * 
+	 * @param population
+	 *            The population to be filled
+	 * @param oldPopulation
+	 *            The population before the selection (same size)
+	 * @param selectedIdx
+	 *            The index in the old population of the individual selected
+	 *            for each position of the population
+	 * @param isPartOfNewPopulation
+	 *            A buffer of the size of the population whose elements are all
+	 *            false. All elements are true after this method returns.
+	 */
+	static <T> void fillPopulation(Individual<T>[] population, Individual<T>[] oldPopulation, int[] selectedIdx,
+			boolean[] isPartOfNewPopulation) {
+
+		// reuse the original objects first
+		boolean copiesRequired = false;
+		for (int i = 0; i < population.length; i++) {
+			final int idx = selectedIdx[i];
+			if (isPartOfNewPopulation[idx]) {
+				population[i] = null;
+				copiesRequired = true;
+			} else {
+				population[i] = oldPopulation[idx];
+				isPartOfNewPopulation[idx] = true;
+			}
+		}
+
+		if (!copiesRequired) {
+			return;
+		}
+
+		// recycle the individuals that were not selected for the copies
+		int spareIdx = 0;
+		for (int i = 0; i < population.length; i++) {
+			if (population[i] == null) {
+				while (isPartOfNewPopulation[spareIdx]) {
+					spareIdx++;
+				}
+				final Individual<T> spare = oldPopulation[spareIdx];
+				isPartOfNewPopulation[spareIdx] = true;
+				spare.copyFrom(oldPopulation[selectedIdx[i]]);
+				population[i] = spare;
+			}
+		}
+	}
+
+}
@@ -15,18 +15,34 @@
  */
 package gep.selection;
 
+import java.util.Arrays;
+
 import gep.model.Individual;
-import gep.random.DefaultRandomEngine;
+import gep.random.MasterRandomEngine;
 import gep.random.RandomEngine;
 
 /**
  * <p>
- * This class implements stochastic universal sampling
+ * This class implements stochastic universal sampling. Like the roulette
+ * wheel selection individuals are selected with a probability proportional to
+ * their fitness. But instead of spinning the wheel once per selected
+ * individual, the wheel has equally spaced pointers (one per selected
+ * individual) and is spun only once. Thus the number of copies of an
+ * individual never differs by more than one from its expected number of
+ * copies.
  * </p>
  * 
- * TODO currently just a stub. Has to be implemented.
+ * <p>
+ * The selection requires a single random number and one linear sweep over the
+ * fitness values. Optionally the best individuals of a population are
+ * preserved (see
+ * {@link StochasticUniversalSampling#StochasticUniversalSampling(RandomEngine, double)}).
+ * </p>
  * 
- * @author Johannes Wortmann
+ * Based on:
+ * https://github.com/dwdyer/watchmaker/blob/master/framework/src/java/main/org/uncommons/watchmaker/framework/selection/StochasticUniversalSampling.java
+ * 
+ * @author Johannes Wortmann, (Daniel Dyer)
  *
  */
 public class StochasticUniversalSampling implements SelectionMethod {
@@ -37,36 +53,163 @@ public class StochasticUniversalSampling implements SelectionMethod {
 	private RandomEngine random;
 
 	/**
-	 * Creates an instance of the stochastic universal sampling algorithm using
-	 * the default random engine.
+	 * The fraction [0.0, 1.0] of individuals that should be preserved as elite
+	 * (0.0 if no elite preservation is used).
+	 */
+	private final double preservationPercentage;
+
+	/**
+	 * Determines the elite (reuses its buffers for every selection).
+	 */
+	private final TopKSelector eliteSelector = new TopKSelector();
+
+	/**
+	 * Creates an instance of the stochastic universal sampling algorithm
+	 * without elite preservation using an engine split from the
+	 * {@link MasterRandomEngine}.
 	 */
 	public StochasticUniversalSampling() {
-		random = new DefaultRandomEngine();
+		this(MasterRandomEngine.split());
 	}
 
 	/**
-	 * Creates an instance of the stochastic universal sampling algorithm using
-	 * the given random engine.
+	 * Creates an instance of the stochastic universal sampling algorithm
+	 * without elite preservation using the given random engine.
 	 * 
 	 * @param random
 	 *            The random engine to be used by this selection method.
 	 */
 	public StochasticUniversalSampling(RandomEngine random) {
+		this(random, 0.0);
+	}
+
+	/**
+	 * Creates an instance of the stochastic universal sampling algorithm with
+	 * elite preservation using the given random engine and the given
+	 * preservation percentage in the interval [0.0, 1.0]. A preservation
+	 * percentage of 0.1 means a that the best 10% of the population are
+	 * guaranteed to be selected. A preservation percentage of 0.0 disables
+	 * the elite preservation.
+	 * 
+	 * @param random
+	 *            The random engine to be used by this selection method.
+	 * @param preservationPercentage
+	 *            The preservation percentage in the interval [0.0, 1.0]
+	 */
+	public StochasticUniversalSampling(RandomEngine random, double preservationPercentage) {
+		if (preservationPercentage < 0.0 || preservationPercentage > 1.0) {
+			throw new IllegalArgumentException("The preservation percentage has to be in the interval [0.0, 1.0].");
+		}
 		this.random = random;
+		this.preservationPercentage = preservationPercentage;
 	}
 
+	/**
+	 * <p>
+	 * Selects individuals from a the current population to create a new one
+	 * based on their fitness.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned index defines from which index in the population array later
+	 * reproduction is allowed to occur. If the returned value is for example 2,
+	 * it means that all following genetic operators should not change the
+	 * elements at index 0 and 1.
+	 * </p>
+	 * 
+	 * @param population
+	 *            The population which should be changed.
+	 * 
+	 * @return The index (inclusive) from which later reproduction is allowed to
+	 *         occur.
+	 */
 	@Override
 	public <T> int select(Individual<T>[] population) {
 		return select(population, this.random);
 	}
 
+	/**
+	 * <p>
+	 * Selects individuals from a the current population to create a new one
+	 * based on their fitness.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned index defines from which index in the population array later
+	 * reproduction is allowed to occur. If the returned value is for example 2,
+	 * it means that all following genetic operators should not change the
+	 * elements at index 0 and 1.
+	 * </p>
+	 * 
+	 * @param population
+	 *            The population which should be changed.
+	 * @param random
+	 *            The RandomEngine to be used
+	 * 
+	 * @return The index (inclusive) from which later reproduction is allowed to
+	 *         occur.
+	 */
 	@Override
 	public <T> int select(Individual<T>[] population, RandomEngine random) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("Method not implemented yet");
 
-		// no elite preservation
-		// return 0;
+		final Individual<T>[] oldPopulation = Arrays.copyOf(population, population.length);
+
+		final int numElitesPreserved = preservationPercentage > 0.0
+				? Math.max(1, (int) (population.length * preservationPercentage)) : 0;
+
+		int[] selectedIdx = new int[population.length];
+
+		// preserve elite
+		if (numElitesPreserved > 0) {
+			eliteSelector.selectTop(oldPopulation, numElitesPreserved, selectedIdx);
+		}
+
+		final int numSelections = population.length - numElitesPreserved;
+		if (numSelections > 0) {
+			double totalFitness = 0.0;
+			int lastSelectableIdx = 0;
+			for (int i = 0; i < oldPopulation.length; i++) {
+				totalFitness += oldPopulation[i].getFitness();
+				if (oldPopulation[i].getFitness() > 0.0) {
+					lastSelectableIdx = i;
+				}
+			}
+
+			if (totalFitness > 0.0) {
+				// place equally spaced pointers on the wheel, the first one at
+				// a random offset within the first spacing
+				final double spacing = totalFitness / numSelections;
+				double pointer = random.getDouble() * spacing;
+
+				// sweep once over the wheel and select the individual under
+				// every pointer
+				int selIdx = numElitesPreserved;
+				double comulativeFitness = 0.0;
+				for (int i = 0; i < oldPopulation.length && selIdx < population.length; i++) {
+					comulativeFitness += oldPopulation[i].getFitness();
+					while (pointer < comulativeFitness && selIdx < population.length) {
+						selectedIdx[selIdx++] = i;
+						pointer += spacing;
+					}
+				}
+				// rounding errors may leave the last pointers behind the end
+				// of the wheel
+				while (selIdx < population.length) {
+					selectedIdx[selIdx++] = lastSelectableIdx;
+				}
+			} else {
+				// all individuals have the same (zero) fitness
+				for (int i = numElitesPreserved; i < population.length; i++) {
+					selectedIdx[i] = i;
+				}
+			}
+		}
+
+		// To avoid to copy too many objects keep the original objects and
+		// reuse the ones not selected for the copies
+		SelectionHelper.fillPopulation(population, oldPopulation, selectedIdx);
+
+		return numElitesPreserved;
 	}
 
 }
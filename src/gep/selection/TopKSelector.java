@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import gep.model.Individual;
+
+/**
+ * <p>
+ * Determines the indices of the k best individuals of a population (e.g. the
+ * elite to be preserved by a selection method). The individuals are ordered
+ * by decreasing fitness (as defined by {@link Double#compare(double, double)})
+ * and individuals with the same fitness by increasing index.
+ * </p>
+ * 
+ * <p>
+ * The top k are found by a quickselect in expected O(n) followed by sorting
+ * only the k selected indices. The fitness values and indices are kept in
+ * primitive arrays which are reused as long as the size of the population
+ * does not grow, so no objects are allocated per selection. Instances are not
+ * thread safe.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ */
+public final class TopKSelector {
+
+	/**
+	 * Ranges of at most this size are sorted by insertion sort.
+	 */
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 * The indices of the individuals, partially ordered during the selection.
+	 */
+	private int[] indices = new int[0];
+
+	/**
+	 * The fitness of the individual at the same position of
+	 * {@link TopKSelector#indices}.
+	 */
+	private double[] fitness = new double[0];
+
+	/**
+	 * Stores the indices of the k best individuals of the given population in
+	 * the first k positions of the given array, the best individual at index
+	 * 0.
+	 * 
+	 * @param population
+	 *            The evaluated population
+	 * @param k
+	 *            The number of best individuals to be determined (between 0
+	 *            and the size of the population)
+	 * @param topIdx
+	 *            The array whose first k positions are set to the indices of
+	 *            the best individuals
+	 */
+	public void selectTop(Individual<?>[] population, int k, int[] topIdx) {
+		final int n = population.length;
+		if (k < 0 || k > n) {
+			throw new IllegalArgumentException("k has to be in the interval [0, " + n + "]: " + k);
+		}
+		if (k == 0) {
+			return;
+		}
+		if (indices.length < n) {
+			indices = new int[n];
+			fitness = new double[n];
+		}
+		for (int i = 0; i < n; i++) {
+			indices[i] = i;
+			fitness[i] = population[i].getFitness();
+		}
+
+		if (k < n) {
+			select(0, n - 1, k - 1);
+		}
+		sort(0, k - 1);
+
+		System.arraycopy(indices, 0, topIdx, 0, k);
+	}
+
+	/**
+	 * Partially orders the range [left, right] such that the element at
+	 * position kth is at its final sorted position and all elements before it
+	 * are ordered before it.
+	 */
+	private void select(int left, int right, int kth) {
+		while (right - left > INSERTION_SORT_THRESHOLD) {
+			final int p = partition(left, right);
+			if (p == kth) {
+				return;
+			} else if (p < kth) {
+				left = p + 1;
+			} else {
+				right = p - 1;
+			}
+		}
+		insertionSort(left, right);
+	}
+
+	/**
+	 * Sorts the range [left, right].
+	 */
+	private void sort(int left, int right) {
+		while (right - left > INSERTION_SORT_THRESHOLD) {
+			final int p = partition(left, right);
+			// recurse into the smaller part to bound the stack depth
+			if (p - left < right - p) {
+				sort(left, p - 1);
+				left = p + 1;
+			} else {
+				sort(p + 1, right);
+				right = p - 1;
+			}
+		}
+		insertionSort(left, right);
+	}
+
+	/**
+	 * Partitions the range [left, right] around the median of its first,
+	 * middle and last element and returns the final position of the pivot.
+	 */
+	private int partition(int left, int right) {
+		final int mid = (left + right) >>> 1;
+		if (isBefore(mid, left)) {
+			swap(mid, left);
+		}
+		if (isBefore(right, left)) {
+			swap(right, left);
+		}
+		if (isBefore(right, mid)) {
+			swap(right, mid);
+		}
+		// move the median (pivot) to the end
+		swap(mid, right);
+
+		int store = left;
+		for (int i = left; i < right; i++) {
+			if (isBefore(i, right)) {
+				swap(i, store++);
+			}
+		}
+		swap(store, right);
+		return store;
+	}
+
+	private void insertionSort(int left, int right) {
+		for (int i = left + 1; i <= right; i++) {
+			final int idx = indices[i];
+			final double fit = fitness[i];
+			int j = i - 1;
+			while (j >= left && isBefore(idx, fit, indices[j], fitness[j])) {
+				indices[j + 1] = indices[j];
+				fitness[j + 1] = fitness[j];
+				j--;
+			}
+			indices[j + 1] = idx;
+			fitness[j + 1] = fit;
+		}
+	}
+
+	/**
+	 * Returns true if the element at position a is ordered before the element
+	 * at position b.
+	 */
+	private boolean isBefore(int a, int b) {
+		return isBefore(indices[a], fitness[a], indices[b], fitness[b]);
+	}
+
+	private static boolean isBefore(int idxA, double fitA, int idxB, double fitB) {
+		final int c = Double.compare(fitA, fitB);
+		return c > 0 || (c == 0 && idxA < idxB);
+	}
+
+	private void swap(int a, int b) {
+		final int idx = indices[a];
+		indices[a] = indices[b];
+		indices[b] = idx;
+		final double fit = fitness[a];
+		fitness[a] = fitness[b];
+		fitness[b] = fit;
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import java.util.Arrays;
+
+import gep.model.Individual;
+import gep.random.MasterRandomEngine;
+import gep.random.RandomEngine;
+
+/**
+ * <p>
+ * This class implements a tournament selection algorithm. For every position
+ * of the new population a fixed number of individuals is drawn uniformly (with
+ * replacement) from the current population and the one with the highest
+ * fitness wins. Only the order of the fitness values matters, so neither
+ * positive nor normalized fitness values are required. The selection pressure
+ * is controlled by the tournament size. A tournament size of 1 is a uniform
+ * selection, a tournament at least as large as the population is held among
+ * all individuals, so the best individual always wins.
+ * </p>
+ * 
+ * <p>
+ * Optionally the best individuals of a population are preserved (see
+ * {@link TournamentSelection#TournamentSelection(RandomEngine, int, double)}).
+ * Individuals can be selected multiple times.
+ * </p>
+ * 
+ * <p>
+ * Every tournament only reads the old population, so the tournaments of
+ * different positions are independent of each other. The buffers holding the
+ * old population and the selected indices are reused as long as the size of
+ * the population does not change, hence an instance must not be used by
+ * multiple threads concurrently.
+ * </p>
+ * 
+ * @author Johannes Wortmann
+ *
+ */
+public class TournamentSelection implements SelectionMethod {
+
+	/**
+	 * The used random engine
+	 */
+	private RandomEngine random;
+
+	/**
+	 * The number of individuals competing in a tournament.
+	 */
+	private final int tournamentSize;
+
+	/**
+	 * The fraction [0.0, 1.0] of individuals that should be preserved as elite
+	 * (0.0 if no elite preservation is used).
+	 */
+	private final double preservationPercentage;
+
+	/**
+	 * Determines the elite (reuses its buffers for every selection).
+	 */
+	private final TopKSelector eliteSelector = new TopKSelector();
+
+	/**
+	 * Reused buffers (sized to the last population).
+	 */
+	private Individual<?>[] oldPopulation = new Individual<?>[0];
+	private int[] selectedIdx = new int[0];
+	private boolean[] isPartOfNewPopulation = new boolean[0];
+
+	/**
+	 * Creates an instance of the tournament selection algorithm with the given
+	 * tournament size using an engine split from the
+	 * {@link MasterRandomEngine} and no elite preservation.
+	 * 
+	 * @param tournamentSize
+	 *            The number of individuals competing in a tournament (>= 1)
+	 */
+	public TournamentSelection(int tournamentSize) {
+		this(MasterRandomEngine.split(), tournamentSize);
+	}
+
+	/**
+	 * Creates an instance of the tournament selection algorithm with the given
+	 * tournament size using the given random engine and no elite
+	 * preservation.
+	 * 
+	 * @param random
+	 *            The random engine to be used by this selection method.
+	 * @param tournamentSize
+	 *            The number of individuals competing in a tournament (>= 1)
+	 */
+	public TournamentSelection(RandomEngine random, int tournamentSize) {
+		this(random, tournamentSize, 0.0);
+	}
+
+	/**
+	 * Creates an instance of the tournament selection algorithm with the given
+	 * tournament size using the given random engine and the given
+	 * preservation percentage in the interval [0.0, 1.0]. A preservation
+	 * percentage of 0.1 means a that the best 10% of the population are
+	 * guaranteed to be selected. A preservation percentage of 0.0 disables the
+	 * elite preservation.
+	 * 
+	 * @param random
+	 *            The random engine to be used by this selection method.
+	 * @param tournamentSize
+	 *            The number of individuals competing in a tournament (>= 1)
+	 * @param preservationPercentage
+	 *            The preservation percentage in the interval [0.0, 1.0]
+	 */
+	public TournamentSelection(RandomEngine random, int tournamentSize, double preservationPercentage) {
+		if (tournamentSize < 1) {
+			throw new IllegalArgumentException("The tournament size has to be greater than 0.");
+		}
+		if (preservationPercentage < 0.0 || preservationPercentage > 1.0) {
+			throw new IllegalArgumentException("The preservation percentage has to be in the interval [0.0, 1.0].");
+		}
+		this.random = random;
+		this.tournamentSize = tournamentSize;
+		this.preservationPercentage = preservationPercentage;
+	}
+
+	/**
+	 * Returns the number of individuals competing in a tournament.
+	 * 
+	 * @return The tournament size
+	 */
+	public int getTournamentSize() {
+		return tournamentSize;
+	}
+
+	/**
+	 * <p>
+	 * Selects individuals from a the current population to create a new one
+	 * by tournaments.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned index defines from which index in the population array later
+	 * reproduction is allowed to occur. If the returned value is for example 2,
+	 * it means that all following genetic operators should not change the
+	 * elements at index 0 and 1.
+	 * </p>
+	 * 
+	 * @param population
+	 *            The population which should be changed.
+	 * 
+	 * @return The index (inclusive) from which later reproduction is allowed to
+	 *         occur.
+	 */
+	@Override
+	public <T> int select(Individual<T>[] population) {
+		return select(population, this.random);
+	}
+
+	/**
+	 * <p>
+	 * Selects individuals from a the current population to create a new one
+	 * by tournaments.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned index defines from which index in the population array later
+	 * reproduction is allowed to occur. If the returned value is for example 2,
+	 * it means that all following genetic operators should not change the
+	 * elements at index 0 and 1.
+	 * </p>
+	 * 
+	 * @param population
+	 *            The population which should be changed.
+	 * @param random
+	 *            The RandomEngine to be used
+	 * 
+	 * @return The index (inclusive) from which later reproduction is allowed to
+	 *         occur.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> int select(Individual<T>[] population, RandomEngine random) {
+		final int n = population.length;
+		if (oldPopulation.length != n) {
+			oldPopulation = new Individual<?>[n];
+			selectedIdx = new int[n];
+			isPartOfNewPopulation = new boolean[n];
+		} else {
+			Arrays.fill(isPartOfNewPopulation, false);
+		}
+		System.arraycopy(population, 0, oldPopulation, 0, n);
+		final Individual<T>[] oldPop = (Individual<T>[]) oldPopulation;
+
+		final int numElitesPreserved = preservationPercentage > 0.0
+				? Math.max(1, (int) (n * preservationPercentage)) : 0;
+
+		// preserve elite
+		if (numElitesPreserved > 0) {
+			eliteSelector.selectTop(oldPop, numElitesPreserved, selectedIdx);
+		}
+
+		// fill remaining population
+		if (tournamentSize >= n) {
+			Arrays.fill(selectedIdx, numElitesPreserved, n, indexOfBest(oldPop));
+		} else {
+			for (int i = numElitesPreserved; i < n; i++) {
+				selectedIdx[i] = runTournament(oldPop, random);
+			}
+		}
+
+		// To avoid to copy too many objects keep the original objects and
+		// reuse the ones not selected for the copies
+		SelectionHelper.fillPopulation(population, oldPop, selectedIdx, isPartOfNewPopulation);
+
+		// do not keep references to the individuals beyond the selection
+		Arrays.fill(oldPopulation, null);
+
+		return numElitesPreserved;
+	}
+
+	/**
+	 * Draws the competitors of one tournament and returns the index of the
+	 * winner (the first competitor with the highest fitness).
+	 * 
+	 * @param population
+	 *            The population the competitors are drawn from
+	 * @param random
+	 *            The RandomEngine to be used
+	 * @return The index of the winner in the population
+	 */
+	private int runTournament(Individual<?>[] population, RandomEngine random) {
+		int winnerIdx = random.getInt(0, population.length);
+		double winnerFitness = population[winnerIdx].getFitness();
+		for (int j = 1; j < tournamentSize; j++) {
+			final int competitorIdx = random.getInt(0, population.length);
+			final double competitorFitness = population[competitorIdx].getFitness();
+			if (competitorFitness > winnerFitness) {
+				winnerIdx = competitorIdx;
+				winnerFitness = competitorFitness;
+			}
+		}
+		return winnerIdx;
+	}
+
+	/**
+	 * Returns the index of the first individual with the highest fitness, the
+	 * winner of a tournament among all individuals.
+	 * 
+	 * @param population
+	 *            The population
+	 * @return The index of the best individual in the population
+	 */
+	private int indexOfBest(Individual<?>[] population) {
+		int bestIdx = 0;
+		for (int i = 1; i < population.length; i++) {
+			if (population[i].getFitness() > population[bestIdx].getFitness()) {
+				bestIdx = i;
+			}
+		}
+		return bestIdx;
+	}
+
+}
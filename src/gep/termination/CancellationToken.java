@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+/**
+ * A termination criterion that is met once {@link CancellationToken#cancel()}
+ * was called, e.g. by another thread that reallocates the compute of a batch
+ * of runs. The run stops after the generation that is processed when the
+ * token is cancelled.
+ * 
+ * @author Johannes Wortmann
+ */
+public class CancellationToken implements TerminationCriterion {
+
+	/**
+	 * True, once the token was cancelled.
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Cancels all runs using this token. This method can be called by any
+	 * thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Returns true if this token was cancelled.
+	 * 
+	 * @return True, if cancelled. False, otherwise.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean shouldTerminate(EvolutionState<?> state) {
+		return cancelled;
+	}
+
+}
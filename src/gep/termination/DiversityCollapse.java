@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import java.util.HashSet;
+
+import gep.model.Individual;
+import gep.model.PhenotypeKey;
+
+/**
+ * Stops a run if the diversity of the population collapsed, i.e. if the
+ * fraction of distinct phenotypes (see {@link PhenotypeKey}) in the population
+ * falls below a given threshold. A population that consists of copies of a
+ * few programs rarely finds better solutions.
+ * <p>
+ * Determining the distinct phenotypes requires a pass over the coding regions
+ * of all individuals. Thus, the diversity is only measured every given number
+ * of generations.
+ * 
+ * @author Johannes Wortmann
+ */
+public class DiversityCollapse implements TerminationCriterion {
+
+	/**
+	 * The minimal fraction of distinct phenotypes.
+	 */
+	private final double minDistinctFraction;
+
+	/**
+	 * The number of generations between two measurements.
+	 */
+	private final int checkInterval;
+
+	/**
+	 * Creates a criterion that measures the diversity in every generation.
+	 * 
+	 * @param minDistinctFraction
+	 *            The minimal fraction (0.0, 1.0] of distinct phenotypes in the
+	 *            population
+	 */
+	public DiversityCollapse(double minDistinctFraction) {
+		this(minDistinctFraction, 1);
+	}
+
+	/**
+	 * Creates a criterion that measures the diversity every given number of
+	 * generations.
+	 * 
+	 * @param minDistinctFraction
+	 *            The minimal fraction (0.0, 1.0] of distinct phenotypes in the
+	 *            population
+	 * @param checkInterval
+	 *            The number of generations between two measurements (> 0)
+	 */
+	public DiversityCollapse(double minDistinctFraction, int checkInterval) {
+		if (minDistinctFraction <= 0.0 || minDistinctFraction > 1.0) {
+			throw new IllegalArgumentException("The minimal fraction has to be in the interval (0.0, 1.0].");
+		}
+		if (checkInterval <= 0) {
+			throw new IllegalArgumentException("The check interval has to be greater than 0.");
+		}
+		this.minDistinctFraction = minDistinctFraction;
+		this.checkInterval = checkInterval;
+	}
+
+	@Override
+	public boolean shouldTerminate(EvolutionState<?> state) {
+		if (state.getGeneration() % checkInterval != 0) {
+			return false;
+		}
+		return getDistinctFraction(state.getPopulation()) < minDistinctFraction;
+	}
+
+	/**
+	 * Returns the fraction of distinct phenotypes in the given population.
+	 * 
+	 * @param population
+	 *            The population
+	 * @return The number of distinct phenotypes divided by the size of the
+	 *         population
+	 */
+	public static double getDistinctFraction(Individual<?>[] population) {
+		final HashSet<PhenotypeKey> phenotypes = new HashSet<PhenotypeKey>(population.length * 2);
+		for (Individual<?> individual : population) {
+			phenotypes.add(PhenotypeKey.of(individual));
+		}
+		return phenotypes.size() / (double) population.length;
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+/**
+ * Stops a run as soon as the number of fitness evaluations reaches a given
+ * budget. As the criterion is checked between generations the run may exceed
+ * the budget by up to one generation.
+ * 
+ * @author Johannes Wortmann
+ */
+public class EvaluationBudget implements TerminationCriterion {
+
+	/**
+	 * The maximum number of fitness evaluations of a run.
+	 */
+	private final long maxEvaluations;
+
+	/**
+	 * Creates a criterion with the given evaluation budget.
+	 * 
+	 * @param maxEvaluations
+	 *            The maximum number of fitness evaluations (> 0)
+	 */
+	public EvaluationBudget(long maxEvaluations) {
+		if (maxEvaluations <= 0) {
+			throw new IllegalArgumentException("The evaluation budget has to be greater than 0.");
+		}
+		this.maxEvaluations = maxEvaluations;
+	}
+
+	@Override
+	public boolean shouldTerminate(EvolutionState<?> state) {
+		return state.getNumberOfEvaluations() >= maxEvaluations;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import gep.model.Individual;
+
+/**
+ * The state of a GEP run after a generation was evaluated. It is passed to
+ * the termination criteria (see {@link TerminationCriterion}) between two
+ * generations.
+ * 
+ * @author Johannes Wortmann
+ *
+ * @param <T>
+ *            The type parameter of the individuals of the run
+ */
+public interface EvolutionState<T> {
+
+	/**
+	 * Returns the number of the current generation (0 for the initial
+	 * population).
+	 * 
+	 * @return The current generation
+	 */
+	int getGeneration();
+
+	/**
+	 * Returns the evaluated population of the current generation. The
+	 * population must not be modified.
+	 * 
+	 * @return The current population
+	 */
+	Individual<T>[] getPopulation();
+
+	/**
+	 * Returns the index of the best individual of the current population.
+	 * 
+	 * @return The index of the best individual
+	 */
+	int getBestIndividualIdx();
+
+	/**
+	 * Returns the best fitness of all generations so far.
+	 * 
+	 * @return The best fitness of the run
+	 */
+	double getBestFitnessOfRun();
+
+	/**
+	 * Returns the number of generations since the best fitness of the run
+	 * improved the last time (0 if it improved in the current generation).
+	 * 
+	 * @return The number of generations without improvement
+	 */
+	int getGenerationsWithoutImprovement();
+
+	/**
+	 * Returns the number of fitness evaluations of the run so far.
+	 * 
+	 * @return The number of fitness evaluations
+	 */
+	long getNumberOfEvaluations();
+
+	/**
+	 * Returns the time elapsed since the run started.
+	 * 
+	 * @return The elapsed time in nanoseconds
+	 */
+	long getElapsedNanos();
+
+}
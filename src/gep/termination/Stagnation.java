@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+/**
+ * Stops a run if the best fitness of the run did not improve for a given
+ * number of generations.
+ * 
+ * @author Johannes Wortmann
+ */
+public class Stagnation implements TerminationCriterion {
+
+	/**
+	 * The number of generations without improvement after which the run stops.
+	 */
+	private final int maxGenerationsWithoutImprovement;
+
+	/**
+	 * Creates a criterion that stops a run after the given number of
+	 * generations without improvement of the best fitness.
+	 * 
+	 * @param maxGenerationsWithoutImprovement
+	 *            The number of generations without improvement (> 0)
+	 */
+	public Stagnation(int maxGenerationsWithoutImprovement) {
+		if (maxGenerationsWithoutImprovement <= 0) {
+			throw new IllegalArgumentException("The number of generations has to be greater than 0.");
+		}
+		this.maxGenerationsWithoutImprovement = maxGenerationsWithoutImprovement;
+	}
+
+	@Override
+	public boolean shouldTerminate(EvolutionState<?> state) {
+		return state.getGenerationsWithoutImprovement() >= maxGenerationsWithoutImprovement;
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+/**
+ * A criterion that decides whether a GEP run should stop. Criteria are
+ * checked between two generations, in addition to the maximum number of
+ * generations and the target fitness of the run. They can be combined with
+ * {@link TerminationCriterion#or(TerminationCriterion)} and
+ * {@link TerminationCriterion#and(TerminationCriterion)}.
+ * <p>
+ * Criteria may keep state of the run they are used for (e.g. a start time).
+ * Hence an instance should only be used for one run at a time.
+ * 
+ * @author Johannes Wortmann
+ */
+public interface TerminationCriterion {
+
+	/**
+	 * Returns true if the run should stop after the current generation.
+	 * 
+	 * @param state
+	 *            The state of the run after the current generation was
+	 *            evaluated
+	 * @return True, if the run should stop. False, otherwise.
+	 */
+	boolean shouldTerminate(EvolutionState<?> state);
+
+	/**
+	 * Returns a criterion that stops the run as soon as this or the given
+	 * criterion is met. Both criteria are checked in every generation.
+	 * 
+	 * @param other
+	 *            The other criterion
+	 * @return The combined criterion
+	 */
+	default TerminationCriterion or(TerminationCriterion other) {
+		return state -> {
+			// evaluate both (stateful criteria observe every generation)
+			final boolean thisMet = shouldTerminate(state);
+			final boolean otherMet = other.shouldTerminate(state);
+			return thisMet || otherMet;
+		};
+	}
+
+	/**
+	 * Returns a criterion that stops the run as soon as this and the given
+	 * criterion are met at the same time. Both criteria are checked in every
+	 * generation.
+	 * 
+	 * @param other
+	 *            The other criterion
+	 * @return The combined criterion
+	 */
+	default TerminationCriterion and(TerminationCriterion other) {
+		return state -> {
+			// evaluate both (stateful criteria observe every generation)
+			final boolean thisMet = shouldTerminate(state);
+			final boolean otherMet = other.shouldTerminate(state);
+			return thisMet && otherMet;
+		};
+	}
+
+	/**
+	 * Returns a criterion that is never met.
+	 * 
+	 * @return A criterion that never stops a run
+	 */
+	static TerminationCriterion never() {
+		return state -> false;
+	}
+
+}
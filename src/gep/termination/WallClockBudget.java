@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops a run as soon as its elapsed time exceeds a given budget. As the
+ * criterion is checked between generations the run may exceed the budget by
+ * up to one generation.
+ * 
+ * @author Johannes Wortmann
+ */
+public class WallClockBudget implements TerminationCriterion {
+
+	/**
+	 * The time budget of a run in nanoseconds.
+	 */
+	private final long budgetNanos;
+
+	/**
+	 * Creates a criterion with the given time budget.
+	 * 
+	 * @param budget
+	 *            The time budget (> 0)
+	 * @param unit
+	 *            The unit of the budget
+	 */
+	public WallClockBudget(long budget, TimeUnit unit) {
+		if (budget <= 0) {
+			throw new IllegalArgumentException("The time budget has to be greater than 0.");
+		}
+		this.budgetNanos = unit.toNanos(budget);
+	}
+
+	@Override
+	public boolean shouldTerminate(EvolutionState<?> state) {
+		return state.getElapsedNanos() >= budgetNanos;
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -77,7 +78,8 @@ public class GeneTest {
 
 		ExpressionTreeNode<Boolean> etn = gene.express(c);
 
-		System.out.println(etn);
+		// level order, nodes of a level separated by tabs
+		assertEquals("d0\nd1\to0\nt0\td2\td3\nt1\tt2\tt3\tt4\n", etn.toString());
 
 		// check root
 		assertEquals(twoArgFunc1, etn.getNodeElement());
@@ -118,6 +120,114 @@ public class GeneTest {
 
 	}
 
+	@Test
+	public void testSymbolEncoding() {
+
+		ArrayList<GeneFunction<Boolean>> potentialFunctions = new ArrayList<>();
+		potentialFunctions.add(new GenericOneArgFunc(0));
+		potentialFunctions.add(new GenericTwoArgFunc(0));
+		ArrayList<GeneTerminal<Boolean>> potentialTerminals = new ArrayList<>();
+		potentialTerminals.add(new GenericTerminal(0));
+		potentialTerminals.add(new GenericTerminal(1));
+
+		GeneArchitecture<Boolean> arch = new GeneArchitecture<>(3, potentialFunctions, potentialTerminals);
+
+		// functions are numbered first, followed by the terminals
+		assertEquals(0, arch.getSymbol(potentialFunctions.get(0)));
+		assertEquals(1, arch.getSymbol(potentialFunctions.get(1)));
+		assertEquals(2, arch.getSymbol(potentialTerminals.get(0)));
+		assertEquals(3, arch.getSymbol(potentialTerminals.get(1)));
+		assertEquals(potentialTerminals.get(1), arch.getElement(3));
+
+		Gene<Boolean> g1 = arch.createRandomGene();
+		Gene<Boolean> g2 = arch.createRandomGene();
+		g1.setSequenceAt(0, potentialFunctions.get(1));
+		assertEquals(1, g1.symbolAt(0));
+		g2.setSymbolAt(0, 2);
+		assertEquals(potentialTerminals.get(0), g2.sequenceAt(0));
+
+		int[] s1 = g1.getSymbols(0, g1.getSequenceLength());
+		int[] s2 = g2.getSymbols(0, g2.getSequenceLength());
+		g1.swapSymbols(g2, 0, 2);
+		for (int i = 0; i < s1.length; i++) {
+			assertEquals(i < 2 ? s2[i] : s1[i], g1.symbolAt(i));
+			assertEquals(i < 2 ? s1[i] : s2[i], g2.symbolAt(i));
+		}
+	}
+
+	@Test
+	public void testChildOffsets() {
+
+		GeneFunction<Boolean> oneArgFunc = new GenericOneArgFunc(0);
+		GeneFunction<Boolean> twoArgFunc = new GenericTwoArgFunc(0);
+		ArrayList<GeneElement<Boolean>> geneSeq = new ArrayList<>();
+		geneSeq.add(twoArgFunc);
+		geneSeq.add(twoArgFunc);
+		geneSeq.add(oneArgFunc);
+		for (int i = 0; i < 4; i++) {
+			geneSeq.add(new GenericTerminal(i));
+		}
+		Gene<Boolean> gene = GeneArchitecture.createGeneFromSequence(geneSeq);
+
+		// d0 d0 o0 t0 t1 t2 t3
+		assertEquals(1, gene.getFirstChild(0));
+		assertEquals(3, gene.getFirstChild(1));
+		assertEquals(5, gene.getFirstChild(2));
+		assertEquals(6, gene.getFirstChild(3));
+
+		assertEquals(6, gene.getCodingLength());
+
+		// the offsets have to be updated after a modification
+		// d0 t0 o0 t0 t1 t2 t3
+		gene.setSequenceAt(1, geneSeq.get(3));
+		assertEquals(1, gene.getFirstChild(0));
+		assertEquals(3, gene.getFirstChild(1));
+		assertEquals(3, gene.getFirstChild(2));
+		assertEquals(4, gene.getFirstChild(3));
+		assertEquals(4, gene.getCodingLength());
+
+		// modifications behind the coding region don't change the tree
+		Chromosome<Boolean> chromosome = ChromosomalArchitecture.createSingleGenicChromosome(gene);
+		ExpressionTreeNode<Boolean> etn = gene.express(chromosome);
+		gene.setSequenceAt(5, geneSeq.get(6));
+		assertEquals(4, gene.getCodingLength());
+		assertTrue(etn == gene.express(chromosome));
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		GeneFunction<Boolean> twoArgFunc = new GenericTwoArgFunc(0);
+		ArrayList<GeneElement<Boolean>> geneSeq = new ArrayList<>();
+		geneSeq.add(twoArgFunc);
+		for (int i = 0; i < 3; i++) {
+			geneSeq.add(new GenericTerminal(i));
+		}
+		Gene<Boolean> gene = GeneArchitecture.createGeneFromSequence(geneSeq);
+
+		// the copy is independent of the original although it shares the
+		// sequence until the first modification
+		Gene<Boolean> copy = new Gene<>(gene);
+		copy.setSequenceAt(1, geneSeq.get(3));
+		assertTrue(gene.sequenceAt(1) == geneSeq.get(1));
+		assertTrue(copy.sequenceAt(1) == geneSeq.get(3));
+
+		gene.copyFrom(copy);
+		gene.setSequenceAt(2, geneSeq.get(1));
+		assertTrue(gene.sequenceAt(1) == geneSeq.get(3));
+		assertTrue(copy.sequenceAt(2) == geneSeq.get(2));
+		assertTrue(gene.sequenceAt(2) == geneSeq.get(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetUnknownElement() {
+		ArrayList<GeneTerminal<Boolean>> potentialTerminals = new ArrayList<>();
+		potentialTerminals.add(new GenericTerminal(0));
+		GeneArchitecture<Boolean> arch = new GeneArchitecture<>(1, new ArrayList<GeneFunction<Boolean>>(),
+				potentialTerminals);
+
+		arch.createRandomGene().setSequenceAt(0, new GenericTerminal(1));
+	}
+
 	class GenericOneArgFunc extends GeneFunction<Boolean> {
 
 		/**
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package examples.behavior.fitness;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import examples.behavior.functions.RandomChoiceFunction;
+import examples.behavior.functions.SelectorFunction;
+import examples.behavior.functions.SequenceFunction;
+import examples.behavior.terminals.FoodInFrontCheckTerminal;
+import examples.behavior.terminals.StepTerminal;
+import examples.behavior.terminals.TurnLeftTerminal;
+import examples.behavior.terminals.TurnRightTerminal;
+import examples.behavior.terminals.WallInFrontCheckTerminal;
+import examples.behavior.world.WorldMap;
+import gep.model.ChromosomalArchitecture;
+import gep.model.GeneArchitecture;
+import gep.model.GeneFunction;
+import gep.model.GeneTerminal;
+import gep.model.Individual;
+import gep.model.IndividualArchitecture;
+import gep.random.PhiloxRandomEngine;
+
+public class EvaluationEnvironmentTest {
+
+	private static final int POPULATION_SIZE = 24;
+
+	@Test
+	public void testStochasticFitnessDoesNotDependOnNumberOfThreads() throws IOException {
+		final long[] serial = evaluate(new Setup(3L), 0);
+		assertArrayEquals(serial, evaluate(new Setup(3L), 1));
+		assertArrayEquals(serial, evaluate(new Setup(3L), 4));
+		// the random choices actually influence the fitness
+		assertFalse(Arrays.equals(serial, evaluate(new Setup(4L), 0)));
+	}
+
+	@Test
+	public void testStochasticFitnessDoesNotDependOnEvaluationOrder() throws IOException {
+		Setup setup = new Setup(3L);
+		final long[] forward = new long[POPULATION_SIZE];
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			forward[i] = Double.doubleToLongBits(setup.env.evaluateFitness(setup.population[i], 0, i));
+		}
+		final long[] backward = new long[POPULATION_SIZE];
+		for (int i = POPULATION_SIZE - 1; i >= 0; i--) {
+			backward[i] = Double.doubleToLongBits(setup.env.evaluateFitness(setup.population[i], 0, i));
+		}
+		assertArrayEquals(forward, backward);
+	}
+
+	@Test
+	public void testUnpositionedEvaluationDependsOnPhenotypeOnly() throws IOException {
+		Setup setup = new Setup(3L);
+		final double[] first = new double[POPULATION_SIZE];
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			first[i] = setup.env.evaluateFitness(setup.population[i]);
+		}
+		for (int i = POPULATION_SIZE - 1; i >= 0; i--) {
+			assertEquals(first[i], setup.env.evaluateFitness(setup.population[i]), 0.0);
+			// an equal phenotype at another position is assessed identically
+			assertEquals(first[i], setup.env.evaluateFitness(new Individual<Boolean>(setup.population[i])), 0.0);
+		}
+	}
+
+	@Test
+	public void testCopiesEvaluateConcurrentlyOnPrivateMaps() throws Exception {
+		final Setup setup = new Setup(3L);
+		final EvaluationEnvironment[] copies = { setup.env.copy(), setup.env.copy() };
+		for (EvaluationEnvironment copy : copies) {
+			assertNotSame(setup.env.fitnessFunction, copy.fitnessFunction);
+			for (int m = 0; m < setup.env.maps.length; m++) {
+				assertNotSame(setup.env.maps[m], copy.maps[m]);
+				assertNotSame(copies[0].maps[m], copies[1].maps[m]);
+			}
+		}
+
+		// reference values of an isolated serial evaluation
+		final long[] expected = new long[POPULATION_SIZE];
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			expected[i] = Double.doubleToLongBits(setup.env.evaluateFitness(setup.population[i], 0, i));
+		}
+
+		final CyclicBarrier start = new CyclicBarrier(copies.length);
+		ExecutorService executor = Executors.newFixedThreadPool(copies.length);
+		try {
+			List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+			for (final EvaluationEnvironment copy : copies) {
+				results.add(executor.submit(() -> {
+					start.await();
+					final long[] fitness = new long[POPULATION_SIZE];
+					// evaluate several times to interleave the simulations
+					for (int round = 0; round < 3; round++) {
+						for (int i = 0; i < POPULATION_SIZE; i++) {
+							fitness[i] = Double
+									.doubleToLongBits(copy.evaluateFitness(setup.population[i], 0, i));
+						}
+					}
+					return fitness;
+				}));
+			}
+			for (Future<long[]> result : results) {
+				assertArrayEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Evaluates the population of the given setup sequentially (0 threads) or
+	 * by the given number of threads and returns the bits of the fitness
+	 * values.
+	 */
+	private static long[] evaluate(Setup setup, int numThreads) {
+		if (numThreads > 0) {
+			setup.env.enableParallelEvaluation(numThreads);
+		}
+		setup.env.evaluateFitness(setup.population);
+		final long[] fitness = new long[POPULATION_SIZE];
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			fitness[i] = Double.doubleToLongBits(setup.population[i].getFitness());
+		}
+		return fitness;
+	}
+
+	static WorldMap[] loadMaps() throws IOException {
+		return new WorldMap[] { new WorldMap(Paths.get("src/examples/behavior/maps/lecturemap.txt")),
+				new WorldMap(Paths.get("src/examples/behavior/maps/maze1.txt")) };
+	}
+
+	/**
+	 * An environment with stochastic nodes and a random population of
+	 * programs using the terminals of the environment. The population only
+	 * depends on a fixed seed.
+	 */
+	static class Setup {
+
+		final EvaluationEnvironment env;
+		final Individual<Boolean>[] population;
+
+		Setup(long randomSeed) throws IOException {
+			env = new EvaluationEnvironment(loadMaps(), new ClassicFitnessFunction(), randomSeed);
+
+			ArrayList<GeneFunction<Boolean>> functions = new ArrayList<GeneFunction<Boolean>>();
+			functions.add(new SelectorFunction());
+			functions.add(new SequenceFunction());
+			functions.add(new RandomChoiceFunction(env));
+
+			ArrayList<GeneTerminal<Boolean>> terminals = new ArrayList<GeneTerminal<Boolean>>();
+			terminals.add(new StepTerminal(env));
+			terminals.add(new TurnLeftTerminal(env));
+			terminals.add(new TurnRightTerminal(env));
+			terminals.add(new WallInFrontCheckTerminal(env));
+			terminals.add(new FoodInFrontCheckTerminal(env));
+
+			ChromosomalArchitecture<Boolean> chromosomeArchitecture = new ChromosomalArchitecture<>();
+			chromosomeArchitecture.setChromosomeRootToGene(
+					chromosomeArchitecture.addGene(new GeneArchitecture<Boolean>(8, functions, terminals)));
+			population = IndividualArchitecture.createSingleChromosomalArchitecture(chromosomeArchitecture)
+					.createRandomPopulation(POPULATION_SIZE, new PhiloxRandomEngine(11));
+		}
+	}
+
+}
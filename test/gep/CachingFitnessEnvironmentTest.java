@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import gep.model.Individual;
+import gep.model.PhenotypeKey;
+import gep.random.PhiloxRandomEngine;
+
+public class CachingFitnessEnvironmentTest {
+
+	@Test
+	public void testHitsAreNotCountedAsEvaluations() {
+		Individual<Boolean>[] population = createPopulation(20, 1);
+		// duplicates of the first individuals as created by the selection
+		for (int i = 0; i < 5; i++) {
+			population[population.length - 1 - i].copyFrom(population[i]);
+		}
+		Set<PhenotypeKey> phenotypes = new HashSet<>();
+		for (Individual<Boolean> individual : population) {
+			phenotypes.add(PhenotypeKey.of(individual));
+		}
+
+		CountingFitness delegate = new CountingFitness(new AtomicInteger(), null, null);
+		CachingFitnessEnvironment<Boolean> env = new CachingFitnessEnvironment<>(delegate, 100);
+		env.evaluateFitness(population);
+		assertEquals(phenotypes.size(), delegate.calls.get());
+		assertEquals(phenotypes.size(), env.getCacheMisses());
+		assertEquals(population.length - phenotypes.size(), env.getCacheHits());
+		assertEquals(phenotypes.size(), env.getNumberOfEvaluations());
+		for (Individual<Boolean> individual : population) {
+			assertEquals(individual.chromosomes[0].compile().size(), individual.getFitness(), 0.0);
+		}
+
+		// a second generation is answered by the cache only
+		env.enableParallelEvaluation(3);
+		env.evaluateFitness(population);
+		assertEquals(phenotypes.size(), delegate.calls.get());
+		assertEquals(phenotypes.size(), env.getNumberOfEvaluations());
+		assertEquals(2 * population.length - phenotypes.size(), env.getCacheHits());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPhenotypeIsEvicted() {
+		List<Individual<Boolean>> distinct = distinctPhenotypes(createPopulation(20, 2), 3);
+		final Individual<Boolean> a = distinct.get(0);
+		final Individual<Boolean> b = distinct.get(1);
+		final Individual<Boolean> c = distinct.get(2);
+
+		CountingFitness delegate = new CountingFitness(new AtomicInteger(), null, null);
+		CachingFitnessEnvironment<Boolean> env = new CachingFitnessEnvironment<>(delegate, 2);
+		env.evaluateFitness(a);
+		env.evaluateFitness(b);
+		env.evaluateFitness(a); // hit, b is now the least recently used
+		env.evaluateFitness(c); // evicts b
+		assertEquals(2, env.getCacheSize());
+		assertEquals(3, delegate.calls.get());
+
+		env.evaluateFitness(a);
+		assertEquals(3, delegate.calls.get());
+		env.evaluateFitness(b);
+		assertEquals(4, delegate.calls.get());
+		assertEquals(2, env.getCacheHits());
+		assertEquals(4, env.getCacheMisses());
+	}
+
+	@Test
+	public void testConcurrentIdenticalPhenotypesAreEvaluatedOnce() throws Exception {
+		Individual<Boolean>[] population = createPopulation(1, 3);
+		final Individual<Boolean> original = population[0];
+		final Individual<Boolean> duplicate = new Individual<>(original);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountingFitness delegate = new CountingFitness(new AtomicInteger(), started, release);
+		final CachingFitnessEnvironment<Boolean> env = new CachingFitnessEnvironment<>(delegate, 10);
+		final CachingFitnessEnvironment<Boolean> copy = env.copy();
+
+		CompletableFuture<Double> first = CompletableFuture.supplyAsync(() -> env.evaluateFitness(original, 0, 0));
+		started.await();
+		CompletableFuture<Double> second = CompletableFuture
+				.supplyAsync(() -> copy.evaluateFitness(duplicate, 0, 1));
+		// the second evaluation waits for the result of the first one
+		while (env.getCacheHits() == 0) {
+			Thread.yield();
+		}
+		release.countDown();
+
+		assertEquals(first.get(), second.get());
+		assertEquals(1, delegate.calls.get());
+		assertEquals(1, env.getCacheMisses());
+		assertEquals(1, env.getCacheHits());
+	}
+
+	private static Individual<Boolean>[] createPopulation(int size, long seed) {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size,
+				new PhiloxRandomEngine(seed));
+	}
+
+	private static List<Individual<Boolean>> distinctPhenotypes(Individual<Boolean>[] population, int count) {
+		Set<PhenotypeKey> phenotypes = new HashSet<>();
+		List<Individual<Boolean>> distinct = new ArrayList<>();
+		for (Individual<Boolean> individual : population) {
+			if (phenotypes.add(PhenotypeKey.of(individual)) && distinct.size() < count) {
+				distinct.add(individual);
+			}
+		}
+		assertEquals(count, distinct.size());
+		return distinct;
+	}
+
+	/**
+	 * Assesses the size of the program and counts the assessments (of all
+	 * copies). Optionally signals the start of an assessment and waits for
+	 * a release before returning.
+	 */
+	private static class CountingFitness extends FitnessEnvironment<Boolean> {
+
+		final AtomicInteger calls;
+		private final CountDownLatch started;
+		private final CountDownLatch release;
+
+		CountingFitness(AtomicInteger calls, CountDownLatch started, CountDownLatch release) {
+			this.calls = calls;
+			this.started = started;
+			this.release = release;
+		}
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			calls.incrementAndGet();
+			if (started != null) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return individual.chromosomes[0].compile().size();
+		}
+
+		@Override
+		public FitnessEnvironment<Boolean> copy() {
+			return new CountingFitness(calls, started, release);
+		}
+	}
+
+}
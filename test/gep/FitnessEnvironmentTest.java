@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import gep.model.Gene;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+
+public class FitnessEnvironmentTest {
+
+	@Test
+	public void testParallelEvaluationMatchesSequentialEvaluation() {
+		Individual<Boolean>[] population = createPopulation(100);
+		FitnessEnvironment<Boolean> sequential = TestArchitectures.createSizeFitness();
+		final int bestIdx = sequential.evaluateFitness(population);
+		final double[] fitness = new double[population.length];
+		for (int i = 0; i < population.length; i++) {
+			fitness[i] = population[i].getFitness();
+			population[i].setFitness(0);
+		}
+
+		FitnessEnvironment<Boolean> parallel = TestArchitectures.createSizeFitness();
+		parallel.enableParallelEvaluation(3);
+		assertEquals(bestIdx, parallel.evaluateFitness(population));
+		for (int i = 0; i < population.length; i++) {
+			assertEquals(fitness[i], population[i].getFitness(), 0.0);
+		}
+		assertEquals(population.length, parallel.getNumberOfEvaluations());
+	}
+
+	@Test
+	public void testInterruptedParallelEvaluationWaitsForWorkers() {
+		Individual<Boolean>[] population = createPopulation(200);
+		AtomicInteger active = new AtomicInteger();
+		FitnessEnvironment<Boolean> env = new SlowFitness(active);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			env.enableParallelEvaluation(executor, 4);
+			Thread.currentThread().interrupt();
+			try {
+				env.evaluateFitness(population);
+				fail("The interruption has to be reported");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+			assertTrue(Thread.interrupted());
+			// no worker modifies the population after the evaluation returned
+			assertEquals(0, active.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSkipsIndividualsWithUnmodifiedPhenotype() {
+		Individual<Boolean>[] population = createPopulation(20);
+		CountingFitness env = new CountingFitness();
+		env.setSkipUnmodifiedIndividuals(true);
+
+		env.evaluateFitness(population);
+		assertEquals(population.length, env.calls.get());
+
+		// nothing was modified => nothing is evaluated again
+		env.evaluateFitness(population);
+		assertEquals(population.length, env.calls.get());
+
+		// one mutation behind the coding region and one inside of it
+		final int nonCodingIdx = findIndividualWithNonCodingRegion(population, -1);
+		final int codingIdx = findIndividualWithNonCodingRegion(population, nonCodingIdx);
+		final Gene<Boolean> nonCoding = population[nonCodingIdx].chromosomes[0].getGene(1);
+		mutateTerminal(nonCoding, nonCoding.getSequenceLength() - 1);
+		final Gene<Boolean> coding = population[codingIdx].chromosomes[0].getGene(1);
+		mutateTerminal(coding, coding.getCodingLength() - 1);
+		assertFalse(population[nonCodingIdx].isPhenotypeModified());
+		assertTrue(population[codingIdx].isPhenotypeModified());
+
+		env.evaluateFitness(population);
+		assertEquals(population.length + 1, env.calls.get());
+		assertEquals(population.length + 1, env.getNumberOfEvaluations());
+		assertEquals(1, env.evaluated.get(codingIdx));
+		assertEquals(0, env.evaluated.get(nonCodingIdx));
+
+		// without skipping every individual is evaluated again
+		env.setSkipUnmodifiedIndividuals(false);
+		env.evaluateFitness(population);
+		assertEquals(2 * population.length + 1, env.calls.get());
+	}
+
+	/**
+	 * Returns the index of an individual other than the excluded one whose
+	 * first gene has a non-coding region.
+	 */
+	private static int findIndividualWithNonCodingRegion(Individual<Boolean>[] population, int excludedIdx) {
+		for (int i = 0; i < population.length; i++) {
+			final Gene<Boolean> gene = population[i].chromosomes[0].getGene(1);
+			if (i != excludedIdx && gene.getCodingLength() < gene.getSequenceLength()) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("No individual with a non-coding region");
+	}
+
+	/**
+	 * Replaces the terminal at the given position by another terminal.
+	 */
+	private static void mutateTerminal(Gene<Boolean> gene, int idx) {
+		final int numFunctions = gene.architecture.getNumberOfFunctions();
+		final int terminal = gene.getSymbols(idx, 1)[0] - numFunctions;
+		assertTrue(terminal >= 0);
+		gene.setSymbolAt(idx, numFunctions + (terminal + 1) % gene.architecture.getNumberOfTerminals());
+	}
+
+	private static Individual<Boolean>[] createPopulation(int size) {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size,
+				new PhiloxRandomEngine(5));
+	}
+
+	/**
+	 * Counts the calls of the fitness function in total and per individual of
+	 * the third evaluated population (generation 2).
+	 */
+	private static class CountingFitness extends FitnessEnvironment<Boolean> {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicIntegerArray evaluated = new AtomicIntegerArray(20);
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual, int generation, int individualIdx) {
+			calls.incrementAndGet();
+			if (generation == 2) {
+				evaluated.incrementAndGet(individualIdx);
+			}
+			return individualIdx;
+		}
+	}
+
+	/**
+	 * Takes some time per individual and tracks the number of individuals
+	 * currently evaluated (by all copies).
+	 */
+	private static class SlowFitness extends FitnessEnvironment<Boolean> {
+
+		private final AtomicInteger active;
+
+		SlowFitness(AtomicInteger active) {
+			this.active = active;
+		}
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			active.incrementAndGet();
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				active.decrementAndGet();
+			}
+			return 1.0;
+		}
+
+		@Override
+		public FitnessEnvironment<Boolean> copy() {
+			return new SlowFitness(active);
+		}
+	}
+
+}
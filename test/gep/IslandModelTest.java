@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import gep.model.Individual;
+import gep.model.IndividualArchitecture;
+import gep.operators.GeneticOperator;
+import gep.operators.Mutation;
+import gep.random.PhiloxRandomEngine;
+import gep.selection.TournamentSelection;
+import gep.termination.TerminationCriterion;
+
+public class IslandModelTest {
+
+	private static final int POPULATION_SIZE = 10;
+
+	private static final IndividualArchitecture<Boolean> ARCHITECTURE = TestArchitectures
+			.createTraceArchitecture(new StringBuilder());
+
+	@Test
+	public void testSingleIslandStopsAfterMaxGenerations() {
+		IslandModel<Boolean> model = new IslandModel<>(MigrationTopology.RING, 1, 1);
+		GenerationRecorder recorder = new GenerationRecorder();
+		addIsland(model, new GenerationFitness(), recorder, 1);
+
+		GepResult<Boolean> result = model.run(5, Double.POSITIVE_INFINITY);
+
+		assertEquals(5, result.numGenerations);
+		assertEquals(6.0, result.getFitnessOfBestIndivudal(), 0.0);
+		assertEquals("[0, 1, 2, 3, 4, 5]", recorder.finished.toString());
+	}
+
+	@Test
+	public void testImmigrantsAreBestOfTheirGeneration() {
+		IslandModel<Boolean> model = new IslandModel<>(MigrationTopology.RING, 1, 1);
+		CountDownLatch migrated = new CountDownLatch(1);
+		addIsland(model, new GenerationFitness(), new MigrationSignal(migrated), 1);
+		GenerationRecorder recorder = new MigrationWait(migrated);
+		addIsland(model, new ZeroFitness(), recorder, 2);
+
+		GepResult<Boolean> result = model.run(3, Double.POSITIVE_INFINITY);
+
+		assertEquals(3, result.numGenerations);
+		assertEquals(4.0, result.getFitnessOfBestIndivudal(), 0.0);
+		// the immigrants of the first island (sent in generation 1 or later)
+		// contain the best individual of the second island in the generation
+		// they arrived
+		assertEquals(0.0, recorder.bestFitness.get(0), 0.0);
+		assertTrue(recorder.bestFitness.get(1) >= 2.0);
+		assertEquals("[0, 1, 2, 3]", recorder.finished.toString());
+	}
+
+	@Test
+	public void testImmigrantReachingTargetStopsIsland() {
+		IslandModel<Boolean> model = new IslandModel<>(MigrationTopology.RING, 1, 1);
+		CountDownLatch migrated = new CountDownLatch(1);
+		addIsland(model, new GenerationFitness(), new MigrationSignal(migrated), 1);
+		GenerationRecorder recorder = new MigrationWait(migrated);
+		addIsland(model, new ZeroFitness(), recorder, 2);
+
+		GepResult<Boolean> result = model.run(10, 2.0);
+
+		assertEquals(1, result.numGenerations);
+		assertTrue(result.isOptimalSolution(0.0));
+		// the second island can only reach the target by the immigrant
+		assertEquals(1, recorder.result.numGenerations);
+		assertTrue(recorder.result.isOptimalSolution(0.0));
+	}
+
+	@Test
+	public void testInterruptedRunWaitsForIslands() {
+		IslandModel<Boolean> model = new IslandModel<>(MigrationTopology.FULLY_CONNECTED, 1, 1);
+		final AtomicInteger finishedIslands = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			addIsland(model, new GenerationFitness(), new GenerationListener<Boolean>() {
+				@Override
+				public void runFinished(GepResult<Boolean> result) {
+					finishedIslands.incrementAndGet();
+				}
+			}, i);
+		}
+
+		Thread.currentThread().interrupt();
+		try {
+			model.run(Integer.MAX_VALUE, Double.POSITIVE_INFINITY, 0.0, TerminationCriterion.never());
+			fail("The interruption has to be reported");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTrue(Thread.interrupted());
+		// no island modifies its population after the run returned
+		assertEquals(3, finishedIslands.get());
+	}
+
+	private static void addIsland(IslandModel<Boolean> model, FitnessEnvironment<Boolean> fe,
+			GenerationListener<Boolean> listener, int seed) {
+		// the fitness environments don't execute the programs, so the
+		// islands may share the log of the architecture
+		Individual<Boolean>[] population = ARCHITECTURE.createRandomPopulation(POPULATION_SIZE,
+				new PhiloxRandomEngine(seed));
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(new Mutation(0.05, new PhiloxRandomEngine(10 + seed)));
+		model.addIsland(population, fe, new TournamentSelection(new PhiloxRandomEngine(20 + seed), 2),
+				new ReproductionEnvironment(operators), listener);
+	}
+
+	/**
+	 * Records the finished generations, the best fitness per generation and
+	 * the result of the island.
+	 */
+	private static class GenerationRecorder implements GenerationListener<Boolean> {
+
+		final List<Integer> finished = new ArrayList<>();
+		final List<Double> bestFitness = new ArrayList<>();
+		GepResult<Boolean> result;
+
+		@Override
+		public void evaluationFinished(int generation, Individual<Boolean>[] population, int bestIndividualIdx) {
+			bestFitness.add(population[bestIndividualIdx].getFitness());
+		}
+
+		@Override
+		public void generationFinished(int generation, Individual<Boolean>[] population, int bestIndividualIdx) {
+			finished.add(generation);
+		}
+
+		@Override
+		public void runFinished(GepResult<Boolean> result) {
+			this.result = result;
+		}
+	}
+
+	/**
+	 * Signals that the island finished generation 1, i.e. its first migrants
+	 * were sent.
+	 */
+	private static class MigrationSignal implements GenerationListener<Boolean> {
+
+		private final CountDownLatch migrated;
+
+		MigrationSignal(CountDownLatch migrated) {
+			this.migrated = migrated;
+		}
+
+		@Override
+		public void generationFinished(int generation, Individual<Boolean>[] population, int bestIndividualIdx) {
+			if (generation == 1) {
+				migrated.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Starts generation 1 only after the migrants of the signalling island
+	 * were sent, so they arrive in generation 1.
+	 */
+	private static class MigrationWait extends GenerationRecorder {
+
+		private final CountDownLatch migrated;
+
+		MigrationWait(CountDownLatch migrated) {
+			this.migrated = migrated;
+		}
+
+		@Override
+		public void generationStarted(int generation) {
+			if (generation == 1) {
+				try {
+					assertTrue(migrated.await(10, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Assigns the number of the generation plus one to all individuals.
+	 */
+	private static class GenerationFitness extends FitnessEnvironment<Boolean> {
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual, int generation, int individualIdx) {
+			return generation + 1;
+		}
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Assigns zero to all individuals.
+	 */
+	private static class ZeroFitness extends FitnessEnvironment<Boolean> {
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			return 0.0;
+		}
+	}
+
+}
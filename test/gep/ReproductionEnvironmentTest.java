@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import gep.model.Chromosome;
+import gep.model.Gene;
+import gep.model.Individual;
+import gep.operators.GeneticOperator;
+import gep.operators.Inversion;
+import gep.operators.Mutation;
+import gep.operators.OnePointRecombination;
+import gep.operators.RecombinationOperator;
+import gep.operators.RootTransposition;
+import gep.random.MasterRandomEngine;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class ReproductionEnvironmentTest {
+
+	@Test
+	public void testFusedPipelineMatchesDefaultPipeline() {
+		Individual<Boolean>[] population = createPopulation();
+		Individual<Boolean>[] fusedPopulation = createPopulation();
+		final String initial = symbolsOf(population);
+		assertEquals(initial, symbolsOf(fusedPopulation));
+
+		ReproductionEnvironment env = new ReproductionEnvironment(createOperators());
+		ReproductionEnvironment fused = new ReproductionEnvironment(createOperators());
+		fused.setFusedPipeline(true);
+
+		for (int generation = 0; generation < 5; generation++) {
+			env.reproduce(population, 1);
+			fused.reproduce(fusedPopulation, 1);
+			assertEquals(symbolsOf(population), symbolsOf(fusedPopulation));
+		}
+		assertNotEquals(initial, symbolsOf(population));
+	}
+
+	@Test
+	public void testParallelReproductionDoesNotDependOnNumberOfWorkers() {
+		final String oneWorker = reproduceWithMasterSeed(1);
+		assertEquals(oneWorker, reproduceWithMasterSeed(2));
+		assertEquals(oneWorker, reproduceWithMasterSeed(8));
+		assertNotEquals(symbolsOf(createPopulation(300)), oneWorker);
+	}
+
+	@Test
+	public void testParallelReproductionPreservesSizeAndElite() {
+		final int numElites = 7;
+		Individual<Boolean>[] population = createPopulation(300);
+		final Individual<Boolean>[] original = population.clone();
+		final String initial = symbolsOf(population);
+		final String elite = initial.substring(0, nthLineEnd(initial, numElites));
+
+		ReproductionEnvironment env = new ReproductionEnvironment(createOperators());
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			env.enableParallelReproduction(executor, 3, new PhiloxRandomEngine(6));
+			env.reproduce(population, numElites);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(original.length, population.length);
+		for (int i = 0; i < population.length; i++) {
+			assertSame(original[i], population[i]);
+		}
+		final String reproduced = symbolsOf(population);
+		assertEquals(elite, reproduced.substring(0, nthLineEnd(reproduced, numElites)));
+		assertNotEquals(initial, reproduced);
+	}
+
+	@Test
+	public void testParallelRecombinationUsesDisjointPairsOfModifiableIndividuals() {
+		final int fromIdx = 5;
+		Individual<Boolean>[] population = createPopulation(200);
+		final Map<Chromosome<Boolean>, Integer> indexOf = new IdentityHashMap<>();
+		for (int i = 0; i < population.length; i++) {
+			indexOf.put(population[i].chromosomes[0], i);
+		}
+
+		CountingRecombination recombination = new CountingRecombination(1.0, new PhiloxRandomEngine(7));
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(recombination);
+		ReproductionEnvironment env = new ReproductionEnvironment(operators);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			env.enableParallelReproduction(executor, 4, new PhiloxRandomEngine(8));
+			env.reproduce(population, fromIdx);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// a pair rate of 1 recombines every pair exactly once
+		final int numModifiable = population.length - fromIdx;
+		assertEquals(numModifiable / 2, recombination.pairs.size());
+		final boolean[] mated = new boolean[population.length];
+		for (Chromosome<?>[] pair : recombination.pairs) {
+			for (Chromosome<?> parent : pair) {
+				final int idx = indexOf.get(parent);
+				assertTrue(idx >= fromIdx);
+				assertFalse("Individual " + idx + " mated twice", mated[idx]);
+				mated[idx] = true;
+			}
+		}
+	}
+
+	@Test
+	public void testParallelRecombinationRateMatchesSequentialRate() {
+		final double rate = 0.2;
+		final int fromIdx = 1;
+		final int numModifiable = 640;
+		final int numTrials = 20;
+
+		CountingRecombination sequential = new CountingRecombination(rate, new PhiloxRandomEngine(9));
+		for (int t = 0; t < numTrials; t++) {
+			sequential.apply(createPopulation(fromIdx + numModifiable), fromIdx);
+		}
+
+		CountingRecombination parallel = new CountingRecombination(rate, new PhiloxRandomEngine(10));
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(parallel);
+		ReproductionEnvironment env = new ReproductionEnvironment(operators);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			env.enableParallelReproduction(executor, 2, new PhiloxRandomEngine(11));
+			for (int t = 0; t < numTrials; t++) {
+				env.reproduce(createPopulation(fromIdx + numModifiable), fromIdx);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// every chromosome is picked with the rate in the sequential mode,
+		// every pair is recombined with twice the rate in the parallel mode
+		final double expected = rate * numModifiable * numTrials;
+		final double tolerance = 5 * Math.sqrt(numModifiable * numTrials * rate * (1 - rate));
+		assertEquals(expected, sequential.pairs.size(), tolerance);
+		assertEquals(expected, parallel.pairs.size(), tolerance);
+	}
+
+	@Test
+	public void testInterruptedParallelReproductionWaitsForWorkers() {
+		Individual<Boolean>[] population = createPopulation(500);
+		AtomicInteger active = new AtomicInteger();
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(new SlowOperator(active));
+		ReproductionEnvironment env = new ReproductionEnvironment(operators);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			env.enableParallelReproduction(executor, 4, new PhiloxRandomEngine(1));
+			Thread.currentThread().interrupt();
+			try {
+				env.reproduce(population, 0);
+				fail("The interruption has to be reported");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+			assertTrue(Thread.interrupted());
+			// no worker modifies the population after reproduce returned
+			assertEquals(0, active.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reproduces a population of several blocks for some generations by
+	 * operators created without explicit engines after setting the seed of
+	 * the master engine.
+	 */
+	private static String reproduceWithMasterSeed(int numWorkers) {
+		MasterRandomEngine.setSeed(42);
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(new Mutation(0.05));
+		operators.add(new Inversion(0.1));
+		operators.add(new OnePointRecombination(0.3));
+		operators.add(new RootTransposition(0.1));
+		ReproductionEnvironment env = new ReproductionEnvironment(operators);
+		ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		try {
+			env.enableParallelReproduction(executor, numWorkers, MasterRandomEngine.split());
+			Individual<Boolean>[] population = createPopulation(300);
+			for (int generation = 0; generation < 3; generation++) {
+				env.reproduce(population, 5);
+			}
+			return symbolsOf(population);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Individual<Boolean>[] createPopulation() {
+		return createPopulation(30);
+	}
+
+	private static Individual<Boolean>[] createPopulation(int size) {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size,
+				new PhiloxRandomEngine(11));
+	}
+
+	private static List<GeneticOperator> createOperators() {
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(new Mutation(0.05, new PhiloxRandomEngine(1), true));
+		operators.add(new Inversion(0.1, new PhiloxRandomEngine(2)));
+		// population level operator (barrier of the fused pipeline)
+		operators.add(new OnePointRecombination(0.3, new PhiloxRandomEngine(3)));
+		operators.add(new RootTransposition(0.1, new PhiloxRandomEngine(4)));
+		operators.add(new Mutation(0.02, new PhiloxRandomEngine(5), true));
+		return operators;
+	}
+
+	private static String symbolsOf(Individual<Boolean>[] population) {
+		StringBuilder sb = new StringBuilder();
+		for (Individual<Boolean> individual : population) {
+			for (Chromosome<Boolean> c : individual.chromosomes) {
+				for (Gene<Boolean> g : c.genes) {
+					sb.append(Arrays.toString(g.getSymbols(0, g.getSequenceLength()))).append(';');
+				}
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the index after the line break ending the given number of lines.
+	 */
+	private static int nthLineEnd(String s, int numLines) {
+		int end = 0;
+		for (int i = 0; i < numLines; i++) {
+			end = s.indexOf('\n', end) + 1;
+		}
+		return end;
+	}
+
+	/**
+	 * Records the recombined chromosome pairs (of all copies) without
+	 * modifying them.
+	 */
+	private static class CountingRecombination extends RecombinationOperator {
+
+		final Queue<Chromosome<?>[]> pairs;
+
+		CountingRecombination(double applicationRate, RandomEngine re) {
+			this(applicationRate, re, new ConcurrentLinkedQueue<Chromosome<?>[]>());
+		}
+
+		private CountingRecombination(double applicationRate, RandomEngine re, Queue<Chromosome<?>[]> pairs) {
+			super(applicationRate, re);
+			this.pairs = pairs;
+		}
+
+		@Override
+		protected <T> void recombine(Chromosome<T> parent1Chromosome, Chromosome<T> parent2Chromosome) {
+			pairs.add(new Chromosome<?>[] { parent1Chromosome, parent2Chromosome });
+		}
+
+		@Override
+		public GeneticOperator copy(RandomEngine re) {
+			return new CountingRecombination(applicationRate, re, pairs);
+		}
+
+		@Override
+		public String getName() {
+			return "Counting recombination";
+		}
+	}
+
+	/**
+	 * Takes some time per individual and tracks the number of individuals
+	 * currently processed (by all copies).
+	 */
+	private static class SlowOperator extends GeneticOperator {
+
+		private final AtomicInteger active;
+
+		SlowOperator(AtomicInteger active) {
+			super(1.0, new PhiloxRandomEngine(0));
+			this.active = active;
+		}
+
+		@Override
+		public <T> void apply(Individual<T> individual) {
+			active.incrementAndGet();
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		@Override
+		protected <T> void apply(Gene<T> gene) {
+			// not used
+		}
+
+		@Override
+		public GeneticOperator copy(RandomEngine re) {
+			return new SlowOperator(active);
+		}
+
+		@Override
+		public String getName() {
+			return "Slow";
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import gep.termination.EvaluationBudget;
+import gep.termination.Stagnation;
+
+public class RunStateTest {
+
+	@Test
+	public void testImprovementResetsStagnationWindow() {
+		RunState<Boolean> state = new RunState<>(null, 0);
+		Stagnation stagnation = new Stagnation(3);
+
+		state.update(0, 0, 1.0, 0);
+		state.update(1, 0, 1.0, 0);
+		state.update(2, 0, 1.0, 0);
+		assertEquals(2, state.getGenerationsWithoutImprovement());
+		assertFalse(stagnation.shouldTerminate(state));
+
+		// the improvement in generation 3 starts a new window
+		state.update(3, 0, 2.0, 0);
+		assertEquals(0, state.getGenerationsWithoutImprovement());
+		assertFalse(stagnation.shouldTerminate(state));
+		state.update(4, 0, 2.0, 0);
+		state.update(5, 0, 1.5, 0);
+		assertFalse(stagnation.shouldTerminate(state));
+		state.update(6, 0, 2.0, 0);
+		assertTrue(stagnation.shouldTerminate(state));
+	}
+
+	@Test
+	public void testCountsOnlyEvaluationsOfTheRun() {
+		RunState<Boolean> state = new RunState<>(null, 500);
+		EvaluationBudget budget = new EvaluationBudget(100);
+		state.update(0, 0, 0.0, 599);
+		assertEquals(99, state.getNumberOfEvaluations());
+		assertFalse(budget.shouldTerminate(state));
+		state.update(1, 0, 0.0, 600);
+		assertTrue(budget.shouldTerminate(state));
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import gep.model.Individual;
+import gep.operators.GeneticOperator;
+import gep.operators.Inversion;
+import gep.operators.Mutation;
+import gep.operators.OnePointRecombination;
+import gep.random.PhiloxRandomEngine;
+import gep.termination.EvaluationBudget;
+import gep.termination.TerminationCriterion;
+
+public class SteadyStateEvolutionTest {
+
+	private static final int POPULATION_SIZE = 20;
+
+	@Test
+	public void testRunStopsAfterMaxGenerations() {
+		FitnessEnvironment<Boolean> fe = TestArchitectures.createSizeFitness();
+		GenerationRecorder recorder = new GenerationRecorder();
+		GepResult<Boolean> result = createEngine(fe).run(createPopulation(), 5, Double.POSITIVE_INFINITY, 0.0,
+				TerminationCriterion.never(), recorder);
+
+		assertEquals(5, result.numGenerations);
+		assertEquals("[0, 1, 2, 3, 4, 5]", recorder.finished.toString());
+		// every generation replaces as many individuals as the population has
+		assertEquals(6 * POPULATION_SIZE, fe.getNumberOfEvaluations());
+		assertEquals(1, recorder.numRunFinished);
+	}
+
+	@Test
+	public void testRunStopsAtTargetFitness() {
+		Individual<Boolean>[] population = createPopulation();
+		final double target = population[TestArchitectures.createSizeFitness().evaluateFitness(population)]
+				.getFitness();
+
+		GenerationRecorder recorder = new GenerationRecorder();
+		GepResult<Boolean> result = createEngine(TestArchitectures.createSizeFitness()).run(createPopulation(), 5,
+				target, 0.0, TerminationCriterion.never(), recorder);
+
+		assertEquals(0, result.numGenerations);
+		assertTrue(result.isOptimalSolution(0.0));
+		assertEquals("[0]", recorder.finished.toString());
+	}
+
+	@Test
+	public void testRunStopsOnCriterion() {
+		FitnessEnvironment<Boolean> fe = TestArchitectures.createSizeFitness();
+		GepResult<Boolean> result = createEngine(fe).run(createPopulation(), 100, Double.POSITIVE_INFINITY, 0.0,
+				new EvaluationBudget(2 * POPULATION_SIZE + 1), new GenerationRecorder());
+
+		// the budget is checked after complete generations
+		assertEquals(2, result.numGenerations);
+		assertEquals(3 * POPULATION_SIZE, fe.getNumberOfEvaluations());
+	}
+
+	@Test
+	public void testSeededRunsAreReproducible() {
+		Individual<Boolean>[] first = createPopulation();
+		Individual<Boolean>[] second = createPopulation();
+		GepResult<Boolean> firstResult = createEngine(TestArchitectures.createSizeFitness()).run(first, 10,
+				Double.POSITIVE_INFINITY, new GenerationRecorder());
+		GepResult<Boolean> secondResult = createEngine(TestArchitectures.createSizeFitness()).run(second, 10,
+				Double.POSITIVE_INFINITY, new GenerationRecorder());
+
+		assertEquals(firstResult.getFitnessOfBestIndivudal(), secondResult.getFitnessOfBestIndivudal(), 0.0);
+		for (int i = 0; i < first.length; i++) {
+			assertEquals(first[i].getFitness(), second[i].getFitness(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSingleWorkerRunStopsAfterMaxGenerations() {
+		FitnessEnvironment<Boolean> fe = TestArchitectures.createSizeFitness();
+		SteadyStateEvolution<Boolean> engine = createEngine(fe);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			engine.enableParallelism(executor, 1);
+			GenerationRecorder recorder = new GenerationRecorder();
+			GepResult<Boolean> result = engine.run(createPopulation(), 4, Double.POSITIVE_INFINITY, 0.0,
+					TerminationCriterion.never(), recorder);
+
+			assertEquals(4, result.numGenerations);
+			assertEquals("[0, 1, 2, 3, 4]", recorder.finished.toString());
+			assertEquals(5 * POPULATION_SIZE, fe.getNumberOfEvaluations());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testInterruptedRunWaitsForWorkers() {
+		AtomicInteger active = new AtomicInteger();
+		SteadyStateEvolution<Boolean> engine = createEngine(new SlowFitness(active));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			engine.enableParallelism(executor, 2);
+			Thread.currentThread().interrupt();
+			try {
+				engine.run(createPopulation(), 1000, Double.POSITIVE_INFINITY, new GenerationRecorder());
+				fail("The interruption has to be reported");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+			assertTrue(Thread.interrupted());
+			// no worker modifies the population after the run returned
+			assertEquals(0, active.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static SteadyStateEvolution<Boolean> createEngine(FitnessEnvironment<Boolean> fe) {
+		List<GeneticOperator> operators = new ArrayList<>();
+		operators.add(new Mutation(0.05, new PhiloxRandomEngine(1)));
+		operators.add(new Inversion(0.1, new PhiloxRandomEngine(2)));
+		operators.add(new OnePointRecombination(0.3, new PhiloxRandomEngine(3)));
+		return new SteadyStateEvolution<>(fe, new ReproductionEnvironment(operators), new PhiloxRandomEngine(4));
+	}
+
+	private static Individual<Boolean>[] createPopulation() {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(POPULATION_SIZE,
+				new PhiloxRandomEngine(7));
+	}
+
+	/**
+	 * Records the finished generations.
+	 */
+	private static class GenerationRecorder implements GenerationListener<Boolean> {
+
+		final List<Integer> finished = new ArrayList<>();
+		int numRunFinished = 0;
+
+		@Override
+		public void generationFinished(int generation, Individual<Boolean>[] population, int bestIndividualIdx) {
+			finished.add(generation);
+		}
+
+		@Override
+		public void runFinished(GepResult<Boolean> result) {
+			numRunFinished++;
+		}
+	}
+
+	/**
+	 * Takes some time per individual and tracks the number of individuals
+	 * currently evaluated (by all copies).
+	 */
+	private static class SlowFitness extends FitnessEnvironment<Boolean> {
+
+		private final AtomicInteger active;
+
+		SlowFitness(AtomicInteger active) {
+			this.active = active;
+		}
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			active.incrementAndGet();
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				active.decrementAndGet();
+			}
+			return individual.chromosomes[0].compile().size();
+		}
+
+		@Override
+		public FitnessEnvironment<Boolean> copy() {
+			return new SlowFitness(active);
+		}
+	}
+
+}
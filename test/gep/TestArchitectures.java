@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gep.model.ChromosomalArchitecture;
+import gep.model.ChromosomeIndependentGeneTerminal;
+import gep.model.ControlFlowFunction;
+import gep.model.ExpressionTreeNode;
+import gep.model.FlatProgram;
+import gep.model.GeneArchitecture;
+import gep.model.GeneFunction;
+import gep.model.GeneTerminal;
+import gep.model.HomoeoticGeneElement;
+import gep.model.Individual;
+import gep.model.IndividualArchitecture;
+import gep.model.InlinableFunction;
+
+/**
+ * Architectures and environments shared by the tests.
+ * 
+ * @author Johannes Wortmann
+ */
+public final class TestArchitectures {
+
+	private TestArchitectures() {
+		// no instances
+	}
+
+	/**
+	 * Creates an architecture of a single chromosome with two genes that are
+	 * linked by a homeotic root gene. The functions cover all ways of
+	 * executing a flat program (interpreter loop, inlining and the fallback to
+	 * expression tree nodes). The terminals append their name to the given
+	 * log, so the order of execution can be compared.
+	 * 
+	 * @param log
+	 *            The log of the executed terminals
+	 * @return The architecture
+	 */
+	public static IndividualArchitecture<Boolean> createTraceArchitecture(StringBuilder log) {
+		ArrayList<GeneFunction<Boolean>> functions = new ArrayList<>();
+		functions.add(new OrFunction());
+		functions.add(new AndFunction());
+		functions.add(new NotFunction());
+		functions.add(new XorFunction());
+		ArrayList<GeneTerminal<Boolean>> terminals = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			terminals.add(new TraceTerminal(i, log));
+		}
+
+		ChromosomalArchitecture<Boolean> chromosome = new ChromosomalArchitecture<>();
+		final int g1 = chromosome.addGene(new GeneArchitecture<Boolean>(4, functions, terminals));
+		final int g2 = chromosome.addGene(new GeneArchitecture<Boolean>(4, functions, terminals));
+		ArrayList<GeneTerminal<Boolean>> rootTerminals = new ArrayList<>(terminals);
+		rootTerminals.add(new HomoeoticGeneElement<Boolean>(g1));
+		rootTerminals.add(new HomoeoticGeneElement<Boolean>(g2));
+		chromosome.setChromosomeRootToGene(chromosome.addGene(new GeneArchitecture<>(3, functions, rootTerminals)));
+		return IndividualArchitecture.createSingleChromosomalArchitecture(chromosome);
+	}
+
+	/**
+	 * Returns a fitness environment whose fitness is the number of nodes of
+	 * the (compiled) program of the first chromosome. The environment can be
+	 * copied and counts the evaluations of its copies.
+	 * 
+	 * @return The fitness environment
+	 */
+	public static FitnessEnvironment<Boolean> createSizeFitness() {
+		return new SizeFitness();
+	}
+
+	/**
+	 * The fitness is the size of the program.
+	 */
+	private static class SizeFitness extends FitnessEnvironment<Boolean> {
+
+		@Override
+		protected double evaluateFitness(Individual<Boolean> individual) {
+			return individual.chromosomes[0].compile().size();
+		}
+
+		@Override
+		public FitnessEnvironment<Boolean> copy() {
+			return new SizeFitness();
+		}
+	}
+
+	/**
+	 * Logs its name and returns a value depending on the length of the log.
+	 */
+	@SuppressWarnings("serial")
+	public static class TraceTerminal extends ChromosomeIndependentGeneTerminal<Boolean> {
+
+		private final transient StringBuilder log;
+		private final int id;
+
+		public TraceTerminal(int id, StringBuilder log) {
+			super("trace terminal " + id, "t" + id);
+			this.id = id;
+			this.log = log;
+		}
+
+		@Override
+		public Boolean apply() {
+			log.append(shortDescription);
+			return (log.length() + id) % 3 == 0;
+		}
+	}
+
+	/**
+	 * Short-circuit or executed by the interpreter loop or inlined.
+	 */
+	@SuppressWarnings("serial")
+	public static class OrFunction extends GeneFunction<Boolean>
+			implements ControlFlowFunction<Boolean>, InlinableFunction {
+
+		public OrFunction() {
+			super("or", "OR", 2);
+		}
+
+		@Override
+		public Boolean apply(List<ExpressionTreeNode<Boolean>> expTreeChilds) {
+			return expTreeChilds.get(0).execute() || expTreeChilds.get(1).execute();
+		}
+
+		@Override
+		public int nextChild(int executedChild, Boolean childResult) {
+			if (executedChild >= 0 && childResult) {
+				return -1;
+			}
+			return executedChild + 1 < getArity() ? executedChild + 1 : -1;
+		}
+
+		@Override
+		public Boolean getResult(int executedChild, Boolean childResult) {
+			return executedChild >= 0 && childResult;
+		}
+
+		@Override
+		public String toJavaExpression(String[] arguments) {
+			return String.join(" || ", arguments);
+		}
+	}
+
+	/**
+	 * Short-circuit and that executes its children itself or is inlined.
+	 */
+	@SuppressWarnings("serial")
+	public static class AndFunction extends GeneFunction<Boolean> implements InlinableFunction {
+
+		public AndFunction() {
+			super("and", "AND", 2);
+		}
+
+		@Override
+		public Boolean apply(List<ExpressionTreeNode<Boolean>> expTreeChilds) {
+			return expTreeChilds.get(0).execute() && expTreeChilds.get(1).execute();
+		}
+
+		@Override
+		public Boolean apply(FlatProgram<Boolean> program, int node) {
+			return program.executeChild(node, 0) && program.executeChild(node, 1);
+		}
+
+		@Override
+		public String toJavaExpression(String[] arguments) {
+			return String.join(" && ", arguments);
+		}
+	}
+
+	/**
+	 * Negation executed by the interpreter loop (not inlinable).
+	 */
+	@SuppressWarnings("serial")
+	public static class NotFunction extends GeneFunction<Boolean> implements ControlFlowFunction<Boolean> {
+
+		public NotFunction() {
+			super("not", "NOT", 1);
+		}
+
+		@Override
+		public Boolean apply(List<ExpressionTreeNode<Boolean>> expTreeChilds) {
+			return !expTreeChilds.get(0).execute();
+		}
+
+		@Override
+		public int nextChild(int executedChild, Boolean childResult) {
+			return executedChild < 0 ? 0 : -1;
+		}
+
+		@Override
+		public Boolean getResult(int executedChild, Boolean childResult) {
+			return !childResult;
+		}
+	}
+
+	/**
+	 * Exclusive or that only supports expression trees (executed via the
+	 * fallback of flat programs).
+	 */
+	@SuppressWarnings("serial")
+	public static class XorFunction extends GeneFunction<Boolean> {
+
+		public XorFunction() {
+			super("xor", "XOR", 2);
+		}
+
+		@Override
+		public Boolean apply(List<ExpressionTreeNode<Boolean>> expTreeChilds) {
+			return expTreeChilds.get(0).execute() ^ expTreeChilds.get(1).execute();
+		}
+	}
+
+}
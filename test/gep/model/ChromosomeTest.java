@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.random.PhiloxRandomEngine;
+
+public class ChromosomeTest {
+
+	@Test
+	public void testDuplicatesShareSequencesUntilWrite() {
+		Individual<Boolean>[] population = createPopulation(2, 1);
+		final Individual<Boolean> original = population[0];
+		final Individual<Boolean> spare = population[1];
+		// a duplicate created by the selection
+		spare.copyFrom(original);
+		final Individual<Boolean> copy = new Individual<>(original);
+
+		final Gene<Boolean> originalGene = original.chromosomes[0].genes[0];
+		final Gene<Boolean> spareGene = spare.chromosomes[0].genes[0];
+		final Gene<Boolean> copyGene = copy.chromosomes[0].genes[0];
+		assertTrue(originalGene.isSequenceShared());
+		assertTrue(spareGene.isSequenceShared());
+		assertTrue(copyGene.isSequenceShared());
+
+		final int symbol = originalGene.symbolAt(0);
+		final int newSymbol = (symbol + 1) % originalGene.architecture.getNumberOfFunctions();
+		spareGene.setSymbolAt(0, newSymbol);
+
+		assertFalse(spareGene.isSequenceShared());
+		assertEquals(newSymbol, spareGene.symbolAt(0));
+		assertEquals(symbol, originalGene.symbolAt(0));
+		assertEquals(symbol, copyGene.symbolAt(0));
+		// the other genes are still shared
+		assertTrue(spare.chromosomes[0].genes[1].isSequenceShared());
+	}
+
+	@Test
+	public void testSharedLinkingFunctionProgramsArePerChromosome() {
+		StringBuilder log = new StringBuilder();
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(log)
+				.createRandomPopulation(2, new PhiloxRandomEngine(2));
+		final Chromosome<Boolean> a = population[0].chromosomes[0];
+		final Chromosome<Boolean> b = new Chromosome<>(a);
+		population[1].chromosomes[0].copyFrom(a);
+		final Chromosome<Boolean> c = population[1].chromosomes[0];
+		assertSame(a.getGene(0), b.getGene(0));
+		assertSame(a.getGene(0), c.getGene(0));
+
+		final GeneProgram<Boolean> programA = a.getGeneProgram(0);
+		final ExpressionTreeNode<Boolean> treeA = a.express();
+		for (Chromosome<Boolean> other : Arrays.asList(b, c)) {
+			final GeneProgram<Boolean> programOther = other.getGeneProgram(0);
+			assertNotSame(programA, programOther);
+			assertSame(other, programOther.getChromosome());
+			assertNotSame(treeA, other.express());
+
+			// executing the other chromosomes doesn't replace the cached
+			// objects of the first one
+			log.setLength(0);
+			final Boolean result = other.execute();
+			final String trace = log.toString();
+			log.setLength(0);
+			assertEquals(result, a.execute());
+			assertEquals(trace, log.toString());
+			assertSame(programA, a.getGeneProgram(0));
+			assertSame(treeA, a.express());
+			assertSame(programOther, other.getGeneProgram(0));
+		}
+	}
+
+	@Test
+	public void testGeneProgramReusesChildNodesUntilCodingRegionIsModified() {
+		final Chromosome<Boolean> chromosome = createPopulation(1, 3)[0].chromosomes[0];
+		final Gene<Boolean> gene = chromosome.genes[0];
+		final GeneArchitecture<Boolean> architecture = gene.architecture;
+		// the xor function has no flat program implementation
+		final int xor = 3;
+		assertTrue(architecture.getElement(xor) instanceof TestArchitectures.XorFunction);
+		gene.setSymbolAt(0, xor);
+		final GeneProgram<Boolean> program = gene.getProgram(chromosome);
+
+		final List<ExpressionTreeNode<Boolean>> children = program.getChildNodes(0);
+		assertEquals(2, children.size());
+		assertSame(children, program.getChildNodes(0));
+
+		// a modification of the coding region creates new nodes
+		final int first = architecture.getNumberOfFunctions();
+		final int symbol = gene.symbolAt(1) == first ? first + 1 : first;
+		gene.setSymbolAt(1, symbol);
+		final List<ExpressionTreeNode<Boolean>> modified = program.getChildNodes(0);
+		assertNotSame(children, modified);
+		assertSame(architecture.getElement(symbol), modified.get(0).getNodeElement());
+	}
+
+	private static Individual<Boolean>[] createPopulation(int size, long seed) {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size,
+				new PhiloxRandomEngine(seed));
+	}
+
+}
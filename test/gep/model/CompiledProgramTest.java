@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.random.PhiloxRandomEngine;
+
+public class CompiledProgramTest {
+
+	@Test
+	public void testExecutionMatchesExpressionTree() {
+		StringBuilder log = new StringBuilder();
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(log)
+				.createRandomPopulation(500, new PhiloxRandomEngine(1));
+
+		for (Individual<Boolean> individual : population) {
+			Chromosome<Boolean> chromosome = individual.chromosomes[0];
+
+			log.setLength(0);
+			final Boolean expected = chromosome.express().execute();
+			final String expectedTrace = log.toString();
+
+			log.setLength(0);
+			assertEquals(expected, chromosome.compile().execute());
+			assertEquals(expectedTrace, log.toString());
+
+			log.setLength(0);
+			assertEquals(expected, chromosome.execute());
+			assertEquals(expectedTrace, log.toString());
+		}
+	}
+
+	@Test
+	public void testPrefixLayout() {
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(200, new PhiloxRandomEngine(2));
+
+		for (Individual<Boolean> individual : population) {
+			Chromosome<Boolean> chromosome = individual.chromosomes[0];
+			CompiledProgram<Boolean> program = chromosome.compile();
+
+			List<ExpressionTreeNode<Boolean>> prefixOrder = new ArrayList<>();
+			List<Integer> subtreeSizes = new ArrayList<>();
+			collectPrefixOrder(chromosome, chromosome.express(), prefixOrder, subtreeSizes);
+
+			assertEquals(prefixOrder.size(), program.size());
+			for (int node = 0; node < program.size(); node++) {
+				final ExpressionTreeNode<Boolean> etn = prefixOrder.get(node);
+				assertEquals(etn.getNodeElement(), program.getElement(node));
+				assertEquals(node + subtreeSizes.get(node), program.getSkip(node));
+				for (int i = 0; i < etn.getChildren().size(); i++) {
+					assertEquals(inlineLinkedGenes(chromosome, etn.getChildren().get(i)),
+							prefixOrder.get(program.getChild(node, i)));
+				}
+			}
+		}
+	}
+
+	private static int collectPrefixOrder(Chromosome<Boolean> chromosome, ExpressionTreeNode<Boolean> etn,
+			List<ExpressionTreeNode<Boolean>> order, List<Integer> subtreeSizes) {
+		etn = inlineLinkedGenes(chromosome, etn);
+		final int idx = order.size();
+		order.add(etn);
+		subtreeSizes.add(0);
+		int size = 1;
+		for (ExpressionTreeNode<Boolean> child : etn.getChildren()) {
+			size += collectPrefixOrder(chromosome, child, order, subtreeSizes);
+		}
+		subtreeSizes.set(idx, size);
+		return size;
+	}
+
+	private static ExpressionTreeNode<Boolean> inlineLinkedGenes(Chromosome<Boolean> chromosome,
+			ExpressionTreeNode<Boolean> etn) {
+		while (etn.getNodeElement() instanceof HomoeoticGeneElement) {
+			final int linkedGeneId = ((HomoeoticGeneElement<Boolean>) etn.getNodeElement()).linkedGeneId;
+			etn = chromosome.getGene(linkedGeneId).express(chromosome);
+		}
+		return etn;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.operators.Inversion;
+import gep.operators.Mutation;
+import gep.operators.OnePointRecombination;
+import gep.random.PhiloxRandomEngine;
+
+public class PopulationStoreTest {
+
+	@Test
+	public void testOffHeapPopulationRoundTrip() {
+		IndividualArchitecture<Boolean> architecture = TestArchitectures.createTraceArchitecture(new StringBuilder());
+		Individual<Boolean>[] heap = architecture.createRandomPopulation(20, new PhiloxRandomEngine(1));
+		Individual<Boolean>[] offHeap = architecture.createRandomOffHeapPopulation(20, new PhiloxRandomEngine(1));
+		assertEquals(symbolsOf(heap), symbolsOf(offHeap));
+
+		// mutate both populations the same way
+		for (Individual<Boolean>[] population : Arrays.asList(heap, offHeap)) {
+			new Mutation(0.1, new PhiloxRandomEngine(2), true).apply(population, 0);
+			new Inversion(0.5, new PhiloxRandomEngine(3)).apply(population, 0);
+			new OnePointRecombination(0.5, new PhiloxRandomEngine(4)).apply(population, 0);
+		}
+		assertEquals(symbolsOf(heap), symbolsOf(offHeap));
+
+		// copies within the store and into individuals on the heap
+		for (Individual<Boolean>[] population : Arrays.asList(heap, offHeap)) {
+			population[3].setFitness(7.0);
+			population[5].copyFrom(population[3]);
+			population[6].copyFrom(population[5]);
+		}
+		assertEquals(symbolsOf(heap), symbolsOf(offHeap));
+		assertEquals(7.0, offHeap[6].getFitness(), 0.0);
+
+		Individual<Boolean> copy = new Individual<>(offHeap[6]);
+		assertEquals(symbolsOf(offHeap[3]), symbolsOf(copy));
+		assertFalse(copy.chromosomes[0].genes[0].isSequenceShared());
+		heap[7].copyFrom(offHeap[8]);
+		assertEquals(symbolsOf(offHeap[8]), symbolsOf(heap[7]));
+
+		// modifying a copy doesn't modify the store
+		final String stored = symbolsOf(offHeap[6]);
+		copy.chromosomes[0].genes[0].setSymbolAt(0, (copy.chromosomes[0].genes[0].symbolAt(0) + 1) % 4);
+		assertEquals(stored, symbolsOf(offHeap[6]));
+
+		// the expression trees of the copies are up to date
+		assertEquals(heap[6].chromosomes[0].express().toString(), offHeap[6].chromosomes[0].express().toString());
+	}
+
+	private static String symbolsOf(Individual<Boolean>[] population) {
+		StringBuilder sb = new StringBuilder();
+		for (Individual<Boolean> individual : population) {
+			sb.append(symbolsOf(individual)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static String symbolsOf(Individual<Boolean> individual) {
+		StringBuilder sb = new StringBuilder();
+		for (Chromosome<Boolean> c : individual.chromosomes) {
+			for (Gene<Boolean> g : c.genes) {
+				sb.append(Arrays.toString(g.getSymbols(0, g.getSequenceLength()))).append(';');
+			}
+		}
+		return sb.toString();
+	}
+
+}
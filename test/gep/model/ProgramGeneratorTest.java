@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.random.PhiloxRandomEngine;
+
+public class ProgramGeneratorTest {
+
+	@Test
+	public void testGeneratedProgramsMatchInterpreter() {
+		ProgramGenerator<Boolean> generator = new ProgramGenerator<>(Boolean.class, 1);
+		assumeTrue(generator.isAvailable());
+
+		StringBuilder log = new StringBuilder();
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(log)
+				.createRandomPopulation(50, new PhiloxRandomEngine(3));
+
+		for (Individual<Boolean> individual : population) {
+			Chromosome<Boolean> chromosome = individual.chromosomes[0];
+			Program<Boolean> program = generator.getProgram(chromosome);
+			assertFalse(program instanceof CompiledProgram);
+
+			for (int run = 0; run < 3; run++) {
+				log.setLength(0);
+				final Boolean expected = chromosome.compile().execute();
+				final String expectedTrace = log.toString();
+
+				log.setLength(0);
+				assertEquals(expected, program.execute());
+				assertEquals(expectedTrace, log.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testClassIsGeneratedOnceHot() {
+		ProgramGenerator<Boolean> generator = new ProgramGenerator<>(Boolean.class, 3);
+		assumeTrue(generator.isAvailable());
+
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(1, new PhiloxRandomEngine(4));
+		Chromosome<Boolean> chromosome = population[0].chromosomes[0];
+
+		assertTrue(generator.getProgram(chromosome) instanceof CompiledProgram);
+		assertTrue(generator.getProgram(chromosome) instanceof CompiledProgram);
+		Program<Boolean> generated = generator.getProgram(chromosome);
+		assertFalse(generated instanceof CompiledProgram);
+		// the generated program is kept by the compiled program
+		assertTrue(generated == generator.getProgram(chromosome));
+
+		// a copy of the individual has the same structure and is hot already
+		Individual<Boolean> copy = new Individual<>(population[0]);
+		assertFalse(generator.getProgram(copy.chromosomes[0]) instanceof CompiledProgram);
+	}
+
+	@Test
+	public void testProgramsOfSameStructureShareClass() {
+		ProgramGenerator<Boolean> generator = new ProgramGenerator<>(Boolean.class, 1);
+		assumeTrue(generator.isAvailable());
+
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(2, new PhiloxRandomEngine(5));
+		Individual<Boolean> copy = new Individual<>(population[0]);
+		Program<Boolean> generated = generator.getProgram(population[0].chromosomes[0]);
+		Program<Boolean> generatedCopy = generator.getProgram(copy.chromosomes[0]);
+		assertFalse(generated == generatedCopy);
+		assertEquals(generated.getClass(), generatedCopy.getClass());
+	}
+
+	@Test
+	public void testConcurrentRequestsAreCounted() throws Exception {
+		final int numThreads = 8;
+		final ProgramGenerator<Boolean> generator = new ProgramGenerator<>(Boolean.class, numThreads + 1);
+		assumeTrue(generator.isAvailable());
+
+		final Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(1, new PhiloxRandomEngine(6));
+		final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+		final List<Throwable> errors = new ArrayList<>();
+		final Thread[] threads = new Thread[numThreads];
+		for (int t = 0; t < numThreads; t++) {
+			// every thread requests the program of its own copy once
+			final Individual<Boolean> copy = new Individual<>(population[0]);
+			threads[t] = new Thread(() -> {
+				try {
+					barrier.await();
+					assertTrue(generator.getProgram(copy.chromosomes[0]) instanceof CompiledProgram);
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(errors.toString(), errors.isEmpty());
+		// no request was lost => the next request makes the structure hot
+		assertFalse(generator.getProgram(population[0].chromosomes[0]) instanceof CompiledProgram);
+	}
+
+}
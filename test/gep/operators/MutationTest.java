@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.operators;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Chromosome;
+import gep.model.Gene;
+import gep.model.GeneElement;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class MutationTest {
+
+	private static final double RATE = 0.1;
+	private static final int POPULATION_SIZE = 100;
+	private static final int NUM_TRIALS = 20;
+
+	@Test
+	public void testPerPositionMutationCountMatchesRate() {
+		assertMutationCountMatchesRate(false);
+	}
+
+	@Test
+	public void testSkipSamplingMutationCountMatchesRate() {
+		assertMutationCountMatchesRate(true);
+	}
+
+	/**
+	 * Compares the mean number of mutations per gene with rate * length.
+	 * Both modes draw exactly one integer (the new symbol) per mutation.
+	 */
+	private static void assertMutationCountMatchesRate(boolean skipSampling) {
+		CountingRandomEngine random = new CountingRandomEngine(new PhiloxRandomEngine(skipSampling ? 1 : 2));
+		Mutation mutation = new Mutation(RATE, random, skipSampling);
+
+		long numPositions = 0;
+		long numGenes = 0;
+		for (int t = 0; t < NUM_TRIALS; t++) {
+			Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+					.createRandomPopulation(POPULATION_SIZE, new PhiloxRandomEngine(100 + t));
+			for (Individual<Boolean> individual : population) {
+				for (Chromosome<Boolean> c : individual.chromosomes) {
+					for (Gene<Boolean> g : c.genes) {
+						numPositions += g.getSequenceLength();
+						numGenes++;
+					}
+				}
+			}
+			mutation.apply(population, 0);
+		}
+
+		final double meanPerGene = (double) random.numInts / numGenes;
+		final double expectedPerGene = RATE * numPositions / numGenes;
+		final double sigmaPerGene = Math.sqrt(numPositions * RATE * (1 - RATE)) / numGenes;
+		assertEquals(expectedPerGene, meanPerGene, 5 * sigmaPerGene);
+	}
+
+	/**
+	 * Counts the integers drawn from the wrapped engine.
+	 */
+	private static class CountingRandomEngine implements RandomEngine {
+
+		private final RandomEngine engine;
+		long numInts = 0;
+
+		CountingRandomEngine(RandomEngine engine) {
+			this.engine = engine;
+		}
+
+		@Override
+		public boolean decideTakeFunction() {
+			return engine.decideTakeFunction();
+		}
+
+		@Override
+		public <T extends GeneElement<?>> T pickElement(ArrayList<T> elements) {
+			return engine.pickElement(elements);
+		}
+
+		@Override
+		public boolean decideBinaryDecision(double probabilityYes) {
+			return engine.decideBinaryDecision(probabilityYes);
+		}
+
+		@Override
+		public boolean decideBinaryDecision() {
+			return engine.decideBinaryDecision();
+		}
+
+		@Override
+		public double getDouble() {
+			return engine.getDouble();
+		}
+
+		@Override
+		public int getInt(int fromIncl, int toExcl) {
+			numInts++;
+			return engine.getInt(fromIncl, toExcl);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import gep.model.GeneElement;
+
+public class RandomEngineTest {
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testEnginesWithoutSplitSupportThrowOnSplit() {
+		new FixedRandomEngine().split();
+	}
+
+	@Test
+	public void testSplitsAreDeterministic() {
+		PhiloxRandomEngine a = new PhiloxRandomEngine(9);
+		PhiloxRandomEngine b = new PhiloxRandomEngine(9);
+		RandomEngine splitA = a.split();
+		RandomEngine splitB = b.split();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(splitA.getInt(0, 1000), splitB.getInt(0, 1000));
+			assertEquals(a.getInt(0, 1000), b.getInt(0, 1000));
+		}
+		assertNotEquals(a.split().getDouble(), a.split().getDouble(), 0.0);
+	}
+
+	@Test
+	public void testMasterEngineWithSameSeedSplitsSameEngines() {
+		MasterRandomEngine.setSeed(17);
+		RandomEngine first = MasterRandomEngine.split();
+		RandomEngine second = MasterRandomEngine.split();
+		MasterRandomEngine.setSeed(17);
+		RandomEngine firstAgain = MasterRandomEngine.split();
+		RandomEngine secondAgain = MasterRandomEngine.split();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(first.getInt(0, 1000), firstAgain.getInt(0, 1000));
+			assertEquals(second.getInt(0, 1000), secondAgain.getInt(0, 1000));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMasterEngineRejectsNull() {
+		MasterRandomEngine.setEngine(null);
+	}
+
+	/**
+	 * An engine implementing only the methods that have to be implemented.
+	 */
+	private static class FixedRandomEngine implements RandomEngine {
+
+		@Override
+		public boolean decideTakeFunction() {
+			return true;
+		}
+
+		@Override
+		public <T extends GeneElement<?>> T pickElement(ArrayList<T> elements) {
+			return elements.get(0);
+		}
+
+		@Override
+		public boolean decideBinaryDecision(double probabilityYes) {
+			return probabilityYes >= 0.5;
+		}
+
+		@Override
+		public boolean decideBinaryDecision() {
+			return true;
+		}
+
+		@Override
+		public double getDouble() {
+			return 0.5;
+		}
+
+		@Override
+		public int getInt(int from, int to) {
+			return from;
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class AliasSamplerTest {
+
+	private static final int NUM_SAMPLES = 200000;
+
+	@Test
+	public void testFrequenciesMatchWeights() {
+		final double[] weights = { 1.0, 0.0, 3.0, 0.5, 2.5, 0.0, 7.0, 1.0 };
+		double sum = 0.0;
+		for (double w : weights) {
+			sum += w;
+		}
+
+		final int[] counts = sample(new AliasSampler(weights), new PhiloxRandomEngine(1));
+		for (int i = 0; i < weights.length; i++) {
+			final double expected = weights[i] / sum;
+			final double observed = counts[i] / (double) NUM_SAMPLES;
+			// more than 5 standard deviations off would be very unlikely
+			final double tolerance = 5 * Math.sqrt(expected * (1 - expected) / NUM_SAMPLES) + 1e-9;
+			assertEquals("frequency of index " + i, expected, observed, tolerance);
+		}
+		assertEquals(0, counts[1]);
+		assertEquals(0, counts[5]);
+	}
+
+	@Test
+	public void testAllZeroWeightsAreSampledUniformly() {
+		final int[] counts = sample(new AliasSampler(new double[4]), new PhiloxRandomEngine(2));
+		for (int i = 0; i < counts.length; i++) {
+			assertEquals(0.25, counts[i] / (double) NUM_SAMPLES, 0.01);
+		}
+	}
+
+	@Test
+	public void testSingleWeight() {
+		AliasSampler sampler = new AliasSampler(new double[] { 0.3 });
+		assertEquals(1, sampler.size());
+		final int[] counts = sample(sampler, new PhiloxRandomEngine(3));
+		assertEquals(NUM_SAMPLES, counts[0]);
+	}
+
+	@Test
+	public void testRebuildWithOtherSize() {
+		AliasSampler sampler = new AliasSampler(new double[] { 1.0, 1.0, 1.0 });
+		sampler.build(new double[] { 0.0, 1.0 });
+		assertEquals(2, sampler.size());
+		final int[] counts = sample(sampler, new PhiloxRandomEngine(4));
+		assertEquals(0, counts[0]);
+		assertEquals(NUM_SAMPLES, counts[1]);
+	}
+
+	@Test
+	public void testBuildFromFitnessValues() {
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(3, new PhiloxRandomEngine(5));
+		AliasSampler sampler = new AliasSampler();
+		for (int generation = 0; generation < 3; generation++) {
+			for (int i = 0; i < population.length; i++) {
+				population[i].setFitness(i == generation ? 1.0 : 0.0);
+			}
+			sampler.build(population);
+			final int[] counts = sample(sampler, new PhiloxRandomEngine(6));
+			assertEquals(NUM_SAMPLES, counts[generation]);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeWeightsAreRejected() {
+		new AliasSampler(new double[] { 1.0, -1.0 });
+	}
+
+	private static int[] sample(AliasSampler sampler, RandomEngine random) {
+		final int[] counts = new int[sampler.size()];
+		for (int i = 0; i < NUM_SAMPLES; i++) {
+			counts[sampler.sample(random)]++;
+		}
+		return counts;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Chromosome;
+import gep.model.Gene;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class SelectionHelperTest {
+
+	@Test
+	public void testFillPopulationCopiesDuplicatesIntoSpares() {
+		RandomEngine r = new PhiloxRandomEngine(42);
+		Individual<Boolean>[] oldPopulation = TestArchitectures
+				.createTraceArchitecture(new StringBuilder()).createRandomPopulation(8, r);
+		String[] symbols = new String[oldPopulation.length];
+		for (int i = 0; i < oldPopulation.length; i++) {
+			oldPopulation[i].setFitness(i);
+			symbols[i] = symbolsOf(oldPopulation[i]);
+		}
+		final Individual<Boolean>[] original = oldPopulation.clone();
+
+		// individual 2 is selected three times, 5 twice, 0, 3 and 7 never
+		final int[] selectedIdx = { 2, 5, 2, 1, 6, 5, 4, 2 };
+		Individual<Boolean>[] population = original.clone();
+		Arrays.fill(population, null);
+		SelectionHelper.fillPopulation(population, oldPopulation, selectedIdx);
+
+		Set<Individual<Boolean>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < population.length; i++) {
+			assertTrue("individual " + i + " appears twice", seen.add(population[i]));
+			assertEquals(symbols[selectedIdx[i]], symbolsOf(population[i]));
+			assertEquals(selectedIdx[i], population[i].getFitness(), 0.0);
+		}
+		// the first occurrence reuses the selected object, the others spares
+		assertTrue(population[0] == original[2]);
+		assertTrue(population[1] == original[5]);
+		assertTrue(population[3] == original[1]);
+		for (int i : new int[] { 2, 5, 7 }) {
+			assertTrue(population[i] == original[0] || population[i] == original[3]
+					|| population[i] == original[7]);
+		}
+	}
+
+	@Test
+	public void testFillPopulationWithoutDuplicates() {
+		RandomEngine r = new PhiloxRandomEngine(7);
+		Individual<Boolean>[] oldPopulation = TestArchitectures
+				.createTraceArchitecture(new StringBuilder()).createRandomPopulation(4, r);
+		Individual<Boolean>[] population = oldPopulation.clone();
+		SelectionHelper.fillPopulation(population, oldPopulation, new int[] { 3, 0, 2, 1 });
+
+		assertTrue(population[0] == oldPopulation[3]);
+		assertTrue(population[1] == oldPopulation[0]);
+		assertTrue(population[2] == oldPopulation[2]);
+		assertTrue(population[3] == oldPopulation[1]);
+	}
+
+	private static String symbolsOf(Individual<Boolean> individual) {
+		StringBuilder sb = new StringBuilder();
+		for (Chromosome<Boolean> c : individual.chromosomes) {
+			for (Gene<Boolean> g : c.genes) {
+				sb.append(Arrays.toString(g.getSymbols(0, g.getSequenceLength()))).append(';');
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class StochasticUniversalSamplingTest {
+
+	@Test
+	public void testNumberOfCopiesIsWithinOneOfExpectation() {
+		RandomEngine random = new PhiloxRandomEngine(1);
+		for (int trial = 0; trial < 50; trial++) {
+			checkSelection(new StochasticUniversalSampling(random), random, 0);
+		}
+	}
+
+	@Test
+	public void testEliteIsPreserved() {
+		RandomEngine random = new PhiloxRandomEngine(2);
+		for (int trial = 0; trial < 50; trial++) {
+			checkSelection(new StochasticUniversalSampling(random, 0.1), random, 4);
+		}
+	}
+
+	@Test
+	public void testZeroFitnessPopulation() {
+		Individual<Boolean>[] population = createPopulation(10, new PhiloxRandomEngine(3));
+		for (Individual<Boolean> individual : population) {
+			individual.setFitness(0.0);
+		}
+		assertEquals(0, new StochasticUniversalSampling(new PhiloxRandomEngine(4)).select(population));
+		assertEquals(10, population.length);
+	}
+
+	/**
+	 * Selects from a population with distinct random fitness values (which
+	 * identify the individuals) and checks the number of copies of every
+	 * individual.
+	 */
+	private static void checkSelection(StochasticUniversalSampling sus, RandomEngine random, int numElites) {
+		final int n = 40;
+		Individual<Boolean>[] population = createPopulation(n, random);
+		double totalFitness = 0.0;
+		for (int i = 0; i < n; i++) {
+			// some individuals can't be selected
+			final double fitness = i % 7 == 0 ? 0.0 : random.getDouble() * 10 + i * 1e-6;
+			population[i].setFitness(fitness);
+			totalFitness += fitness;
+		}
+		final double[] fitness = new double[n];
+		for (int i = 0; i < n; i++) {
+			fitness[i] = population[i].getFitness();
+		}
+		final double[] sorted = fitness.clone();
+		Arrays.sort(sorted);
+
+		assertEquals(numElites, sus.select(population));
+
+		Map<Double, Integer> copies = new HashMap<>();
+		for (Individual<Boolean> individual : population) {
+			copies.merge(individual.getFitness(), 1, Integer::sum);
+		}
+		for (int e = 0; e < numElites; e++) {
+			// the elites are the best individuals (ordered by fitness)
+			assertEquals(sorted[n - 1 - e], population[e].getFitness(), 0.0);
+		}
+
+		final int numSelections = n - numElites;
+		for (int i = 0; i < n; i++) {
+			final boolean isElite = numElites > 0 && fitness[i] >= sorted[n - numElites];
+			final int numCopies = copies.getOrDefault(fitness[i], 0) - (isElite ? 1 : 0);
+			final double expected = numSelections * fitness[i] / totalFitness;
+			assertTrue("copies of individual " + i + ": " + numCopies + " expected " + expected,
+					Math.abs(numCopies - expected) < 1.0 + 1e-9);
+		}
+	}
+
+	private static Individual<Boolean>[] createPopulation(int size, RandomEngine random) {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size, random);
+	}
+
+}
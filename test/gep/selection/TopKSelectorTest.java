@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+import gep.random.RandomEngine;
+
+public class TopKSelectorTest {
+
+	/**
+	 * The fitness values drawn for the individuals. The small set yields many
+	 * ties.
+	 */
+	private static final double[] VALUES = { Double.NaN, Double.POSITIVE_INFINITY, -0.0, 0.0, 1.0, 2.5, 7.0 };
+
+	@Test
+	public void testSelectionMatchesSortedReference() {
+		RandomEngine random = new PhiloxRandomEngine(1);
+		Individual<Boolean>[] individuals = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(200, random);
+		// one selector for all populations (reused buffers)
+		TopKSelector selector = new TopKSelector();
+
+		for (int trial = 0; trial < 300; trial++) {
+			final int n = 1 + random.getInt(0, individuals.length);
+			Individual<Boolean>[] population = Arrays.copyOf(individuals, n);
+			final boolean manyTies = random.decideBinaryDecision();
+			for (Individual<Boolean> individual : population) {
+				individual.setFitness(manyTies ? VALUES[random.getInt(0, VALUES.length)] : random.getDouble());
+			}
+			final int[] reference = sortedReference(population);
+
+			for (int k : new int[] { 0, 1, n, random.getInt(0, n + 1) }) {
+				final int[] topIdx = new int[n];
+				Arrays.fill(topIdx, -1);
+				selector.selectTop(population, k, topIdx);
+				assertArrayEquals("n=" + n + " k=" + k, Arrays.copyOf(reference, k), Arrays.copyOf(topIdx, k));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooLargeKIsRejected() {
+		Individual<Boolean>[] population = TestArchitectures.createTraceArchitecture(new StringBuilder())
+				.createRandomPopulation(3, new PhiloxRandomEngine(2));
+		new TopKSelector().selectTop(population, 4, new int[4]);
+	}
+
+	/**
+	 * Returns all indices ordered by decreasing fitness and increasing index.
+	 */
+	private static int[] sortedReference(Individual<Boolean>[] population) {
+		Integer[] indices = new Integer[population.length];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		Arrays.sort(indices, Comparator
+				.<Integer> comparingDouble(i -> population[i].getFitness()).reversed()
+				.thenComparingInt(i -> i));
+		final int[] sorted = new int[indices.length];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = indices[i];
+		}
+		return sorted;
+	}
+
+}
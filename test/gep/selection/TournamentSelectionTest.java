@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.model.Individual;
+import gep.random.PhiloxRandomEngine;
+
+public class TournamentSelectionTest {
+
+	private static final int POPULATION_SIZE = 10;
+
+	@Test
+	public void testTournamentSizeOneSelectsUniformly() {
+		final int numSelections = 20000;
+		Individual<Boolean>[] population = createPopulation();
+		TournamentSelection selection = new TournamentSelection(new PhiloxRandomEngine(1), 1);
+		final int[] counts = new int[POPULATION_SIZE];
+		for (int s = 0; s < numSelections; s++) {
+			assignFitness(population);
+			assertEquals(0, selection.select(population));
+			for (Individual<Boolean> individual : population) {
+				counts[(int) individual.getFitness()]++;
+			}
+		}
+		final double expected = 1.0 / POPULATION_SIZE;
+		final int numDrawn = numSelections * POPULATION_SIZE;
+		// more than 5 standard deviations off would be very unlikely
+		final double tolerance = 5 * Math.sqrt(expected * (1 - expected) / numDrawn);
+		for (int i = 0; i < POPULATION_SIZE; i++) {
+			assertEquals("frequency of fitness " + i, expected, counts[i] / (double) numDrawn, tolerance);
+		}
+	}
+
+	@Test
+	public void testTournamentOfPopulationSizeAlwaysSelectsBest() {
+		Individual<Boolean>[] population = createPopulation();
+		TournamentSelection selection = new TournamentSelection(new PhiloxRandomEngine(2), POPULATION_SIZE);
+		for (int s = 0; s < 100; s++) {
+			assignFitness(population);
+			selection.select(population);
+			for (Individual<Boolean> individual : population) {
+				assertEquals(POPULATION_SIZE - 1, individual.getFitness(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testElitePrefixAndReturnedIndex() {
+		Individual<Boolean>[] population = createPopulation();
+		TournamentSelection selection = new TournamentSelection(new PhiloxRandomEngine(3), 2, 0.3);
+		for (int s = 0; s < 100; s++) {
+			assignFitness(population);
+			final Individual<Boolean> best = population[POPULATION_SIZE - 1];
+			final Individual<Boolean> secondBest = population[POPULATION_SIZE - 2];
+			final Individual<Boolean> thirdBest = population[POPULATION_SIZE - 3];
+			assertEquals(3, selection.select(population));
+			assertEquals(POPULATION_SIZE - 1, population[0].getFitness(), 0.0);
+			assertEquals(POPULATION_SIZE - 2, population[1].getFitness(), 0.0);
+			assertEquals(POPULATION_SIZE - 3, population[2].getFitness(), 0.0);
+			// the elite keeps its objects
+			assertSame(best, population[0]);
+			assertSame(secondBest, population[1]);
+			assertSame(thirdBest, population[2]);
+		}
+		// at least one elite if the preservation percentage is positive
+		TournamentSelection minimal = new TournamentSelection(new PhiloxRandomEngine(4), 2, 0.01);
+		assignFitness(population);
+		assertEquals(1, minimal.select(population));
+		assertEquals(POPULATION_SIZE - 1, population[0].getFitness(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsEmptyTournament() {
+		new TournamentSelection(new PhiloxRandomEngine(5), 0);
+	}
+
+	private static Individual<Boolean>[] createPopulation() {
+		return TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(POPULATION_SIZE,
+				new PhiloxRandomEngine(6));
+	}
+
+	/**
+	 * Gives every individual its index as fitness.
+	 */
+	private static void assignFitness(Individual<Boolean>[] population) {
+		for (int i = 0; i < population.length; i++) {
+			population[i].setFitness(i);
+		}
+	}
+
+}
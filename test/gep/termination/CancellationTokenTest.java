@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CancellationTokenTest {
+
+	@Test
+	public void testCancellationFromAnotherThreadIsObserved() throws InterruptedException {
+		final CancellationToken token = new CancellationToken();
+		final TestState state = new TestState();
+		assertFalse(token.isCancelled());
+		assertFalse(token.shouldTerminate(state));
+
+		final CountDownLatch observed = new CountDownLatch(1);
+		Thread observer = new Thread(() -> {
+			// spins on the volatile flag until the cancellation is visible
+			while (!token.shouldTerminate(state)) {
+				Thread.yield();
+			}
+			observed.countDown();
+		});
+		observer.start();
+		Thread canceller = new Thread(token::cancel);
+		canceller.start();
+		canceller.join();
+
+		assertTrue(observed.await(10, TimeUnit.SECONDS));
+		assertTrue(token.isCancelled());
+		observer.join();
+	}
+
+	@Test
+	public void testCombinedCriteria() {
+		CancellationToken first = new CancellationToken();
+		CancellationToken second = new CancellationToken();
+		TestState state = new TestState();
+		TerminationCriterion or = first.or(second);
+		TerminationCriterion and = first.and(second);
+		assertFalse(or.shouldTerminate(state));
+		first.cancel();
+		assertTrue(or.shouldTerminate(state));
+		assertFalse(and.shouldTerminate(state));
+		second.cancel();
+		assertTrue(and.shouldTerminate(state));
+		assertFalse(TerminationCriterion.never().shouldTerminate(state));
+	}
+
+}
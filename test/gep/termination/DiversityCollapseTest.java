@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import gep.TestArchitectures;
+import gep.random.PhiloxRandomEngine;
+
+public class DiversityCollapseTest {
+
+	@Test
+	public void testDistinctFraction() {
+		TestState state = createState(4);
+		assertEquals(1.0, DiversityCollapse.getDistinctFraction(state.population), 0.0);
+		copyFirstInto(state, 3);
+		assertEquals(0.25, DiversityCollapse.getDistinctFraction(state.population), 0.0);
+	}
+
+	@Test
+	public void testTerminatesIfFractionFallsBelowMinimum() {
+		DiversityCollapse criterion = new DiversityCollapse(0.5);
+		TestState state = createState(4);
+		assertFalse(criterion.shouldTerminate(state));
+		// two distinct phenotypes => fraction 0.5 is not below the minimum
+		copyFirstInto(state, 2);
+		assertFalse(criterion.shouldTerminate(state));
+		copyFirstInto(state, 3);
+		assertTrue(criterion.shouldTerminate(state));
+	}
+
+	@Test
+	public void testChecksOnlyEveryCheckInterval() {
+		DiversityCollapse criterion = new DiversityCollapse(0.5, 3);
+		TestState state = createState(4);
+		copyFirstInto(state, 3);
+		for (int g = 0; g < 7; g++) {
+			state.generation = g;
+			assertEquals("generation " + g, g % 3 == 0, criterion.shouldTerminate(state));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsInvalidCheckInterval() {
+		new DiversityCollapse(0.5, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsInvalidFraction() {
+		new DiversityCollapse(1.5);
+	}
+
+	private static TestState createState(int size) {
+		TestState state = new TestState();
+		state.population = TestArchitectures.createTraceArchitecture(new StringBuilder()).createRandomPopulation(size,
+				new PhiloxRandomEngine(13));
+		return state;
+	}
+
+	/**
+	 * Copies the first individual into the given number of following ones.
+	 */
+	private static void copyFirstInto(TestState state, int numCopies) {
+		for (int i = 1; i <= numCopies; i++) {
+			state.population[i].copyFrom(state.population[0]);
+		}
+	}
+
+}
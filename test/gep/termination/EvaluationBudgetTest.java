@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EvaluationBudgetTest {
+
+	@Test
+	public void testTerminatesWhenBudgetIsUsedUp() {
+		EvaluationBudget budget = new EvaluationBudget(100);
+		TestState state = new TestState();
+		state.numberOfEvaluations = 99;
+		assertFalse(budget.shouldTerminate(state));
+		state.numberOfEvaluations = 100;
+		assertTrue(budget.shouldTerminate(state));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsEmptyBudget() {
+		new EvaluationBudget(0);
+	}
+
+}
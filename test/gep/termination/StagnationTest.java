@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StagnationTest {
+
+	@Test
+	public void testTerminatesAfterGenerationsWithoutImprovement() {
+		Stagnation stagnation = new Stagnation(3);
+		TestState state = new TestState();
+		for (int g = 0; g < 3; g++) {
+			state.generationsWithoutImprovement = g;
+			assertFalse(stagnation.shouldTerminate(state));
+		}
+		state.generationsWithoutImprovement = 3;
+		assertTrue(stagnation.shouldTerminate(state));
+		// an improvement resets the window
+		state.generationsWithoutImprovement = 0;
+		assertFalse(stagnation.shouldTerminate(state));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsEmptyWindow() {
+		new Stagnation(0);
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Johannes Wortmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gep.termination;
+
+import gep.model.Individual;
+
+/**
+ * An evolution state whose values are set directly by the tests.
+ */
+class TestState implements EvolutionState<Boolean> {
+
+	int generation = 0;
+	Individual<Boolean>[] population = null;
+	int bestIndividualIdx = 0;
+	double bestFitnessOfRun = 0.0;
+	int generationsWithoutImprovement = 0;
+	long numberOfEvaluations = 0;
+	long elapsedNanos = 0;
+
+	@Override
+	public int getGeneration() {
+		return generation;
+	}
+
+	@Override
+	public Individual<Boolean>[] getPopulation() {
+		return population;
+	}
+
+	@Override
+	public int getBestIndividualIdx() {
+		return bestIndividualIdx;
+	}
+
+	@Override
+	public double getBestFitnessOfRun() {
+		return bestFitnessOfRun;
+	}
+
+	@Override
+	public int getGenerationsWithoutImprovement() {
+		return generationsWithoutImprovement;
+	}
+
+	@Override
+	public long getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	@Override
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+}